@@ -1,8 +1,11 @@
 package com.example.bankcards.config;
 
+import com.example.bankcards.security.PasswordEncoders;
 import com.example.bankcards.security.jwt.JwtFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -10,7 +13,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -19,6 +21,7 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -31,9 +34,17 @@ public class SecurityConfig {
 
     private final JwtFilter jwtFilter;
 
+    /**
+     * Application endpoints are authorized with {@code @PreAuthorize}. Actuator endpoints other than
+     * health expose operational metrics and are restricted to administrators.
+     */
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         return http
+                .authorizeHttpRequests(requests -> requests
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).hasAuthority("ADMIN")
+                        .anyRequest().permitAll())
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .httpBasic(AbstractHttpConfigurer::disable)
@@ -42,9 +53,26 @@ public class SecurityConfig {
                 .build();
     }
 
+    /**
+     * Password encoder selected by {@code security.password.encoder}. Hashes of the other supported
+     * algorithms are still verified and are rehashed with the selected one on the next login.
+     */
     @Bean
-    public PasswordEncoder getPasswordEncoder() {
-        return new BCryptPasswordEncoder(4);
+    public PasswordEncoder getPasswordEncoder(
+            @Value("${security.password.encoder:bcrypt}") String encoder,
+            @Value("${security.password.bcrypt.strength:10}") int bcryptStrength,
+            @Value("${security.password.argon2.salt-length:16}") int argon2SaltLength,
+            @Value("${security.password.argon2.hash-length:32}") int argon2HashLength,
+            @Value("${security.password.argon2.parallelism:1}") int argon2Parallelism,
+            @Value("${security.password.argon2.memory:19456}") int argon2Memory,
+            @Value("${security.password.argon2.iterations:2}") int argon2Iterations,
+            @Value("${security.password.pbkdf2.salt-length:16}") int pbkdf2SaltLength,
+            @Value("${security.password.pbkdf2.iterations:600000}") int pbkdf2Iterations) {
+        return PasswordEncoders.delegating(encoder, Map.of(
+                PasswordEncoders.BCRYPT, PasswordEncoders.bcrypt(bcryptStrength),
+                PasswordEncoders.ARGON2, PasswordEncoders.argon2(argon2SaltLength, argon2HashLength,
+                        argon2Parallelism, argon2Memory, argon2Iterations),
+                PasswordEncoders.PBKDF2, PasswordEncoders.pbkdf2(pbkdf2SaltLength, pbkdf2Iterations)));
     }
 
     @Bean
@@ -2,6 +2,9 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.auth.AuthenticationRequest;
 import com.example.bankcards.dto.auth.JwtAuthenticationDto;
+import com.example.bankcards.dto.auth.RefreshTokenDto;
+import com.example.bankcards.security.LoginThrottle;
+import com.example.bankcards.security.PasswordHashingExecutor;
 import com.example.bankcards.service.AuthenticationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -9,7 +12,9 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -23,6 +28,8 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Authentication", description = "Authentication API")
 public class AuthenticationController {
     private final AuthenticationService authenticationService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final LoginThrottle loginThrottle;
 
   @Operation(summary = "Authenticate user and get JWT token")
   @ApiResponses(value = {
@@ -31,10 +38,30 @@ public class AuthenticationController {
               schema = @Schema(implementation = JwtAuthenticationDto.class))),
       @ApiResponse(responseCode = "400", description = "Invalid input"),
       @ApiResponse(responseCode = "404", description = "User not found"),
-      @ApiResponse(responseCode = "401", description = "Incorrect password")
+      @ApiResponse(responseCode = "401", description = "Incorrect password"),
+      @ApiResponse(responseCode = "429", description = "Too many login attempts"),
+      @ApiResponse(responseCode = "503", description = "Too many concurrent logins")
   })
   @PostMapping("authenticate")
-  public ResponseEntity<JwtAuthenticationDto> authenticate(@Valid @RequestBody AuthenticationRequest authenticationRequest) {
-    return ResponseEntity.ok(authenticationService.authenticate(authenticationRequest));
+  public CompletableFuture<ResponseEntity<JwtAuthenticationDto>> authenticate(@Valid @RequestBody AuthenticationRequest authenticationRequest,
+                                                                              HttpServletRequest request) {
+    var address = request.getRemoteAddr();
+    loginThrottle.checkAttempt(authenticationRequest.getLogin(), address);
+    return passwordHashingExecutor
+        .submit(() -> authenticationService.authenticate(authenticationRequest, address))
+        .thenApply(ResponseEntity::ok);
+  }
+
+  @Operation(summary = "Exchange a refresh token for a new pair of tokens")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Successfully refreshed",
+          content = @Content(mediaType = "application/json",
+              schema = @Schema(implementation = JwtAuthenticationDto.class))),
+      @ApiResponse(responseCode = "400", description = "Invalid input"),
+      @ApiResponse(responseCode = "401", description = "Invalid, expired or already used refresh token")
+  })
+  @PostMapping("refresh")
+  public ResponseEntity<JwtAuthenticationDto> refresh(@Valid @RequestBody RefreshTokenDto refreshTokenDto) {
+    return ResponseEntity.ok(authenticationService.refresh(refreshTokenDto));
   }
 }
@@ -1,18 +1,31 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BalanceVerificationReportDto;
+import com.example.bankcards.dto.BatchTransferDto;
 import com.example.bankcards.dto.MoneyTransferDto;
+import com.example.bankcards.dto.TransferResultDto;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.service.BalanceReplayService;
+import com.example.bankcards.service.BalanceVerificationService;
 import com.example.bankcards.service.CardBalanceService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -22,18 +35,56 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Card Balance", description = "Card Balance API")
 public class CardBalanceController {
     private final CardBalanceService cardBalanceService;
+    private final BalanceReplayService balanceReplayService;
+    private final BalanceVerificationService balanceVerificationService;
 
     @Operation(summary = "Transfer money between cards")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully transferred money"),
         @ApiResponse(responseCode = "400", description = "Invalid input"),
         @ApiResponse(responseCode = "404", description = "Card not found"),
-        @ApiResponse(responseCode = "403", description = "Card not owned by user")
+        @ApiResponse(responseCode = "403", description = "Card not owned by user"),
+        @ApiResponse(responseCode = "422", description = "Idempotency key already used for another transfer")
     })
     @PreAuthorize("hasAuthority('USER')")
     @PostMapping("transfer")
-    public void transferMoney(@AuthenticationPrincipal(expression = "user") User user,
+    public void transferMoney(@AuthenticationPrincipal User user,
+                              @Size(max = 255) @RequestHeader(name = "Idempotency-Key", required = false)
+                              String idempotencyKey,
                               @Valid @RequestBody MoneyTransferDto dto) {
-        cardBalanceService.transferMoney(user, dto.getCardFrom(), dto.getCardTo(), dto.getValue());
+        cardBalanceService.transferMoney(user, dto.getCardFrom(), dto.getCardTo(), dto.getValue(), idempotencyKey);
+    }
+
+    @Operation(summary = "Apply a batch of transfers between cards")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Result of every transfer"),
+        @ApiResponse(responseCode = "400", description = "Invalid input")
+    })
+    @PreAuthorize("hasAuthority('USER')")
+    @PostMapping("transfer/batch")
+    public List<TransferResultDto> transferMoneyBatch(@AuthenticationPrincipal User user,
+                                                      @Valid @RequestBody BatchTransferDto dto) {
+        return cardBalanceService.transferMoneyBatch(user, dto.getTransfers(), dto.isAllOrNothing());
+    }
+
+    @Operation(summary = "Rebuild the balance of a card from snapshots and the ledger")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Balance according to the ledger"),
+        @ApiResponse(responseCode = "404", description = "Card not found")
+    })
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("{cardId}/replay")
+    public BigDecimal replayBalance(@Parameter(description = "ID of the card") @NotNull @PathVariable Long cardId) {
+        return balanceReplayService.replayBalance(cardId);
+    }
+
+    @Operation(summary = "Verify all card balances against the ledger")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Verification report with drifting cards")
+    })
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("verify")
+    public BalanceVerificationReportDto verifyBalances() {
+        return balanceVerificationService.verifyBalances();
     }
 }
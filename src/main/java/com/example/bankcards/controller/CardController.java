@@ -1,30 +1,49 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.AdminCardDto;
+import com.example.bankcards.dto.BulkCardIssueDto;
+import com.example.bankcards.dto.BulkCardStatusDto;
+import com.example.bankcards.dto.BulkUpdateResultDto;
 import com.example.bankcards.dto.CardBlockRequestDto;
+import com.example.bankcards.dto.CardFilter;
+import com.example.bankcards.dto.CardIssuanceJobDto;
+import com.example.bankcards.dto.CursorPageDto;
 import com.example.bankcards.dto.PaginationDto;
 import com.example.bankcards.dto.UserCardDto;
 import com.example.bankcards.entity.CardBlockRequestStatus;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.service.CardIssuanceService;
 import com.example.bankcards.service.CardService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequiredArgsConstructor
@@ -32,6 +51,7 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Card", description = "Card API")
 public class CardController {
   private final CardService cardService;
+  private final CardIssuanceService cardIssuanceService;
 
   @Operation(summary = "Create a new card for a user")
   @ApiResponses(value = {
@@ -44,10 +64,48 @@ public class CardController {
     cardService.createCardForUser(userId);
   }
 
+  @Operation(summary = "Queue the issuance of cards to many users")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "202", description = "Issuance queued"),
+      @ApiResponse(responseCode = "400", description = "Invalid input"),
+      @ApiResponse(responseCode = "404", description = "User not found")
+  })
+  @PreAuthorize("hasAuthority('ADMIN')")
+  @PostMapping("/issue/bulk")
+  @ResponseStatus(HttpStatus.ACCEPTED)
+  public CardIssuanceJobDto issueCards(@Valid @RequestBody BulkCardIssueDto dto) {
+    return cardIssuanceService.submit(dto.getUserIds(), dto.getCardsPerUser());
+  }
+
+  @Operation(summary = "Get the progress of a bulk issuance")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "State of the issuance"),
+      @ApiResponse(responseCode = "404", description = "Issuance not found")
+  })
+  @PreAuthorize("hasAuthority('ADMIN')")
+  @GetMapping("/issue/bulk/{jobId}")
+  public CardIssuanceJobDto getIssuance(
+      @Parameter(description = "ID of the issuance") @NotNull @PathVariable Long jobId) {
+    return cardIssuanceService.getJob(jobId);
+  }
+
+  @Operation(summary = "Resume a failed bulk issuance from the first card not issued")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "State of the issuance"),
+      @ApiResponse(responseCode = "404", description = "Issuance not found")
+  })
+  @PreAuthorize("hasAuthority('ADMIN')")
+  @PostMapping("/issue/bulk/{jobId}/resume")
+  public CardIssuanceJobDto resumeIssuance(
+      @Parameter(description = "ID of the issuance") @NotNull @PathVariable Long jobId) {
+    return cardIssuanceService.resume(jobId);
+  }
+
   @Operation(summary = "Block a card")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Successfully blocked card"),
-      @ApiResponse(responseCode = "404", description = "Card not found")
+      @ApiResponse(responseCode = "404", description = "Card not found"),
+      @ApiResponse(responseCode = "409", description = "Card expired")
   })
   @PreAuthorize("hasAuthority('ADMIN')")
   @PostMapping("/{id}/block")
@@ -58,7 +116,8 @@ public class CardController {
   @Operation(summary = "Activate a card")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Successfully activated card"),
-      @ApiResponse(responseCode = "404", description = "Card not found")
+      @ApiResponse(responseCode = "404", description = "Card not found"),
+      @ApiResponse(responseCode = "409", description = "Card expired or past its expiry date")
   })
   @PreAuthorize("hasAuthority('ADMIN')")
   @PostMapping("/{id}/activate")
@@ -77,14 +136,48 @@ public class CardController {
     cardService.deleteCard(id);
   }
 
-  @Operation(summary = "Get all cards")
+  @Operation(summary = "Get cards with pagination and filters")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Successfully retrieved cards")
   })
   @PreAuthorize("hasAuthority('ADMIN')")
   @GetMapping
-  public List<AdminCardDto> getAllCards() {
-    return cardService.getAllCards();
+  public PaginationDto<AdminCardDto> getAllCards(
+      @Parameter(description = "Card status") @RequestParam(required = false) CardStatus status,
+      @Parameter(description = "ID of the owner") @RequestParam(required = false) Long ownerId,
+      @Parameter(description = "Earliest expiry date, inclusive") @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime expireFrom,
+      @Parameter(description = "Latest expiry date, exclusive") @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime expireTo,
+      @Parameter(description = "Page number") @Min(0) @RequestParam(defaultValue = "0") int page,
+      @Parameter(description = "Page size") @Min(1) @Max(1000) @RequestParam(defaultValue = "50") int size) {
+    return cardService.getAllCards(new CardFilter(status, ownerId, expireFrom, expireTo), page, size);
+  }
+
+  @Operation(summary = "Block or activate many cards, selected by id or by filter")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Number of updated cards"),
+      @ApiResponse(responseCode = "400", description = "Invalid input")
+  })
+  @PreAuthorize("hasAuthority('ADMIN')")
+  @PostMapping("/status/bulk")
+  public BulkUpdateResultDto changeCardStatuses(@Valid @RequestBody BulkCardStatusDto dto) {
+    return new BulkUpdateResultDto(
+        cardService.changeCardStatuses(dto.getIds(), dto.getFilter(), dto.getStatus()));
+  }
+
+  @Operation(summary = "Export cards as newline delimited JSON")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Card stream")
+  })
+  @PreAuthorize("hasAuthority('ADMIN')")
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportCards(
+      @Parameter(description = "Card status") @RequestParam(required = false) CardStatus status,
+      @Parameter(description = "ID of the owner") @RequestParam(required = false) Long ownerId,
+      @Parameter(description = "Earliest expiry date, inclusive") @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime expireFrom,
+      @Parameter(description = "Latest expiry date, exclusive") @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime expireTo) {
+    var filter = new CardFilter(status, ownerId, expireFrom, expireTo);
+    StreamingResponseBody body = outputStream -> cardService.streamAllCards(filter, outputStream);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
   }
 
   @Operation(summary = "Get all block requests for a user")
@@ -97,6 +190,19 @@ public class CardController {
     return cardService.getAllUserBlockRequest(userId);
   }
 
+  @Operation(summary = "Get block requests in a status, oldest first")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Successfully retrieved block requests")
+  })
+  @PreAuthorize("hasAuthority('ADMIN')")
+  @GetMapping("/block/request/queue")
+  public PaginationDto<CardBlockRequestDto> getBlockRequestsByStatus(
+      @Parameter(description = "Block request status") @RequestParam(defaultValue = "CREATED") CardBlockRequestStatus status,
+      @Parameter(description = "Page number") @Min(0) @RequestParam(defaultValue = "0") int page,
+      @Parameter(description = "Page size") @Min(1) @Max(1000) @RequestParam(defaultValue = "50") int size) {
+    return cardService.getBlockRequestsByStatus(status, page, size);
+  }
+
   @Operation(summary = "Set block request status to IN_PROGRESS")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Successfully updated status"),
@@ -133,6 +239,21 @@ public class CardController {
     return cardService.getUserCards(user, search, page, size);
   }
 
+  @Operation(summary = "Get user cards with keyset pagination")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Successfully retrieved user cards"),
+      @ApiResponse(responseCode = "400", description = "Invalid cursor")
+  })
+  @PreAuthorize("hasAuthority('USER')")
+  @GetMapping("view/cursor")
+  public CursorPageDto<UserCardDto> getUserCardsByCursor(
+      @AuthenticationPrincipal User user,
+      @Parameter(description = "Cursor of the next page") @RequestParam(required = false) String cursor,
+      @Parameter(description = "Page size") @Min(1) @Max(1000) @RequestParam(defaultValue = "10") int size,
+      @Parameter(description = "Count all cards of the user") @RequestParam(defaultValue = "false") boolean withTotal) {
+    return cardService.getUserCardsByCursor(user, cursor, size, withTotal);
+  }
+
   @Operation(summary = "Create a block request for a card")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Successfully created block request"),
@@ -0,0 +1,67 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.service.CardTransactionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("cards")
+@Tag(name = "Card Transaction", description = "Card Transaction API")
+public class CardTransactionController {
+  private final CardTransactionService cardTransactionService;
+
+  @Operation(summary = "Get the history of a card with keyset pagination")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Successfully retrieved card history"),
+      @ApiResponse(responseCode = "400", description = "Invalid cursor"),
+      @ApiResponse(responseCode = "404", description = "Card not found"),
+      @ApiResponse(responseCode = "403", description = "Card not owned by user")
+  })
+  @PreAuthorize("hasAuthority('USER')")
+  @GetMapping("/{id}/transactions")
+  public CursorPageDto<CardTransactionDto> getCardTransactions(
+      @AuthenticationPrincipal User user,
+      @Parameter(description = "ID of the card") @NotNull @PathVariable Long id,
+      @Parameter(description = "Cursor of the next page") @RequestParam(required = false) String cursor,
+      @Parameter(description = "Page size") @Min(1) @Max(1000) @RequestParam(defaultValue = "50") int size,
+      @Parameter(description = "Count all entries of the card") @RequestParam(defaultValue = "false") boolean withTotal) {
+    return cardTransactionService.getCardTransactions(user, id, cursor, size, withTotal);
+  }
+
+  @Operation(summary = "Stream the whole history of a card as newline delimited JSON")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Card history stream"),
+      @ApiResponse(responseCode = "404", description = "Card not found"),
+      @ApiResponse(responseCode = "403", description = "Card not owned by user")
+  })
+  @PreAuthorize("hasAuthority('USER')")
+  @GetMapping(value = "/{id}/transactions/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamCardTransactions(
+      @AuthenticationPrincipal User user,
+      @Parameter(description = "ID of the card") @NotNull @PathVariable Long id) {
+    cardTransactionService.checkCardOwner(user, id);
+    StreamingResponseBody body = outputStream -> cardTransactionService.streamCardTransactions(id, outputStream);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+}
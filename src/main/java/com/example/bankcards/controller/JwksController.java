@@ -0,0 +1,42 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.auth.JwkDto;
+import com.example.bankcards.dto.auth.JwksDto;
+import com.example.bankcards.security.jwt.JwtKeyRing;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.Duration;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(".well-known")
+@RequiredArgsConstructor
+@Tag(name = "Authentication", description = "Authentication API")
+public class JwksController {
+  private final JwtKeyRing jwtKeyRing;
+
+  @Value("${jwt.keys.jwks-max-age:5m}")
+  Duration jwksMaxAge = Duration.ofMinutes(5);
+
+  @Operation(summary = "Get the public keys that verify issued JWTs")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Successfully retrieved keys",
+          content = @Content(mediaType = "application/json",
+              schema = @Schema(implementation = JwksDto.class)))
+  })
+  @GetMapping("jwks.json")
+  public ResponseEntity<JwksDto> getJwks() {
+    var keys = jwtKeyRing.activeKeys().stream().map(JwkDto::of).toList();
+    return ResponseEntity.ok().cacheControl(CacheControl.maxAge(jwksMaxAge)).body(new JwksDto(keys));
+  }
+}
@@ -1,9 +1,13 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.ExportFormat;
+import com.example.bankcards.dto.PaginationDto;
 import com.example.bankcards.dto.UserCreationDto;
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.UserFilter;
 import com.example.bankcards.dto.UserPasswordDto;
 import com.example.bankcards.dto.UserRegistrationDto;
+import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.UserStatus;
 import com.example.bankcards.mapper.UserMapper;
 import com.example.bankcards.service.UserService;
@@ -13,9 +17,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -27,12 +40,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("users")
 @Tag(name = "User", description = "User API")
 public class UserController {
+  private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
   private final UserService userService;
   private final UserMapper userMapper;
 
@@ -92,14 +108,46 @@ public class UserController {
     userService.changeUserStatus(userId, UserStatus.ACTIVE);
   }
 
-  @Operation(summary = "Get all users")
+  @Operation(summary = "Get users with pagination and filters")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Successfully retrieved users")
   })
   @PreAuthorize("hasAuthority('ADMIN')")
   @GetMapping("list")
-  public List<UserDto> getAllUsers() {
-    return userService.getAllUsers().stream().map(userMapper::toUserDto).toList();
+  public PaginationDto<UserDto> getAllUsers(
+      @Parameter(description = "User status") @RequestParam(required = false) UserStatus status,
+      @Parameter(description = "User role") @RequestParam(required = false) Role role,
+      @Parameter(description = "Beginning of the login") @RequestParam(required = false) String loginPrefix,
+      @Parameter(description = "Earliest creation date, inclusive") @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime createdFrom,
+      @Parameter(description = "Latest creation date, exclusive") @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime createdTo,
+      @Parameter(description = "Page number") @Min(0) @RequestParam(defaultValue = "0") int page,
+      @Parameter(description = "Page size") @Min(1) @Max(1000) @RequestParam(defaultValue = "50") int size) {
+    return userService.getAllUsers(
+        new UserFilter(status, role, loginPrefix, createdFrom, createdTo), page, size);
+  }
+
+  @Operation(summary = "Export users as newline delimited JSON or CSV")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "User stream")
+  })
+  @PreAuthorize("hasAuthority('ADMIN')")
+  @GetMapping("export")
+  public ResponseEntity<StreamingResponseBody> exportUsers(
+      @Parameter(description = "User status") @RequestParam(required = false) UserStatus status,
+      @Parameter(description = "User role") @RequestParam(required = false) Role role,
+      @Parameter(description = "Beginning of the login") @RequestParam(required = false) String loginPrefix,
+      @Parameter(description = "Earliest creation date, inclusive") @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime createdFrom,
+      @Parameter(description = "Latest creation date, exclusive") @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime createdTo,
+      @Parameter(description = "Output format") @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+    var filter = new UserFilter(status, role, loginPrefix, createdFrom, createdTo);
+    StreamingResponseBody body = outputStream -> userService.streamUsers(filter, format, outputStream);
+    var csv = format == ExportFormat.CSV;
+    return ResponseEntity.ok()
+        .contentType(csv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename(csv ? "users.csv" : "users.ndjson").build().toString())
+        .body(body);
   }
 
   @Operation(summary = "Update a user")
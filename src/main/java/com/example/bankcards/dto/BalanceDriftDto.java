@@ -0,0 +1,17 @@
+package com.example.bankcards.dto;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceDriftDto {
+  private Long cardId;
+  /** Balance stored in {@code card_balance}. */
+  private BigDecimal balance;
+  /** Balance reconstructed from the latest snapshot and the ledger. */
+  private BigDecimal ledgerBalance;
+}
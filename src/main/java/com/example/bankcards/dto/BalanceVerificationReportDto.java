@@ -0,0 +1,15 @@
+package com.example.bankcards.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceVerificationReportDto {
+  private long cardsChecked;
+  private List<BalanceDriftDto> drifts;
+  private long durationMillis;
+}
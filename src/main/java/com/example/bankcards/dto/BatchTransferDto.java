@@ -0,0 +1,21 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferDto {
+
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@Valid MoneyTransferDto> transfers;
+    private boolean allOrNothing = true;
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request to issue the same number of cards to each of many users.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCardIssueDto {
+
+    @NotNull
+    @Size(min = 1, max = 10_000)
+    private List<@NotNull Long> userIds;
+
+    @Min(1)
+    @Max(100)
+    private int cardsPerUser;
+}
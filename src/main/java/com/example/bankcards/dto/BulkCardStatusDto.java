@@ -0,0 +1,41 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request to change the status of many cards, selected either by id or by filter.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCardStatusDto {
+
+    @NotNull
+    private CardStatus status;
+
+    @Size(min = 1, max = 100_000)
+    private List<@NotNull Long> ids;
+
+    private CardFilter filter;
+
+    @JsonIgnore
+    @AssertTrue(message = "status must be BLOCKED or ACTIVE")
+    public boolean isStatusSupported() {
+        return status != CardStatus.EXPIRED;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "exactly one of ids and filter must be set")
+    public boolean isSelectionSpecified() {
+        return (ids == null) != (filter == null);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardStatus;
+import java.time.LocalDateTime;
+
+/**
+ * Criteria of the admin card listing. Null fields are not applied.
+ *
+ * @param status The status of the cards.
+ * @param ownerId The ID of the owner.
+ * @param expireFrom The earliest expiry date, inclusive.
+ * @param expireTo The latest expiry date, exclusive.
+ */
+public record CardFilter(
+    CardStatus status, Long ownerId, LocalDateTime expireFrom, LocalDateTime expireTo) {}
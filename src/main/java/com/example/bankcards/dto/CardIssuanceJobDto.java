@@ -0,0 +1,25 @@
+package com.example.bankcards.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * State of a bulk card issuance.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardIssuanceJobDto {
+    private Long id;
+    private CardIssuanceJobStatus status;
+    /** Number of cards to issue. */
+    private long total;
+    /** Number of cards issued so far. */
+    private long issued;
+    /** Cause of the last failure, if the job failed. */
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,12 @@
+package com.example.bankcards.dto;
+
+public enum CardIssuanceJobStatus {
+    /** Waiting to be run, or to be resumed after a failure. */
+    PENDING,
+    /** Being run by one of the instances. */
+    RUNNING,
+    /** All cards have been issued. */
+    COMPLETED,
+    /** A chunk failed; the cards of the earlier chunks stay issued until the job is resumed. */
+    FAILED
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardTransactionType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardTransactionDto {
+  private Long id;
+  private UUID transferId;
+  private Long counterpartyCardId;
+  private CardTransactionType type;
+  private BigDecimal amount;
+  private LocalDateTime createdAt;
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    private List<T> elements;
+    /** Cursor of the next page, or null if this is the last page. */
+    private String nextCursor;
+    /** Total number of elements, or null if it was not requested. */
+    private Long totalElements;
+}
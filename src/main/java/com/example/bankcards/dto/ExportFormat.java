@@ -0,0 +1,15 @@
+package com.example.bankcards.dto;
+
+/**
+ * Format of a streamed export.
+ */
+public enum ExportFormat {
+    /**
+     * One JSON object per line.
+     */
+    NDJSON,
+    /**
+     * Comma separated values with a header line.
+     */
+    CSV
+}
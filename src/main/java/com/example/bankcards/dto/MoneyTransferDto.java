@@ -2,6 +2,7 @@ package com.example.bankcards.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,5 +19,6 @@ public class MoneyTransferDto {
     @NotBlank
     private String cardTo;
     @NotNull
+    @Positive
     private BigDecimal value;
 }
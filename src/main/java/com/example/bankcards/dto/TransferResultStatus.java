@@ -0,0 +1,9 @@
+package com.example.bankcards.dto;
+
+public enum TransferResultStatus {
+    COMPLETED,
+    ROLLED_BACK,
+    CARD_NOT_FOUND,
+    CARD_NOT_OWNED,
+    INSUFFICIENT_BALANCE
+}
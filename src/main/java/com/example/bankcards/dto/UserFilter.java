@@ -0,0 +1,21 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.UserStatus;
+import java.time.LocalDateTime;
+
+/**
+ * Criteria of the admin user listing. Null fields are not applied.
+ *
+ * @param status The status of the users.
+ * @param role The role of the users.
+ * @param loginPrefix The beginning of the login.
+ * @param createdFrom The earliest creation date, inclusive.
+ * @param createdTo The latest creation date, exclusive.
+ */
+public record UserFilter(
+    UserStatus status,
+    Role role,
+    String loginPrefix,
+    LocalDateTime createdFrom,
+    LocalDateTime createdTo) {}
@@ -0,0 +1,36 @@
+package com.example.bankcards.dto.auth;
+
+import com.example.bankcards.security.jwt.JwtKeyRing;
+import java.math.BigInteger;
+import java.util.Base64;
+
+/** A public EC key in JSON Web Key format (RFC 7517, RFC 7518 section 6.2). */
+public record JwkDto(String kty, String crv, String kid, String use, String alg, String x, String y) {
+  private static final int P256_COORDINATE_LENGTH = 32;
+
+  /**
+   * Converts a key of the ring to its public JWK.
+   *
+   * @param key The ring key.
+   * @return The public JWK.
+   */
+  public static JwkDto of(JwtKeyRing.RingKey key) {
+    var point = key.publicKey().getW();
+    return new JwkDto(
+        "EC",
+        "P-256",
+        key.kid(),
+        "sig",
+        "ES256",
+        coordinate(point.getAffineX()),
+        coordinate(point.getAffineY()));
+  }
+
+  private static String coordinate(BigInteger value) {
+    var bytes = value.toByteArray();
+    var padded = new byte[P256_COORDINATE_LENGTH];
+    var length = Math.min(bytes.length, P256_COORDINATE_LENGTH);
+    System.arraycopy(bytes, bytes.length - length, padded, P256_COORDINATE_LENGTH - length, length);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+  }
+}
@@ -0,0 +1,5 @@
+package com.example.bankcards.dto.auth;
+
+import java.util.List;
+
+public record JwksDto(List<JwkDto> keys) {}
@@ -1,3 +1,3 @@
 package com.example.bankcards.dto.auth;
 
-public record JwtAuthenticationDto(String token) {}
+public record JwtAuthenticationDto(String token, String refreshToken) {}
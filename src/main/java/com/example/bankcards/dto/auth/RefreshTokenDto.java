@@ -1,3 +1,5 @@
 package com.example.bankcards.dto.auth;
 
-public record RefreshTokenDto(String refreshToken) {}
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenDto(@NotBlank String refreshToken) {}
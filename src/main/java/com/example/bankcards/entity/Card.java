@@ -11,6 +11,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -31,18 +32,28 @@ import org.hibernate.type.SqlTypes;
 @RequiredArgsConstructor
 @Entity
 @Table(name = "cards", uniqueConstraints = {
-        @UniqueConstraint(name = "uq_number", columnNames = {"number"})
+        @UniqueConstraint(name = "uq_number", columnNames = {"number"}),
+        @UniqueConstraint(name = "uq_cards_number_hash", columnNames = {"number_hash"})
 })
 @AllArgsConstructor
 public class Card {
+  /** Number of ids reserved by one call of the {@code cards_id_seq} sequence. */
+  public static final int ID_ALLOCATION_SIZE = 50;
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_id_seq")
+  @SequenceGenerator(
+      name = "cards_id_seq",
+      sequenceName = "cards_id_seq",
+      allocationSize = ID_ALLOCATION_SIZE)
   private Long id;
 
   @Column(name = "number", nullable = false, unique = true, length = 16)
   private String number;
 
+  @Column(name = "number_hash", unique = true, length = 64)
+  private String numberHash;
+
   @Column(name = "expire_date", nullable = false)
   private LocalDateTime expireDate;
 
@@ -84,8 +95,8 @@ public class Card {
         : getClass().hashCode();
   }
 
-  public String hideNumber() {
-      var str = this.number.substring(this.number.length() - 4);
+  public static String hideNumber(String number) {
+      var str = number.substring(number.length() - 4);
       return  "**** **** **** " + str;
   }
 }
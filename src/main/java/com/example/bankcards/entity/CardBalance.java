@@ -8,6 +8,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.MapsId;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import java.util.Objects;
 import lombok.AllArgsConstructor;
@@ -40,6 +41,10 @@ public class CardBalance {
   @Column(name = "balance", nullable = false, precision = 35, scale = 2)
   private BigDecimal balance;
 
+  @Version
+  @Column(name = "version", nullable = false)
+  private Long version;
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
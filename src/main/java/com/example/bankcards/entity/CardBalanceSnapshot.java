@@ -0,0 +1,50 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Balance of a card derived from the ledger, covering every ledger entry created up to and
+ * including {@code upTo}.
+ */
+@Getter
+@ToString
+@Builder
+@RequiredArgsConstructor
+@Entity
+@Immutable
+@Table(name = "card_balance_snapshot", uniqueConstraints = {
+    @UniqueConstraint(name = "uq_card_balance_snapshot_card_up_to", columnNames = {"card_id", "up_to"})
+})
+@AllArgsConstructor
+public class CardBalanceSnapshot {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "card_id", nullable = false)
+  private Long cardId;
+
+  @Column(name = "balance", nullable = false, precision = 35, scale = 2)
+  private BigDecimal balance;
+
+  @Column(name = "up_to", nullable = false)
+  private LocalDateTime upTo;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+}
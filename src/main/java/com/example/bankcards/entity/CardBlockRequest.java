@@ -23,7 +23,11 @@ import java.time.LocalDateTime;
 public class CardBlockRequest {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_block_request_id_seq")
+    @SequenceGenerator(
+            name = "card_block_request_id_seq",
+            sequenceName = "card_block_request_id_seq",
+            allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false)
@@ -35,7 +39,7 @@ public class CardBlockRequest {
     @Column(name = "card_id", nullable = false)
     private Long cardId;
 
-    @Column(name = "card_number", nullable = false, length = 16)
+    @Column(name = "card_number", nullable = false, length = 19)
     private String cardNumber;
 
     @Column(name = "created_at", nullable = false)
@@ -0,0 +1,65 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Entry of the append-only card ledger. A transfer produces a DEBIT entry for the source card and
+ * a CREDIT entry for the destination card sharing the same transfer id.
+ */
+@Getter
+@ToString
+@Builder
+@RequiredArgsConstructor
+@Entity
+@Immutable
+@Table(name = "card_transaction")
+@AllArgsConstructor
+public class CardTransaction {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_transaction_id_seq")
+  @SequenceGenerator(
+      name = "card_transaction_id_seq",
+      sequenceName = "card_transaction_id_seq",
+      allocationSize = 50)
+  private Long id;
+
+  @Column(name = "transfer_id", nullable = false)
+  private UUID transferId;
+
+  @Column(name = "card_id", nullable = false)
+  private Long cardId;
+
+  @Column(name = "counterparty_card_id", nullable = false)
+  private Long counterpartyCardId;
+
+  @Enumerated(EnumType.STRING)
+  @JdbcTypeCode(SqlTypes.NAMED_ENUM)
+  @Column(name = "type", nullable = false)
+  private CardTransactionType type;
+
+  @Column(name = "amount", nullable = false, precision = 35, scale = 2)
+  private BigDecimal amount;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+}
@@ -0,0 +1,15 @@
+package com.example.bankcards.entity;
+
+/**
+ * Represents the direction of a card ledger entry.
+ */
+public enum CardTransactionType {
+    /**
+     * Money was taken from the card.
+     */
+    DEBIT,
+    /**
+     * Money was added to the card.
+     */
+    CREDIT
+}
@@ -0,0 +1,45 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A P-256 key pair used to sign JWTs. The public key is stored as Base64 X.509, the private key as
+ * Base64 PKCS#8 encrypted with {@code jwt.keys.encryption-secret}. The key is published from {@code
+ * createdAt} and signs new tokens from {@code activatesAt}.
+ */
+@Getter
+@Setter
+@Builder
+@RequiredArgsConstructor
+@Entity
+@Table(name = "jwt_signing_key")
+@AllArgsConstructor
+public class JwtSigningKey {
+  @Id
+  @Column(name = "kid", nullable = false, length = 64)
+  private String kid;
+
+  @Column(name = "public_key", nullable = false)
+  private String publicKey;
+
+  @Column(name = "private_key", nullable = false)
+  private String privateKey;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "activates_at", nullable = false)
+  private LocalDateTime activatesAt;
+
+  @Column(name = "expires_at", nullable = false)
+  private LocalDateTime expiresAt;
+}
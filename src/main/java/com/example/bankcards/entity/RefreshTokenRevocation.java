@@ -0,0 +1,35 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@RequiredArgsConstructor
+@Entity
+@Table(name = "refresh_token_revocation")
+@AllArgsConstructor
+public class RefreshTokenRevocation {
+  @Id
+  @Column(name = "jti", nullable = false)
+  private UUID jti;
+
+  @Column(name = "user_id", nullable = false)
+  private Long userId;
+
+  @Column(name = "revoked_at", nullable = false)
+  private LocalDateTime revokedAt;
+
+  @Column(name = "expires_at", nullable = false)
+  private LocalDateTime expiresAt;
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.exception;
+
+public class CardExpiredException extends BankCardsException {
+    public CardExpiredException() {
+        super();
+    }
+
+    public CardExpiredException(String message) {
+        super(message);
+    }
+}
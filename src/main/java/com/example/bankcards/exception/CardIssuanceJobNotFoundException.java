@@ -0,0 +1,11 @@
+package com.example.bankcards.exception;
+
+public class CardIssuanceJobNotFoundException extends BankCardsException {
+    public CardIssuanceJobNotFoundException() {
+        super();
+    }
+
+    public CardIssuanceJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.bankcards.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authorization.AuthorizationDeniedException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -19,6 +22,16 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>("Запрос на блокирование карты не найден", HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(CardExpiredException.class)
+    public ResponseEntity<String> handleCardExpiredException(CardExpiredException ex) {
+        return new ResponseEntity<>("Срок действия карты истёк", HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(CardIssuanceJobNotFoundException.class)
+    public ResponseEntity<String> handleCardIssuanceJobNotFoundException(CardIssuanceJobNotFoundException ex) {
+        return new ResponseEntity<>("Задание на выпуск карт не найдено", HttpStatus.NOT_FOUND);
+    }
+
     @ExceptionHandler(CardNotFoundException.class)
     public ResponseEntity<String> handleCardNotFoundException(CardNotFoundException ex) {
         return new ResponseEntity<>("Карта не найдена", HttpStatus.NOT_FOUND);
@@ -29,11 +42,27 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>("Карта принадлежит другому пользователю", HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<String> handleIdempotencyKeyReuseException(IdempotencyKeyReuseException ex) {
+        return new ResponseEntity<>("Ключ идемпотентности уже использован для другого перевода",
+                HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
     @ExceptionHandler(IncorrectPasswordException.class)
     public ResponseEntity<String> handleIncorrectPasswordException(IncorrectPasswordException ex) {
         return new ResponseEntity<>("Не верный пароль", HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<String> handleInvalidRefreshTokenException(InvalidRefreshTokenException ex) {
+        return new ResponseEntity<>("Недействительный refresh-токен", HttpStatus.UNAUTHORIZED);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> handleInvalidCursorException(InvalidCursorException ex) {
+        return new ResponseEntity<>("Некорректный курсор страницы", HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(UserAlreadyExistException.class)
     public ResponseEntity<String> handleUserAlreadyExistException(UserAlreadyExistException ex) {
         return new ResponseEntity<>("Пользователь с таким логином уже существует", HttpStatus.CONFLICT);
@@ -49,6 +78,30 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>("Ошибка доступа", HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return new ResponseEntity<>("Данные изменены другой операцией, повторите запрос", HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<String> handlePasswordHashingBusyException(PasswordHashingBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Сервис перегружен, повторите попытку позже");
+    }
+
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<String> handleLoginThrottledException(LoginThrottledException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body("Слишком много попыток входа, повторите попытку позже");
+    }
+
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<String> handleHandlerMethodValidationException(HandlerMethodValidationException ex) {
+        return new ResponseEntity<>("Некорректные параметры запроса", HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<String> handleAllExceptions(RuntimeException ex) {
         return new ResponseEntity<>("Ошибка системы: " + ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class IdempotencyKeyReuseException extends BankCardsException {
+    public IdempotencyKeyReuseException(String idempotencyKey) {
+        super(idempotencyKey);
+    }
+}
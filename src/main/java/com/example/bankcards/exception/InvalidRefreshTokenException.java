@@ -0,0 +1,3 @@
+package com.example.bankcards.exception;
+
+public class InvalidRefreshTokenException extends BankCardsException {}
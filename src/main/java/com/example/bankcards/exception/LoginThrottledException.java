@@ -0,0 +1,13 @@
+package com.example.bankcards.exception;
+
+import java.time.Duration;
+import lombok.Getter;
+
+@Getter
+public class LoginThrottledException extends BankCardsException {
+    private final Duration retryAfter;
+
+    public LoginThrottledException(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+}
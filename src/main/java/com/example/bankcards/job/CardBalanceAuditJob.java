@@ -0,0 +1,48 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.repository.CardBalanceAuditRepository;
+import com.example.bankcards.service.BalanceReplayService;
+import com.example.bankcards.service.BalanceVerificationService;
+import com.example.bankcards.util.AdvisoryLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardBalanceAuditJob {
+  private static final String LOCK_NAME = "card-balance-audit";
+
+  private final BalanceReplayService balanceReplayService;
+  private final BalanceVerificationService balanceVerificationService;
+  private final CardBalanceAuditRepository cardBalanceAuditRepository;
+  private final AdvisoryLock advisoryLock;
+
+  /**
+   * Takes the nightly balance snapshots and verifies every balance against the ledger. The cron
+   * fires on every instance; only the one that gets the lock runs the audit, and only if no audit
+   * has completed today yet, so an instance whose clock lags behind does not repeat it once the
+   * lock is free again.
+   */
+  @Scheduled(cron = "${ledger.audit.cron:0 30 2 * * *}")
+  public void audit() {
+    var ran = advisoryLock.runExclusively(LOCK_NAME, this::auditOncePerDay);
+    if (!ran) {
+      log.debug("Balance audit skipped, another instance holds the lock");
+    }
+  }
+
+  private void auditOncePerDay() {
+    var today = cardBalanceAuditRepository.currentDate();
+    if (cardBalanceAuditRepository.exists(today)) {
+      log.debug("Balance audit skipped, already completed on {}", today);
+      return;
+    }
+    var snapshots = balanceReplayService.createSnapshots();
+    var report = balanceVerificationService.verifyBalances();
+    cardBalanceAuditRepository.record(
+        today, snapshots, report.getCardsChecked(), report.getDrifts().size());
+  }
+}
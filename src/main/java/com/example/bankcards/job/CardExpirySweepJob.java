@@ -0,0 +1,20 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.CardExpiryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class CardExpirySweepJob {
+  private final CardExpiryService cardExpiryService;
+
+  /** Marks the cards whose expiry date has passed as expired. */
+  @Scheduled(
+      fixedDelayString = "${cards.expiry.interval:1h}",
+      initialDelayString = "${cards.expiry.initial-delay:1m}")
+  public void sweep() {
+    cardExpiryService.expireCards();
+  }
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.CardIssuanceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class CardIssuanceJob {
+  private final CardIssuanceService cardIssuanceService;
+
+  /** Runs the queued bulk card issuances. */
+  @Scheduled(
+      fixedDelayString = "${cards.issuance.poll-interval:5s}",
+      initialDelayString = "${cards.issuance.initial-delay:10s}")
+  public void run() {
+    cardIssuanceService.runPendingJobs();
+  }
+}
@@ -0,0 +1,36 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.CardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardNumberHashBackfillJob {
+  private final CardService cardService;
+
+  @Value("${encryption.hash-backfill.chunk-size:500}")
+  int chunkSize;
+
+  /**
+   * Fills the blind index of cards created before the {@code number_hash} column existed. Cards
+   * are processed in chunks, each chunk in its own transaction, until none are left.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfill() {
+    long total = 0;
+    int processed;
+    do {
+      processed = cardService.backfillNumberHashes(chunkSize);
+      total += processed;
+    } while (processed == chunkSize);
+    if (total > 0) {
+      log.info("Card number hash backfill completed, cards updated: {}", total);
+    }
+  }
+}
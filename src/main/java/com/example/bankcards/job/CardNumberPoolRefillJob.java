@@ -0,0 +1,25 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.CardNumberPoolService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardNumberPoolRefillJob {
+  private final CardNumberPoolService cardNumberPoolService;
+
+  /** Tops up the pool of pre-generated card numbers once it runs low. */
+  @Scheduled(
+      fixedDelayString = "${cards.number-pool.refill-interval:1m}",
+      initialDelayString = "${cards.number-pool.refill-initial-delay:10s}")
+  public void refill() {
+    var added = cardNumberPoolService.refill();
+    if (added > 0) {
+      log.info("Card number pool refilled, numbers added: {}", added);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.repository.CardTransactionRepository;
+import java.time.YearMonth;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardTransactionPartitionJob {
+  private final CardTransactionRepository cardTransactionRepository;
+
+  @Value("${ledger.partitions.months-ahead:2}")
+  int monthsAhead;
+
+  /**
+   * Makes sure the monthly partitions of the card ledger exist for the current month and the
+   * configured number of months ahead. Entries that do not fit any partition end up in the default
+   * partition.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${ledger.partitions.cron:0 0 3 * * *}")
+  public void createPartitions() {
+    var month = YearMonth.now();
+    for (int i = 0; i <= monthsAhead; i++) {
+      try {
+        cardTransactionRepository.createMonthlyPartition(month.plusMonths(i));
+      } catch (DataAccessException e) {
+        log.error("Failed to create card ledger partition for {}", month.plusMonths(i), e);
+      }
+    }
+  }
+}
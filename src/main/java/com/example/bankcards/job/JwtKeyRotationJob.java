@@ -0,0 +1,31 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.security.jwt.JwtKeyRing;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtKeyRotationJob {
+  private final JwtKeyRing jwtKeyRing;
+
+  /**
+   * Reloads the key ring so that keys created by other instances are published in the JWKS,
+   * creates the successor of the signing key ahead of time and deletes keys that can no longer
+   * verify a token.
+   */
+  @Scheduled(
+      fixedDelayString = "${jwt.keys.check-interval:10m}",
+      initialDelayString = "${jwt.keys.check-interval:10m}")
+  public void rotate() {
+    var deleted = jwtKeyRing.deleteExpired();
+    if (deleted > 0) {
+      log.info("Expired JWT signing keys deleted: {}", deleted);
+    }
+    jwtKeyRing.refresh();
+    jwtKeyRing.prepareNextKey();
+  }
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.RefreshTokenRevocationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RefreshTokenRevocationCleanupJob {
+  private final RefreshTokenRevocationService refreshTokenRevocationService;
+
+  /** Deletes the revocations of expired refresh tokens and rebuilds the revocation filter. */
+  @Scheduled(
+      fixedDelayString = "${jwt.refresh.revocation.cleanup.interval:1h}",
+      initialDelayString = "${jwt.refresh.revocation.cleanup.interval:1h}")
+  public void cleanup() {
+    var deleted = refreshTokenRevocationService.deleteExpired();
+    if (deleted > 0) {
+      log.info("Expired refresh token revocations deleted: {}", deleted);
+    }
+  }
+}
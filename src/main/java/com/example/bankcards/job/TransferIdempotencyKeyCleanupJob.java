@@ -0,0 +1,25 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.TransferIdempotencyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransferIdempotencyKeyCleanupJob {
+  private final TransferIdempotencyService transferIdempotencyService;
+
+  /** Deletes the idempotency keys of transfers whose TTL has passed. */
+  @Scheduled(
+      fixedDelayString = "${idempotency.cleanup.interval:10m}",
+      initialDelayString = "${idempotency.cleanup.interval:10m}")
+  public void cleanup() {
+    var deleted = transferIdempotencyService.deleteExpired();
+    if (deleted > 0) {
+      log.info("Expired transfer idempotency keys deleted: {}", deleted);
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.example.bankcards.mapper;
 import com.example.bankcards.dto.AdminCardDto;
 import com.example.bankcards.dto.UserCardDto;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.repository.projection.UserCardView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingConstants;
@@ -10,10 +11,10 @@ import org.mapstruct.MappingConstants;
 @Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
 public interface CardMapper {
 
-    @Mapping(source = "balance.balance", target = "balance")
-    @Mapping(target = "number", expression = "java(card.hideNumber())")
-    AdminCardDto toAdminCardDto(Card card);
+    @Mapping(source = "card.balance.balance", target = "balance")
+    @Mapping(target = "number", expression = "java(Card.hideNumber(number))")
+    AdminCardDto toAdminCardDto(Card card, String number);
 
-    @Mapping(source = "balance.balance", target = "balance")
-    UserCardDto toUserCardDto(Card card);
+    @Mapping(source = "number", target = "number")
+    UserCardDto toUserCardDto(UserCardView card, String number);
 }
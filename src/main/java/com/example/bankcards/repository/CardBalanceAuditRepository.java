@@ -0,0 +1,56 @@
+package com.example.bankcards.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Completed nightly balance audits, one per day. The day is taken from the database clock, so all
+ * instances agree on it whatever their own clocks say.
+ */
+@Repository
+public class CardBalanceAuditRepository {
+  private static final String CURRENT_DATE = "SELECT CURRENT_DATE";
+  private static final String EXISTS =
+      "SELECT EXISTS (SELECT 1 FROM card_balance_audit WHERE audit_date = :auditDate)";
+  private static final String INSERT =
+      "INSERT INTO card_balance_audit (audit_date, snapshots, cards_checked, drifts, completed_at)"
+          + " VALUES (:auditDate, :snapshots, :cardsChecked, :drifts, :now)"
+          + " ON CONFLICT (audit_date) DO NOTHING";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  public CardBalanceAuditRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public LocalDate currentDate() {
+    return jdbcTemplate.queryForObject(CURRENT_DATE, new MapSqlParameterSource(), LocalDate.class);
+  }
+
+  public boolean exists(LocalDate auditDate) {
+    return Boolean.TRUE.equals(
+        jdbcTemplate.queryForObject(
+            EXISTS, new MapSqlParameterSource("auditDate", auditDate), Boolean.class));
+  }
+
+  /**
+   * Records a completed audit.
+   *
+   * @param auditDate The day of the audit.
+   * @param snapshots The number of snapshots taken.
+   * @param cardsChecked The number of verified cards.
+   * @param drifts The number of cards whose balance differs from the ledger.
+   */
+  public void record(LocalDate auditDate, long snapshots, long cardsChecked, int drifts) {
+    jdbcTemplate.update(
+        INSERT,
+        new MapSqlParameterSource("auditDate", auditDate)
+            .addValue("snapshots", snapshots)
+            .addValue("cardsChecked", cardsChecked)
+            .addValue("drifts", drifts)
+            .addValue("now", LocalDateTime.now()));
+  }
+}
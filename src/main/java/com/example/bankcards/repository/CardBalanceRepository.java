@@ -1,8 +1,38 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.CardBalance;
+import java.math.BigDecimal;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CardBalanceRepository extends JpaRepository<CardBalance, Long> {}
+public interface CardBalanceRepository
+    extends JpaRepository<CardBalance, Long>, CardBalanceRepositoryCustom {
+
+  @Modifying
+  @Query(
+      "UPDATE CardBalance b SET b.balance = b.balance - ?2, b.version = b.version + 1"
+          + " WHERE b.cardId = ?1 AND b.balance >= ?2")
+  int withdraw(Long cardId, BigDecimal value);
+
+  @Modifying
+  @Query(
+      "UPDATE CardBalance b SET b.balance = b.balance + ?2, b.version = b.version + 1"
+          + " WHERE b.cardId = ?1")
+  int deposit(Long cardId, BigDecimal value);
+
+  /**
+   * Returns the last card id of the chunk following {@code afterCardId}, or null if there are no
+   * more cards. Used to split the balances into card id ranges for bulk jobs.
+   */
+  @Query(
+      value =
+          "SELECT MAX(card_id) FROM (SELECT card_id FROM card_balance WHERE card_id > ?1"
+              + " ORDER BY card_id LIMIT ?2) chunk",
+      nativeQuery = true)
+  Long findChunkEnd(long afterCardId, int chunkSize);
+
+  long countByCardIdGreaterThanAndCardIdLessThanEqual(Long fromCardId, Long toCardId);
+}
@@ -0,0 +1,23 @@
+package com.example.bankcards.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+
+public interface CardBalanceRepositoryCustom {
+
+  /**
+   * Locks the balances of the given cards in ascending card id order.
+   *
+   * @param cardIds The card ids.
+   * @return The current balance of every locked card, keyed by card id.
+   */
+  Map<Long, BigDecimal> lockBalances(Collection<Long> cardIds);
+
+  /**
+   * Adds the given amounts to the balances with a single JDBC batch.
+   *
+   * @param deltas The amount to add (negative to subtract), keyed by card id.
+   */
+  void addToBalances(Map<Long, BigDecimal> deltas);
+}
@@ -0,0 +1,55 @@
+package com.example.bankcards.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+@RequiredArgsConstructor
+public class CardBalanceRepositoryImpl implements CardBalanceRepositoryCustom {
+  private static final String LOCK_BALANCES =
+      "SELECT card_id, balance FROM card_balance WHERE card_id IN (:cardIds)"
+          + " ORDER BY card_id FOR UPDATE";
+  private static final String ADD_TO_BALANCE =
+      "UPDATE card_balance SET balance = balance + :delta, version = version + 1"
+          + " WHERE card_id = :cardId";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Override
+  public Map<Long, BigDecimal> lockBalances(Collection<Long> cardIds) {
+    var balances = new HashMap<Long, BigDecimal>();
+    if (cardIds.isEmpty()) {
+      return balances;
+    }
+    jdbcTemplate.query(
+        LOCK_BALANCES,
+        Map.of("cardIds", cardIds),
+        rs -> {
+          balances.put(rs.getLong("card_id"), rs.getBigDecimal("balance"));
+        });
+    return balances;
+  }
+
+  @Override
+  public void addToBalances(Map<Long, BigDecimal> deltas) {
+    var batch =
+        new TreeMap<>(deltas)
+            .entrySet().stream()
+                .filter(delta -> delta.getValue().signum() != 0)
+                .map(
+                    delta ->
+                        new MapSqlParameterSource()
+                            .addValue("cardId", delta.getKey())
+                            .addValue("delta", delta.getValue()))
+                .toArray(SqlParameterSource[]::new);
+    if (batch.length > 0) {
+      jdbcTemplate.batchUpdate(ADD_TO_BALANCE, batch);
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardBalanceSnapshot;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CardBalanceSnapshotRepository
+    extends JpaRepository<CardBalanceSnapshot, Long>, CardBalanceSnapshotRepositoryCustom {
+
+  /** Deletes snapshots older than the given time, always keeping the latest one of each card. */
+  @Modifying
+  @Query(
+      "DELETE FROM CardBalanceSnapshot s WHERE s.upTo < ?1 AND EXISTS ("
+          + "SELECT 1 FROM CardBalanceSnapshot n WHERE n.cardId = s.cardId AND n.upTo > s.upTo)")
+  int deleteOlderThan(LocalDateTime upTo);
+}
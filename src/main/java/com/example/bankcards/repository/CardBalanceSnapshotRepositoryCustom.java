@@ -0,0 +1,37 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.BalanceDriftDto;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CardBalanceSnapshotRepositoryCustom {
+
+  /**
+   * Rebuilds the balance of a card from its latest snapshot and the ledger entries after it.
+   * Without a snapshot the whole ledger is replayed from a zero balance; cards that existed before
+   * the ledger got a baseline snapshot of their balance when it was introduced, so only cards whose
+   * whole history is in the ledger have none.
+   *
+   * @param cardId The card id.
+   * @return The reconstructed balance.
+   */
+  BigDecimal replayBalance(Long cardId);
+
+  /**
+   * Takes a snapshot of every card in {@code (fromCardId, toCardId]}. The snapshot extends the
+   * previous one with the ledger entries up to {@code upTo}; a card without a previous snapshot is
+   * based on its current balance minus the ledger entries after {@code upTo}.
+   *
+   * @return The number of snapshots taken.
+   */
+  int createSnapshots(long fromCardId, long toCardId, LocalDateTime upTo, LocalDateTime createdAt);
+
+  /**
+   * Compares the balances of the cards in {@code (fromCardId, toCardId]} with the balances
+   * reconstructed from the snapshots and the ledger.
+   *
+   * @return The cards whose balances differ.
+   */
+  List<BalanceDriftDto> findDrift(long fromCardId, long toCardId);
+}
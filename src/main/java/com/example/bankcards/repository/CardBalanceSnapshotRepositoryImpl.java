@@ -0,0 +1,75 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.BalanceDriftDto;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@RequiredArgsConstructor
+public class CardBalanceSnapshotRepositoryImpl implements CardBalanceSnapshotRepositoryCustom {
+  private static final String SIGNED_AMOUNT =
+      "CASE WHEN t.type = 'CREDIT' THEN t.amount ELSE -t.amount END";
+  private static final String LATEST_SNAPSHOT =
+      " LEFT JOIN LATERAL (SELECT s.balance, s.up_to FROM card_balance_snapshot s"
+          + " WHERE s.card_id = b.card_id ORDER BY s.up_to DESC LIMIT 1) s ON true";
+  private static final String LEDGER_TAIL =
+      " LEFT JOIN LATERAL (SELECT SUM(" + SIGNED_AMOUNT + ") AS delta FROM card_transaction t"
+          + " WHERE t.card_id = b.card_id"
+          + " AND t.created_at > COALESCE(s.up_to, '-infinity'::timestamp)) t ON true";
+
+  private static final String REPLAY_BALANCE =
+      "SELECT COALESCE(s.balance, 0) + COALESCE(t.delta, 0) FROM card_balance b"
+          + LATEST_SNAPSHOT
+          + LEDGER_TAIL
+          + " WHERE b.card_id = ?";
+  private static final String CREATE_SNAPSHOTS =
+      "INSERT INTO card_balance_snapshot (card_id, balance, up_to, created_at)"
+          + " SELECT b.card_id,"
+          + " CASE WHEN s.up_to IS NULL"
+          + "  THEN b.balance - COALESCE((SELECT SUM(" + SIGNED_AMOUNT + ") FROM card_transaction t"
+          + "   WHERE t.card_id = b.card_id AND t.created_at > ?), 0)"
+          + "  ELSE s.balance + COALESCE((SELECT SUM(" + SIGNED_AMOUNT + ") FROM card_transaction t"
+          + "   WHERE t.card_id = b.card_id AND t.created_at > s.up_to AND t.created_at <= ?), 0)"
+          + " END, ?, ?"
+          + " FROM card_balance b"
+          + LATEST_SNAPSHOT
+          + " WHERE b.card_id > ? AND b.card_id <= ? AND (s.up_to IS NULL OR s.up_to < ?)";
+  private static final String FIND_DRIFT =
+      "SELECT b.card_id, b.balance, COALESCE(s.balance, 0) + COALESCE(t.delta, 0) AS ledger_balance"
+          + " FROM card_balance b"
+          + LATEST_SNAPSHOT
+          + LEDGER_TAIL
+          + " WHERE b.card_id > ? AND b.card_id <= ?"
+          + " AND b.balance <> COALESCE(s.balance, 0) + COALESCE(t.delta, 0)"
+          + " ORDER BY b.card_id";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public BigDecimal replayBalance(Long cardId) {
+    return jdbcTemplate.query(
+        REPLAY_BALANCE, rs -> rs.next() ? rs.getBigDecimal(1) : null, cardId);
+  }
+
+  @Override
+  public int createSnapshots(
+      long fromCardId, long toCardId, LocalDateTime upTo, LocalDateTime createdAt) {
+    return jdbcTemplate.update(
+        CREATE_SNAPSHOTS, upTo, upTo, upTo, createdAt, fromCardId, toCardId, upTo);
+  }
+
+  @Override
+  public List<BalanceDriftDto> findDrift(long fromCardId, long toCardId) {
+    return jdbcTemplate.query(
+        FIND_DRIFT,
+        (rs, rowNum) ->
+            new BalanceDriftDto(
+                rs.getLong("card_id"),
+                rs.getBigDecimal("balance"),
+                rs.getBigDecimal("ledger_balance")),
+        fromCardId,
+        toCardId);
+  }
+}
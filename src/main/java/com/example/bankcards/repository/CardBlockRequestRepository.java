@@ -1,6 +1,9 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.CardBlockRequest;
+import com.example.bankcards.entity.CardBlockRequestStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,4 +12,7 @@ import java.util.List;
 @Repository
 public interface CardBlockRequestRepository extends JpaRepository<CardBlockRequest, Long> {
   List<CardBlockRequest> findAllByUserId(Long userId);
+
+  Page<CardBlockRequest> findAllByStatusOrderByCreatedAtAscIdAsc(
+      CardBlockRequestStatus status, Pageable pageable);
 }
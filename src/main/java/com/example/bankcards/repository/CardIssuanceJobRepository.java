@@ -0,0 +1,154 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardIssuanceJobDto;
+import com.example.bankcards.dto.CardIssuanceJobStatus;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Bulk card issuances. A job records the users and the number of cards per user, and how many of
+ * its cards have been issued, so that a failed or interrupted job resumes where it stopped.
+ */
+@Repository
+public class CardIssuanceJobRepository {
+  private static final String INSERT =
+      "INSERT INTO card_issuance_job"
+          + " (user_ids, cards_per_user, total, issued, status, created_at, updated_at)"
+          + " VALUES (:userIds, :cardsPerUser, :total, 0,"
+          + " CAST('PENDING' AS card_issuance_job_status), :now, :now)";
+  private static final String SELECT_JOB =
+      "SELECT id, status, total, issued, error, created_at, updated_at FROM card_issuance_job"
+          + " WHERE id = :id";
+  private static final String SELECT_RUNNABLE =
+      "SELECT id, user_ids, cards_per_user, total, issued FROM card_issuance_job"
+          + " WHERE status IN ('PENDING', 'RUNNING') ORDER BY id LIMIT 1";
+  private static final String SET_STATUS =
+      "UPDATE card_issuance_job SET status = CAST(:status AS card_issuance_job_status),"
+          + " error = :error, updated_at = :now WHERE id = :id";
+  private static final String ADD_ISSUED =
+      "UPDATE card_issuance_job SET issued = issued + :count, updated_at = :now WHERE id = :id";
+  private static final String RESUME =
+      "UPDATE card_issuance_job SET status = CAST('PENDING' AS card_issuance_job_status),"
+          + " error = NULL, updated_at = :now WHERE id = :id AND status = 'FAILED'";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  public CardIssuanceJobRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Creates a pending job.
+   *
+   * @param userIds The IDs of the users, in the order in which they receive their cards.
+   * @param cardsPerUser The number of cards to issue to each user.
+   * @return The ID of the job.
+   */
+  public long create(List<Long> userIds, int cardsPerUser) {
+    var keyHolder = new GeneratedKeyHolder();
+    jdbcTemplate.update(
+        INSERT,
+        new MapSqlParameterSource("userIds", userIds.toArray(Long[]::new))
+            .addValue("cardsPerUser", cardsPerUser)
+            .addValue("total", (long) userIds.size() * cardsPerUser)
+            .addValue("now", LocalDateTime.now()),
+        keyHolder,
+        new String[] {"id"});
+    return keyHolder.getKeyAs(Long.class);
+  }
+
+  public Optional<CardIssuanceJobDto> findById(long id) {
+    return jdbcTemplate
+        .query(SELECT_JOB, new MapSqlParameterSource("id", id), CardIssuanceJobRepository::mapJob)
+        .stream()
+        .findFirst();
+  }
+
+  /**
+   * Finds the oldest job that is pending, or was left running by an instance that stopped.
+   *
+   * @return The job, or empty if there is nothing to run.
+   */
+  public Optional<RunnableJob> findRunnable() {
+    return jdbcTemplate
+        .query(
+            SELECT_RUNNABLE,
+            new MapSqlParameterSource(),
+            (rs, rowNum) ->
+                new RunnableJob(
+                    rs.getLong("id"),
+                    Arrays.asList((Long[]) rs.getArray("user_ids").getArray()),
+                    rs.getInt("cards_per_user"),
+                    rs.getLong("total"),
+                    rs.getLong("issued")))
+        .stream()
+        .findFirst();
+  }
+
+  public void setStatus(long id, CardIssuanceJobStatus status, String error) {
+    jdbcTemplate.update(
+        SET_STATUS,
+        new MapSqlParameterSource("id", id)
+            .addValue("status", status.name())
+            .addValue("error", error)
+            .addValue("now", LocalDateTime.now()));
+  }
+
+  /**
+   * Records issued cards. Called in the transaction that inserts them, so that the progress of the
+   * job always matches the cards in the database.
+   *
+   * @param id The ID of the job.
+   * @param count The number of cards issued.
+   */
+  public void addIssued(long id, int count) {
+    jdbcTemplate.update(
+        ADD_ISSUED,
+        new MapSqlParameterSource("id", id)
+            .addValue("count", count)
+            .addValue("now", LocalDateTime.now()));
+  }
+
+  /**
+   * Puts a failed job back in the queue.
+   *
+   * @param id The ID of the job.
+   * @return true if the job had failed and is pending again.
+   */
+  public boolean resume(long id) {
+    return jdbcTemplate.update(
+            RESUME, new MapSqlParameterSource("id", id).addValue("now", LocalDateTime.now()))
+        > 0;
+  }
+
+  private static CardIssuanceJobDto mapJob(ResultSet rs, int rowNum) throws SQLException {
+    return new CardIssuanceJobDto(
+        rs.getLong("id"),
+        CardIssuanceJobStatus.valueOf(rs.getString("status")),
+        rs.getLong("total"),
+        rs.getLong("issued"),
+        rs.getString("error"),
+        rs.getTimestamp("created_at").toLocalDateTime(),
+        rs.getTimestamp("updated_at").toLocalDateTime());
+  }
+
+  /**
+   * A job to run.
+   *
+   * @param id The ID of the job.
+   * @param userIds The IDs of the users, in the order in which they receive their cards.
+   * @param cardsPerUser The number of cards to issue to each user.
+   * @param total The number of cards to issue.
+   * @param issued The number of cards already issued.
+   */
+  public record RunnableJob(
+      long id, List<Long> userIds, int cardsPerUser, long total, long issued) {}
+}
@@ -0,0 +1,91 @@
+package com.example.bankcards.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Pre-generated card numbers waiting to be issued. Each number is stored encrypted together with
+ * its blind index; the unique index on the hash keeps the pool free of duplicates. Numbers already
+ * issued to a card are skipped when they are added, and dropped when they are taken, since a card
+ * inserted by a transaction that had not committed yet is invisible to the first check.
+ */
+@Repository
+public class CardNumberPoolRepository {
+  private static final String INSERT =
+      "INSERT INTO card_number_pool (number, number_hash, created_at)"
+          + " SELECT :number, :numberHash, :createdAt"
+          + " WHERE NOT EXISTS (SELECT 1 FROM cards WHERE number_hash = :numberHash)"
+          + " ON CONFLICT (number_hash) DO NOTHING";
+  private static final String TAKE =
+      "WITH taken AS (DELETE FROM card_number_pool WHERE id IN ("
+          + "SELECT id FROM card_number_pool ORDER BY id LIMIT :count FOR UPDATE SKIP LOCKED)"
+          + " RETURNING number, number_hash)"
+          + " SELECT t.number, t.number_hash FROM taken t"
+          + " WHERE NOT EXISTS (SELECT 1 FROM cards c WHERE c.number_hash = t.number_hash)";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  public CardNumberPoolRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Counts the numbers in the pool.
+   *
+   * @return The number of available numbers.
+   */
+  public long count() {
+    var count =
+        jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM card_number_pool", new MapSqlParameterSource(), Long.class);
+    return count != null ? count : 0;
+  }
+
+  /**
+   * Adds numbers to the pool with a single batch. Numbers that are already in the pool or have
+   * already been issued are skipped.
+   *
+   * @param numbers The numbers to add.
+   */
+  public void add(List<PooledNumber> numbers) {
+    var createdAt = LocalDateTime.now();
+    var parameters =
+        numbers.stream()
+            .map(
+                number ->
+                    new MapSqlParameterSource()
+                        .addValue("number", number.number())
+                        .addValue("numberHash", number.numberHash())
+                        .addValue("createdAt", createdAt))
+            .toArray(SqlParameterSource[]::new);
+    jdbcTemplate.batchUpdate(INSERT, parameters);
+  }
+
+  /**
+   * Removes up to {@code count} numbers from the pool, oldest first. Rows locked by concurrent
+   * callers are skipped, so parallel issuers never receive the same number. Numbers that have
+   * meanwhile been issued to a card are removed without being returned. If the surrounding
+   * transaction rolls back, the numbers return to the pool.
+   *
+   * @param count The maximum number of numbers to take.
+   * @return The taken numbers, fewer than requested if the pool runs short or held used numbers.
+   */
+  public List<PooledNumber> take(int count) {
+    return jdbcTemplate.query(
+        TAKE,
+        new MapSqlParameterSource("count", count),
+        (rs, rowNum) -> new PooledNumber(rs.getString("number"), rs.getString("number_hash")));
+  }
+
+  /**
+   * A card number from the pool.
+   *
+   * @param number The encrypted number.
+   * @param numberHash The blind index of the number.
+   */
+  public record PooledNumber(String number, String numberHash) {}
+}
@@ -1,19 +1,78 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.projection.CardNumberOwnerView;
+import com.example.bankcards.repository.projection.CardNumberView;
+import com.example.bankcards.repository.projection.CardOwnerView;
+import com.example.bankcards.repository.projection.UserCardView;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CardRepository extends JpaRepository<Card, Long> {
+public interface CardRepository extends JpaRepository<Card, Long>, CardRepositoryCustom {
 
-  Optional<Card> findCardByNumber(String number);
+  String SELECT_USER_CARDS =
+      "SELECT c.id AS id, c.number AS number, c.expireDate AS expireDate,"
+          + " c.createdAt AS createdAt, c.status AS status, b.balance AS balance"
+          + " FROM Card c LEFT JOIN c.balance b";
 
-  Page<Card> findByOwnerId(Long ownerId, Pageable pageable);
+  Optional<Card> findCardByNumberHash(String numberHash);
 
-  Page<Card> findByOwnerIdAndNumberContaining(Long ownerId, String number, Pageable pageable);
+  @Query(
+      value = SELECT_USER_CARDS + " WHERE c.ownerId = ?1 ORDER BY c.createdAt DESC, c.id DESC",
+      countQuery = "SELECT count(c) FROM Card c WHERE c.ownerId = ?1")
+  Page<UserCardView> findUserCardsByOwnerId(Long ownerId, Pageable pageable);
+
+  @Query(
+      value =
+          SELECT_USER_CARDS
+              + " WHERE c.ownerId = ?1 AND c.number LIKE %?2%"
+              + " ORDER BY c.createdAt DESC, c.id DESC",
+      countQuery = "SELECT count(c) FROM Card c WHERE c.ownerId = ?1 AND c.number LIKE %?2%")
+  Page<UserCardView> findUserCardsByOwnerIdAndNumberContaining(
+      Long ownerId, String number, Pageable pageable);
+
+  @Query(SELECT_USER_CARDS + " WHERE c.ownerId = ?1 ORDER BY c.createdAt DESC, c.id DESC")
+  List<UserCardView> findFirstPageByOwnerId(Long ownerId, Limit limit);
+
+  /**
+   * Reads the cards following the given position. The redundant {@code createdAt <= ?2} bound lets
+   * the database seek into the {@code (owner_id, created_at, id)} index.
+   */
+  @Query(
+      SELECT_USER_CARDS
+          + " WHERE c.ownerId = ?1 AND c.createdAt <= ?2 AND (c.createdAt < ?2 OR c.id < ?3)"
+          + " ORDER BY c.createdAt DESC, c.id DESC")
+  List<UserCardView> findPageAfterByOwnerId(
+      Long ownerId, LocalDateTime createdAt, Long id, Limit limit);
+
+  long countByOwnerId(Long ownerId);
+
+  @Query("SELECT c.id AS id, c.number AS number FROM Card c WHERE c.numberHash IS NULL ORDER BY c.id")
+  List<CardNumberView> findWithoutNumberHash(Pageable pageable);
+
+  @Query("SELECT c.ownerId FROM Card c WHERE c.id = ?1")
+  Optional<Long> findOwnerIdById(Long id);
+
+  @Query("SELECT c.number AS number, c.ownerId AS ownerId FROM Card c WHERE c.id = ?1")
+  Optional<CardNumberOwnerView> findNumberAndOwnerById(Long id);
+
+  @Query(
+      "SELECT c.id AS id, c.numberHash AS numberHash, c.ownerId AS ownerId FROM Card c"
+          + " WHERE c.numberHash IN ?1")
+  List<CardOwnerView> findOwnersByNumberHashIn(Collection<String> numberHashes);
+
+  @Modifying
+  @Query("UPDATE Card c SET c.numberHash = ?2 WHERE c.id = ?1")
+  void updateNumberHash(Long id, String numberHash);
 }
@@ -0,0 +1,123 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.AdminCardDto;
+import com.example.bankcards.dto.CardFilter;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface CardRepositoryCustom {
+
+  /**
+   * Reads a page of the cards matching the filter, ordered by id, with their balances. The
+   * returned {@code number} is still encrypted.
+   *
+   * @param filter The filter.
+   * @param offset The number of matching cards to skip.
+   * @param limit The maximum number of cards to return.
+   * @return The matching cards.
+   */
+  List<AdminCardDto> findAdminCards(CardFilter filter, long offset, int limit);
+
+  /**
+   * Counts the cards matching the filter.
+   *
+   * @param filter The filter.
+   * @return The number of matching cards.
+   */
+  long countAdminCards(CardFilter filter);
+
+  /**
+   * Streams all cards matching the filter, ordered by id, from a database cursor. Must be called
+   * within a transaction and the stream must be closed. The returned {@code number} is still
+   * encrypted.
+   *
+   * @param filter The filter.
+   * @return The matching cards.
+   */
+  Stream<AdminCardDto> streamAdminCards(CardFilter filter);
+
+  /**
+   * Sets the status of the cards with the given ids. Cards already in the target status are
+   * skipped, and so are expired cards: they are never changed, and cards past their expiry date
+   * are not activated.
+   *
+   * @param ids The IDs of the cards.
+   * @param status The new status.
+   * @return The number of updated cards.
+   */
+  int updateStatusByIdIn(Collection<Long> ids, CardStatus status);
+
+  /**
+   * Sets the status of all cards of a user with a single UPDATE. Like {@link
+   * #updateStatusByIdIn}, cards already in the target status and expired cards are left as they
+   * are.
+   *
+   * @param ownerId The ID of the user.
+   * @param status The new status.
+   * @return The number of updated cards.
+   */
+  int updateStatusByOwnerId(Long ownerId, CardStatus status);
+
+  /**
+   * Sets the status of up to {@code limit} cards matching the filter, lowest ids first. Cards
+   * already in the target status are skipped, so repeated calls eventually update nothing. Like
+   * {@link #updateStatusByIdIn}, expired cards are left as they are.
+   *
+   * @param filter The filter.
+   * @param status The new status.
+   * @param limit The maximum number of cards to update.
+   * @return The number of updated cards.
+   */
+  int updateStatusChunk(CardFilter filter, CardStatus status, int limit);
+
+  /**
+   * Marks up to {@code limit} cards that expired before {@code now} as expired, earliest expiry
+   * first. The cards are found through the partial index on {@code expire_date} of unexpired
+   * cards; cards locked by concurrent transactions are skipped and left for a later call.
+   *
+   * @param now The moment before which cards count as expired.
+   * @param limit The maximum number of cards to update.
+   * @return The number of updated cards.
+   */
+  int expireChunk(LocalDateTime now, int limit);
+
+  /**
+   * Reserves ids for new cards from {@code cards_id_seq} in a single round trip. Like the entity
+   * mapping, every value of the sequence is taken as the lowest id of a block of {@link
+   * Card#ID_ALLOCATION_SIZE} ids (pooled-lo), so both can draw from the sequence concurrently.
+   *
+   * @param count The number of ids to reserve.
+   * @return The reserved ids.
+   */
+  List<Long> nextIds(int count);
+
+  /**
+   * Inserts active cards with a zero balance using JDBC batches, one for the cards and one for
+   * their balances.
+   *
+   * @param cards The cards, with ids reserved by {@link #nextIds(int)}.
+   */
+  void insertCards(List<NewCard> cards);
+
+  /**
+   * A card to be inserted by {@link #insertCards(List)}.
+   *
+   * @param id The reserved id.
+   * @param number The encrypted number.
+   * @param numberHash The blind index of the number.
+   * @param ownerId The ID of the owner.
+   * @param createdAt The creation time.
+   * @param expireDate The expiry date.
+   */
+  record NewCard(
+      long id,
+      String number,
+      String numberHash,
+      long ownerId,
+      LocalDateTime createdAt,
+      LocalDateTime expireDate) {}
+}
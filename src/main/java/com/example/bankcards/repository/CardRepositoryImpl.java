@@ -0,0 +1,206 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.AdminCardDto;
+import com.example.bankcards.dto.CardFilter;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+public class CardRepositoryImpl implements CardRepositoryCustom {
+  private static final int STREAM_FETCH_SIZE = 500;
+  private static final String SELECT_ADMIN_CARDS =
+      "SELECT c.id, c.number, c.expire_date, c.created_at, c.status, b.balance, c.owner_id"
+          + " FROM cards c LEFT JOIN card_balance b ON b.card_id = c.id";
+  private static final String COUNT_ADMIN_CARDS = "SELECT count(*) FROM cards c";
+  private static final String EXPIRE_CHUNK =
+      "UPDATE cards SET status = 'EXPIRED' WHERE id IN ("
+          + "SELECT id FROM cards WHERE expire_date < :now AND status <> 'EXPIRED'"
+          + " ORDER BY expire_date LIMIT :limit FOR UPDATE SKIP LOCKED)";
+  private static final String NEXT_ID_BLOCKS =
+      "SELECT nextval('cards_id_seq') FROM generate_series(1, :blocks)";
+  private static final String INSERT_CARD =
+      "INSERT INTO cards (id, number, number_hash, expire_date, created_at, status, owner_id)"
+          + " VALUES (:id, :number, :numberHash, :expireDate, :createdAt,"
+          + " CAST('ACTIVE' AS card_status), :ownerId)";
+  private static final String INSERT_BALANCE =
+      "INSERT INTO card_balance (card_id, balance, version) VALUES (:id, 0, 0)";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+  public CardRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    var streaming =
+        new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getJdbcTemplate().getDataSource()));
+    streaming.setFetchSize(STREAM_FETCH_SIZE);
+    this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+  }
+
+  @Override
+  public List<AdminCardDto> findAdminCards(CardFilter filter, long offset, int limit) {
+    var parameters = new MapSqlParameterSource();
+    var sql =
+        SELECT_ADMIN_CARDS
+            + where(filter, parameters)
+            + " ORDER BY c.id LIMIT :limit OFFSET :offset";
+    parameters.addValue("limit", limit).addValue("offset", offset);
+    return jdbcTemplate.query(sql, parameters, CardRepositoryImpl::toAdminCard);
+  }
+
+  @Override
+  public long countAdminCards(CardFilter filter) {
+    var parameters = new MapSqlParameterSource();
+    var count =
+        jdbcTemplate.queryForObject(
+            COUNT_ADMIN_CARDS + where(filter, parameters), parameters, Long.class);
+    return count != null ? count : 0;
+  }
+
+  @Override
+  public Stream<AdminCardDto> streamAdminCards(CardFilter filter) {
+    var parameters = new MapSqlParameterSource();
+    var sql = SELECT_ADMIN_CARDS + where(filter, parameters) + " ORDER BY c.id";
+    return streamingJdbcTemplate.queryForStream(sql, parameters, CardRepositoryImpl::toAdminCard);
+  }
+
+  @Override
+  public int updateStatusByIdIn(Collection<Long> ids, CardStatus status) {
+    var parameters = new MapSqlParameterSource("ids", ids);
+    var conditions = new ArrayList<String>();
+    conditions.add("c.id IN (:ids)");
+    addTransitionConditions(conditions, parameters, status);
+    var sql =
+        "UPDATE cards c SET status = CAST(:newStatus AS card_status) WHERE "
+            + String.join(" AND ", conditions);
+    return jdbcTemplate.update(sql, parameters);
+  }
+
+  @Override
+  public int updateStatusByOwnerId(Long ownerId, CardStatus status) {
+    var parameters = new MapSqlParameterSource("ownerId", ownerId);
+    var conditions = new ArrayList<String>();
+    conditions.add("c.owner_id = :ownerId");
+    addTransitionConditions(conditions, parameters, status);
+    var sql =
+        "UPDATE cards c SET status = CAST(:newStatus AS card_status) WHERE "
+            + String.join(" AND ", conditions);
+    return jdbcTemplate.update(sql, parameters);
+  }
+
+  @Override
+  public int updateStatusChunk(CardFilter filter, CardStatus status, int limit) {
+    var parameters = new MapSqlParameterSource();
+    var conditions = conditions(filter, parameters);
+    addTransitionConditions(conditions, parameters, status);
+    parameters.addValue("limit", limit);
+    var sql =
+        "UPDATE cards SET status = CAST(:newStatus AS card_status) WHERE id IN ("
+            + "SELECT c.id FROM cards c WHERE "
+            + String.join(" AND ", conditions)
+            + " ORDER BY c.id LIMIT :limit)";
+    return jdbcTemplate.update(sql, parameters);
+  }
+
+  @Override
+  public int expireChunk(LocalDateTime now, int limit) {
+    return jdbcTemplate.update(
+        EXPIRE_CHUNK, new MapSqlParameterSource("now", now).addValue("limit", limit));
+  }
+
+  @Override
+  public List<Long> nextIds(int count) {
+    var blocks = (count + Card.ID_ALLOCATION_SIZE - 1) / Card.ID_ALLOCATION_SIZE;
+    var starts =
+        jdbcTemplate.queryForList(
+            NEXT_ID_BLOCKS, new MapSqlParameterSource("blocks", blocks), Long.class);
+    var ids = new ArrayList<Long>(count);
+    for (var start : starts) {
+      for (long id = start; id < start + Card.ID_ALLOCATION_SIZE && ids.size() < count; id++) {
+        ids.add(id);
+      }
+    }
+    return ids;
+  }
+
+  @Override
+  public void insertCards(List<NewCard> cards) {
+    var parameters =
+        cards.stream()
+            .map(
+                card ->
+                    new MapSqlParameterSource()
+                        .addValue("id", card.id())
+                        .addValue("number", card.number())
+                        .addValue("numberHash", card.numberHash())
+                        .addValue("expireDate", card.expireDate())
+                        .addValue("createdAt", card.createdAt())
+                        .addValue("ownerId", card.ownerId()))
+            .toArray(SqlParameterSource[]::new);
+    jdbcTemplate.batchUpdate(INSERT_CARD, parameters);
+    jdbcTemplate.batchUpdate(INSERT_BALANCE, parameters);
+  }
+
+  /**
+   * Restricts a status update to cards that change status. Expired cards are final, and cards past
+   * their expiry date that the sweep has not reached yet cannot be activated.
+   */
+  private static void addTransitionConditions(
+      List<String> conditions, MapSqlParameterSource parameters, CardStatus status) {
+    conditions.add("c.status <> CAST(:newStatus AS card_status)");
+    conditions.add("c.status <> 'EXPIRED'");
+    parameters.addValue("newStatus", status.name());
+    if (status == CardStatus.ACTIVE) {
+      conditions.add("c.expire_date >= :now");
+      parameters.addValue("now", LocalDateTime.now());
+    }
+  }
+
+  private static String where(CardFilter filter, MapSqlParameterSource parameters) {
+    var conditions = conditions(filter, parameters);
+    return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+  }
+
+  private static List<String> conditions(CardFilter filter, MapSqlParameterSource parameters) {
+    var conditions = new ArrayList<String>();
+    if (filter.status() != null) {
+      conditions.add("c.status = CAST(:status AS card_status)");
+      parameters.addValue("status", filter.status().name());
+    }
+    if (filter.ownerId() != null) {
+      conditions.add("c.owner_id = :ownerId");
+      parameters.addValue("ownerId", filter.ownerId());
+    }
+    if (filter.expireFrom() != null) {
+      conditions.add("c.expire_date >= :expireFrom");
+      parameters.addValue("expireFrom", filter.expireFrom());
+    }
+    if (filter.expireTo() != null) {
+      conditions.add("c.expire_date < :expireTo");
+      parameters.addValue("expireTo", filter.expireTo());
+    }
+    return conditions;
+  }
+
+  private static AdminCardDto toAdminCard(ResultSet rs, int rowNum) throws SQLException {
+    var card = new AdminCardDto();
+    card.setId(rs.getLong("id"));
+    card.setNumber(rs.getString("number"));
+    card.setExpireDate(rs.getTimestamp("expire_date").toLocalDateTime());
+    card.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+    card.setStatus(CardStatus.valueOf(rs.getString("status")));
+    card.setBalance(rs.getBigDecimal("balance"));
+    card.setOwnerId(rs.getLong("owner_id"));
+    return card;
+  }
+}
@@ -0,0 +1,48 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.entity.CardTransaction;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CardTransactionRepository
+    extends JpaRepository<CardTransaction, Long>, CardTransactionRepositoryCustom {
+
+  @Query(
+      "SELECT new com.example.bankcards.dto.CardTransactionDto("
+          + "t.id, t.transferId, t.counterpartyCardId, t.type, t.amount, t.createdAt)"
+          + " FROM CardTransaction t WHERE t.cardId = ?1"
+          + " ORDER BY t.createdAt DESC, t.id DESC")
+  List<CardTransactionDto> findFirstPage(Long cardId, Limit limit);
+
+  /**
+   * Reads the entries following the given position. The redundant {@code createdAt <= ?2} bound
+   * lets the database seek into the {@code (card_id, created_at, id)} index.
+   */
+  @Query(
+      "SELECT new com.example.bankcards.dto.CardTransactionDto("
+          + "t.id, t.transferId, t.counterpartyCardId, t.type, t.amount, t.createdAt)"
+          + " FROM CardTransaction t WHERE t.cardId = ?1 AND t.createdAt <= ?2"
+          + " AND (t.createdAt < ?2 OR t.id < ?3)"
+          + " ORDER BY t.createdAt DESC, t.id DESC")
+  List<CardTransactionDto> findPageAfter(Long cardId, LocalDateTime createdAt, Long id, Limit limit);
+
+  long countByCardId(Long cardId);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  @Query(
+      "SELECT new com.example.bankcards.dto.CardTransactionDto("
+          + "t.id, t.transferId, t.counterpartyCardId, t.type, t.amount, t.createdAt)"
+          + " FROM CardTransaction t WHERE t.cardId = ?1"
+          + " ORDER BY t.createdAt DESC, t.id DESC")
+  Stream<CardTransactionDto> streamByCardId(Long cardId);
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.repository;
+
+import java.time.YearMonth;
+
+public interface CardTransactionRepositoryCustom {
+
+  /**
+   * Creates the partition of the card ledger holding the entries of the given month, unless it
+   * already exists.
+   *
+   * @param month The month covered by the partition.
+   */
+  void createMonthlyPartition(YearMonth month);
+}
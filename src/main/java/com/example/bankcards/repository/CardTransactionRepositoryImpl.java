@@ -0,0 +1,26 @@
+package com.example.bankcards.repository;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@RequiredArgsConstructor
+public class CardTransactionRepositoryImpl implements CardTransactionRepositoryCustom {
+  private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public void createMonthlyPartition(YearMonth month) {
+    // Identifiers and bounds come from the YearMonth only, so the DDL cannot be injected into.
+    jdbcTemplate.execute(
+        "CREATE TABLE IF NOT EXISTS card_transaction_"
+            + month.format(PARTITION_SUFFIX)
+            + " PARTITION OF card_transaction FOR VALUES FROM ('"
+            + month.atDay(1)
+            + "') TO ('"
+            + month.plusMonths(1).atDay(1)
+            + "')");
+  }
+}
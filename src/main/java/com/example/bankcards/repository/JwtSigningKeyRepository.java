@@ -0,0 +1,21 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.JwtSigningKey;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+
+  /** Returns the keys that may still have signed a valid token, newest first. */
+  @Query("SELECT k FROM JwtSigningKey k WHERE k.expiresAt > ?1 ORDER BY k.createdAt DESC")
+  List<JwtSigningKey> findActive(LocalDateTime now);
+
+  @Modifying
+  @Query("DELETE FROM JwtSigningKey k WHERE k.expiresAt <= ?1")
+  int deleteExpired(LocalDateTime now);
+}
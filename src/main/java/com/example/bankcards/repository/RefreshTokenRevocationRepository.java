@@ -0,0 +1,37 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.RefreshTokenRevocation;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RefreshTokenRevocationRepository
+    extends JpaRepository<RefreshTokenRevocation, UUID> {
+
+  /**
+   * Revokes a refresh token. Concurrent revocations of the same token are serialized by the
+   * primary key, so exactly one of them succeeds.
+   *
+   * @return 1 if the token was revoked by this call, 0 if it had already been revoked.
+   */
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO refresh_token_revocation (jti, user_id, revoked_at, expires_at)"
+              + " VALUES (?1, ?2, ?3, ?4)"
+              + " ON CONFLICT (jti) DO NOTHING",
+      nativeQuery = true)
+  int revoke(UUID jti, Long userId, LocalDateTime revokedAt, LocalDateTime expiresAt);
+
+  @Query("SELECT r.jti FROM RefreshTokenRevocation r WHERE r.expiresAt > ?1")
+  List<UUID> findActiveJtis(LocalDateTime now);
+
+  @Modifying
+  @Query("DELETE FROM RefreshTokenRevocation r WHERE r.expiresAt <= ?1")
+  int deleteExpired(LocalDateTime now);
+}
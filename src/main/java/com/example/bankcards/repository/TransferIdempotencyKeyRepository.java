@@ -0,0 +1,43 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.TransferIdempotencyKey;
+import com.example.bankcards.entity.TransferIdempotencyKeyId;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TransferIdempotencyKeyRepository
+    extends JpaRepository<TransferIdempotencyKey, TransferIdempotencyKeyId> {
+
+  /**
+   * Claims an idempotency key. An expired row with the same key is taken over, a live one is left
+   * untouched. A concurrent claim of the same key waits until the transaction holding it ends.
+   *
+   * @return 1 if the key was claimed by the current transaction, 0 if it is already in use.
+   */
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO transfer_idempotency_key"
+              + " (user_id, idempotency_key, request_hash, result, created_at, expires_at)"
+              + " VALUES (?1, ?2, ?3, ?4, ?5, ?6)"
+              + " ON CONFLICT (user_id, idempotency_key) DO UPDATE"
+              + " SET request_hash = EXCLUDED.request_hash, result = EXCLUDED.result,"
+              + " created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at"
+              + " WHERE transfer_idempotency_key.expires_at <= EXCLUDED.created_at",
+      nativeQuery = true)
+  int claim(
+      Long userId,
+      String idempotencyKey,
+      String requestHash,
+      String result,
+      LocalDateTime createdAt,
+      LocalDateTime expiresAt);
+
+  @Modifying
+  @Query("DELETE FROM TransferIdempotencyKey k WHERE k.expiresAt <= ?1")
+  int deleteExpired(LocalDateTime now);
+}
@@ -3,6 +3,7 @@ package com.example.bankcards.repository;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.UserStatus;
+import java.util.Collection;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -11,9 +12,11 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
   Optional<User> findByLogin(String login);
 
+  long countByIdIn(Collection<Long> ids);
+
   @NativeQuery("SELECT EXISTS(SELECT id FROM users WHERE role='ADMIN'::role_type) AS record;")
   boolean hasAdmin();
 
@@ -0,0 +1,37 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.UserFilter;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface UserRepositoryCustom {
+
+  /**
+   * Reads a page of the users matching the filter, ordered by id. Only the {@code users} table is
+   * read.
+   *
+   * @param filter The filter.
+   * @param offset The number of matching users to skip.
+   * @param limit The maximum number of users to return.
+   * @return The matching users.
+   */
+  List<UserDto> findUserDtos(UserFilter filter, long offset, int limit);
+
+  /**
+   * Counts the users matching the filter.
+   *
+   * @param filter The filter.
+   * @return The number of matching users.
+   */
+  long countUsers(UserFilter filter);
+
+  /**
+   * Streams all users matching the filter, ordered by id, from a database cursor. Must be called
+   * within a transaction and the stream must be closed.
+   *
+   * @param filter The filter.
+   * @return The matching users.
+   */
+  Stream<UserDto> streamUserDtos(UserFilter filter);
+}
@@ -0,0 +1,98 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.UserFilter;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.UserStatus;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+  private static final int STREAM_FETCH_SIZE = 500;
+  private static final String SELECT_USERS =
+      "SELECT u.id, u.name, u.last_name, u.surname, u.login, u.status, u.role, u.created_at"
+          + " FROM users u";
+  private static final String COUNT_USERS = "SELECT count(*) FROM users u";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+  public UserRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    var streaming =
+        new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getJdbcTemplate().getDataSource()));
+    streaming.setFetchSize(STREAM_FETCH_SIZE);
+    this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+  }
+
+  @Override
+  public List<UserDto> findUserDtos(UserFilter filter, long offset, int limit) {
+    var parameters = new MapSqlParameterSource();
+    var sql = SELECT_USERS + where(filter, parameters) + " ORDER BY u.id LIMIT :limit OFFSET :offset";
+    parameters.addValue("limit", limit).addValue("offset", offset);
+    return jdbcTemplate.query(sql, parameters, UserRepositoryImpl::toUserDto);
+  }
+
+  @Override
+  public long countUsers(UserFilter filter) {
+    var parameters = new MapSqlParameterSource();
+    var count =
+        jdbcTemplate.queryForObject(COUNT_USERS + where(filter, parameters), parameters, Long.class);
+    return count != null ? count : 0;
+  }
+
+  @Override
+  public Stream<UserDto> streamUserDtos(UserFilter filter) {
+    var parameters = new MapSqlParameterSource();
+    var sql = SELECT_USERS + where(filter, parameters) + " ORDER BY u.id";
+    return streamingJdbcTemplate.queryForStream(sql, parameters, UserRepositoryImpl::toUserDto);
+  }
+
+  private static String where(UserFilter filter, MapSqlParameterSource parameters) {
+    var conditions = new ArrayList<String>();
+    if (filter.status() != null) {
+      conditions.add("u.status = CAST(:status AS user_status)");
+      parameters.addValue("status", filter.status().name());
+    }
+    if (filter.role() != null) {
+      conditions.add("u.role = CAST(:role AS role_type)");
+      parameters.addValue("role", filter.role().name());
+    }
+    if (filter.loginPrefix() != null && !filter.loginPrefix().isEmpty()) {
+      conditions.add("u.login LIKE :loginPattern ESCAPE '\\'");
+      parameters.addValue("loginPattern", escapeLike(filter.loginPrefix()) + "%");
+    }
+    if (filter.createdFrom() != null) {
+      conditions.add("u.created_at >= :createdFrom");
+      parameters.addValue("createdFrom", filter.createdFrom());
+    }
+    if (filter.createdTo() != null) {
+      conditions.add("u.created_at < :createdTo");
+      parameters.addValue("createdTo", filter.createdTo());
+    }
+    return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+  }
+
+  private static String escapeLike(String value) {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  private static UserDto toUserDto(ResultSet rs, int rowNum) throws SQLException {
+    return new UserDto(
+        rs.getLong("id"),
+        rs.getString("name"),
+        rs.getString("last_name"),
+        rs.getString("surname"),
+        rs.getString("login"),
+        UserStatus.valueOf(rs.getString("status")),
+        Role.valueOf(rs.getString("role")),
+        rs.getTimestamp("created_at").toLocalDateTime());
+  }
+}
@@ -0,0 +1,10 @@
+package com.example.bankcards.repository.projection;
+
+/**
+ * Lightweight view of a card containing only its encrypted number and owner.
+ */
+public interface CardNumberOwnerView {
+  String getNumber();
+
+  Long getOwnerId();
+}
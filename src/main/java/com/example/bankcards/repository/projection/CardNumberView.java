@@ -0,0 +1,10 @@
+package com.example.bankcards.repository.projection;
+
+/**
+ * Lightweight view of a card containing only its identifier and encrypted number.
+ */
+public interface CardNumberView {
+  Long getId();
+
+  String getNumber();
+}
@@ -0,0 +1,12 @@
+package com.example.bankcards.repository.projection;
+
+/**
+ * Lightweight view of a card containing only what is needed to authorize a transfer.
+ */
+public interface CardOwnerView {
+  Long getId();
+
+  String getNumberHash();
+
+  Long getOwnerId();
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.repository.projection;
+
+import com.example.bankcards.entity.CardStatus;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * View of a card shown to its owner, read together with its balance in a single query.
+ */
+public interface UserCardView {
+  Long getId();
+
+  String getNumber();
+
+  LocalDateTime getExpireDate();
+
+  LocalDateTime getCreatedAt();
+
+  CardStatus getStatus();
+
+  BigDecimal getBalance();
+}
@@ -1,16 +1,37 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.entity.User;
 import com.example.bankcards.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.bankcards.service.UserChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailService implements UserDetailsService {
     private final UserRepository userRepository;
+    private final Cache<String, User> principals;
+
+    public CustomUserDetailService(UserRepository userRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${security.principal-cache.ttl:5m}") Duration ttl,
+                                   @Value("${security.principal-cache.max-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "principals");
+    }
 
     /**
      * Loads user-specific data.
@@ -25,4 +46,27 @@ public class CustomUserDetailService implements UserDetailsService {
         return userRepository.findByLogin(username)
                 .orElseThrow(() -> new UsernameNotFoundException(username));
     }
+
+    /**
+     * Loads the principal of an authenticated request. Principals are cached by login for
+     * {@code security.principal-cache.ttl} and evicted when the user changes, so that
+     * authenticated requests do not query the users table.
+     *
+     * @param username the username identifying the user whose data is required.
+     * @return the user, possibly from the cache
+     * @throws UsernameNotFoundException if the user could not be found
+     */
+    public User loadPrincipal(String username) throws UsernameNotFoundException {
+        return principals.get(username, login -> (User) loadUserByUsername(login));
+    }
+
+    /**
+     * Evicts the cached principal of a changed user once the change is committed.
+     *
+     * @param event The change event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        principals.asMap().values().removeIf(user -> user.getId().equals(event.userId()));
+    }
 }
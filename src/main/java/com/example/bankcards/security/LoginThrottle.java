@@ -0,0 +1,119 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.LoginThrottledException;
+import com.example.bankcards.util.SlidingWindowCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Guards the login endpoint against brute force and credential stuffing. Every attempt is counted
+ * per client address, and every failed attempt per login and address as well as per login alone,
+ * all over a sliding window. A caller over any limit is rejected before the user is looked up or a
+ * password is hashed. The limit per login alone is meant to be much higher than the one per login
+ * and address: it only stops guessing spread over many addresses, so that a single client cannot
+ * lock the owner of an account out by failing on purpose. A successful login clears the failures
+ * of its login.
+ */
+@Component
+public class LoginThrottle {
+  private final SlidingWindowCounter attemptsByAddress;
+  private final SlidingWindowCounter failuresByLoginAndAddress;
+  private final SlidingWindowCounter failuresByLogin;
+  private final int maxAttemptsPerAddress;
+  private final int maxFailuresPerLoginAndAddress;
+  private final int maxFailuresPerLogin;
+  private final Duration window;
+  private final Counter attempts;
+  private final Counter failures;
+  private final Counter throttledByAddress;
+  private final Counter throttledByLoginAndAddress;
+  private final Counter throttledByLogin;
+
+  public LoginThrottle(
+      MeterRegistry meterRegistry,
+      @Value("${security.login-throttle.window:1m}") Duration window,
+      @Value("${security.login-throttle.max-attempts-per-address:100}") int maxAttemptsPerAddress,
+      @Value("${security.login-throttle.max-failures-per-login-and-address:10}")
+          int maxFailuresPerLoginAndAddress,
+      @Value("${security.login-throttle.max-failures-per-login:1000}") int maxFailuresPerLogin,
+      @Value("${security.login-throttle.width:65536}") int width) {
+    this.attemptsByAddress = new SlidingWindowCounter(width, window);
+    this.failuresByLoginAndAddress = new SlidingWindowCounter(width, window);
+    this.failuresByLogin = new SlidingWindowCounter(width, window);
+    this.maxAttemptsPerAddress = maxAttemptsPerAddress;
+    this.maxFailuresPerLoginAndAddress = maxFailuresPerLoginAndAddress;
+    this.maxFailuresPerLogin = maxFailuresPerLogin;
+    this.window = window;
+    this.attempts =
+        Counter.builder("auth.login.attempts")
+            .description("Login attempts received")
+            .register(meterRegistry);
+    this.failures =
+        Counter.builder("auth.login.failures")
+            .description("Login attempts with an unknown login or a wrong password")
+            .register(meterRegistry);
+    this.throttledByAddress = throttledCounter(meterRegistry, "address");
+    this.throttledByLoginAndAddress = throttledCounter(meterRegistry, "login_address");
+    this.throttledByLogin = throttledCounter(meterRegistry, "login");
+  }
+
+  /**
+   * Records a login attempt and checks it against the limits.
+   *
+   * @param login The login the client tries to authenticate as.
+   * @param address The address of the client.
+   * @throws LoginThrottledException if the client or the login is over its limit.
+   */
+  public void checkAttempt(String login, String address) {
+    attempts.increment();
+    if (attemptsByAddress.increment(address) > maxAttemptsPerAddress) {
+      throttledByAddress.increment();
+      throw new LoginThrottledException(window);
+    }
+    if (failuresByLoginAndAddress.estimate(key(login, address)) >= maxFailuresPerLoginAndAddress) {
+      throttledByLoginAndAddress.increment();
+      throw new LoginThrottledException(window);
+    }
+    if (failuresByLogin.estimate(login) >= maxFailuresPerLogin) {
+      throttledByLogin.increment();
+      throw new LoginThrottledException(window);
+    }
+  }
+
+  /**
+   * Records a failed login attempt.
+   *
+   * @param login The login of the failed attempt.
+   * @param address The address of the client.
+   */
+  public void recordFailure(String login, String address) {
+    failures.increment();
+    failuresByLoginAndAddress.increment(key(login, address));
+    failuresByLogin.increment(login);
+  }
+
+  /**
+   * Records a successful login attempt, clearing the failures of the login.
+   *
+   * @param login The login of the successful attempt.
+   * @param address The address of the client.
+   */
+  public void recordSuccess(String login, String address) {
+    failuresByLoginAndAddress.reset(key(login, address));
+    failuresByLogin.reset(login);
+  }
+
+  private static String key(String login, String address) {
+    return login + '\0' + address;
+  }
+
+  private static Counter throttledCounter(MeterRegistry meterRegistry, String scope) {
+    return Counter.builder("auth.login.throttled")
+        .description("Login attempts rejected by the throttle")
+        .tag("scope", scope)
+        .register(meterRegistry);
+  }
+}
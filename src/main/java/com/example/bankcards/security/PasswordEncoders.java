@@ -0,0 +1,79 @@
+package com.example.bankcards.security;
+
+import java.util.Map;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm;
+
+/**
+ * Builds the password encoders supported by the application. Hashes are stored with an {@code
+ * {id}} prefix naming the algorithm, so the algorithm and its parameters can be changed without
+ * invalidating existing hashes; hashes without a prefix were written by the former plain bcrypt
+ * encoder.
+ */
+public final class PasswordEncoders {
+  public static final String BCRYPT = "bcrypt";
+  public static final String ARGON2 = "argon2";
+  public static final String PBKDF2 = "pbkdf2";
+
+  private PasswordEncoders() {}
+
+  /**
+   * Creates a bcrypt encoder.
+   *
+   * @param strength The log2 of the number of rounds, between 4 and 31.
+   * @return The encoder.
+   */
+  public static PasswordEncoder bcrypt(int strength) {
+    return new BCryptPasswordEncoder(strength);
+  }
+
+  /**
+   * Creates an Argon2id encoder.
+   *
+   * @param saltLength The salt length in bytes.
+   * @param hashLength The hash length in bytes.
+   * @param parallelism The number of lanes.
+   * @param memory The memory cost in KiB.
+   * @param iterations The number of passes.
+   * @return The encoder.
+   */
+  public static PasswordEncoder argon2(
+      int saltLength, int hashLength, int parallelism, int memory, int iterations) {
+    return new Argon2PasswordEncoder(saltLength, hashLength, parallelism, memory, iterations);
+  }
+
+  /**
+   * Creates a PBKDF2 with HMAC-SHA256 encoder.
+   *
+   * @param saltLength The salt length in bytes.
+   * @param iterations The number of iterations.
+   * @return The encoder.
+   */
+  public static PasswordEncoder pbkdf2(int saltLength, int iterations) {
+    return new Pbkdf2PasswordEncoder(
+        "", saltLength, iterations, SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+  }
+
+  /**
+   * Creates an encoder that writes new hashes with the encoder named {@code idForEncode} and
+   * verifies hashes of every known algorithm. {@link PasswordEncoder#upgradeEncoding(String)}
+   * reports hashes of another algorithm, or with weaker parameters, as due for an upgrade.
+   *
+   * @param idForEncode The id of the encoder for new hashes.
+   * @param encoders The encoders by id.
+   * @return The delegating encoder.
+   */
+  public static PasswordEncoder delegating(
+      String idForEncode, Map<String, PasswordEncoder> encoders) {
+    if (!encoders.containsKey(idForEncode)) {
+      throw new IllegalArgumentException("Unknown password encoder: " + idForEncode);
+    }
+    var encoder = new DelegatingPasswordEncoder(idForEncode, encoders);
+    encoder.setDefaultPasswordEncoderForMatches(encoders.get(BCRYPT));
+    return encoder;
+  }
+}
@@ -0,0 +1,78 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded pool for password hashing. Logins are handed over to this pool so that a burst of them
+ * does not occupy every request thread with CPU-bound hashing: at most {@code
+ * security.password.hashing.threads} hashes run at once, {@code
+ * security.password.hashing.queue-capacity} more wait, and anything beyond that is rejected
+ * immediately with {@link PasswordHashingBusyException}.
+ */
+@Component
+public class PasswordHashingExecutor {
+  private final ThreadPoolExecutor pool;
+  private final ExecutorService monitoredPool;
+  private final Counter rejected;
+
+  public PasswordHashingExecutor(
+      MeterRegistry meterRegistry,
+      @Value("${security.password.hashing.threads:0}") int threads,
+      @Value("${security.password.hashing.queue-capacity:100}") int queueCapacity) {
+    var poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    var threadNumber = new AtomicInteger();
+    this.pool =
+        new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+              var thread =
+                  new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.monitoredPool = ExecutorServiceMetrics.monitor(meterRegistry, pool, "password.hashing");
+    this.rejected =
+        Counter.builder("password.hashing.rejected")
+            .description("Password hashing tasks rejected because the pool was saturated")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Runs the task on the hashing pool.
+   *
+   * @param task The task, typically a login that verifies a password.
+   * @return A future completed with the result of the task, or failed with {@link
+   *     PasswordHashingBusyException} if the pool and its queue are full.
+   */
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    try {
+      return CompletableFuture.supplyAsync(task, monitoredPool);
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      return CompletableFuture.failedFuture(new PasswordHashingBusyException());
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    pool.shutdown();
+  }
+}
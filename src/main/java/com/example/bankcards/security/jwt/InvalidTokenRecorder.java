@@ -0,0 +1,70 @@
+package com.example.bankcards.security.jwt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts rejected JWTs by {@link JwtFailureReason}. Every rejection increments the {@code
+ * jwt.rejected} counter tagged with the reason; instead of logging each token, a single summary
+ * line with the counts since the previous summary is written at most once per interval.
+ */
+@Slf4j
+class InvalidTokenRecorder {
+  private final long intervalNanos;
+  private final Map<JwtFailureReason, Counter> counters = new EnumMap<>(JwtFailureReason.class);
+  private final Map<JwtFailureReason, LongAdder> pending = new EnumMap<>(JwtFailureReason.class);
+  private final AtomicLong lastSummary;
+
+  InvalidTokenRecorder(MeterRegistry meterRegistry, Duration summaryInterval) {
+    this.intervalNanos = summaryInterval.toNanos();
+    this.lastSummary = new AtomicLong(System.nanoTime());
+    for (var reason : JwtFailureReason.values()) {
+      counters.put(
+          reason,
+          Counter.builder("jwt.rejected")
+              .description("JWTs rejected by the authentication filter")
+              .tag("reason", reason.name().toLowerCase())
+              .register(meterRegistry));
+      pending.put(reason, new LongAdder());
+    }
+  }
+
+  /**
+   * Records a rejected token and writes a summary if the interval has elapsed.
+   *
+   * @param reason The reason the token was rejected.
+   */
+  void record(JwtFailureReason reason) {
+    counters.get(reason).increment();
+    pending.get(reason).increment();
+    var last = lastSummary.get();
+    var now = System.nanoTime();
+    if (now - last >= intervalNanos && lastSummary.compareAndSet(last, now)) {
+      logSummary(Duration.ofNanos(now - last));
+    }
+  }
+
+  private void logSummary(Duration period) {
+    var summary = new StringBuilder();
+    long total = 0;
+    for (var entry : pending.entrySet()) {
+      var count = entry.getValue().sumThenReset();
+      if (count > 0) {
+        if (!summary.isEmpty()) {
+          summary.append(", ");
+        }
+        summary.append(entry.getKey()).append('=').append(count);
+        total += count;
+      }
+    }
+    if (total > 0) {
+      log.warn("Rejected {} JWTs in the last {}s: {}", total, period.toSeconds(), summary);
+    }
+  }
+}
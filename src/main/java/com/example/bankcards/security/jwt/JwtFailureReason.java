@@ -0,0 +1,10 @@
+package com.example.bankcards.security.jwt;
+
+/** Reason why a JWT was rejected. */
+public enum JwtFailureReason {
+  EXPIRED,
+  MALFORMED,
+  UNSUPPORTED,
+  INVALID_SIGNATURE,
+  INVALID
+}
@@ -41,15 +41,16 @@ public class JwtFilter extends OncePerRequestFilter {
       @NonNull FilterChain filterChain)
       throws ServletException, IOException {
     var token = getTokenFromRequest(request);
-    if (token != null && jwtService.validateJwtToken(token)) {
-      setUserDetailsToSecurityContext(token);
+    if (token != null) {
+      jwtService
+          .parseToken(token)
+          .ifPresent(claims -> setUserDetailsToSecurityContext(claims.getSubject()));
     }
     filterChain.doFilter(request, response);
   }
 
-  private void setUserDetailsToSecurityContext(String token) {
-    var login = jwtService.getLoginFromToken(token);
-    var userDetails = customUserDetailService.loadUserByUsername(login);
+  private void setUserDetailsToSecurityContext(String login) {
+    var userDetails = customUserDetailService.loadPrincipal(login);
     var authentication =
         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
     SecurityContextHolder.getContext().setAuthentication(authentication);
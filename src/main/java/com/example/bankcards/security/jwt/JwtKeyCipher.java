@@ -0,0 +1,46 @@
+package com.example.bankcards.security.jwt;
+
+import com.example.bankcards.util.CardCipherEngine;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Encrypts the private JWT signing keys stored in the database with their own AES-GCM key, {@code
+ * jwt.keys.encryption-secret}, so that the card data key and the token signing keys can be rotated
+ * and revoked independently.
+ */
+@Component
+public class JwtKeyCipher {
+  private final CardCipherEngine engine;
+
+  public JwtKeyCipher(@Value("${jwt.keys.encryption-secret}") String secretKey) {
+    var key = secretKey.getBytes(StandardCharsets.UTF_8);
+    this.engine = new CardCipherEngine(key, key);
+  }
+
+  /**
+   * Encrypts a private key.
+   *
+   * @param privateKey The Base64 PKCS#8 private key.
+   * @return The Base64 {@code IV || ciphertext || tag}.
+   */
+  public String encrypt(String privateKey) throws GeneralSecurityException {
+    var encrypted = engine.encrypt(privateKey.getBytes(StandardCharsets.UTF_8));
+    return Base64.getEncoder().encodeToString(encrypted);
+  }
+
+  /**
+   * Decrypts a private key.
+   *
+   * @param encrypted The Base64 {@code IV || ciphertext || tag}.
+   * @return The Base64 PKCS#8 private key.
+   * @throws GeneralSecurityException If the value was not encrypted with this key.
+   */
+  public String decrypt(String encrypted) throws GeneralSecurityException {
+    var decoded = Base64.getDecoder().decode(encrypted);
+    return new String(engine.decrypt(decoded, 0, decoded.length), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,290 @@
+package com.example.bankcards.security.jwt;
+
+import com.example.bankcards.entity.JwtSigningKey;
+import com.example.bankcards.repository.JwtSigningKeyRepository;
+import com.example.bankcards.util.AdvisoryLock;
+import com.example.bankcards.util.EncryptionCard;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The set of P-256 key pairs used to sign and verify JWTs. Keys are kept in the database so that
+ * all instances share them.
+ *
+ * <p>A key is created ahead of time and published in the JWKS well before it activates, so that
+ * verifiers holding a cached JWKS know it before the first token it signs: the rotation job creates
+ * the successor of the signing key at least {@code jwt.keys.jwks-max-age} plus {@code
+ * jwt.keys.check-interval} before the signing key is due, and the successor activates when it
+ * does. Every instance signs with the oldest active key that is not yet due, which is decided by
+ * the stored activation times alone, so all instances agree on it. Older keys stay available for
+ * verification and in the JWKS until every token they may have signed has expired.
+ *
+ * <p>The keys are cached in memory. A token signed with an unknown {@code kid} triggers a reload,
+ * at most once per {@code jwt.keys.reload-interval}.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+  private static final String KEY_ALGORITHM = "EC";
+  private static final String CURVE = "secp256r1";
+  private static final String LOCK_NAME = "jwt-key-rotation";
+  private static final Comparator<RingKey> ACTIVATION_ORDER =
+      Comparator.comparing(RingKey::activatesAt)
+          .thenComparing(RingKey::createdAt)
+          .thenComparing(RingKey::kid);
+
+  private final JwtSigningKeyRepository jwtSigningKeyRepository;
+  private final JwtKeyCipher jwtKeyCipher;
+  private final EncryptionCard legacyEncryptionCard;
+  private final AdvisoryLock advisoryLock;
+  private final Duration rotationInterval;
+  private final Duration tokenLifetime;
+  private final Duration checkInterval;
+  private final Duration publishAhead;
+  private final long reloadIntervalNanos;
+  private volatile Keys keys;
+  private volatile long lastReload;
+
+  public JwtKeyRing(
+      JwtSigningKeyRepository jwtSigningKeyRepository,
+      JwtKeyCipher jwtKeyCipher,
+      EncryptionCard legacyEncryptionCard,
+      AdvisoryLock advisoryLock,
+      @Value("${jwt.keys.rotation-interval:7d}") Duration rotationInterval,
+      @Value("${jwt.refresh.ttl:30d}") Duration tokenLifetime,
+      @Value("${jwt.keys.reload-interval:10s}") Duration reloadInterval,
+      @Value("${jwt.keys.check-interval:10m}") Duration checkInterval,
+      @Value("${jwt.keys.jwks-max-age:5m}") Duration jwksMaxAge) {
+    this.jwtSigningKeyRepository = jwtSigningKeyRepository;
+    this.jwtKeyCipher = jwtKeyCipher;
+    this.legacyEncryptionCard = legacyEncryptionCard;
+    this.advisoryLock = advisoryLock;
+    this.rotationInterval = rotationInterval;
+    this.tokenLifetime = tokenLifetime;
+    this.checkInterval = checkInterval;
+    // Other instances pick up a new key on their next check, and verifiers may cache their JWKS
+    // for jwks-max-age after that.
+    this.publishAhead = checkInterval.plus(jwksMaxAge);
+    this.reloadIntervalNanos = reloadInterval.toNanos();
+  }
+
+  /**
+   * Returns the key that signs new tokens: the oldest active key that is not yet due. If the
+   * successor of a due key is missing, the due key keeps signing rather than an unpublished one. A
+   * key is only created here if there is no active key at all, i.e. on the very first start.
+   *
+   * @return The current signing key.
+   */
+  public RingKey signingKey() {
+    var key = keys().signing(LocalDateTime.now(), rotationInterval);
+    return key != null ? key : createInitialKey();
+  }
+
+  /**
+   * Creates the successor of the newest key if that key is due within {@code jwt.keys.jwks-max-age}
+   * plus two {@code jwt.keys.check-interval}s, so that the successor is published long enough
+   * before it activates. Runs on one instance at a time.
+   *
+   * @return true if a key was created.
+   */
+  public boolean prepareNextKey() {
+    var created = new AtomicBoolean();
+    var ran = advisoryLock.runExclusively(LOCK_NAME, () -> created.set(createNextKeyIfNeeded()));
+    if (!ran) {
+      log.debug("JWT key rotation skipped, another instance holds the lock");
+    }
+    return created.get();
+  }
+
+  /**
+   * Looks up the key with the given id. Unknown ids cause a reload unless the keys were reloaded
+   * recently.
+   *
+   * @param kid The key id from the JWT header.
+   * @return The key, or empty if no active key has this id.
+   */
+  public Optional<RingKey> find(String kid) {
+    var key = keys().byKid().get(kid);
+    if (key == null && System.nanoTime() - lastReload >= reloadIntervalNanos) {
+      key = reload().byKid().get(kid);
+    }
+    return Optional.ofNullable(key);
+  }
+
+  /**
+   * Returns all keys whose tokens may still be valid, including keys that have not activated yet,
+   * newest first.
+   *
+   * @return The keys to publish.
+   */
+  public List<RingKey> activeKeys() {
+    return keys().all();
+  }
+
+  /**
+   * Reloads the keys from the database, picking up keys created by other instances and dropping
+   * expired ones.
+   */
+  public void refresh() {
+    reload();
+  }
+
+  /**
+   * Deletes the keys that can no longer have signed a valid token.
+   *
+   * @return The number of deleted keys.
+   */
+  @Transactional
+  public int deleteExpired() {
+    return jwtSigningKeyRepository.deleteExpired(LocalDateTime.now());
+  }
+
+  private Keys keys() {
+    var current = keys;
+    return current != null ? current : reload();
+  }
+
+  private synchronized Keys reload() {
+    var active = jwtSigningKeyRepository.findActive(LocalDateTime.now());
+    keys = new Keys(active.stream().map(this::toRingKey).toList());
+    lastReload = System.nanoTime();
+    return keys;
+  }
+
+  private synchronized RingKey createInitialKey() {
+    var now = LocalDateTime.now();
+    var key = reload().signing(now, rotationInterval);
+    if (key != null) {
+      return key;
+    }
+    // Nothing has been signed yet, so there is no cached JWKS the key could be missing from.
+    // Instances starting together may each create one; they all settle on the oldest.
+    create(now, now);
+    return reload().signing(now, rotationInterval);
+  }
+
+  private boolean createNextKeyIfNeeded() {
+    var now = LocalDateTime.now();
+    var newest = reload().all().stream().max(ACTIVATION_ORDER).orElse(null);
+    var deadline = now.plus(publishAhead).plus(checkInterval);
+    if (newest != null && newest.activatesAt().plus(rotationInterval).isAfter(deadline)) {
+      return false;
+    }
+    var earliest = now.plus(publishAhead);
+    var activatesAt =
+        newest == null || newest.activatesAt().plus(rotationInterval).isBefore(earliest)
+            ? earliest
+            : newest.activatesAt().plus(rotationInterval);
+    create(now, activatesAt);
+    reload();
+    return true;
+  }
+
+  private void create(LocalDateTime now, LocalDateTime activatesAt) {
+    try {
+      var generator = KeyPairGenerator.getInstance(KEY_ALGORITHM);
+      generator.initialize(new ECGenParameterSpec(CURVE));
+      var keyPair = generator.generateKeyPair();
+      // A key keeps signing past its due time until its successor activates, which takes at most
+      // publishAhead plus one check.
+      var expiresAt =
+          activatesAt
+              .plus(rotationInterval)
+              .plus(publishAhead)
+              .plus(checkInterval)
+              .plus(tokenLifetime);
+      var entity =
+          JwtSigningKey.builder()
+              .kid(UUID.randomUUID().toString())
+              .publicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()))
+              .privateKey(
+                  jwtKeyCipher.encrypt(
+                      Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded())))
+              .createdAt(now)
+              .activatesAt(activatesAt)
+              .expiresAt(expiresAt)
+              .build();
+      jwtSigningKeyRepository.save(entity);
+      log.info("JWT signing key {} created, signs from {}", entity.getKid(), activatesAt);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Unable to generate JWT signing key", e);
+    }
+  }
+
+  private RingKey toRingKey(JwtSigningKey entity) {
+    try {
+      var keyFactory = KeyFactory.getInstance(KEY_ALGORITHM);
+      var publicKey =
+          (ECPublicKey)
+              keyFactory.generatePublic(
+                  new X509EncodedKeySpec(Base64.getDecoder().decode(entity.getPublicKey())));
+      var privateKey =
+          keyFactory.generatePrivate(
+              new PKCS8EncodedKeySpec(Base64.getDecoder().decode(decryptPrivateKey(entity))));
+      return new RingKey(
+          entity.getKid(),
+          publicKey,
+          privateKey,
+          entity.getCreatedAt(),
+          entity.getActivatesAt());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Invalid JWT signing key " + entity.getKid(), e);
+    }
+  }
+
+  /**
+   * Keys created before {@code jwt.keys.encryption-secret} was introduced are encrypted with the
+   * card data key. They are still read with it until they expire; new keys never use it.
+   */
+  private String decryptPrivateKey(JwtSigningKey entity) {
+    try {
+      return jwtKeyCipher.decrypt(entity.getPrivateKey());
+    } catch (GeneralSecurityException e) {
+      return legacyEncryptionCard.decrypt(entity.getPrivateKey());
+    }
+  }
+
+  /** A signing key pair with its id and the time from which it signs new tokens. */
+  public record RingKey(
+      String kid,
+      ECPublicKey publicKey,
+      PrivateKey privateKey,
+      LocalDateTime createdAt,
+      LocalDateTime activatesAt) {}
+
+  private record Keys(List<RingKey> all, Map<String, RingKey> byKid) {
+    private Keys(List<RingKey> all) {
+      this(all, all.stream().collect(Collectors.toMap(RingKey::kid, Function.identity())));
+    }
+
+    private RingKey signing(LocalDateTime now, Duration rotationInterval) {
+      var activated = all.stream().filter(key -> !key.activatesAt().isAfter(now)).toList();
+      return activated.stream()
+          .filter(key -> key.activatesAt().plus(rotationInterval).isAfter(now))
+          .min(ACTIVATION_ORDER)
+          .or(() -> activated.stream().max(ACTIVATION_ORDER))
+          .orElse(null);
+    }
+  }
+}
@@ -1,16 +1,35 @@
 package com.example.bankcards.security.jwt;
 
 import com.example.bankcards.dto.auth.JwtAuthenticationDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Date;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
 import javax.crypto.SecretKey;
 import lombok.NonNull;
 import org.slf4j.Logger;
@@ -22,72 +41,231 @@ import org.springframework.stereotype.Service;
 public class JwtService {
 
   private static final Logger log = LoggerFactory.getLogger(JwtService.class);
-  private final SecretKey jwtAccessSecret;
+  private static final String TOKEN_TYPE_CLAIM = "token_type";
+  private static final String REFRESH_TOKEN_TYPE = "refresh";
 
-  public JwtService(@Value("${jwt.secret.access}") String jwtAccessSecret) {
-    this.jwtAccessSecret = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtAccessSecret));
+  private final JwtKeyRing jwtKeyRing;
+  private final SecretKey legacySecret;
+  private final JwtParser jwtParser;
+  private final Cache<String, Claims> verifiedTokens;
+  private final Cache<String, JwtFailureReason> rejectedTokens;
+  private final InvalidTokenRecorder invalidTokenRecorder;
+
+  @Value("${jwt.refresh.ttl:30d}")
+  Duration refreshTtl = Duration.ofDays(30);
+
+  public JwtService(
+      JwtKeyRing jwtKeyRing,
+      @Value("${jwt.secret.access:}") String legacySecret,
+      @Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheMaxSize,
+      @Value("${jwt.rejected-cache.max-size:5000}") long rejectedCacheMaxSize,
+      @Value("${jwt.rejected-cache.ttl:5m}") Duration rejectedCacheTtl,
+      @Value("${jwt.rejected-log-interval:1m}") Duration rejectedLogInterval,
+      MeterRegistry meterRegistry) {
+    this.jwtKeyRing = jwtKeyRing;
+    this.legacySecret =
+        legacySecret.isBlank() ? null : Keys.hmacShaKeyFor(Decoders.BASE64.decode(legacySecret));
+    this.jwtParser =
+        Jwts.parserBuilder()
+            .setSigningKeyResolver(
+                new SigningKeyResolverAdapter() {
+                  @Override
+                  public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                    return verificationKey(header);
+                  }
+                })
+            .build();
+    this.verifiedTokens =
+        Caffeine.newBuilder()
+            .maximumSize(verifiedCacheMaxSize)
+            .expireAfter(
+                Expiry.creating(
+                    (String key, Claims claims) ->
+                        Duration.between(Instant.now(), claims.getExpiration().toInstant())))
+            .build();
+    this.rejectedTokens =
+        Caffeine.newBuilder()
+            .maximumSize(rejectedCacheMaxSize)
+            .expireAfterWrite(rejectedCacheTtl)
+            .build();
+    this.invalidTokenRecorder = new InvalidTokenRecorder(meterRegistry, rejectedLogInterval);
   }
 
   /**
-   * Generates an authentication token for the given login.
+   * Generates an access token and a refresh token for the given login. The refresh token carries a
+   * random {@code jti} so that it can be revoked once it has been used.
    *
-   * @param login The login for which to generate the token.
-   * @return A DTO containing the JWT.
+   * @param login The login for which to generate the tokens.
+   * @return A DTO containing the access JWT and the refresh JWT.
    */
   public JwtAuthenticationDto generateAuthToken(@NonNull String login) {
-    return new JwtAuthenticationDto(generateJwtToken(login));
+    return new JwtAuthenticationDto(generateJwtToken(login), generateRefreshToken(login));
   }
 
   /**
-   * Extracts the login from the given JWT.
+   * Verifies the given refresh token and returns its claims. Access tokens are not accepted.
    *
-   * @param token The JWT from which to extract the login.
-   * @return The login contained in the token.
+   * @param token The refresh JWT to verify.
+   * @return The claims of the token, or empty if the token is invalid, expired or not a refresh
+   *     token.
    */
-  public String getLoginFromToken(@NonNull String token) {
-    return Jwts.parserBuilder()
-            .setSigningKey(jwtAccessSecret)
-            .build()
-            .parseClaimsJws(token)
-            .getBody()
-            .getSubject();
+  public Optional<Claims> parseRefreshToken(@NonNull String token) {
+    if (!hasCompactShape(token)) {
+      invalidTokenRecorder.record(JwtFailureReason.MALFORMED);
+      return Optional.empty();
+    }
+    try {
+      var claims = jwtParser.parseClaimsJws(token).getBody();
+      if (!isRefreshToken(claims) || claims.getId() == null) {
+        invalidTokenRecorder.record(JwtFailureReason.UNSUPPORTED);
+        return Optional.empty();
+      }
+      return Optional.of(claims);
+    } catch (RuntimeException e) {
+      var reason = classify(e);
+      invalidTokenRecorder.record(reason);
+      log.debug("Rejected refresh JWT: {}", reason, e);
+      return Optional.empty();
+    }
   }
 
   /**
-   * Validates the given JWT.
+   * Verifies the given JWT and returns its claims. The token is parsed and its signature checked
+   * once; tokens that were already verified are answered from a cache until they expire. Rejected
+   * tokens are remembered as well, so that clients retrying a stale token are not parsed again,
+   * and are counted by {@link JwtFailureReason} instead of being logged one by one. Tokens signed
+   * with a key this instance does not know yet, and tokens that could not be checked because of an
+   * error looking up the key, are not remembered: they may be valid once the key ring reloads.
    *
-   * @param token The JWT to validate.
-   * @return {@code true} if the token is valid, {@code false} otherwise.
+   * @param token The JWT to verify.
+   * @return The claims of the token, or empty if the token is invalid or expired.
    */
-  public boolean validateJwtToken(@NonNull String token) {
+  public Optional<Claims> parseToken(@NonNull String token) {
+    if (!hasCompactShape(token)) {
+      invalidTokenRecorder.record(JwtFailureReason.MALFORMED);
+      return Optional.empty();
+    }
+    var key = tokenHash(token);
+    var cached = verifiedTokens.getIfPresent(key);
+    if (cached != null) {
+      if (cached.getExpiration().toInstant().isAfter(Instant.now())) {
+        return Optional.of(cached);
+      }
+      verifiedTokens.invalidate(key);
+      rejectedTokens.put(key, JwtFailureReason.EXPIRED);
+    }
+    var rejected = rejectedTokens.getIfPresent(key);
+    if (rejected != null) {
+      invalidTokenRecorder.record(rejected);
+      return Optional.empty();
+    }
     try {
-      Jwts.parserBuilder()
-          .setSigningKey(jwtAccessSecret)
-          .build()
-          .parseClaimsJws(token)
-          .getBody();
-      return true;
-    } catch (ExpiredJwtException expEx) {
-      log.error("Token expired", expEx);
-    } catch (UnsupportedJwtException unsEx) {
-      log.error("Unsupported jwt", unsEx);
-    } catch (MalformedJwtException mjEx) {
-      log.error("Malformed jwt", mjEx);
-    } catch (SignatureException sEx) {
-      log.error("Invalid signature", sEx);
-    } catch (Exception e) {
-      log.error("invalid token", e);
+      var claims = jwtParser.parseClaimsJws(token).getBody();
+      if (isRefreshToken(claims)) {
+        rejectedTokens.put(key, JwtFailureReason.UNSUPPORTED);
+        invalidTokenRecorder.record(JwtFailureReason.UNSUPPORTED);
+        return Optional.empty();
+      }
+      if (claims.getExpiration() != null) {
+        verifiedTokens.put(key, claims);
+      }
+      return Optional.of(claims);
+    } catch (RuntimeException e) {
+      var reason = classify(e);
+      if (e instanceof JwtException && !(e instanceof UnknownKeyIdException)) {
+        rejectedTokens.put(key, reason);
+      }
+      invalidTokenRecorder.record(reason);
+      log.debug("Rejected JWT: {}", reason, e);
+      return Optional.empty();
     }
-    return false;
   }
 
   private String generateJwtToken(String login) {
     var currentTime = LocalDateTime.now();
     var accessExpiration = currentTime.plusMinutes(30).atZone(ZoneId.systemDefault()).toInstant();
+    var signingKey = jwtKeyRing.signingKey();
     return Jwts.builder()
+        .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
         .setSubject(login)
         .setExpiration(Date.from(accessExpiration))
-        .signWith(jwtAccessSecret)
+        .signWith(signingKey.privateKey(), SignatureAlgorithm.ES256)
         .compact();
   }
-}
\ No newline at end of file
+
+  private String generateRefreshToken(String login) {
+    var refreshExpiration = Instant.now().plus(refreshTtl);
+    var signingKey = jwtKeyRing.signingKey();
+    return Jwts.builder()
+        .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+        .setSubject(login)
+        .setId(UUID.randomUUID().toString())
+        .claim(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE)
+        .setExpiration(Date.from(refreshExpiration))
+        .signWith(signingKey.privateKey(), SignatureAlgorithm.ES256)
+        .compact();
+  }
+
+  /**
+   * Picks the key that verifies a token: the ring key named by {@code kid} for ES256 tokens, or the
+   * legacy HMAC secret for tokens issued before the key ring, as long as one is configured.
+   */
+  private Key verificationKey(JwsHeader header) {
+    var kid = header.getKeyId();
+    if (kid == null) {
+      var algorithm = SignatureAlgorithm.forName(header.getAlgorithm());
+      if (legacySecret != null && algorithm.isHmac()) {
+        return legacySecret;
+      }
+      throw new SignatureException("JWT has no key id");
+    }
+    return jwtKeyRing
+        .find(kid)
+        .orElseThrow(UnknownKeyIdException::new)
+        .publicKey();
+  }
+
+  /** Thrown for a {@code kid} that is not in the key ring, at least not yet. */
+  private static class UnknownKeyIdException extends SignatureException {
+    private UnknownKeyIdException() {
+      super("Unknown JWT key id");
+    }
+  }
+
+  private static boolean isRefreshToken(Claims claims) {
+    return REFRESH_TOKEN_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM));
+  }
+
+  private static JwtFailureReason classify(RuntimeException e) {
+    if (e instanceof ExpiredJwtException) {
+      return JwtFailureReason.EXPIRED;
+    } else if (e instanceof UnsupportedJwtException) {
+      return JwtFailureReason.UNSUPPORTED;
+    } else if (e instanceof MalformedJwtException) {
+      return JwtFailureReason.MALFORMED;
+    } else if (e instanceof SignatureException) {
+      return JwtFailureReason.INVALID_SIGNATURE;
+    }
+    return JwtFailureReason.INVALID;
+  }
+
+  /** Checks that the token consists of exactly three dot separated parts. */
+  private static boolean hasCompactShape(String token) {
+    var dots = 0;
+    for (int i = 0; i < token.length(); i++) {
+      if (token.charAt(i) == '.' && ++dots > 2) {
+        return false;
+      }
+    }
+    return dots == 2;
+  }
+
+  private static String tokenHash(String token) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256");
+      return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -2,13 +2,25 @@ package com.example.bankcards.service;
 
 import com.example.bankcards.dto.auth.AuthenticationRequest;
 import com.example.bankcards.dto.auth.JwtAuthenticationDto;
+import com.example.bankcards.dto.auth.RefreshTokenDto;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserStatus;
 import com.example.bankcards.exception.IncorrectPasswordException;
+import com.example.bankcards.exception.InvalidRefreshTokenException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.CustomUserDetailService;
+import com.example.bankcards.security.LoginThrottle;
 import com.example.bankcards.security.jwt.JwtService;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
@@ -16,24 +28,88 @@ public class AuthenticationService {
   private final UserRepository userRepository;
   private final PasswordEncoder passwordEncoder;
   private final JwtService jwtService;
+  private final CustomUserDetailService customUserDetailService;
+  private final RefreshTokenRevocationService refreshTokenRevocationService;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final LoginThrottle loginThrottle;
 
   /**
-   * Authenticates a user and returns a JWT token.
+   * Authenticates a user and returns a JWT token. A password hash written with an outdated
+   * algorithm or weaker parameters than the configured ones is replaced by a fresh hash of the
+   * verified password. The outcome is reported to the login throttle.
    *
    * @param authRequest The authentication request containing login and password.
+   * @param address The address of the client.
    * @return A DTO containing the JWT access and refresh tokens.
    * @throws UserNotFoundException if the user with the given login is not found.
    * @throws IncorrectPasswordException if the provided password is incorrect.
    */
-  public JwtAuthenticationDto authenticate(AuthenticationRequest authRequest) {
+  public JwtAuthenticationDto authenticate(AuthenticationRequest authRequest, String address) {
     var userOpt = userRepository.findByLogin(authRequest.getLogin());
     if (userOpt.isEmpty()) {
+      loginThrottle.recordFailure(authRequest.getLogin(), address);
       throw new UserNotFoundException();
     }
     var user = userOpt.get();
     if (passwordEncoder.matches(authRequest.getPassword(), user.getPassword())) {
+      if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+        rehashPassword(user, authRequest.getPassword());
+      }
+      loginThrottle.recordSuccess(authRequest.getLogin(), address);
       return jwtService.generateAuthToken(authRequest.getLogin());
     }
+    loginThrottle.recordFailure(authRequest.getLogin(), address);
     throw new IncorrectPasswordException();
   }
+
+  /**
+   * Exchanges a refresh token for a new pair of access and refresh tokens. The presented refresh
+   * token is revoked, so every refresh token can be used only once. No password check is
+   * performed.
+   *
+   * @param refreshTokenDto The DTO containing the refresh token.
+   * @return A DTO containing the new JWT access and refresh tokens.
+   * @throws InvalidRefreshTokenException if the token is invalid, expired, already used or its
+   *     user is no longer active.
+   */
+  public JwtAuthenticationDto refresh(RefreshTokenDto refreshTokenDto) {
+    var claims =
+        jwtService
+            .parseRefreshToken(refreshTokenDto.refreshToken())
+            .orElseThrow(InvalidRefreshTokenException::new);
+    var jti = parseJti(claims.getId());
+    if (refreshTokenRevocationService.isRevoked(jti)) {
+      throw new InvalidRefreshTokenException();
+    }
+    User user;
+    try {
+      user = customUserDetailService.loadPrincipal(claims.getSubject());
+    } catch (UsernameNotFoundException e) {
+      throw new InvalidRefreshTokenException();
+    }
+    if (user.getStatus() != UserStatus.ACTIVE) {
+      throw new InvalidRefreshTokenException();
+    }
+    var expiresAt =
+        LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault());
+    if (!refreshTokenRevocationService.revoke(jti, user.getId(), expiresAt)) {
+      throw new InvalidRefreshTokenException();
+    }
+    return jwtService.generateAuthToken(user.getLogin());
+  }
+
+  private void rehashPassword(User user, String password) {
+    transactionTemplate.executeWithoutResult(
+        status -> userRepository.updatePassword(passwordEncoder.encode(password), user.getId()));
+    eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
+  }
+
+  private static UUID parseJti(String jti) {
+    try {
+      return UUID.fromString(jti);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidRefreshTokenException();
+    }
+  }
 }
@@ -0,0 +1,92 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.repository.CardBalanceRepository;
+import com.example.bankcards.repository.CardBalanceSnapshotRepository;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Rebuilds card balances from the ledger. Periodic snapshots bound the number of ledger entries
+ * that have to be replayed: a balance is the latest snapshot plus the entries created after it.
+ */
+@Slf4j
+@Service
+public class BalanceReplayService {
+  private final CardBalanceRepository cardBalanceRepository;
+  private final CardBalanceSnapshotRepository cardBalanceSnapshotRepository;
+  private final TransactionTemplate snapshotTransaction;
+
+  @Value("${ledger.snapshot.chunk-size:5000}")
+  int chunkSize = 5000;
+
+  @Value("${ledger.snapshot.lag:5m}")
+  Duration lag = Duration.ofMinutes(5);
+
+  @Value("${ledger.snapshot.retention:30d}")
+  Duration retention = Duration.ofDays(30);
+
+  public BalanceReplayService(
+      CardBalanceRepository cardBalanceRepository,
+      CardBalanceSnapshotRepository cardBalanceSnapshotRepository,
+      PlatformTransactionManager transactionManager) {
+    this.cardBalanceRepository = cardBalanceRepository;
+    this.cardBalanceSnapshotRepository = cardBalanceSnapshotRepository;
+    this.snapshotTransaction = new TransactionTemplate(transactionManager);
+    this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+  }
+
+  /**
+   * Rebuilds the balance of a card from its latest snapshot and the ledger tail after it.
+   *
+   * @param cardId The ID of the card.
+   * @return The balance according to the ledger.
+   * @throws CardNotFoundException if the card with the given ID is not found.
+   */
+  @Transactional(readOnly = true)
+  public BigDecimal replayBalance(Long cardId) {
+    var balance = cardBalanceSnapshotRepository.replayBalance(cardId);
+    if (balance == null) {
+      throw new CardNotFoundException(String.valueOf(cardId));
+    }
+    return balance;
+  }
+
+  /**
+   * Takes a snapshot of every card covering the ledger up to {@code ledger.snapshot.lag} ago, so
+   * that transfers still in flight cannot add entries before the snapshot point. Cards are
+   * processed in card id chunks, each in its own repeatable read transaction, and snapshots older
+   * than {@code ledger.snapshot.retention} are removed afterwards.
+   *
+   * @return The number of snapshots taken.
+   */
+  public long createSnapshots() {
+    var now = LocalDateTime.now();
+    var upTo = now.minus(lag);
+    long created = 0;
+    long from = 0;
+    Long to;
+    while ((to = cardBalanceRepository.findChunkEnd(from, chunkSize)) != null) {
+      long chunkFrom = from;
+      long chunkTo = to;
+      created +=
+          snapshotTransaction.execute(
+              status ->
+                  cardBalanceSnapshotRepository.createSnapshots(chunkFrom, chunkTo, upTo, now));
+      from = to;
+    }
+    var deleted =
+        snapshotTransaction.execute(
+            status -> cardBalanceSnapshotRepository.deleteOlderThan(now.minus(retention)));
+    log.info("Card balance snapshots taken: {}, outdated deleted: {}", created, deleted);
+    return created;
+  }
+}
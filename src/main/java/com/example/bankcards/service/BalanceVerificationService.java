@@ -0,0 +1,126 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BalanceDriftDto;
+import com.example.bankcards.dto.BalanceVerificationReportDto;
+import com.example.bankcards.repository.CardBalanceRepository;
+import com.example.bankcards.repository.CardBalanceSnapshotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks {@code card_balance} against the balances reconstructed from snapshots and the ledger.
+ * The card id space is split into chunks that are verified in parallel, each in its own read-only
+ * repeatable read transaction so that a chunk sees balances and ledger entries of the same
+ * committed transfers.
+ */
+@Slf4j
+@Service
+public class BalanceVerificationService {
+  private static final int MAX_LOGGED_DRIFTS = 100;
+
+  private final CardBalanceRepository cardBalanceRepository;
+  private final CardBalanceSnapshotRepository cardBalanceSnapshotRepository;
+  private final TransactionTemplate verifyTransaction;
+  private final Timer verifyTimer;
+  private final AtomicLong lastDriftCount = new AtomicLong();
+
+  @Value("${ledger.verify.chunk-size:5000}")
+  int chunkSize = 5000;
+
+  @Value("${ledger.verify.parallelism:4}")
+  int parallelism = 4;
+
+  public BalanceVerificationService(
+      CardBalanceRepository cardBalanceRepository,
+      CardBalanceSnapshotRepository cardBalanceSnapshotRepository,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry) {
+    this.cardBalanceRepository = cardBalanceRepository;
+    this.cardBalanceSnapshotRepository = cardBalanceSnapshotRepository;
+    this.verifyTransaction = new TransactionTemplate(transactionManager);
+    this.verifyTransaction.setReadOnly(true);
+    this.verifyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    this.verifyTimer = meterRegistry.timer("ledger.verify.duration");
+    meterRegistry.gauge("ledger.verify.drift", lastDriftCount);
+  }
+
+  /**
+   * Verifies the balances of all cards.
+   *
+   * @return The number of checked cards and the cards whose balance differs from the ledger.
+   */
+  public BalanceVerificationReportDto verifyBalances() {
+    var start = System.nanoTime();
+    var threadNumber = new AtomicInteger();
+    var futures = new ArrayList<Future<ChunkResult>>();
+    try (var executor =
+        Executors.newFixedThreadPool(
+            parallelism,
+            runnable -> new Thread(runnable, "balance-verify-" + threadNumber.incrementAndGet()))) {
+      long from = 0;
+      Long to;
+      while ((to = cardBalanceRepository.findChunkEnd(from, chunkSize)) != null) {
+        long chunkFrom = from;
+        long chunkTo = to;
+        futures.add(
+            executor.submit(
+                () -> verifyTransaction.execute(status -> verifyChunk(chunkFrom, chunkTo))));
+        from = to;
+      }
+    }
+
+    long cardsChecked = 0;
+    var drifts = new ArrayList<BalanceDriftDto>();
+    for (var future : futures) {
+      var result = getResult(future);
+      cardsChecked += result.cardsChecked();
+      drifts.addAll(result.drifts());
+    }
+    var durationNanos = System.nanoTime() - start;
+    verifyTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    lastDriftCount.set(drifts.size());
+
+    if (drifts.isEmpty()) {
+      log.info("Card balance verification passed, cards checked: {}", cardsChecked);
+    } else {
+      log.warn("Card balance verification found {} drifting cards of {}", drifts.size(), cardsChecked);
+      drifts.stream()
+          .limit(MAX_LOGGED_DRIFTS)
+          .forEach(drift -> log.warn("Card balance drift: {}", drift));
+    }
+    return new BalanceVerificationReportDto(cardsChecked, drifts, durationNanos / 1_000_000);
+  }
+
+  private ChunkResult verifyChunk(long fromCardId, long toCardId) {
+    return new ChunkResult(
+        cardBalanceRepository.countByCardIdGreaterThanAndCardIdLessThanEqual(fromCardId, toCardId),
+        cardBalanceSnapshotRepository.findDrift(fromCardId, toCardId));
+  }
+
+  private static ChunkResult getResult(Future<ChunkResult> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Card balance verification interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Card balance verification failed", e.getCause());
+    }
+  }
+
+  private record ChunkResult(long cardsChecked, List<BalanceDriftDto> drifts) {}
+}
@@ -1,15 +1,29 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.MoneyTransferDto;
+import com.example.bankcards.dto.TransferResultDto;
+import com.example.bankcards.dto.TransferResultStatus;
+import com.example.bankcards.entity.CardBalance;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardBalanceException;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.CardOwnerException;
+import com.example.bankcards.exception.IdempotencyKeyReuseException;
 import com.example.bankcards.repository.CardBalanceRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.CardOwnerView;
 import com.example.bankcards.util.EncryptionCard;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
@@ -17,6 +31,13 @@ public class CardBalanceService {
     private final EncryptionCard encryptionCard;
     private final CardRepository cardRepository;
     private final CardBalanceRepository cardBalanceRepository;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferIdempotencyService transferIdempotencyService;
+    private final CardTransactionService cardTransactionService;
+
+    @Value("${transfer.mode:ATOMIC}")
+    TransferMode transferMode = TransferMode.ATOMIC;
 
     /**
      * Transfers money from one card to another.
@@ -27,10 +48,146 @@ public class CardBalanceService {
      * @param value The amount of money to transfer.
      * @throws CardNotFoundException if either the source or destination card is not found.
      * @throws CardOwnerException if the user does not own either of the cards.
+     * @throws CardBalanceException if the source card does not have enough money.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the transfer still
+     *     conflicts with concurrent transfers after all retries.
      */
-    @Transactional
     public void transferMoney(User user, String cardFrom, String cardTo, BigDecimal value) {
-        var cardFromDbOpt = cardRepository.findCardByNumber(encryptionCard.encrypt(cardFrom));
+        optimisticRetryExecutor.execute(
+                () -> transactionTemplate.execute(status -> {
+                    doTransferMoney(user, cardFrom, cardTo, value);
+                    return null;
+                }));
+    }
+
+    /**
+     * Transfers money from one card to another at most once per idempotency key. A repeated request
+     * with the same key is answered without touching the balances.
+     *
+     * @param user The user performing the transfer.
+     * @param cardFrom The card number to transfer from.
+     * @param cardTo The card number to transfer to.
+     * @param value The amount of money to transfer.
+     * @param idempotencyKey The key sent by the client, or null to transfer unconditionally.
+     * @throws CardNotFoundException if either the source or destination card is not found.
+     * @throws CardOwnerException if the user does not own either of the cards.
+     * @throws CardBalanceException if the source card does not have enough money.
+     * @throws IdempotencyKeyReuseException if the key was already used for a different transfer.
+     */
+    public void transferMoney(User user, String cardFrom, String cardTo, BigDecimal value, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            transferMoney(user, cardFrom, cardTo, value);
+            return;
+        }
+        var requestHash = encryptionCard.hash(
+                cardFrom + '|' + cardTo + '|' + value.stripTrailingZeros().toPlainString());
+        if (transferIdempotencyService.isCompleted(user.getId(), idempotencyKey, requestHash)) {
+            return;
+        }
+        optimisticRetryExecutor.execute(
+                () -> transactionTemplate.execute(status -> {
+                    if (transferIdempotencyService.claim(user.getId(), idempotencyKey, requestHash)) {
+                        doTransferMoney(user, cardFrom, cardTo, value);
+                    }
+                    return null;
+                }));
+        transferIdempotencyService.remember(user.getId(), idempotencyKey, requestHash);
+    }
+
+    /**
+     * Applies a list of transfers in one transaction. All card numbers are resolved with one query,
+     * the balances involved are locked in card id order and the resulting changes are written with
+     * a single JDBC batch.
+     *
+     * @param user The user performing the transfers.
+     * @param transfers The transfers, applied in list order.
+     * @param allOrNothing If true, nothing is applied unless every transfer succeeds; otherwise the
+     *     successful transfers are applied and the failed ones are skipped.
+     * @return The result of every transfer, in the order of {@code transfers}.
+     */
+    public List<TransferResultDto> transferMoneyBatch(User user, List<MoneyTransferDto> transfers, boolean allOrNothing) {
+        return transactionTemplate.execute(status -> doTransferMoneyBatch(user, transfers, allOrNothing));
+    }
+
+    private List<TransferResultDto> doTransferMoneyBatch(User user, List<MoneyTransferDto> transfers, boolean allOrNothing) {
+        var hashes = new HashMap<String, String>();
+        for (var transfer : transfers) {
+            hashes.computeIfAbsent(transfer.getCardFrom(), encryptionCard::hash);
+            hashes.computeIfAbsent(transfer.getCardTo(), encryptionCard::hash);
+        }
+        var cards = cardRepository.findOwnersByNumberHashIn(hashes.values()).stream()
+                .collect(Collectors.toMap(CardOwnerView::getNumberHash, Function.identity()));
+
+        var statuses = new TransferResultStatus[transfers.size()];
+        var fromIds = new Long[transfers.size()];
+        var toIds = new Long[transfers.size()];
+        var lockedIds = new HashSet<Long>();
+        for (int i = 0; i < transfers.size(); i++) {
+            var transfer = transfers.get(i);
+            var cardFrom = cards.get(hashes.get(transfer.getCardFrom()));
+            var cardTo = cards.get(hashes.get(transfer.getCardTo()));
+            if (cardFrom == null || cardTo == null) {
+                statuses[i] = TransferResultStatus.CARD_NOT_FOUND;
+            } else if (!cardFrom.getOwnerId().equals(user.getId()) || !cardTo.getOwnerId().equals(user.getId())) {
+                statuses[i] = TransferResultStatus.CARD_NOT_OWNED;
+            } else {
+                fromIds[i] = cardFrom.getId();
+                toIds[i] = cardTo.getId();
+                lockedIds.add(cardFrom.getId());
+                lockedIds.add(cardTo.getId());
+            }
+        }
+
+        var balances = cardBalanceRepository.lockBalances(lockedIds);
+        var deltas = new HashMap<Long, BigDecimal>();
+        var failed = false;
+        for (int i = 0; i < transfers.size(); i++) {
+            if (statuses[i] != null) {
+                failed = true;
+                continue;
+            }
+            var fromId = fromIds[i];
+            var toId = toIds[i];
+            var value = transfers.get(i).getValue();
+            var balanceFrom = balances.get(fromId);
+            if (balanceFrom == null || !balances.containsKey(toId)) {
+                statuses[i] = TransferResultStatus.CARD_NOT_FOUND;
+                failed = true;
+            } else if (balanceFrom.compareTo(value) < 0) {
+                statuses[i] = TransferResultStatus.INSUFFICIENT_BALANCE;
+                failed = true;
+            } else {
+                balances.put(fromId, balanceFrom.subtract(value));
+                balances.merge(toId, value, BigDecimal::add);
+                deltas.merge(fromId, value.negate(), BigDecimal::add);
+                deltas.merge(toId, value, BigDecimal::add);
+                statuses[i] = TransferResultStatus.COMPLETED;
+            }
+        }
+
+        if (failed && allOrNothing) {
+            for (int i = 0; i < statuses.length; i++) {
+                if (statuses[i] == TransferResultStatus.COMPLETED) {
+                    statuses[i] = TransferResultStatus.ROLLED_BACK;
+                }
+            }
+        } else {
+            cardBalanceRepository.addToBalances(deltas);
+            for (int i = 0; i < statuses.length; i++) {
+                if (statuses[i] == TransferResultStatus.COMPLETED) {
+                    cardTransactionService.recordTransfer(fromIds[i], toIds[i], transfers.get(i).getValue());
+                }
+            }
+        }
+        var results = new ArrayList<TransferResultDto>(statuses.length);
+        for (int i = 0; i < statuses.length; i++) {
+            results.add(new TransferResultDto(i, statuses[i]));
+        }
+        return results;
+    }
+
+    private void doTransferMoney(User user, String cardFrom, String cardTo, BigDecimal value) {
+        var cardFromDbOpt = cardRepository.findCardByNumberHash(encryptionCard.hash(cardFrom));
         if (cardFromDbOpt.isEmpty()) {
             throw new CardNotFoundException(cardFrom);
         }
@@ -38,7 +195,7 @@ public class CardBalanceService {
         if (!cardFromDb.getOwnerId().equals(user.getId())) {
             throw new CardOwnerException(cardFrom);
         }
-        var cardToDbOpt = cardRepository.findCardByNumber(encryptionCard.encrypt(cardTo));
+        var cardToDbOpt = cardRepository.findCardByNumberHash(encryptionCard.hash(cardTo));
         if (cardToDbOpt.isEmpty()) {
             throw new CardNotFoundException(cardTo);
         }
@@ -46,9 +203,45 @@ public class CardBalanceService {
         if (!cardToDb.getOwnerId().equals(user.getId())) {
             throw new CardOwnerException(cardTo);
         }
-        cardFromDb.getBalance().minus(value);
-        cardToDb.getBalance().plus(value);
-        cardBalanceRepository.save(cardFromDb.getBalance());
-        cardBalanceRepository.save(cardToDb.getBalance());
+        if (transferMode == TransferMode.OPTIMISTIC) {
+            applyOptimisticTransfer(cardFromDb.getBalance(), cardToDb.getBalance(), value);
+        } else {
+            applyTransfer(cardFromDb.getId(), cardToDb.getId(), value);
+        }
+        cardTransactionService.recordTransfer(cardFromDb.getId(), cardToDb.getId(), value);
+    }
+
+    /**
+     * Changes both balances in memory. The version column makes the flush fail when another
+     * transaction has changed one of the rows in the meantime, and the whole transfer is retried by
+     * {@link OptimisticRetryExecutor}.
+     */
+    private void applyOptimisticTransfer(CardBalance balanceFrom, CardBalance balanceTo, BigDecimal value) {
+        balanceFrom.minus(value);
+        balanceTo.plus(value);
+        cardBalanceRepository.save(balanceFrom);
+        cardBalanceRepository.save(balanceTo);
+    }
+
+    /**
+     * Moves money between two balances with conditional UPDATE statements, so the check of the
+     * source balance and the write happen atomically in the database. The row of the lower card id
+     * is always updated (and therefore locked) first, which keeps the lock order the same for
+     * concurrent transfers in opposite directions and rules out deadlocks between them.
+     */
+    private void applyTransfer(Long cardFromId, Long cardToId, BigDecimal value) {
+        if (cardFromId <= cardToId) {
+            withdraw(cardFromId, value);
+            cardBalanceRepository.deposit(cardToId, value);
+        } else {
+            cardBalanceRepository.deposit(cardToId, value);
+            withdraw(cardFromId, value);
+        }
+    }
+
+    private void withdraw(Long cardId, BigDecimal value) {
+        if (cardBalanceRepository.withdraw(cardId, value) == 0) {
+            throw new CardBalanceException();
+        }
     }
 }
@@ -0,0 +1,130 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.AdvisoryLock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves cards past their expiry date into {@code EXPIRED}. The sweep updates the cards in chunks
+ * of {@code cards.expiry.chunk-size}, each with a single UPDATE committed in its own transaction,
+ * optionally pausing between chunks to limit the load on the database. Only one instance sweeps
+ * at a time; the others skip the run.
+ */
+@Slf4j
+@Service
+public class CardExpiryService {
+  private static final String LOCK_NAME = "card-expiry-sweep";
+  private static final long PROGRESS_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+  private final CardRepository cardRepository;
+  private final AdvisoryLock advisoryLock;
+  private final TransactionTemplate transactionTemplate;
+  private final Counter expired;
+  private final Counter chunks;
+  private final Counter skipped;
+  private final Timer sweepTimer;
+  private final AtomicLong lastSweepExpired = new AtomicLong();
+
+  @Value("${cards.expiry.chunk-size:5000}")
+  int chunkSize = 5000;
+
+  @Value("${cards.expiry.pause:0ms}")
+  Duration pause = Duration.ZERO;
+
+  public CardExpiryService(
+      CardRepository cardRepository,
+      AdvisoryLock advisoryLock,
+      TransactionTemplate transactionTemplate,
+      MeterRegistry meterRegistry) {
+    this.cardRepository = cardRepository;
+    this.advisoryLock = advisoryLock;
+    this.transactionTemplate = transactionTemplate;
+    this.expired =
+        Counter.builder("cards.expiry.expired")
+            .description("Cards marked as expired")
+            .register(meterRegistry);
+    this.chunks =
+        Counter.builder("cards.expiry.chunks")
+            .description("Chunks updated by the expiry sweep")
+            .register(meterRegistry);
+    this.skipped =
+        Counter.builder("cards.expiry.skipped")
+            .description("Sweeps skipped because another instance held the lock")
+            .register(meterRegistry);
+    this.sweepTimer = meterRegistry.timer("cards.expiry.sweep.duration");
+    meterRegistry.gauge("cards.expiry.sweep.last", lastSweepExpired);
+  }
+
+  /**
+   * Marks all cards that expired before the start of the sweep as expired, unless another
+   * instance is already sweeping. Cards that expire during the sweep, or that were locked by a
+   * concurrent transaction, are left for the next run.
+   *
+   * @return The number of expired cards, 0 if the sweep was skipped.
+   */
+  public long expireCards() {
+    var total = new AtomicLong();
+    var ran = advisoryLock.runExclusively(LOCK_NAME, () -> total.set(sweep()));
+    if (!ran) {
+      skipped.increment();
+      log.debug("Card expiry sweep skipped, another instance holds the lock");
+    }
+    return total.get();
+  }
+
+  private long sweep() {
+    var now = LocalDateTime.now();
+    var start = System.nanoTime();
+    var lastLog = start;
+    long total = 0;
+    int updated;
+    do {
+      var chunk = transactionTemplate.execute(status -> cardRepository.expireChunk(now, chunkSize));
+      updated = chunk != null ? chunk : 0;
+      total += updated;
+      chunks.increment();
+      expired.increment(updated);
+      var time = System.nanoTime();
+      if (time - lastLog >= PROGRESS_LOG_INTERVAL_NANOS) {
+        log.info("Card expiry sweep in progress, cards expired: {}, {} cards/s",
+            total, rate(total, time - start));
+        lastLog = time;
+      }
+    } while (updated == chunkSize && pauseBetweenChunks());
+    var duration = System.nanoTime() - start;
+    sweepTimer.record(duration, TimeUnit.NANOSECONDS);
+    lastSweepExpired.set(total);
+    if (total > 0) {
+      log.info("Card expiry sweep completed, cards expired: {} in {} ms, {} cards/s",
+          total, TimeUnit.NANOSECONDS.toMillis(duration), rate(total, duration));
+    }
+    return total;
+  }
+
+  private boolean pauseBetweenChunks() {
+    if (pause.isZero()) {
+      return true;
+    }
+    try {
+      Thread.sleep(pause);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static long rate(long count, long nanos) {
+    return nanos > 0 ? count * TimeUnit.SECONDS.toNanos(1) / nanos : count;
+  }
+}
@@ -0,0 +1,185 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardIssuanceJobDto;
+import com.example.bankcards.dto.CardIssuanceJobStatus;
+import com.example.bankcards.exception.CardIssuanceJobNotFoundException;
+import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.repository.CardIssuanceJobRepository;
+import com.example.bankcards.repository.CardIssuanceJobRepository.RunnableJob;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardRepositoryCustom.NewCard;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.AdvisoryLock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Issues cards in bulk. A request is stored as a {@link CardIssuanceJobDto job} and run in the
+ * background by {@link #runPendingJobs()}. Numbers come from the {@link CardNumberPoolService
+ * pool}, ids are reserved from the cards sequence in one round trip per chunk, and cards and
+ * balances are written with JDBC batches instead of one entity save per card.
+ */
+@Slf4j
+@Service
+public class CardIssuanceService {
+  private static final String LOCK_NAME = "card-issuance";
+  private static final int MAX_ERROR_LENGTH = 1000;
+
+  private final CardRepository cardRepository;
+  private final UserRepository userRepository;
+  private final CardIssuanceJobRepository cardIssuanceJobRepository;
+  private final CardNumberPoolService cardNumberPoolService;
+  private final AdvisoryLock advisoryLock;
+  private final TransactionTemplate transactionTemplate;
+  private final Counter issued;
+
+  @Value("${cards.issuance.chunk-size:1000}")
+  int chunkSize = 1000;
+
+  public CardIssuanceService(
+      CardRepository cardRepository,
+      UserRepository userRepository,
+      CardIssuanceJobRepository cardIssuanceJobRepository,
+      CardNumberPoolService cardNumberPoolService,
+      AdvisoryLock advisoryLock,
+      TransactionTemplate transactionTemplate,
+      MeterRegistry meterRegistry) {
+    this.cardRepository = cardRepository;
+    this.userRepository = userRepository;
+    this.cardIssuanceJobRepository = cardIssuanceJobRepository;
+    this.cardNumberPoolService = cardNumberPoolService;
+    this.advisoryLock = advisoryLock;
+    this.transactionTemplate = transactionTemplate;
+    this.issued =
+        Counter.builder("cards.issued")
+            .description("Cards issued in bulk")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Queues the issuance of the same number of active cards with a zero balance to each of the
+   * users.
+   *
+   * @param userIds The IDs of the users.
+   * @param cardsPerUser The number of cards to issue to each user.
+   * @return The pending job.
+   * @throws UserNotFoundException if any of the users does not exist.
+   */
+  public CardIssuanceJobDto submit(List<Long> userIds, int cardsPerUser) {
+    var owners = userIds.stream().distinct().sorted().toList();
+    if (userRepository.countByIdIn(owners) != owners.size()) {
+      throw new UserNotFoundException();
+    }
+    return getJob(cardIssuanceJobRepository.create(owners, cardsPerUser));
+  }
+
+  /**
+   * Returns the state of a job.
+   *
+   * @param id The ID of the job.
+   * @return The job.
+   * @throws CardIssuanceJobNotFoundException if there is no such job.
+   */
+  public CardIssuanceJobDto getJob(long id) {
+    return cardIssuanceJobRepository
+        .findById(id)
+        .orElseThrow(CardIssuanceJobNotFoundException::new);
+  }
+
+  /**
+   * Queues a failed job again. It continues with the first card that was not issued. Jobs in any
+   * other state are left as they are.
+   *
+   * @param id The ID of the job.
+   * @return The job.
+   * @throws CardIssuanceJobNotFoundException if there is no such job.
+   */
+  public CardIssuanceJobDto resume(long id) {
+    if (cardIssuanceJobRepository.resume(id)) {
+      log.info("Card issuance job {} resumed", id);
+    }
+    return getJob(id);
+  }
+
+  /**
+   * Runs the queued jobs one after another, unless another instance is already running them. Jobs
+   * left running by an instance that stopped are picked up again.
+   *
+   * @return The number of jobs run, 0 if another instance holds the lock.
+   */
+  public int runPendingJobs() {
+    var count = new AtomicInteger();
+    advisoryLock.runExclusively(
+        LOCK_NAME,
+        () -> {
+          Optional<RunnableJob> job;
+          while ((job = cardIssuanceJobRepository.findRunnable()).isPresent()) {
+            run(job.get());
+            count.incrementAndGet();
+          }
+        });
+    return count.get();
+  }
+
+  /**
+   * Issues the remaining cards of a job in chunks of {@code cards.issuance.chunk-size}. Each chunk
+   * is committed together with the progress of the job; if a chunk fails, the job is marked as
+   * failed and the earlier chunks stay issued.
+   */
+  private void run(RunnableJob job) {
+    cardIssuanceJobRepository.setStatus(job.id(), CardIssuanceJobStatus.RUNNING, null);
+    log.info("Card issuance job {} started, cards issued: {} of {}",
+        job.id(), job.issued(), job.total());
+    var owners = job.userIds();
+    for (long from = job.issued(); from < job.total(); from += chunkSize) {
+      var first = from;
+      var count = (int) Math.min(chunkSize, job.total() - from);
+      try {
+        transactionTemplate.executeWithoutResult(
+            status -> {
+              issueChunk(owners, job.cardsPerUser(), first, count);
+              cardIssuanceJobRepository.addIssued(job.id(), count);
+            });
+      } catch (RuntimeException e) {
+        log.warn("Card issuance job {} failed, cards issued: {} of {}",
+            job.id(), first, job.total(), e);
+        cardIssuanceJobRepository.setStatus(job.id(), CardIssuanceJobStatus.FAILED, error(e));
+        return;
+      }
+      issued.increment(count);
+    }
+    cardIssuanceJobRepository.setStatus(job.id(), CardIssuanceJobStatus.COMPLETED, null);
+    log.info("Card issuance job {} completed, cards issued: {} to {} users",
+        job.id(), job.total(), owners.size());
+  }
+
+  private void issueChunk(List<Long> owners, int cardsPerUser, long first, int count) {
+    var numbers = cardNumberPoolService.take(count);
+    var ids = cardRepository.nextIds(count);
+    var createdAt = LocalDateTime.now();
+    var expireDate = createdAt.plusYears(3);
+    var cards = new ArrayList<NewCard>(count);
+    for (int i = 0; i < count; i++) {
+      var owner = owners.get((int) ((first + i) / cardsPerUser));
+      var number = numbers.get(i);
+      cards.add(
+          new NewCard(
+              ids.get(i), number.number(), number.numberHash(), owner, createdAt, expireDate));
+    }
+    cardRepository.insertCards(cards);
+  }
+
+  private static String error(RuntimeException e) {
+    var error = e.toString();
+    return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+  }
+}
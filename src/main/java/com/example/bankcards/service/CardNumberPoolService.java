@@ -0,0 +1,141 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardNumberPoolRepository;
+import com.example.bankcards.repository.CardNumberPoolRepository.PooledNumber;
+import com.example.bankcards.util.AdvisoryLock;
+import com.example.bankcards.util.EncryptionCard;
+import com.example.bankcards.util.Luhn;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Supplies unique, Luhn-valid card numbers from a pool of pre-generated numbers. The pool is
+ * topped up in the background, so issuing a card costs a single statement instead of generating
+ * candidates and checking each of them against the cards table. Numbers are generated with the
+ * configured issuer prefix and encrypted and hashed once, when they enter the pool. Only one
+ * instance refills the pool at a time.
+ */
+@Slf4j
+@Service
+public class CardNumberPoolService {
+  private static final String LOCK_NAME = "card-number-pool-refill";
+  private static final int NUMBER_LENGTH = 16;
+  private static final int MAX_TAKE_ATTEMPTS = 5;
+
+  private final CardNumberPoolRepository cardNumberPoolRepository;
+  private final EncryptionCard encryptionCard;
+  private final AdvisoryLock advisoryLock;
+  private final String prefix;
+  private final int targetSize;
+  private final int lowWatermark;
+  private final int batchSize;
+  private final Counter generated;
+  private final Counter shortfalls;
+  private final Counter skipped;
+
+  public CardNumberPoolService(
+      CardNumberPoolRepository cardNumberPoolRepository,
+      EncryptionCard encryptionCard,
+      AdvisoryLock advisoryLock,
+      MeterRegistry meterRegistry,
+      @Value("${cards.number-pool.prefix:400000}") String prefix,
+      @Value("${cards.number-pool.target-size:10000}") int targetSize,
+      @Value("${cards.number-pool.low-watermark:2000}") int lowWatermark,
+      @Value("${cards.number-pool.batch-size:1000}") int batchSize) {
+    this.cardNumberPoolRepository = cardNumberPoolRepository;
+    this.encryptionCard = encryptionCard;
+    this.advisoryLock = advisoryLock;
+    this.prefix = prefix;
+    this.targetSize = targetSize;
+    this.lowWatermark = lowWatermark;
+    this.batchSize = batchSize;
+    this.generated =
+        Counter.builder("cards.number.pool.generated")
+            .description("Card numbers generated for the pool")
+            .register(meterRegistry);
+    this.shortfalls =
+        Counter.builder("cards.number.pool.shortfalls")
+            .description("Takes that found the pool short and generated numbers inline")
+            .register(meterRegistry);
+    this.skipped =
+        Counter.builder("cards.number.pool.refill.skipped")
+            .description("Refills skipped because another instance held the lock")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Takes unique numbers from the pool. If the pool runs short, or some of the taken numbers turn
+   * out to be issued already, the missing numbers are generated on the spot. The numbers are removed within the caller's transaction and return to the pool
+   * if it rolls back.
+   *
+   * @param count The number of numbers to take.
+   * @return The encrypted numbers with their blind index.
+   * @throws IllegalStateException if no unique numbers could be generated.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public List<PooledNumber> take(int count) {
+    var numbers = new ArrayList<PooledNumber>(count);
+    numbers.addAll(cardNumberPoolRepository.take(count));
+    for (int attempt = 0; numbers.size() < count && attempt < MAX_TAKE_ATTEMPTS; attempt++) {
+      shortfalls.increment();
+      generate(count - numbers.size());
+      numbers.addAll(cardNumberPoolRepository.take(count - numbers.size()));
+    }
+    if (numbers.size() < count) {
+      throw new IllegalStateException("Unable to take " + count + " unique card numbers");
+    }
+    return numbers;
+  }
+
+  /**
+   * Tops the pool up to {@code cards.number-pool.target-size} once it has fallen below {@code
+   * cards.number-pool.low-watermark}, unless another instance is already refilling it. The size
+   * is read under the lock, so an instance that refills right after another one finds the pool
+   * full. Numbers are added in batches of {@code cards.number-pool.batch-size}, each committed on
+   * its own.
+   *
+   * @return The number of numbers added, 0 if the refill was skipped.
+   */
+  public long refill() {
+    var added = new AtomicLong();
+    var ran = advisoryLock.runExclusively(LOCK_NAME, () -> added.set(topUp()));
+    if (!ran) {
+      skipped.increment();
+      log.debug("Card number pool refill skipped, another instance holds the lock");
+    }
+    return added.get();
+  }
+
+  private long topUp() {
+    var size = cardNumberPoolRepository.count();
+    if (size >= lowWatermark) {
+      return 0;
+    }
+    log.debug("Card number pool size before refill: {}", size);
+    var missing = targetSize - size;
+    for (var left = missing; left > 0; left -= batchSize) {
+      generate((int) Math.min(left, batchSize));
+    }
+    return missing;
+  }
+
+  private void generate(int count) {
+    var random = ThreadLocalRandom.current();
+    var numbers = new ArrayList<PooledNumber>(count);
+    for (int i = 0; i < count; i++) {
+      var number = Luhn.generate(prefix, NUMBER_LENGTH, random);
+      numbers.add(new PooledNumber(encryptionCard.encrypt(number), encryptionCard.hash(number)));
+    }
+    cardNumberPoolRepository.add(numbers);
+    generated.increment(count);
+  }
+}
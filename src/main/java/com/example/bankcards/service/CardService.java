@@ -2,6 +2,8 @@ package com.example.bankcards.service;
 
 import com.example.bankcards.dto.AdminCardDto;
 import com.example.bankcards.dto.CardBlockRequestDto;
+import com.example.bankcards.dto.CardFilter;
+import com.example.bankcards.dto.CursorPageDto;
 import com.example.bankcards.dto.PaginationDto;
 import com.example.bankcards.dto.UserCardDto;
 import com.example.bankcards.entity.Card;
@@ -11,23 +13,33 @@ import com.example.bankcards.entity.CardBlockRequestStatus;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardBlockRequestNotFoundException;
+import com.example.bankcards.exception.CardExpiredException;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.CardOwnerException;
+import com.example.bankcards.exception.InvalidCursorException;
 import com.example.bankcards.mapper.CardBlockRequestMapper;
 import com.example.bankcards.mapper.CardMapper;
 import com.example.bankcards.repository.CardBlockRequestRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.UserCardView;
+import com.example.bankcards.util.CursorCodec;
 import com.example.bankcards.util.EncryptionCard;
+import com.example.bankcards.util.NdjsonWriter;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
+import java.util.stream.IntStream;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
@@ -37,27 +49,72 @@ public class CardService {
   private final CardRepository cardRepository;
   private final EncryptionCard encryptionCard;
   private final CardBlockRequestRepository cardBlockRequestRepository;
+  private final NdjsonWriter ndjsonWriter;
+  private final TransactionTemplate transactionTemplate;
+  private final CardNumberPoolService cardNumberPoolService;
+
+  @Value("${cards.bulk.chunk-size:1000}")
+  int bulkChunkSize = 1000;
 
   /**
-   * Blocks all cards associated with a user.
+   * Blocks all cards associated with a user with a single UPDATE. Expired cards stay expired.
    *
-   * @param user The user whose cards are to be blocked.
+   * @param userId The ID of the user whose cards are to be blocked.
+   * @return The number of cards that were not blocked or expired before.
    */
   @Transactional
-  public void blockUserCards(User user) {
-    user.getCards().forEach(card -> card.setStatus(CardStatus.BLOCKED));
+  public int blockUserCards(Long userId) {
+    return cardRepository.updateStatusByOwnerId(userId, CardStatus.BLOCKED);
   }
 
   /**
-   * Creates a new card for a user.
+   * Sets the status of many cards, selected either by id or by filter. The cards are updated in
+   * chunks of {@code cards.bulk.chunk-size}, each with a single UPDATE committed in its own
+   * transaction, so row locks are held briefly; if a chunk fails, the earlier ones stay applied.
+   * Cards already in the target status are not counted. Expired cards are never changed, and cards
+   * past their expiry date are not activated even if the expiry sweep has not marked them yet.
+   *
+   * @param ids The IDs of the cards, or null to select the cards by filter.
+   * @param filter The filter, used when no IDs are given.
+   * @param status The new status.
+   * @return The number of updated cards.
+   */
+  public long changeCardStatuses(List<Long> ids, CardFilter filter, CardStatus status) {
+    long updated = 0;
+    if (ids != null) {
+      var sortedIds = ids.stream().distinct().sorted().toList();
+      for (int from = 0; from < sortedIds.size(); from += bulkChunkSize) {
+        var chunk = sortedIds.subList(from, Math.min(from + bulkChunkSize, sortedIds.size()));
+        updated += updateInTransaction(() -> cardRepository.updateStatusByIdIn(chunk, status));
+      }
+      return updated;
+    }
+    int chunkUpdated;
+    do {
+      chunkUpdated =
+          updateInTransaction(() -> cardRepository.updateStatusChunk(filter, status, bulkChunkSize));
+      updated += chunkUpdated;
+    } while (chunkUpdated == bulkChunkSize);
+    return updated;
+  }
+
+  private int updateInTransaction(IntSupplier update) {
+    var updated = transactionTemplate.execute(status -> update.getAsInt());
+    return updated != null ? updated : 0;
+  }
+
+  /**
+   * Creates a new card for a user with a number taken from the pool.
    *
    * @param userId The ID of the user for whom the card is to be created.
    */
   @Transactional
   public void createCardForUser(long userId) {
+    var number = cardNumberPoolService.take(1).get(0);
     var card =
         Card.builder()
-            .number(encryptionCard.encrypt(generateCardNumber()))
+            .number(number.number())
+            .numberHash(number.numberHash())
             .expireDate(LocalDateTime.now().plusYears(3))
             .createdAt(LocalDateTime.now())
             .status(CardStatus.ACTIVE)
@@ -71,43 +128,44 @@ public class CardService {
     cardRepository.save(card);
   }
 
-  private String generateCardNumber() {
-    var generate = true;
-    var cardNumber = new StringBuilder();
-    while (generate) {
-      for (int i = 0; i < 4; i++) {
-        var number = ThreadLocalRandom.current().nextInt(1000, 9999);
-        cardNumber.append(number);
-      }
-      var cardDb = cardRepository.findCardByNumber(cardNumber.toString());
-      if (cardDb.isEmpty()) {
-        generate = false;
-      } else {
-        cardNumber.setLength(0);
-      }
-    }
-    return cardNumber.toString();
+  /**
+   * Computes the blind index for a chunk of cards that do not have one yet.
+   *
+   * @param chunkSize The maximum number of cards to process.
+   * @return The number of processed cards.
+   */
+  @Transactional
+  public int backfillNumberHashes(int chunkSize) {
+    var cards = cardRepository.findWithoutNumberHash(PageRequest.of(0, chunkSize));
+    cards.forEach(
+        card ->
+            cardRepository.updateNumberHash(
+                card.getId(), encryptionCard.hash(encryptionCard.decrypt(card.getNumber()))));
+    return cards.size();
   }
 
   /**
-   * Changes the status of a card.
+   * Changes the status of a card, following the same rules as {@link #changeCardStatuses}.
+   * Setting the status the card already has does nothing.
    *
    * @param id The ID of the card to update.
    * @param status The new status of the card.
    * @throws CardNotFoundException if the card with the given ID is not found.
+   * @throws CardExpiredException if the card is expired, or is past its expiry date and is to be
+   *     activated.
    */
   @Transactional
   public void changeCardStatus(Long id, CardStatus status) {
-    cardRepository
-        .findById(id)
-        .ifPresentOrElse(
-            card -> {
-              card.setStatus(status);
-              cardRepository.save(card);
-            },
-            () -> {
-              throw new CardNotFoundException(String.valueOf(id));
-            });
+    if (cardRepository.updateStatusByIdIn(List.of(id), status) > 0) {
+      return;
+    }
+    var card =
+        cardRepository
+            .findById(id)
+            .orElseThrow(() -> new CardNotFoundException(String.valueOf(id)));
+    if (card.getStatus() != status) {
+      throw new CardExpiredException(String.valueOf(id));
+    }
   }
 
   /**
@@ -128,14 +186,44 @@ public class CardService {
   }
 
   /**
-   * Retrieves a list of all cards.
+   * Retrieves a page of the cards matching the filter, ordered by id.
+   *
+   * @param filter The filter.
+   * @param page The page number to retrieve.
+   * @param size The number of elements per page.
+   * @return A pagination DTO containing the matching cards with masked numbers.
+   */
+  public PaginationDto<AdminCardDto> getAllCards(CardFilter filter, int page, int size) {
+    var cards = cardRepository.findAdminCards(filter, (long) page * size, size);
+    var numbers = encryptionCard.decryptAll(cards.stream().map(AdminCardDto::getNumber).toList());
+    for (int i = 0; i < cards.size(); i++) {
+      cards.get(i).setNumber(Card.hideNumber(numbers.get(i)));
+    }
+    var total = cardRepository.countAdminCards(filter);
+    var result = new PaginationDto<AdminCardDto>();
+    result.setTotalPages((int) ((total + size - 1) / size));
+    result.setTotalElements(total);
+    result.setElements(cards);
+    return result;
+  }
+
+  /**
+   * Writes all cards matching the filter as newline delimited JSON, ordered by id. Rows are
+   * fetched from a database cursor and written as they arrive.
    *
-   * @return A list of DTOs representing all cards.
+   * @param filter The filter.
+   * @param outputStream The target stream.
    */
-  public List<AdminCardDto> getAllCards() {
-    var cards = cardRepository.findAll();
-    cards.forEach(card -> card.setNumber(encryptionCard.decrypt(card.getNumber())));
-    return cards.stream().map(cardMapper::toAdminCardDto).toList();
+  @Transactional(readOnly = true)
+  public void streamAllCards(CardFilter filter, OutputStream outputStream) throws IOException {
+    try (var cards = cardRepository.streamAdminCards(filter)) {
+      ndjsonWriter.write(cards.map(this::maskNumber), outputStream);
+    }
+  }
+
+  private AdminCardDto maskNumber(AdminCardDto card) {
+    card.setNumber(Card.hideNumber(encryptionCard.decrypt(card.getNumber())));
+    return card;
   }
 
   /**
@@ -148,25 +236,62 @@ public class CardService {
    * @return A pagination DTO containing the user's cards.
    */
   public PaginationDto<UserCardDto> getUserCards(User user, String search, int page, int size) {
-    Page<Card> cardsPage;
-    var pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+    Page<UserCardView> cardsPage;
+    var pageable = PageRequest.of(page, size);
     if (search != null && !search.isBlank()) {
       var encryptedSearch = encryptionCard.encrypt(search);
       cardsPage =
-          cardRepository.findByOwnerIdAndNumberContaining(user.getId(), encryptedSearch, pageable);
+          cardRepository.findUserCardsByOwnerIdAndNumberContaining(
+              user.getId(), encryptedSearch, pageable);
     } else {
-      cardsPage = cardRepository.findByOwnerId(user.getId(), pageable);
+      cardsPage = cardRepository.findUserCardsByOwnerId(user.getId(), pageable);
     }
-    cardsPage
-        .getContent()
-        .forEach(card -> card.setNumber(encryptionCard.decrypt(card.getNumber())));
     var result = new PaginationDto<UserCardDto>();
     result.setTotalPages(cardsPage.getTotalPages());
     result.setTotalElements(cardsPage.getTotalElements());
-    result.setElements(cardsPage.getContent().stream().map(cardMapper::toUserCardDto).toList());
+    result.setElements(toUserCardDtos(cardsPage.getContent()));
     return result;
   }
 
+  /**
+   * Retrieves a page of the user's cards, newest first, using keyset pagination. Unlike {@link
+   * #getUserCards(User, String, int, int)} the cost of a page does not depend on its depth, and the
+   * total is only counted on request.
+   *
+   * @param user The user whose cards are to be retrieved.
+   * @param cursor The cursor returned with the previous page, or null for the first page.
+   * @param size The number of elements per page.
+   * @param withTotal Whether to count all cards of the user.
+   * @return The page with the cursor of the next one.
+   * @throws InvalidCursorException if the cursor is malformed.
+   */
+  public CursorPageDto<UserCardDto> getUserCardsByCursor(
+      User user, String cursor, int size, boolean withTotal) {
+    List<UserCardView> cards;
+    if (cursor == null || cursor.isBlank()) {
+      cards = cardRepository.findFirstPageByOwnerId(user.getId(), Limit.of(size));
+    } else {
+      var position = CursorCodec.decode(cursor);
+      cards =
+          cardRepository.findPageAfterByOwnerId(
+              user.getId(), position.timestamp(), position.id(), Limit.of(size));
+    }
+    String nextCursor = null;
+    if (cards.size() == size) {
+      var last = cards.get(cards.size() - 1);
+      nextCursor = CursorCodec.encode(last.getCreatedAt(), last.getId());
+    }
+    var total = withTotal ? cardRepository.countByOwnerId(user.getId()) : null;
+    return new CursorPageDto<>(toUserCardDtos(cards), nextCursor, total);
+  }
+
+  private List<UserCardDto> toUserCardDtos(List<UserCardView> cards) {
+    var numbers = encryptionCard.decryptAll(cards.stream().map(UserCardView::getNumber).toList());
+    return IntStream.range(0, cards.size())
+        .mapToObj(i -> cardMapper.toUserCardDto(cards.get(i), numbers.get(i)))
+        .toList();
+  }
+
   /**
    * Creates a request to block a card.
    *
@@ -177,7 +302,7 @@ public class CardService {
    */
   @Transactional
   public void createCardBlockRequest(User user, Long cardId) {
-    var cardOpt = cardRepository.findById(cardId);
+    var cardOpt = cardRepository.findNumberAndOwnerById(cardId);
     if (cardOpt.isEmpty()) {
       throw new CardNotFoundException(String.valueOf(cardId));
     }
@@ -185,7 +310,6 @@ public class CardService {
     if (!card.getOwnerId().equals(user.getId())) {
       throw new CardOwnerException(String.valueOf(cardId));
     }
-    card.setNumber(encryptionCard.decrypt(card.getNumber()));
     var userName =
         user.getSurname().isBlank()
             ? user.getName().concat(user.getLastName())
@@ -197,9 +321,10 @@ public class CardService {
     var cardBlockRequest =
         CardBlockRequest.builder()
             .cardId(cardId)
-            .cardNumber(card.hideNumber())
+            .cardNumber(Card.hideNumber(encryptionCard.decrypt(card.getNumber())))
             .userId(user.getId())
             .userName(userName)
+            .createdAt(LocalDateTime.now())
             .status(CardBlockRequestStatus.CREATED)
             .build();
     cardBlockRequestRepository.save(cardBlockRequest);
@@ -218,6 +343,27 @@ public class CardService {
             .toList();
   }
 
+  /**
+   * Retrieves a page of the card block requests in a status, oldest first, so that admins can work
+   * through the queue of requests.
+   *
+   * @param status The status of the requests.
+   * @param page The page number to retrieve.
+   * @param size The number of elements per page.
+   * @return A pagination DTO containing the requests.
+   */
+  public PaginationDto<CardBlockRequestDto> getBlockRequestsByStatus(
+      CardBlockRequestStatus status, int page, int size) {
+    var requests =
+        cardBlockRequestRepository.findAllByStatusOrderByCreatedAtAscIdAsc(
+            status, PageRequest.of(page, size));
+    var result = new PaginationDto<CardBlockRequestDto>();
+    result.setTotalPages(requests.getTotalPages());
+    result.setTotalElements(requests.getTotalElements());
+    result.setElements(requests.map(cardBlockRequestMapper::toDto).getContent());
+    return result;
+  }
+
   /**
    * Sets the status of a card block request.
    *
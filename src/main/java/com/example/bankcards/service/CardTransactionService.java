@@ -0,0 +1,132 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.entity.CardTransactionType;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.CardOwnerException;
+import com.example.bankcards.exception.InvalidCursorException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.util.CursorCodec;
+import com.example.bankcards.util.NdjsonWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+public class CardTransactionService {
+  private final CardTransactionRepository cardTransactionRepository;
+  private final CardRepository cardRepository;
+  private final NdjsonWriter ndjsonWriter;
+
+  /**
+   * Appends the ledger entries of a transfer. Must be called in the transaction that changes the
+   * balances, so that the ledger and the balances are committed or rolled back together.
+   *
+   * @param cardFromId The ID of the debited card.
+   * @param cardToId The ID of the credited card.
+   * @param value The transferred amount.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordTransfer(Long cardFromId, Long cardToId, BigDecimal value) {
+    var transferId = UUID.randomUUID();
+    var now = LocalDateTime.now();
+    cardTransactionRepository.saveAll(
+        List.of(
+            CardTransaction.builder()
+                .transferId(transferId)
+                .cardId(cardFromId)
+                .counterpartyCardId(cardToId)
+                .type(CardTransactionType.DEBIT)
+                .amount(value)
+                .createdAt(now)
+                .build(),
+            CardTransaction.builder()
+                .transferId(transferId)
+                .cardId(cardToId)
+                .counterpartyCardId(cardFromId)
+                .type(CardTransactionType.CREDIT)
+                .amount(value)
+                .createdAt(now)
+                .build()));
+  }
+
+  /**
+   * Retrieves one page of the history of a card, newest entries first.
+   *
+   * @param user The user requesting the history.
+   * @param cardId The ID of the card.
+   * @param cursor The cursor returned with the previous page, or null for the first page.
+   * @param size The number of elements per page.
+   * @param withTotal Whether to count all entries of the card.
+   * @return A page of ledger entries with the cursor of the next page.
+   * @throws CardNotFoundException if the card with the given ID is not found.
+   * @throws CardOwnerException if the user does not own the card.
+   * @throws InvalidCursorException if the cursor is malformed.
+   */
+  @Transactional(readOnly = true)
+  public CursorPageDto<CardTransactionDto> getCardTransactions(
+      User user, Long cardId, String cursor, int size, boolean withTotal) {
+    checkCardOwner(user, cardId);
+    List<CardTransactionDto> elements;
+    if (cursor == null || cursor.isBlank()) {
+      elements = cardTransactionRepository.findFirstPage(cardId, Limit.of(size));
+    } else {
+      var position = CursorCodec.decode(cursor);
+      elements =
+          cardTransactionRepository.findPageAfter(
+              cardId, position.timestamp(), position.id(), Limit.of(size));
+    }
+    String nextCursor = null;
+    if (elements.size() == size) {
+      var last = elements.get(elements.size() - 1);
+      nextCursor = CursorCodec.encode(last.getCreatedAt(), last.getId());
+    }
+    var total = withTotal ? cardTransactionRepository.countByCardId(cardId) : null;
+    return new CursorPageDto<>(elements, nextCursor, total);
+  }
+
+  /**
+   * Checks that a card exists and belongs to the user.
+   *
+   * @param user The user.
+   * @param cardId The ID of the card.
+   * @throws CardNotFoundException if the card with the given ID is not found.
+   * @throws CardOwnerException if the user does not own the card.
+   */
+  public void checkCardOwner(User user, Long cardId) {
+    var ownerId =
+        cardRepository
+            .findOwnerIdById(cardId)
+            .orElseThrow(() -> new CardNotFoundException(String.valueOf(cardId)));
+    if (!ownerId.equals(user.getId())) {
+      throw new CardOwnerException(String.valueOf(cardId));
+    }
+  }
+
+  /**
+   * Writes the whole history of a card as newline delimited JSON, newest entries first. Rows are
+   * fetched from a database cursor and written as they arrive.
+   *
+   * @param cardId The ID of the card; ownership must be checked by the caller.
+   * @param outputStream The target stream.
+   */
+  @Transactional(readOnly = true)
+  public void streamCardTransactions(Long cardId, OutputStream outputStream) throws IOException {
+    try (var transactions = cardTransactionRepository.streamByCardId(cardId)) {
+      ndjsonWriter.write(transactions, outputStream);
+    }
+  }
+}
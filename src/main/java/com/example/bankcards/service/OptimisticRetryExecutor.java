@@ -0,0 +1,78 @@
+package com.example.bankcards.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+  private final int maxAttempts;
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+  private final Counter retries;
+  private final Counter exhausted;
+
+  public OptimisticRetryExecutor(
+      MeterRegistry meterRegistry,
+      @Value("${transfer.retry.max-attempts:5}") int maxAttempts,
+      @Value("${transfer.retry.initial-backoff:10ms}") Duration initialBackoff,
+      @Value("${transfer.retry.max-backoff:200ms}") Duration maxBackoff) {
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffMillis = initialBackoff.toMillis();
+    this.maxBackoffMillis = maxBackoff.toMillis();
+    this.retries =
+        Counter.builder("transfer.optimistic.retries")
+            .description("Transfers retried after an optimistic lock conflict")
+            .register(meterRegistry);
+    this.exhausted =
+        Counter.builder("transfer.optimistic.exhausted")
+            .description("Transfers that failed after all retry attempts")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Runs the action and repeats it when it fails because of an optimistic lock conflict. Attempts
+   * are separated by an exponential backoff with full jitter. The action must start its own
+   * transaction so that every attempt works on fresh data.
+   *
+   * @param action The action to run.
+   * @return The result of the first successful attempt.
+   * @throws OptimisticLockingFailureException if the last attempt still conflicts.
+   */
+  public <T> T execute(Supplier<T> action) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return action.get();
+      } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+        if (attempt >= maxAttempts) {
+          exhausted.increment();
+          throw e;
+        }
+        retries.increment();
+        log.debug("Optimistic lock conflict, attempt {} of {}", attempt, maxAttempts);
+        backoff(attempt, e);
+      }
+    }
+  }
+
+  private void backoff(int attempt, RuntimeException conflict) {
+    var ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+    if (ceiling <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw conflict;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.RefreshTokenRevocationRepository;
+import com.example.bankcards.util.UuidBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps track of revoked refresh tokens by their {@code jti}. The database table is the source of
+ * truth; an in-memory Bloom filter in front of it answers the common case of a token that was
+ * never revoked without a query. Only tokens the filter reports as possibly revoked are looked up
+ * in the table. The filter is rebuilt from the table when expired revocations are deleted.
+ */
+@Service
+public class RefreshTokenRevocationService {
+    private final RefreshTokenRevocationRepository refreshTokenRevocationRepository;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+    private final Counter memoryChecks;
+    private final Counter databaseChecks;
+    private volatile UuidBloomFilter revoked;
+
+    public RefreshTokenRevocationService(RefreshTokenRevocationRepository refreshTokenRevocationRepository,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${jwt.refresh.revocation.expected-size:1000000}") long expectedRevocations,
+                                         @Value("${jwt.refresh.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.refreshTokenRevocationRepository = refreshTokenRevocationRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.memoryChecks = Counter.builder("auth.refresh.revocation.checks")
+                .description("Refresh token revocation checks")
+                .tag("source", "memory")
+                .register(meterRegistry);
+        this.databaseChecks = Counter.builder("auth.refresh.revocation.checks")
+                .description("Refresh token revocation checks")
+                .tag("source", "database")
+                .register(meterRegistry);
+        this.revoked = new UuidBloomFilter(expectedRevocations, falsePositiveRate);
+    }
+
+    /**
+     * Checks whether the refresh token with the given id has been revoked.
+     *
+     * @param jti The id of the refresh token.
+     * @return true if the token has been revoked.
+     */
+    public boolean isRevoked(UUID jti) {
+        if (!revoked.mightContain(jti)) {
+            memoryChecks.increment();
+            return false;
+        }
+        databaseChecks.increment();
+        return refreshTokenRevocationRepository.existsById(jti);
+    }
+
+    /**
+     * Revokes the refresh token with the given id. Of several concurrent calls for the same token
+     * exactly one returns true, which makes a refresh token usable only once.
+     *
+     * @param jti The id of the refresh token.
+     * @param userId The owner of the refresh token.
+     * @param expiresAt The expiration of the refresh token, after which the revocation is dropped.
+     * @return true if the token was revoked by this call, false if it had already been revoked.
+     */
+    @Transactional
+    public boolean revoke(UUID jti, Long userId, LocalDateTime expiresAt) {
+        var revokedNow = refreshTokenRevocationRepository.revoke(jti, userId, LocalDateTime.now(), expiresAt) == 1;
+        revoked.put(jti);
+        return revokedNow;
+    }
+
+    /**
+     * Deletes the revocations of expired refresh tokens and rebuilds the in-memory filter from the
+     * remaining ones.
+     *
+     * @return The number of deleted revocations.
+     */
+    @Transactional
+    public int deleteExpired() {
+        var now = LocalDateTime.now();
+        var deleted = refreshTokenRevocationRepository.deleteExpired(now);
+        rebuild(now);
+        return deleted;
+    }
+
+    /** Loads the revocations of tokens that have not expired yet into the in-memory filter. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        rebuild(LocalDateTime.now());
+    }
+
+    private void rebuild(LocalDateTime now) {
+        var filter = new UuidBloomFilter(expectedRevocations, falsePositiveRate);
+        refreshTokenRevocationRepository.findActiveJtis(now).forEach(filter::put);
+        revoked = filter;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.TransferIdempotencyKey;
+import com.example.bankcards.entity.TransferIdempotencyKeyId;
+import com.example.bankcards.exception.IdempotencyKeyReuseException;
+import com.example.bankcards.repository.TransferIdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps track of the {@code Idempotency-Key} values of completed transfers. The database table is
+ * the source of truth and is written in the transaction of the transfer; a bounded in-memory cache
+ * in front of it answers repeated keys without opening a transaction.
+ */
+@Service
+public class TransferIdempotencyService {
+    private final TransferIdempotencyKeyRepository transferIdempotencyKeyRepository;
+    private final Duration ttl;
+    private final Cache<TransferIdempotencyKeyId, String> completed;
+
+    public TransferIdempotencyService(TransferIdempotencyKeyRepository transferIdempotencyKeyRepository,
+                                      @Value("${idempotency.ttl:24h}") Duration ttl,
+                                      @Value("${idempotency.cache.max-size:10000}") long cacheMaxSize) {
+        this.transferIdempotencyKeyRepository = transferIdempotencyKeyRepository;
+        this.ttl = ttl;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Checks the in-memory cache for a completed transfer with the given key.
+     *
+     * @param userId The user performing the transfer.
+     * @param idempotencyKey The key sent by the client.
+     * @param requestHash The hash of the transfer request.
+     * @return true if the transfer has already been completed.
+     * @throws IdempotencyKeyReuseException if the key was used for a different request.
+     */
+    public boolean isCompleted(Long userId, String idempotencyKey, String requestHash) {
+        var cachedHash = completed.getIfPresent(new TransferIdempotencyKeyId(userId, idempotencyKey));
+        if (cachedHash == null) {
+            return false;
+        }
+        checkSameRequest(cachedHash, requestHash, idempotencyKey);
+        return true;
+    }
+
+    /**
+     * Claims the key for the current transaction. The claim is rolled back together with the
+     * transfer, so a failed transfer can be repeated with the same key.
+     *
+     * @param userId The user performing the transfer.
+     * @param idempotencyKey The key sent by the client.
+     * @param requestHash The hash of the transfer request.
+     * @return true if the key was claimed and the transfer has to be executed, false if a transfer
+     *     with this key has already been completed.
+     * @throws IdempotencyKeyReuseException if the key was used for a different request.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean claim(Long userId, String idempotencyKey, String requestHash) {
+        var now = LocalDateTime.now();
+        var claimed = transferIdempotencyKeyRepository.claim(userId, idempotencyKey, requestHash,
+                TransferIdempotencyKey.RESULT_COMPLETED, now, now.plus(ttl));
+        if (claimed == 1) {
+            return true;
+        }
+        var id = new TransferIdempotencyKeyId(userId, idempotencyKey);
+        var existing = transferIdempotencyKeyRepository.findById(id)
+                .orElseThrow(() -> new IllegalStateException("Idempotency key disappeared: " + idempotencyKey));
+        checkSameRequest(existing.getRequestHash(), requestHash, idempotencyKey);
+        completed.put(id, existing.getRequestHash());
+        return false;
+    }
+
+    /**
+     * Puts a committed transfer into the in-memory cache.
+     *
+     * @param userId The user performing the transfer.
+     * @param idempotencyKey The key sent by the client.
+     * @param requestHash The hash of the transfer request.
+     */
+    public void remember(Long userId, String idempotencyKey, String requestHash) {
+        completed.put(new TransferIdempotencyKeyId(userId, idempotencyKey), requestHash);
+    }
+
+    /**
+     * Deletes the keys whose TTL has passed.
+     *
+     * @return The number of deleted keys.
+     */
+    @Transactional
+    public int deleteExpired() {
+        return transferIdempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private static void checkSameRequest(String storedHash, String requestHash, String idempotencyKey) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IdempotencyKeyReuseException(idempotencyKey);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.bankcards.service;
+
+/**
+ * Represents the way balances are updated during a money transfer.
+ */
+public enum TransferMode {
+    /**
+     * Balances are changed by conditional UPDATE statements that lock the rows in card id order.
+     */
+    ATOMIC,
+    /**
+     * Balances are read, changed in memory and written back with a version check. Conflicting
+     * transfers are retried.
+     */
+    OPTIMISTIC
+}
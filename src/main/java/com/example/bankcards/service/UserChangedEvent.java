@@ -0,0 +1,8 @@
+package com.example.bankcards.service;
+
+/**
+ * Published when data of a user that is part of the authenticated principal changes.
+ *
+ * @param userId The ID of the changed user.
+ */
+public record UserChangedEvent(Long userId) {}
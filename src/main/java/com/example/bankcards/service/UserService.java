@@ -1,14 +1,24 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.ExportFormat;
+import com.example.bankcards.dto.PaginationDto;
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.UserFilter;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.UserStatus;
 import com.example.bankcards.exception.UserAlreadyExistException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CsvWriter;
+import com.example.bankcards.util.NdjsonWriter;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,9 +26,15 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 @RequiredArgsConstructor
 public class UserService {
+  private static final List<String> CSV_HEADER =
+      List.of("id", "login", "name", "lastName", "surname", "status", "role", "createdAt");
+
   private final UserRepository userRepository;
   private final PasswordEncoder passwordEncoder;
   private final CardService cardService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final NdjsonWriter ndjsonWriter;
+  private final CsvWriter csvWriter;
 
   /**
    * Registers a new user.
@@ -56,8 +72,9 @@ public class UserService {
         .ifPresentOrElse(
             user -> {
               user.setStatus(UserStatus.DELETED);
-              cardService.blockUserCards(user);
+              cardService.blockUserCards(id);
               userRepository.save(user);
+              eventPublisher.publishEvent(new UserChangedEvent(id));
             },
             () -> {
               throw new UserNotFoundException();
@@ -65,12 +82,52 @@ public class UserService {
   }
 
   /**
-   * Retrieves a list of all users.
+   * Retrieves a page of the users matching the filter, ordered by id. Cards are not loaded.
    *
-   * @return A list of all users.
+   * @param filter The filter.
+   * @param page The page number to retrieve.
+   * @param size The number of elements per page.
+   * @return A pagination DTO containing the matching users.
    */
-  public List<User> getAllUsers() {
-    return userRepository.findAll();
+  public PaginationDto<UserDto> getAllUsers(UserFilter filter, int page, int size) {
+    var total = userRepository.countUsers(filter);
+    var result = new PaginationDto<UserDto>();
+    result.setTotalPages((int) ((total + size - 1) / size));
+    result.setTotalElements(total);
+    result.setElements(userRepository.findUserDtos(filter, (long) page * size, size));
+    return result;
+  }
+
+  /**
+   * Writes all users matching the filter, ordered by id. Rows are fetched from a database cursor
+   * and written as they arrive, so only a fixed number of them is held in memory.
+   *
+   * @param filter The filter.
+   * @param format The output format.
+   * @param outputStream The target stream.
+   */
+  @Transactional(readOnly = true)
+  public void streamUsers(UserFilter filter, ExportFormat format, OutputStream outputStream)
+      throws IOException {
+    try (var users = userRepository.streamUserDtos(filter)) {
+      if (format == ExportFormat.CSV) {
+        csvWriter.write(users, CSV_HEADER, UserService::toCsvRow, outputStream);
+      } else {
+        ndjsonWriter.write(users, outputStream);
+      }
+    }
+  }
+
+  private static List<?> toCsvRow(UserDto user) {
+    return Arrays.asList(
+        user.getId(),
+        user.getLogin(),
+        user.getName(),
+        user.getLastName(),
+        user.getSurname(),
+        user.getStatus(),
+        user.getRole(),
+        user.getCreatedAt());
   }
 
   /**
@@ -87,6 +144,7 @@ public class UserService {
         user.getLogin(),
         user.getRole(),
         user.getId());
+    eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
   }
 
   /**
@@ -101,7 +159,10 @@ public class UserService {
     userRepository
         .findById(userId)
         .ifPresentOrElse(
-            user -> userRepository.updatePassword(passwordEncoder.encode(password), userId),
+            user -> {
+              userRepository.updatePassword(passwordEncoder.encode(password), userId);
+              eventPublisher.publishEvent(new UserChangedEvent(userId));
+            },
             () -> {
               throw new UserNotFoundException();
             });
@@ -114,13 +175,10 @@ public class UserService {
    * @throws UserNotFoundException if the user with the given ID is not found.
    */
   public void blockUserCards(Long userId) {
-    userRepository
-        .findById(userId)
-        .ifPresentOrElse(
-            cardService::blockUserCards,
-            () -> {
-              throw new UserNotFoundException();
-            });
+    if (!userRepository.existsById(userId)) {
+      throw new UserNotFoundException();
+    }
+    cardService.blockUserCards(userId);
   }
 
   /**
@@ -152,5 +210,6 @@ public class UserService {
   public void changeUserStatus(Long userId, UserStatus userStatus) {
     userRepository.findById(userId).orElseThrow(UserNotFoundException::new);
     userRepository.updateUserStatus(userId, userStatus);
+    eventPublisher.publishEvent(new UserChangedEvent(userId));
   }
 }
@@ -0,0 +1,66 @@
+package com.example.bankcards.util;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.UUID;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs tasks under a PostgreSQL session-level advisory lock, so that a task scheduled on every
+ * instance runs on one of them at a time. The lock is held on a dedicated connection for the whole
+ * task; the task itself uses other connections and may commit as often as it likes. If the
+ * instance dies, the database releases the lock together with the session.
+ */
+@Slf4j
+@Component
+public class AdvisoryLock {
+  private final DataSource dataSource;
+
+  public AdvisoryLock(DataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  /**
+   * Runs the task if no other session holds the lock with the given name.
+   *
+   * @param name The name of the lock.
+   * @param task The task.
+   * @return true if the lock was acquired and the task has run, false if the lock is held
+   *     elsewhere.
+   */
+  public boolean runExclusively(String name, Runnable task) {
+    var key = key(name);
+    try (var connection = dataSource.getConnection()) {
+      if (!call(connection, "SELECT pg_try_advisory_lock(?)", key)) {
+        return false;
+      }
+      try {
+        task.run();
+      } finally {
+        if (!call(connection, "SELECT pg_advisory_unlock(?)", key)) {
+          log.warn("Advisory lock {} was not held on release", name);
+        }
+      }
+      return true;
+    } catch (SQLException e) {
+      throw new DataAccessResourceFailureException("Advisory lock " + name + " failed", e);
+    }
+  }
+
+  static long key(String name) {
+    return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).getMostSignificantBits();
+  }
+
+  private static boolean call(Connection connection, String sql, long key) throws SQLException {
+    try (var statement = connection.prepareStatement(sql)) {
+      statement.setLong(1, key);
+      try (var rs = statement.executeQuery()) {
+        return rs.next() && rs.getBoolean(1);
+      }
+    }
+  }
+}
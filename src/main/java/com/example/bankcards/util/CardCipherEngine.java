@@ -0,0 +1,209 @@
+package com.example.bankcards.util;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * AES-GCM encryption and HMAC-SHA256 hashing of card data with reusable crypto state.
+ *
+ * <p>The keys are derived once, a single {@link SecureRandom} is shared by all callers and {@link
+ * Cipher}/{@link Mac} instances are reused: platform threads keep their own instance, virtual
+ * threads borrow one from a small shared pool. Encrypted values have the layout {@code IV ||
+ * ciphertext || tag}.
+ */
+public class CardCipherEngine {
+  public static final int IV_LENGTH = 12;
+  public static final int TAG_LENGTH = 16;
+
+  private static final String ALGORITHM = "AES";
+  private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+  private static final String HASH_ALGORITHM = "HmacSHA256";
+  private static final int POOL_SIZE = 64;
+
+  private final SecretKey key;
+  private final SecretKey hashKey;
+  private final SecureRandom secureRandom = new SecureRandom();
+  private final InstancePool<Cipher> ciphers;
+  private final InstancePool<Mac> macs;
+
+  public CardCipherEngine(byte[] key, byte[] hashKey) {
+    this.key = new SecretKeySpec(key, ALGORITHM);
+    this.hashKey = new SecretKeySpec(hashKey, HASH_ALGORITHM);
+    this.ciphers = new InstancePool<>(() -> Cipher.getInstance(TRANSFORMATION));
+    this.macs =
+        new InstancePool<>(
+            () -> {
+              var mac = Mac.getInstance(HASH_ALGORITHM);
+              mac.init(this.hashKey);
+              return mac;
+            });
+  }
+
+  /**
+   * Encrypts the given bytes.
+   *
+   * @param input The plain bytes.
+   * @return A new array holding the IV followed by the ciphertext and tag.
+   */
+  public byte[] encrypt(byte[] input) throws GeneralSecurityException {
+    var iv = new byte[IV_LENGTH];
+    secureRandom.nextBytes(iv);
+    var output = new byte[IV_LENGTH + input.length + TAG_LENGTH];
+    System.arraycopy(iv, 0, output, 0, IV_LENGTH);
+    var cipher = ciphers.acquire();
+    try {
+      cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+      cipher.doFinal(input, 0, input.length, output, IV_LENGTH);
+      return output;
+    } finally {
+      ciphers.release(cipher);
+    }
+  }
+
+  /**
+   * Encrypts the remaining bytes of {@code input} into {@code output}.
+   *
+   * @param input The plain bytes.
+   * @param output The buffer receiving the IV, ciphertext and tag.
+   * @return The number of bytes written to {@code output}.
+   */
+  public int encrypt(ByteBuffer input, ByteBuffer output) throws GeneralSecurityException {
+    var iv = new byte[IV_LENGTH];
+    secureRandom.nextBytes(iv);
+    var cipher = ciphers.acquire();
+    try {
+      cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+      output.put(iv);
+      return IV_LENGTH + cipher.doFinal(input, output);
+    } finally {
+      ciphers.release(cipher);
+    }
+  }
+
+  /**
+   * Decrypts a value produced by {@link #encrypt(byte[])}.
+   *
+   * @param input The array holding the encrypted value.
+   * @param offset The offset of the encrypted value in {@code input}.
+   * @param length The length of the encrypted value.
+   * @return A new array holding the plain bytes.
+   */
+  public byte[] decrypt(byte[] input, int offset, int length) throws GeneralSecurityException {
+    checkLength(length);
+    var cipher = ciphers.acquire();
+    try {
+      var spec = new GCMParameterSpec(TAG_LENGTH * 8, input, offset, IV_LENGTH);
+      cipher.init(Cipher.DECRYPT_MODE, key, spec);
+      return cipher.doFinal(input, offset + IV_LENGTH, length - IV_LENGTH);
+    } finally {
+      ciphers.release(cipher);
+    }
+  }
+
+  /**
+   * Decrypts the remaining bytes of {@code input} into {@code output}.
+   *
+   * @param input The buffer holding the IV, ciphertext and tag.
+   * @param output The buffer receiving the plain bytes.
+   * @return The number of bytes written to {@code output}.
+   */
+  public int decrypt(ByteBuffer input, ByteBuffer output) throws GeneralSecurityException {
+    checkLength(input.remaining());
+    GCMParameterSpec spec;
+    if (input.hasArray()) {
+      var ivOffset = input.arrayOffset() + input.position();
+      spec = new GCMParameterSpec(TAG_LENGTH * 8, input.array(), ivOffset, IV_LENGTH);
+      input.position(input.position() + IV_LENGTH);
+    } else {
+      var iv = new byte[IV_LENGTH];
+      input.get(iv);
+      spec = new GCMParameterSpec(TAG_LENGTH * 8, iv);
+    }
+    var cipher = ciphers.acquire();
+    try {
+      cipher.init(Cipher.DECRYPT_MODE, key, spec);
+      return cipher.doFinal(input, output);
+    } finally {
+      ciphers.release(cipher);
+    }
+  }
+
+  /**
+   * Computes the HMAC-SHA256 of the given bytes.
+   *
+   * @param input The bytes to hash.
+   * @return The 32 byte MAC.
+   */
+  public byte[] hash(byte[] input) throws GeneralSecurityException {
+    var mac = macs.acquire();
+    try {
+      return mac.doFinal(input);
+    } finally {
+      macs.release(mac);
+    }
+  }
+
+  private static void checkLength(int length) throws AEADBadTagException {
+    if (length < IV_LENGTH + TAG_LENGTH) {
+      throw new AEADBadTagException("Encrypted value is too short");
+    }
+  }
+
+  @FunctionalInterface
+  private interface InstanceFactory<T> {
+    T create() throws GeneralSecurityException;
+  }
+
+  /**
+   * Hands out crypto instances: one per platform thread, and a bounded shared queue for virtual
+   * threads so that short-lived threads do not each build their own instance.
+   */
+  private static final class InstancePool<T> {
+    private final InstanceFactory<T> factory;
+    private final ThreadLocal<T> perThread = new ThreadLocal<>();
+    private final Queue<T> shared = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger sharedSize = new AtomicInteger();
+
+    private InstancePool(InstanceFactory<T> factory) {
+      this.factory = factory;
+    }
+
+    private T acquire() throws GeneralSecurityException {
+      if (!Thread.currentThread().isVirtual()) {
+        var instance = perThread.get();
+        if (instance == null) {
+          instance = factory.create();
+          perThread.set(instance);
+        }
+        return instance;
+      }
+      var instance = shared.poll();
+      if (instance == null) {
+        return factory.create();
+      }
+      sharedSize.decrementAndGet();
+      return instance;
+    }
+
+    private void release(T instance) {
+      if (!Thread.currentThread().isVirtual()) {
+        return;
+      }
+      if (sharedSize.incrementAndGet() <= POOL_SIZE) {
+        shared.offer(instance);
+      } else {
+        sharedSize.decrementAndGet();
+      }
+    }
+  }
+}
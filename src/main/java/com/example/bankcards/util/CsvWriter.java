@@ -0,0 +1,81 @@
+package com.example.bankcards.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes a stream of values as RFC 4180 CSV. Like {@link NdjsonWriter}, rows are written one by one
+ * as they are pulled from the stream. Cells that a spreadsheet would evaluate as a formula are
+ * prefixed with a quote.
+ */
+@Component
+public class CsvWriter {
+  private static final int FLUSH_EVERY = 500;
+  private static final String LINE_SEPARATOR = "\r\n";
+
+  /**
+   * Writes a header line followed by one line per value.
+   *
+   * @param values The values to write.
+   * @param header The column names.
+   * @param columns Extracts the cells of a value, in the order of the header.
+   * @param outputStream The target stream, flushed but left open.
+   * @return The number of written lines, without the header.
+   */
+  public <T> long write(
+      Stream<T> values, List<String> header, Function<T, List<?>> columns, OutputStream outputStream)
+      throws IOException {
+    var writer =
+        new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    writeLine(writer, header);
+    long count = 0;
+    Iterator<T> iterator = values.iterator();
+    while (iterator.hasNext()) {
+      writeLine(writer, columns.apply(iterator.next()));
+      if (++count % FLUSH_EVERY == 0) {
+        writer.flush();
+      }
+    }
+    writer.flush();
+    return count;
+  }
+
+  private static void writeLine(Writer writer, List<?> cells) throws IOException {
+    for (int i = 0; i < cells.size(); i++) {
+      if (i > 0) {
+        writer.write(',');
+      }
+      writeCell(writer, cells.get(i));
+    }
+    writer.write(LINE_SEPARATOR);
+  }
+
+  private static void writeCell(Writer writer, Object cell) throws IOException {
+    if (cell == null) {
+      return;
+    }
+    var value = cell.toString();
+    if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+      value = "'" + value;
+    }
+    if (value.indexOf(',') >= 0
+        || value.indexOf('"') >= 0
+        || value.indexOf('\n') >= 0
+        || value.indexOf('\r') >= 0) {
+      writer.write('"');
+      writer.write(value.replace("\"", "\"\""));
+      writer.write('"');
+    } else {
+      writer.write(value);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Encodes the position of a keyset page, the {@code (timestamp, id)} of its last row, into an
+ * opaque URL-safe string.
+ */
+public final class CursorCodec {
+  private static final char SEPARATOR = '|';
+
+  private CursorCodec() {}
+
+  public record Cursor(LocalDateTime timestamp, Long id) {}
+
+  public static String encode(LocalDateTime timestamp, Long id) {
+    var value = timestamp.toString() + SEPARATOR + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a cursor produced by {@link #encode(LocalDateTime, Long)}.
+   *
+   * @param cursor The encoded cursor.
+   * @return The decoded position.
+   * @throws InvalidCursorException if the cursor is malformed.
+   */
+  public static Cursor decode(String cursor) {
+    try {
+      var value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      var separator = value.lastIndexOf(SEPARATOR);
+      if (separator < 0) {
+        throw new InvalidCursorException(cursor);
+      }
+      return new Cursor(
+          LocalDateTime.parse(value.substring(0, separator)),
+          Long.parseLong(value.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new InvalidCursorException(cursor);
+    }
+  }
+}
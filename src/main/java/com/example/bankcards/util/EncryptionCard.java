@@ -1,88 +1,161 @@
 package com.example.bankcards.util;
 
-import java.nio.ByteBuffer;
+import jakarta.annotation.PreDestroy;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
 import java.util.Base64;
-import javax.crypto.BadPaddingException;
-import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
-import javax.crypto.spec.GCMParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
-import lombok.RequiredArgsConstructor;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class EncryptionCard {
-  private final String ALGORITHM = "AES";
-  private final String TRANSFORMATION = "AES/GCM/NoPadding";
-  private final int GCM_TAG_LENGTH = 128;
-  private final int IV_LENGTH = 12;
+  private final CardCipherEngine engine;
+  private volatile ForkJoinPool batchPool;
 
-  @Value("${encryption.secret}")
-  String secretKey;
+  @Value("${encryption.batch.threshold:256}")
+  int batchThreshold = 256;
 
-  public String encrypt(String input) {
-    byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-    SecretKeySpec keySpec = new SecretKeySpec(keyBytes, ALGORITHM);
+  @Value("${encryption.batch.parallelism:0}")
+  int batchParallelism;
 
-    byte[] iv = new byte[IV_LENGTH];
-    new SecureRandom().nextBytes(iv);
+  public EncryptionCard(
+      @Value("${encryption.secret}") String secretKey,
+      @Value("${encryption.hash-secret}") String hashSecretKey) {
+    this.engine =
+        new CardCipherEngine(
+            secretKey.getBytes(StandardCharsets.UTF_8),
+            hashSecretKey.getBytes(StandardCharsets.UTF_8));
+  }
 
+  public String encrypt(String input) {
     try {
-      var cipher = Cipher.getInstance(TRANSFORMATION);
-      GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-      cipher.init(Cipher.ENCRYPT_MODE, keySpec, spec);
-      byte[] cipherText = cipher.doFinal(input.getBytes(StandardCharsets.UTF_8));
-      ByteBuffer byteBuffer = ByteBuffer.allocate(iv.length + cipherText.length);
-      byteBuffer.put(iv);
-      byteBuffer.put(cipherText);
-      return Base64.getEncoder().encodeToString(byteBuffer.array());
-    } catch (NoSuchAlgorithmException
-        | NoSuchPaddingException
-        | InvalidAlgorithmParameterException
-        | InvalidKeyException
-        | IllegalBlockSizeException
-        | BadPaddingException e) {
+      byte[] encrypted = engine.encrypt(input.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(encrypted);
+    } catch (GeneralSecurityException e) {
       log.error("Encrypt exception: {}", e.getMessage(), e);
       throw new RuntimeException(e);
     }
   }
 
   public String decrypt(String encrypted) {
-    byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-    SecretKeySpec keySpec = new SecretKeySpec(keyBytes, ALGORITHM);
-
     byte[] decoded = Base64.getDecoder().decode(encrypted);
-
-    ByteBuffer byteBuffer = ByteBuffer.wrap(decoded);
-    byte[] iv = new byte[IV_LENGTH];
-    byteBuffer.get(iv);
-    byte[] cipherText = new byte[byteBuffer.remaining()];
-    byteBuffer.get(cipherText);
-
     try {
-      var cipher = Cipher.getInstance(TRANSFORMATION);
-      GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-      cipher.init(Cipher.DECRYPT_MODE, keySpec, spec);
-      byte[] plainText = cipher.doFinal(cipherText);
+      byte[] plainText = engine.decrypt(decoded, 0, decoded.length);
       return new String(plainText, StandardCharsets.UTF_8);
-    } catch (NoSuchAlgorithmException
-        | NoSuchPaddingException
-        | InvalidKeyException
-        | InvalidAlgorithmParameterException
-        | IllegalBlockSizeException
-        | BadPaddingException e) {
+    } catch (GeneralSecurityException e) {
       log.error("Decrypt exception: {}", e.getMessage(), e);
       throw new RuntimeException(e);
     }
   }
+
+  /**
+   * Decrypts a batch of values. Batches larger than {@code encryption.batch.threshold} are split
+   * into chunks that are decrypted in parallel on a bounded pool.
+   *
+   * @param encrypted The encrypted values.
+   * @return The decrypted values in the same order.
+   */
+  public List<String> decryptAll(List<String> encrypted) {
+    if (encrypted.size() <= batchThreshold) {
+      return encrypted.stream().map(this::decrypt).toList();
+    }
+    var result = new String[encrypted.size()];
+    getBatchPool().invoke(new DecryptTask(encrypted, result, 0, encrypted.size()));
+    return Arrays.asList(result);
+  }
+
+  /**
+   * Computes a deterministic keyed hash (blind index) of a card number. Unlike {@link
+   * #encrypt(String)} the result is stable for the same input, so it can be used for equality
+   * lookups and uniqueness checks on the database side.
+   *
+   * @param input The plain card number.
+   * @return The hex encoded HMAC-SHA256 of the card number.
+   */
+  public String hash(String input) {
+    try {
+      byte[] hash = engine.hash(input.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(hash);
+    } catch (GeneralSecurityException e) {
+      log.error("Hash exception: {}", e.getMessage(), e);
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Returns the underlying engine for callers that work with raw bytes or buffers.
+   *
+   * @return The cipher engine shared by this component.
+   */
+  public CardCipherEngine getEngine() {
+    return engine;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (batchPool != null) {
+      batchPool.shutdown();
+    }
+  }
+
+  private ForkJoinPool getBatchPool() {
+    var pool = batchPool;
+    if (pool == null) {
+      synchronized (this) {
+        pool = batchPool;
+        if (pool == null) {
+          var parallelism =
+              batchParallelism > 0 ? batchParallelism : Runtime.getRuntime().availableProcessors();
+          pool =
+              new ForkJoinPool(
+                  parallelism,
+                  forkJoinPool -> {
+                    var thread =
+                        ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("card-decrypt-" + thread.getPoolIndex());
+                    return thread;
+                  },
+                  null,
+                  false);
+          batchPool = pool;
+        }
+      }
+    }
+    return pool;
+  }
+
+  private class DecryptTask extends RecursiveAction {
+    private final List<String> encrypted;
+    private final String[] result;
+    private final int from;
+    private final int to;
+
+    private DecryptTask(List<String> encrypted, String[] result, int from, int to) {
+      this.encrypted = encrypted;
+      this.result = result;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= batchThreshold) {
+        for (int i = from; i < to; i++) {
+          result[i] = decrypt(encrypted.get(i));
+        }
+        return;
+      }
+      var middle = (from + to) >>> 1;
+      invokeAll(
+          new DecryptTask(encrypted, result, from, middle),
+          new DecryptTask(encrypted, result, middle, to));
+    }
+  }
 }
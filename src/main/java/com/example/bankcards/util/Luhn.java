@@ -0,0 +1,66 @@
+package com.example.bankcards.util;
+
+import java.util.random.RandomGenerator;
+
+/** Generation and validation of numbers carrying a Luhn (mod 10) check digit. */
+public final class Luhn {
+
+  private Luhn() {}
+
+  /**
+   * Generates a random number that starts with the prefix and ends with a valid check digit.
+   *
+   * @param prefix The leading digits, e.g. the issuer identification number.
+   * @param length The total number of digits, including the prefix and the check digit.
+   * @param random The source of the random digits.
+   * @return The generated number.
+   */
+  public static String generate(String prefix, int length, RandomGenerator random) {
+    if (prefix.length() >= length) {
+      throw new IllegalArgumentException("Prefix must be shorter than " + length + " digits");
+    }
+    var digits = new char[length];
+    prefix.getChars(0, prefix.length(), digits, 0);
+    for (int i = prefix.length(); i < length - 1; i++) {
+      digits[i] = (char) ('0' + random.nextInt(10));
+    }
+    digits[length - 1] = (char) ('0' + checkDigit(digits, length - 1));
+    return new String(digits);
+  }
+
+  /**
+   * Checks whether the number consists of digits only and ends with a valid check digit.
+   *
+   * @param number The number.
+   * @return true if the number passes the Luhn check.
+   */
+  public static boolean isValid(String number) {
+    if (number == null || number.length() < 2) {
+      return false;
+    }
+    for (int i = 0; i < number.length(); i++) {
+      if (!Character.isDigit(number.charAt(i))) {
+        return false;
+      }
+    }
+    var digits = number.toCharArray();
+    return checkDigit(digits, digits.length - 1) == digits[digits.length - 1] - '0';
+  }
+
+  private static int checkDigit(char[] digits, int payloadLength) {
+    var sum = 0;
+    var doubled = true;
+    for (int i = payloadLength - 1; i >= 0; i--) {
+      var digit = digits[i] - '0';
+      if (doubled) {
+        digit *= 2;
+        if (digit > 9) {
+          digit -= 9;
+        }
+      }
+      sum += digit;
+      doubled = !doubled;
+    }
+    return (10 - sum % 10) % 10;
+  }
+}
@@ -0,0 +1,55 @@
+package com.example.bankcards.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes a stream of values as newline delimited JSON. Values are serialized one by one as they
+ * are pulled from the stream, so the whole result is never held in memory.
+ */
+@Component
+public class NdjsonWriter {
+  private static final int FLUSH_EVERY = 500;
+
+  private final ObjectWriter objectWriter;
+
+  public NdjsonWriter(ObjectMapper objectMapper) {
+    this.objectWriter =
+        objectMapper
+            .writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .withRootValueSeparator("");
+  }
+
+  /**
+   * Writes every value of the stream as one line.
+   *
+   * @param values The values to write.
+   * @param outputStream The target stream, flushed but left open.
+   * @return The number of written lines.
+   */
+  public long write(Stream<?> values, OutputStream outputStream) throws IOException {
+    long count = 0;
+    try (var generator = objectWriter.createGenerator(new BufferedOutputStream(outputStream))) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      Iterator<?> iterator = values.iterator();
+      while (iterator.hasNext()) {
+        objectWriter.writeValue(generator, iterator.next());
+        generator.writeRaw('\n');
+        if (++count % FLUSH_EVERY == 0) {
+          generator.flush();
+        }
+      }
+      generator.flush();
+    }
+    return count;
+  }
+}
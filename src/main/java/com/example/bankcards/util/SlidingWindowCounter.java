@@ -0,0 +1,141 @@
+package com.example.bankcards.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate per-key event counter over a sliding time window with a fixed memory footprint.
+ *
+ * <p>Keys are hashed into two rows of {@code width} slots (a count-min sketch), so no memory is
+ * allocated per key and the estimate for a key is the smaller of its two slots: collisions can only
+ * make it larger, never smaller. Each slot is a single {@code long} holding the index of the
+ * current window and the counts of the current and the previous window, updated with CAS. The
+ * sliding count is the current count plus the previous count weighted by the part of the previous
+ * window that still overlaps the sliding window. Counts saturate at 65535.
+ */
+public class SlidingWindowCounter {
+  private static final int ROWS = 2;
+  private static final long COUNT_MASK = 0xFFFFL;
+  private static final long WINDOW_MASK = 0xFFFFFFFFL;
+
+  private final AtomicLongArray slots;
+  private final int width;
+  private final long windowMillis;
+  private final LongSupplier clock;
+
+  /**
+   * Creates a counter.
+   *
+   * @param width The number of slots per row, rounded up to a power of two.
+   * @param window The length of the sliding window.
+   */
+  public SlidingWindowCounter(int width, Duration window) {
+    this(width, window, System::currentTimeMillis);
+  }
+
+  SlidingWindowCounter(int width, Duration window, LongSupplier clock) {
+    this.width = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+    this.slots = new AtomicLongArray(ROWS * this.width);
+    this.windowMillis = window.toMillis();
+    this.clock = clock;
+  }
+
+  /**
+   * Records an event for the key.
+   *
+   * @param key The key.
+   * @return The estimated number of events for the key in the sliding window, including this one.
+   */
+  public double increment(String key) {
+    var now = clock.getAsLong();
+    var hash = spread(key.hashCode());
+    var estimate = Double.MAX_VALUE;
+    for (int row = 0; row < ROWS; row++) {
+      estimate = Math.min(estimate, add(index(row, hash), now));
+    }
+    return estimate;
+  }
+
+  /**
+   * Estimates the number of events for the key without recording one.
+   *
+   * @param key The key.
+   * @return The estimated number of events for the key in the sliding window.
+   */
+  public double estimate(String key) {
+    var now = clock.getAsLong();
+    var hash = spread(key.hashCode());
+    var estimate = Double.MAX_VALUE;
+    for (int row = 0; row < ROWS; row++) {
+      estimate = Math.min(estimate, read(slots.get(index(row, hash)), now));
+    }
+    return estimate;
+  }
+
+  /**
+   * Forgets the events recorded for the key. The slots of the key are cleared, so keys that share
+   * a slot with it may be estimated lower until they record new events.
+   *
+   * @param key The key.
+   */
+  public void reset(String key) {
+    var hash = spread(key.hashCode());
+    for (int row = 0; row < ROWS; row++) {
+      slots.set(index(row, hash), 0);
+    }
+  }
+
+  private double add(int index, long now) {
+    var window = (now / windowMillis) & WINDOW_MASK;
+    while (true) {
+      var slot = slots.get(index);
+      var storedWindow = slot >>> 32;
+      var current = (slot >>> 16) & COUNT_MASK;
+      var previous = slot & COUNT_MASK;
+      if (storedWindow == window) {
+        current = Math.min(current + 1, COUNT_MASK);
+      } else if (storedWindow == ((window - 1) & WINDOW_MASK)) {
+        previous = current;
+        current = 1;
+      } else {
+        previous = 0;
+        current = 1;
+      }
+      var updated = (window << 32) | (current << 16) | previous;
+      if (slots.compareAndSet(index, slot, updated)) {
+        return weighted(current, previous, now);
+      }
+    }
+  }
+
+  private double read(long slot, long now) {
+    var window = (now / windowMillis) & WINDOW_MASK;
+    var storedWindow = slot >>> 32;
+    var current = (slot >>> 16) & COUNT_MASK;
+    if (storedWindow == window) {
+      return weighted(current, slot & COUNT_MASK, now);
+    } else if (storedWindow == ((window - 1) & WINDOW_MASK)) {
+      return weighted(0, current, now);
+    }
+    return 0;
+  }
+
+  private double weighted(long current, long previous, long now) {
+    var elapsed = (double) (now % windowMillis) / windowMillis;
+    return current + previous * (1 - elapsed);
+  }
+
+  private int index(int row, int hash) {
+    var rowHash = row == 0 ? hash : spread(hash ^ 0x9E3779B9);
+    return row * width + (rowHash & (width - 1));
+  }
+
+  private static int spread(int hash) {
+    hash ^= hash >>> 16;
+    hash *= 0x85EBCA6B;
+    hash ^= hash >>> 13;
+    hash *= 0xC2B2AE35;
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -0,0 +1,69 @@
+package com.example.bankcards.util;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over {@link UUID}s. Random UUIDs are already uniformly distributed, so
+ * the bit positions are derived from the two halves of the UUID by double hashing instead of
+ * running a separate hash function. {@link #mightContain(UUID)} never returns false for a value
+ * that was added; false positives occur at roughly the configured rate once the expected number
+ * of values has been added.
+ */
+public class UuidBloomFilter {
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  /**
+   * Creates a filter sized for the given number of values and false positive rate.
+   *
+   * @param expectedInsertions The number of values the filter is sized for.
+   * @param falsePositiveRate The false positive rate at {@code expectedInsertions} values.
+   */
+  public UuidBloomFilter(long expectedInsertions, double falsePositiveRate) {
+    var insertions = Math.max(1, expectedInsertions);
+    var optimalBits =
+        (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    this.bits = new AtomicLongArray(Math.toIntExact((optimalBits + 63) / 64));
+    this.bitCount = bits.length() * 64L;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * Math.log(2)));
+  }
+
+  /**
+   * Adds a value to the filter.
+   *
+   * @param value The value to add.
+   */
+  public void put(UUID value) {
+    var hash1 = value.getMostSignificantBits();
+    var hash2 = value.getLeastSignificantBits();
+    for (int i = 0; i < hashCount; i++) {
+      var bit = Math.floorMod(hash1 + i * hash2, bitCount);
+      var index = (int) (bit >>> 6);
+      var mask = 1L << bit;
+      var word = bits.get(index);
+      while ((word & mask) == 0 && !bits.compareAndSet(index, word, word | mask)) {
+        word = bits.get(index);
+      }
+    }
+  }
+
+  /**
+   * Checks whether a value may have been added to the filter.
+   *
+   * @param value The value to check.
+   * @return false if the value was definitely not added, true if it probably was.
+   */
+  public boolean mightContain(UUID value) {
+    var hash1 = value.getMostSignificantBits();
+    var hash2 = value.getLeastSignificantBits();
+    for (int i = 0; i < hashCount; i++) {
+      var bit = Math.floorMod(hash1 + i * hash2, bitCount);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
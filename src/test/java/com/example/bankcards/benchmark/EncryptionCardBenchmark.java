@@ -0,0 +1,99 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.EncryptionCard;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the card encryption before and after the introduction of the cached cipher engine.
+ * The {@code legacy*} benchmarks reproduce the previous implementation, which rebuilt the key,
+ * the {@link SecureRandom} and the {@link Cipher} on every call. Run with {@code -prof gc} to see
+ * the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptionCardBenchmark {
+  private static final String SECRET = "12345678901234567890123456789012";
+  private static final String CARD_NUMBER = "1234567812345678";
+
+  private EncryptionCard encryptionCard;
+  private String encrypted;
+  private byte[] encryptedBytes;
+  private ByteBuffer plainBuffer;
+
+  @Setup
+  public void setUp() {
+    encryptionCard = new EncryptionCard(SECRET, SECRET);
+    encrypted = encryptionCard.encrypt(CARD_NUMBER);
+    encryptedBytes = Base64.getDecoder().decode(encrypted);
+    plainBuffer = ByteBuffer.allocate(64);
+  }
+
+  @Benchmark
+  public String legacyEncrypt() throws Exception {
+    var keySpec = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "AES");
+    byte[] iv = new byte[12];
+    new SecureRandom().nextBytes(iv);
+    var cipher = Cipher.getInstance("AES/GCM/NoPadding");
+    cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+    byte[] cipherText = cipher.doFinal(CARD_NUMBER.getBytes(StandardCharsets.UTF_8));
+    var byteBuffer = ByteBuffer.allocate(iv.length + cipherText.length);
+    byteBuffer.put(iv);
+    byteBuffer.put(cipherText);
+    return Base64.getEncoder().encodeToString(byteBuffer.array());
+  }
+
+  @Benchmark
+  public String legacyDecrypt() throws Exception {
+    var keySpec = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "AES");
+    var byteBuffer = ByteBuffer.wrap(Base64.getDecoder().decode(encrypted));
+    byte[] iv = new byte[12];
+    byteBuffer.get(iv);
+    byte[] cipherText = new byte[byteBuffer.remaining()];
+    byteBuffer.get(cipherText);
+    var cipher = Cipher.getInstance("AES/GCM/NoPadding");
+    cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+    return new String(cipher.doFinal(cipherText), StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public String encrypt() {
+    return encryptionCard.encrypt(CARD_NUMBER);
+  }
+
+  @Benchmark
+  public String decrypt() {
+    return encryptionCard.decrypt(encrypted);
+  }
+
+  @Benchmark
+  public int decryptBuffer() throws Exception {
+    plainBuffer.clear();
+    return encryptionCard.getEngine().decrypt(ByteBuffer.wrap(encryptedBytes), plainBuffer);
+  }
+
+  @Benchmark
+  public String hash() {
+    return encryptionCard.hash(CARD_NUMBER);
+  }
+}
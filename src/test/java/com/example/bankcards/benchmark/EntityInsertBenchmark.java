@@ -0,0 +1,232 @@
+package com.example.bankcards.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Measures how fast users and cards can be created, in rows per second, against PostgreSQL in a
+ * container with the real schema. Each strategy replays the statements Hibernate sends for it:
+ *
+ * <ul>
+ *   <li>{@code IDENTITY}: the previous mapping, one {@code INSERT ... RETURNING id} round trip
+ *       per row, since Hibernate cannot batch inserts whose id is generated by the database;
+ *   <li>{@code POOLED_LO}: one {@code nextval} per 50 rows and inserts sent in JDBC batches of 50;
+ *   <li>{@code POOLED_LO_REWRITE}: the same with {@code reWriteBatchedInserts}, which makes the
+ *       driver send each batch as multi-row inserts.
+ * </ul>
+ *
+ * <p>Requires Docker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EntityInsertBenchmark {
+  private static final int ROWS = 1000;
+  private static final int BATCH_SIZE = 50;
+  private static final String INSERT_USER =
+      "INSERT INTO users (%sname, last_name, surname, login, password, status, role, created_at)"
+          + " VALUES (%s?, ?, ?, ?, ?, CAST('ACTIVE' AS user_status), CAST('USER' AS role_type),"
+          + " ?)";
+  private static final String INSERT_CARD =
+      "INSERT INTO cards (%snumber, number_hash, expire_date, created_at, status, owner_id)"
+          + " VALUES (%s?, ?, ?, ?, CAST('ACTIVE' AS card_status), ?)";
+  private static final String INSERT_BALANCE =
+      "INSERT INTO card_balance (card_id, balance, version) VALUES (?, 0, 0)";
+
+  public enum Strategy {
+    IDENTITY,
+    POOLED_LO,
+    POOLED_LO_REWRITE
+  }
+
+  @Param({"IDENTITY", "POOLED_LO", "POOLED_LO_REWRITE"})
+  Strategy strategy;
+
+  private PostgreSQLContainer<?> postgres;
+  private Connection connection;
+  private long ownerId;
+  private long sequence;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    postgres = new PostgreSQLContainer<>("postgres:13.22-alpine3.22");
+    postgres.start();
+    var liquibase = new SpringLiquibase();
+    liquibase.setDataSource(dataSource(false));
+    liquibase.setChangeLog("classpath:db/migration/master_changelog.yml");
+    liquibase.setResourceLoader(new DefaultResourceLoader());
+    liquibase.afterPropertiesSet();
+    connection = dataSource(strategy == Strategy.POOLED_LO_REWRITE).getConnection();
+    connection.setAutoCommit(false);
+  }
+
+  @Setup(Level.Iteration)
+  public void truncate() throws SQLException {
+    try (var statement = connection.createStatement()) {
+      statement.execute("TRUNCATE users, cards, card_balance CASCADE");
+    }
+    connection.commit();
+    ownerId = createUsers(1)[0];
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    connection.close();
+    postgres.stop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public long[] createUsers() throws SQLException {
+    return createUsers(ROWS);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public long[] createCards() throws SQLException {
+    long[] ids;
+    if (strategy == Strategy.IDENTITY) {
+      ids = new long[ROWS];
+      for (int i = 0; i < ROWS; i++) {
+        try (var insert = connection.prepareStatement(
+            INSERT_CARD.formatted("", ""), Statement.RETURN_GENERATED_KEYS)) {
+          bindCard(insert, 1);
+          ids[i] = executeReturningId(insert);
+        }
+        try (var insert = connection.prepareStatement(INSERT_BALANCE)) {
+          insert.setLong(1, ids[i]);
+          insert.executeUpdate();
+        }
+      }
+    } else {
+      ids = nextIds("cards_id_seq", ROWS);
+      for (int from = 0; from < ROWS; from += BATCH_SIZE) {
+        var to = Math.min(from + BATCH_SIZE, ROWS);
+        try (var insert = connection.prepareStatement(INSERT_CARD.formatted("id, ", "?, "))) {
+          for (int i = from; i < to; i++) {
+            insert.setLong(1, ids[i]);
+            bindCard(insert, 2);
+            insert.addBatch();
+          }
+          insert.executeBatch();
+        }
+        try (var insert = connection.prepareStatement(INSERT_BALANCE)) {
+          for (int i = from; i < to; i++) {
+            insert.setLong(1, ids[i]);
+            insert.addBatch();
+          }
+          insert.executeBatch();
+        }
+      }
+    }
+    connection.commit();
+    return ids;
+  }
+
+  private long[] createUsers(int count) throws SQLException {
+    long[] ids;
+    if (strategy == Strategy.IDENTITY) {
+      ids = new long[count];
+      for (int i = 0; i < count; i++) {
+        try (var insert = connection.prepareStatement(
+            INSERT_USER.formatted("", ""), Statement.RETURN_GENERATED_KEYS)) {
+          bindUser(insert, 1);
+          ids[i] = executeReturningId(insert);
+        }
+      }
+    } else {
+      ids = nextIds("users_id_seq", count);
+      for (int from = 0; from < count; from += BATCH_SIZE) {
+        try (var insert = connection.prepareStatement(INSERT_USER.formatted("id, ", "?, "))) {
+          for (int i = from; i < Math.min(from + BATCH_SIZE, count); i++) {
+            insert.setLong(1, ids[i]);
+            bindUser(insert, 2);
+            insert.addBatch();
+          }
+          insert.executeBatch();
+        }
+      }
+    }
+    connection.commit();
+    return ids;
+  }
+
+  private long[] nextIds(String sequenceName, int count) throws SQLException {
+    var ids = new long[count];
+    try (var nextval = connection.prepareStatement("SELECT nextval('" + sequenceName + "')")) {
+      for (int from = 0; from < count; from += BATCH_SIZE) {
+        try (var rs = nextval.executeQuery()) {
+          rs.next();
+          var start = rs.getLong(1);
+          for (int i = from; i < Math.min(from + BATCH_SIZE, count); i++) {
+            ids[i] = start + i - from;
+          }
+        }
+      }
+    }
+    return ids;
+  }
+
+  private void bindUser(PreparedStatement insert, int index) throws SQLException {
+    insert.setString(index, "name");
+    insert.setString(index + 1, "lastName");
+    insert.setString(index + 2, "surname");
+    insert.setString(index + 3, "user-" + sequence++ + "@example.com");
+    insert.setString(index + 4, "password");
+    insert.setTimestamp(index + 5, Timestamp.valueOf(LocalDateTime.now()));
+  }
+
+  private void bindCard(PreparedStatement insert, int index) throws SQLException {
+    var now = LocalDateTime.now();
+    var number = String.valueOf(sequence++);
+    insert.setString(index, number);
+    insert.setString(index + 1, number);
+    insert.setTimestamp(index + 2, Timestamp.valueOf(now.plusYears(3)));
+    insert.setTimestamp(index + 3, Timestamp.valueOf(now));
+    insert.setLong(index + 4, ownerId);
+  }
+
+  private static long executeReturningId(PreparedStatement insert) throws SQLException {
+    insert.executeUpdate();
+    try (var keys = insert.getGeneratedKeys()) {
+      keys.next();
+      return keys.getLong("id");
+    }
+  }
+
+  private DataSource dataSource(boolean reWriteBatchedInserts) {
+    var pgDataSource = new PGSimpleDataSource();
+    pgDataSource.setUrl(postgres.getJdbcUrl());
+    pgDataSource.setUser(postgres.getUsername());
+    pgDataSource.setPassword(postgres.getPassword());
+    pgDataSource.setReWriteBatchedInserts(reWriteBatchedInserts);
+    return pgDataSource;
+  }
+}
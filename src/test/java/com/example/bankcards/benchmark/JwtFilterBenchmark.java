@@ -0,0 +1,150 @@
+package com.example.bankcards.benchmark;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.CustomUserDetailService;
+import com.example.bankcards.security.jwt.JwtFilter;
+import com.example.bankcards.security.jwt.JwtService;
+import com.example.bankcards.security.jwt.TestJwtKeyRings;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Measures the throughput of {@link JwtFilter} when a share of the requests carries expired
+ * tokens, as happens when many clients keep retrying with stale credentials. The {@code legacy}
+ * benchmark reproduces the previous validation, which built a new parser for every check, parsed
+ * valid HMAC tokens twice and filled in a stack trace for every rejected one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+  private static final String SECRET =
+      "c2VjcmV0LXNlY3JldC1zZWNyZXQtc2VjcmV0LXNlY3JldC1zZWNyZXQtc2VjcmV0";
+  private static final int TOKENS = 1024;
+
+  @Param({"0.5"})
+  double expiredRatio;
+
+  private SecretKey legacyKey;
+  private JwtFilter filter;
+  private String[] tokens;
+  private String[] legacyTokens;
+  private MockHttpServletRequest[] requests;
+  private MockHttpServletResponse response;
+  private FilterChain chain;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    legacyKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+    var jwtKeyRing = TestJwtKeyRings.inMemory();
+    var signingKey = jwtKeyRing.signingKey();
+    var jwtService =
+        new JwtService(
+            jwtKeyRing,
+            "",
+            10_000,
+            5_000,
+            Duration.ofMinutes(5),
+            Duration.ofMinutes(1),
+            new SimpleMeterRegistry());
+    var userRepository = mock(UserRepository.class);
+    var user = new User();
+    user.setId(1L);
+    user.setLogin("user");
+    user.setRole(Role.USER);
+    when(userRepository.findByLogin(anyString())).thenReturn(Optional.of(user));
+    var customUserDetailService =
+        new CustomUserDetailService(
+            userRepository, new SimpleMeterRegistry(), Duration.ofMinutes(5), 10_000);
+    filter = new JwtFilter(jwtService, customUserDetailService);
+
+    var expired = (int) (TOKENS * expiredRatio);
+    tokens = new String[TOKENS];
+    legacyTokens = new String[TOKENS];
+    requests = new MockHttpServletRequest[TOKENS];
+    for (int i = 0; i < TOKENS; i++) {
+      var expiration =
+          i < expired
+              ? Instant.now().minus(Duration.ofMinutes(1 + i))
+              : Instant.now().plus(Duration.ofHours(1));
+      tokens[i] =
+          Jwts.builder()
+              .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+              .setSubject("user" + i)
+              .setExpiration(Date.from(expiration))
+              .signWith(signingKey.privateKey(), SignatureAlgorithm.ES256)
+              .compact();
+      legacyTokens[i] =
+          Jwts.builder()
+              .setSubject("user" + i)
+              .setExpiration(Date.from(expiration))
+              .signWith(legacyKey)
+              .compact();
+      requests[i] = new MockHttpServletRequest();
+      requests[i].addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + tokens[i]);
+    }
+    response = new MockHttpServletResponse();
+    chain = (request, response) -> {};
+  }
+
+  @Benchmark
+  public Object filter() throws Exception {
+    filter.doFilter(requests[nextIndex()], response, chain);
+    var authentication = SecurityContextHolder.getContext().getAuthentication();
+    SecurityContextHolder.clearContext();
+    return authentication;
+  }
+
+  @Benchmark
+  public Object legacy() {
+    var token = legacyTokens[nextIndex()];
+    try {
+      Jwts.parserBuilder().setSigningKey(legacyKey).build().parseClaimsJws(token);
+    } catch (Exception e) {
+      return e.getStackTrace();
+    }
+    return Jwts.parserBuilder().setSigningKey(legacyKey).build().parseClaimsJws(token).getBody();
+  }
+
+  private int nextIndex() {
+    var index = next;
+    next = (index + 1) % TOKENS;
+    return index;
+  }
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.security.PasswordEncoders;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Measures the password check of a login for each supported encoder setting. {@code bcrypt-4} is
+ * the former hard-coded encoder, the other settings are candidates for {@code
+ * security.password.*}. Run with {@code -t <threads>} to see how the latency grows once the
+ * hashing pool is saturated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+  private static final String PASSWORD = "correct horse battery staple";
+
+  @Param({
+    "bcrypt-4",
+    "bcrypt-10",
+    "bcrypt-12",
+    "argon2-19456-2",
+    "argon2-65536-3",
+    "pbkdf2-310000",
+    "pbkdf2-600000"
+  })
+  String setting;
+
+  private PasswordEncoder encoder;
+  private String hash;
+
+  @Setup
+  public void setUp() {
+    var parts = setting.split("-");
+    encoder =
+        switch (parts[0]) {
+          case PasswordEncoders.BCRYPT -> PasswordEncoders.bcrypt(Integer.parseInt(parts[1]));
+          case PasswordEncoders.ARGON2 ->
+              PasswordEncoders.argon2(
+                  16, 32, 1, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+          case PasswordEncoders.PBKDF2 -> PasswordEncoders.pbkdf2(16, Integer.parseInt(parts[1]));
+          default -> throw new IllegalArgumentException(setting);
+        };
+    hash = encoder.encode(PASSWORD);
+  }
+
+  @Benchmark
+  public boolean login() {
+    return encoder.matches(PASSWORD, hash);
+  }
+}
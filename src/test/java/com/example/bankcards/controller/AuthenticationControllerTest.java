@@ -1,18 +1,30 @@
 package com.example.bankcards.controller;
 
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.example.bankcards.dto.auth.AuthenticationRequest;
 import com.example.bankcards.dto.auth.JwtAuthenticationDto;
+import com.example.bankcards.dto.auth.RefreshTokenDto;
+import com.example.bankcards.exception.GlobalExceptionHandler;
+import com.example.bankcards.exception.IncorrectPasswordException;
+import com.example.bankcards.exception.InvalidRefreshTokenException;
+import com.example.bankcards.security.LoginThrottle;
+import com.example.bankcards.security.PasswordHashingExecutor;
 import com.example.bankcards.service.AuthenticationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
@@ -27,7 +39,7 @@ class AuthenticationControllerTest {
 
   @Mock private AuthenticationService authenticationService;
 
-  @InjectMocks private AuthenticationController authenticationController;
+  private AuthenticationController authenticationController;
 
   private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -35,24 +47,82 @@ class AuthenticationControllerTest {
   void setUp() {
     var validator = new LocalValidatorFactoryBean();
     validator.afterPropertiesSet();
+    authenticationController =
+        new AuthenticationController(
+            authenticationService,
+            new PasswordHashingExecutor(new SimpleMeterRegistry(), 1, 1),
+            new LoginThrottle(new SimpleMeterRegistry(), Duration.ofMinutes(1), 2, 10, 1000, 1024));
     mockMvc =
-        MockMvcBuilders.standaloneSetup(authenticationController).setValidator(validator).build();
+        MockMvcBuilders.standaloneSetup(authenticationController)
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .setValidator(validator)
+            .build();
   }
 
   @Test
   void authenticate_success() throws Exception {
     var request = new AuthenticationRequest("testuser", "password");
-    var expectedDto = new JwtAuthenticationDto("test-token");
+    var expectedDto = new JwtAuthenticationDto("test-token", "refresh-token");
 
-    when(authenticationService.authenticate(request)).thenReturn(expectedDto);
+    when(authenticationService.authenticate(request, "127.0.0.1")).thenReturn(expectedDto);
+
+    var result =
+        mockMvc
+            .perform(
+                post("/auth/authenticate")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.token").value("test-token"))
+        .andExpect(jsonPath("$.refreshToken").value("refresh-token"));
+  }
+
+  @Test
+  void authenticate_incorrectPassword() throws Exception {
+    var request = new AuthenticationRequest("testuser", "password");
+
+    when(authenticationService.authenticate(request, "127.0.0.1")).thenThrow(new IncorrectPasswordException());
+
+    var result =
+        mockMvc
+            .perform(
+                post("/auth/authenticate")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+            .andReturn();
+
+    mockMvc.perform(asyncDispatch(result)).andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void authenticate_throttledByAddress() throws Exception {
+    var request = new AuthenticationRequest("testuser", "password");
+    when(authenticationService.authenticate(request, "127.0.0.1"))
+        .thenReturn(new JwtAuthenticationDto("test-token", "refresh-token"));
+    for (int i = 0; i < 2; i++) {
+      var result =
+          mockMvc
+              .perform(
+                  post("/auth/authenticate")
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .content(objectMapper.writeValueAsString(request)))
+              .andReturn();
+      mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+    }
 
     mockMvc
         .perform(
             post("/auth/authenticate")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
-        .andExpect(status().isOk())
-        .andExpect(jsonPath("$.token").value("test-token"));
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string("Retry-After", "60"));
+    verify(authenticationService, times(2)).authenticate(request, "127.0.0.1");
   }
 
   @Test
@@ -66,4 +136,45 @@ class AuthenticationControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
         .andExpect(status().isBadRequest());
   }
+
+  @Test
+  void refresh_success() throws Exception {
+    var request = new RefreshTokenDto("refresh-token");
+
+    when(authenticationService.refresh(request))
+        .thenReturn(new JwtAuthenticationDto("new-token", "new-refresh-token"));
+
+    mockMvc
+        .perform(
+            post("/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.token").value("new-token"))
+        .andExpect(jsonPath("$.refreshToken").value("new-refresh-token"));
+  }
+
+  @Test
+  void refresh_invalidToken() throws Exception {
+    var request = new RefreshTokenDto("refresh-token");
+
+    when(authenticationService.refresh(request)).thenThrow(new InvalidRefreshTokenException());
+
+    mockMvc
+        .perform(
+            post("/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void refresh_blankToken() throws Exception {
+    mockMvc
+        .perform(
+            post("/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenDto(""))))
+        .andExpect(status().isBadRequest());
+  }
 }
@@ -1,20 +1,37 @@
 package com.example.bankcards.controller;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.example.bankcards.dto.BalanceDriftDto;
+import com.example.bankcards.dto.BalanceVerificationReportDto;
+import com.example.bankcards.dto.BatchTransferDto;
 import com.example.bankcards.dto.MoneyTransferDto;
+import com.example.bankcards.dto.TransferResultDto;
+import com.example.bankcards.dto.TransferResultStatus;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardBalanceException;
 import com.example.bankcards.exception.GlobalExceptionHandler;
+import com.example.bankcards.exception.IdempotencyKeyReuseException;
+import com.example.bankcards.service.BalanceReplayService;
+import com.example.bankcards.service.BalanceVerificationService;
 import com.example.bankcards.service.CardBalanceService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
 import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -25,6 +42,7 @@ import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
@@ -36,6 +54,10 @@ class CardBalanceControllerTest {
 
   @Mock private CardBalanceService cardBalanceService;
 
+  @Mock private BalanceReplayService balanceReplayService;
+
+  @Mock private BalanceVerificationService balanceVerificationService;
+
   @InjectMocks private CardBalanceController cardBalanceController;
 
   private final ObjectMapper objectMapper = new ObjectMapper();
@@ -48,9 +70,15 @@ class CardBalanceControllerTest {
         MockMvcBuilders.standaloneSetup(cardBalanceController)
             .setControllerAdvice(new GlobalExceptionHandler())
             .setValidator(validator)
+            .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
             .build();
   }
 
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
   private void setupUser() {
     var user = new User();
     user.setId(1L);
@@ -88,6 +116,19 @@ class CardBalanceControllerTest {
         .andExpect(status().isBadRequest());
   }
 
+  @Test
+  void transferMoney_negativeValue() throws Exception {
+    setupUser();
+    MoneyTransferDto dto = new MoneyTransferDto("1234", "5678", BigDecimal.valueOf(-10));
+
+    mockMvc
+        .perform(
+            post("/balance/transfer")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   void transferMoney_serviceThrowsException() throws Exception {
     setupUser();
@@ -95,13 +136,118 @@ class CardBalanceControllerTest {
 
     doThrow(new CardBalanceException())
         .when(cardBalanceService)
-        .transferMoney(any(User.class), eq("1234"), eq("5678"), eq(BigDecimal.TEN));
+        .transferMoney(any(User.class), eq("1234"), eq("5678"), eq(BigDecimal.TEN), isNull());
+
+    mockMvc
+        .perform(
+            post("/balance/transfer")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void transferMoney_withIdempotencyKey() throws Exception {
+    setupUser();
+    MoneyTransferDto dto = new MoneyTransferDto("1234", "5678", BigDecimal.TEN);
+
+    mockMvc
+        .perform(
+            post("/balance/transfer")
+                .header("Idempotency-Key", "key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+        .andExpect(status().isOk());
+
+    verify(cardBalanceService)
+        .transferMoney(
+            argThat(user -> user != null && user.getId() == 1L),
+            eq("1234"),
+            eq("5678"),
+            eq(BigDecimal.TEN),
+            eq("key-1"));
+  }
+
+  @Test
+  void transferMoney_idempotencyKeyReused() throws Exception {
+    setupUser();
+    MoneyTransferDto dto = new MoneyTransferDto("1234", "5678", BigDecimal.TEN);
+
+    doThrow(new IdempotencyKeyReuseException("key-1"))
+        .when(cardBalanceService)
+        .transferMoney(any(User.class), eq("1234"), eq("5678"), eq(BigDecimal.TEN), eq("key-1"));
 
     mockMvc
         .perform(
             post("/balance/transfer")
+                .header("Idempotency-Key", "key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+        .andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  void transferMoneyBatch_success() throws Exception {
+    setupUser();
+    var dto =
+        new BatchTransferDto(
+            List.of(
+                new MoneyTransferDto("1234", "5678", BigDecimal.TEN),
+                new MoneyTransferDto("5678", "1234", BigDecimal.ONE)),
+            false);
+
+    when(cardBalanceService.transferMoneyBatch(
+            argThat(user -> user != null && user.getId() == 1L), eq(dto.getTransfers()), eq(false)))
+        .thenReturn(
+            List.of(
+                new TransferResultDto(0, TransferResultStatus.COMPLETED),
+                new TransferResultDto(1, TransferResultStatus.INSUFFICIENT_BALANCE)));
+
+    mockMvc
+        .perform(
+            post("/balance/transfer/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].status").value("COMPLETED"))
+        .andExpect(jsonPath("$[1].status").value("INSUFFICIENT_BALANCE"));
+  }
+
+  @Test
+  void transferMoneyBatch_invalidItem() throws Exception {
+    setupUser();
+    var dto =
+        new BatchTransferDto(List.of(new MoneyTransferDto("1234", "5678", BigDecimal.ZERO)), true);
+
+    mockMvc
+        .perform(
+            post("/balance/transfer/batch")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(dto)))
         .andExpect(status().isBadRequest());
   }
+
+  @Test
+  void replayBalance_success() throws Exception {
+    when(balanceReplayService.replayBalance(10L)).thenReturn(new BigDecimal("12.50"));
+
+    mockMvc
+        .perform(get("/balance/10/replay"))
+        .andExpect(status().isOk())
+        .andExpect(content().string("12.50"));
+  }
+
+  @Test
+  void verifyBalances_success() throws Exception {
+    when(balanceVerificationService.verifyBalances())
+        .thenReturn(
+            new BalanceVerificationReportDto(
+                3, List.of(new BalanceDriftDto(7L, BigDecimal.TEN, BigDecimal.ONE)), 5));
+
+    mockMvc
+        .perform(post("/balance/verify"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.cardsChecked").value(3))
+        .andExpect(jsonPath("$.drifts[0].cardId").value(7));
+  }
 }
@@ -1,18 +1,33 @@
 package com.example.bankcards.controller;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.example.bankcards.dto.AdminCardDto;
 import com.example.bankcards.dto.CardBlockRequestDto;
+import com.example.bankcards.dto.CardFilter;
+import com.example.bankcards.dto.CardIssuanceJobDto;
+import com.example.bankcards.dto.CardIssuanceJobStatus;
+import com.example.bankcards.dto.CursorPageDto;
 import com.example.bankcards.dto.PaginationDto;
 import com.example.bankcards.dto.UserCardDto;
+import com.example.bankcards.entity.CardBlockRequestStatus;
+import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardIssuanceJobNotFoundException;
 import com.example.bankcards.exception.GlobalExceptionHandler;
+import com.example.bankcards.service.CardIssuanceService;
 import com.example.bankcards.service.CardService;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,6 +36,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
@@ -35,6 +51,8 @@ class CardControllerTest {
 
   @Mock private CardService cardService;
 
+  @Mock private CardIssuanceService cardIssuanceService;
+
   @InjectMocks private CardController cardController;
 
   @BeforeEach
@@ -105,12 +123,161 @@ class CardControllerTest {
   @Test
   void getAllCards_success() throws Exception {
     setupAdmin();
-    when(cardService.getAllCards()).thenReturn(Collections.singletonList(new AdminCardDto()));
+    var paginationDto = new PaginationDto<AdminCardDto>();
+    paginationDto.setElements(List.of(new AdminCardDto()));
+    var filter =
+        new CardFilter(CardStatus.BLOCKED, 3L, LocalDateTime.of(2030, 1, 1, 0, 0), null);
+    when(cardService.getAllCards(filter, 1, 20)).thenReturn(paginationDto);
 
     mockMvc
-        .perform(get("/cards"))
+        .perform(
+            get("/cards")
+                .param("status", "BLOCKED")
+                .param("ownerId", "3")
+                .param("expireFrom", "2030-01-01T00:00:00")
+                .param("page", "1")
+                .param("size", "20"))
         .andExpect(status().isOk())
-        .andExpect(jsonPath("$.size()").value(1));
+        .andExpect(jsonPath("$.elements.size()").value(1));
+  }
+
+  @Test
+  void issueCards_success() throws Exception {
+    setupAdmin();
+    when(cardIssuanceService.submit(List.of(1L, 2L), 3))
+        .thenReturn(job(CardIssuanceJobStatus.PENDING, 0));
+
+    mockMvc
+        .perform(
+            post("/cards/issue/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userIds\":[1,2],\"cardsPerUser\":3}"))
+        .andExpect(status().isAccepted())
+        .andExpect(jsonPath("$.id").value(5))
+        .andExpect(jsonPath("$.status").value("PENDING"))
+        .andExpect(jsonPath("$.total").value(6));
+  }
+
+  @Test
+  void getIssuance_success() throws Exception {
+    setupAdmin();
+    when(cardIssuanceService.getJob(5L)).thenReturn(job(CardIssuanceJobStatus.RUNNING, 4));
+
+    mockMvc
+        .perform(get("/cards/issue/bulk/5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("RUNNING"))
+        .andExpect(jsonPath("$.issued").value(4));
+  }
+
+  @Test
+  void getIssuance_notFound() throws Exception {
+    setupAdmin();
+    when(cardIssuanceService.getJob(5L)).thenThrow(new CardIssuanceJobNotFoundException());
+
+    mockMvc.perform(get("/cards/issue/bulk/5")).andExpect(status().isNotFound());
+  }
+
+  @Test
+  void resumeIssuance_success() throws Exception {
+    setupAdmin();
+    when(cardIssuanceService.resume(5L)).thenReturn(job(CardIssuanceJobStatus.PENDING, 4));
+
+    mockMvc
+        .perform(post("/cards/issue/bulk/5/resume"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("PENDING"));
+  }
+
+  @Test
+  void issueCards_invalidInput() throws Exception {
+    setupAdmin();
+
+    mockMvc
+        .perform(
+            post("/cards/issue/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userIds\":[],\"cardsPerUser\":3}"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(
+            post("/cards/issue/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userIds\":[1],\"cardsPerUser\":0}"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void changeCardStatuses_byIds() throws Exception {
+    setupAdmin();
+    when(cardService.changeCardStatuses(List.of(1L, 2L), null, CardStatus.BLOCKED)).thenReturn(2L);
+
+    mockMvc
+        .perform(
+            post("/cards/status/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"BLOCKED\",\"ids\":[1,2]}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.updated").value(2));
+  }
+
+  @Test
+  void changeCardStatuses_byFilter() throws Exception {
+    setupAdmin();
+    var filter = new CardFilter(CardStatus.BLOCKED, 3L, null, null);
+    when(cardService.changeCardStatuses(null, filter, CardStatus.ACTIVE)).thenReturn(7L);
+
+    mockMvc
+        .perform(
+            post("/cards/status/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    "{\"status\":\"ACTIVE\",\"filter\":{\"status\":\"BLOCKED\",\"ownerId\":3}}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.updated").value(7));
+  }
+
+  @Test
+  void changeCardStatuses_invalidSelection() throws Exception {
+    setupAdmin();
+
+    mockMvc
+        .perform(
+            post("/cards/status/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"BLOCKED\",\"ids\":[1],\"filter\":{}}"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(
+            post("/cards/status/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"EXPIRED\",\"ids\":[1]}"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void exportCards_success() throws Exception {
+    setupAdmin();
+    var filter = new CardFilter(CardStatus.ACTIVE, null, null, null);
+    doAnswer(
+            invocation -> {
+              invocation.<OutputStream>getArgument(1).write("{\"id\":1}\n".getBytes());
+              return null;
+            })
+        .when(cardService)
+        .streamAllCards(eq(filter), any());
+
+    var result =
+        mockMvc
+            .perform(get("/cards/export").param("status", "ACTIVE"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(content().string("{\"id\":1}\n"));
   }
 
   @Test
@@ -125,6 +292,22 @@ class CardControllerTest {
         .andExpect(jsonPath("$.size()").value(1));
   }
 
+  @Test
+  void getBlockRequestsByStatus_success() throws Exception {
+    setupAdmin();
+    var requests = new PaginationDto<CardBlockRequestDto>();
+    requests.setTotalElements(1);
+    requests.setElements(Collections.singletonList(new CardBlockRequestDto()));
+    when(cardService.getBlockRequestsByStatus(CardBlockRequestStatus.IN_PROGRESS, 0, 50))
+        .thenReturn(requests);
+
+    mockMvc
+        .perform(get("/cards/block/request/queue").param("status", "IN_PROGRESS"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(1))
+        .andExpect(jsonPath("$.elements.size()").value(1));
+  }
+
   @Test
   void setStatusBlockRequestInProgress_success() throws Exception {
     setupAdmin();
@@ -169,9 +352,33 @@ class CardControllerTest {
         .andExpect(jsonPath("$.elements.size()").value(1));
   }
 
+  @Test
+  void getUserCardsByCursor() throws Exception {
+    var user = setupUser();
+    when(cardService.getUserCardsByCursor(user, "cursor", 5, true))
+        .thenReturn(new CursorPageDto<>(List.of(new UserCardDto()), "next", 6L));
+
+    mockMvc
+        .perform(
+            get("/cards/view/cursor")
+                .param("cursor", "cursor")
+                .param("size", "5")
+                .param("withTotal", "true")
+                .principal(SecurityContextHolder.getContext().getAuthentication()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.elements.size()").value(1))
+        .andExpect(jsonPath("$.nextCursor").value("next"))
+        .andExpect(jsonPath("$.totalElements").value(6));
+  }
+
   @Test
   void createCardBlockRequest_success() throws Exception {
     setupUser();
     mockMvc.perform(post("/cards/1/block/request/create")).andExpect(status().isOk());
   }
+
+  private static CardIssuanceJobDto job(CardIssuanceJobStatus status, long issued) {
+    var now = LocalDateTime.now();
+    return new CardIssuanceJobDto(5L, status, 6, issued, null, now, now);
+  }
 }
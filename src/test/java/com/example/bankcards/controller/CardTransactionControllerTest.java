@@ -0,0 +1,142 @@
+package com.example.bankcards.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.entity.CardTransactionType;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardOwnerException;
+import com.example.bankcards.exception.GlobalExceptionHandler;
+import com.example.bankcards.exception.InvalidCursorException;
+import com.example.bankcards.service.CardTransactionService;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+@ExtendWith(MockitoExtension.class)
+class CardTransactionControllerTest {
+
+  private MockMvc mockMvc;
+
+  @Mock private CardTransactionService cardTransactionService;
+
+  @InjectMocks private CardTransactionController cardTransactionController;
+
+  @BeforeEach
+  void setUp() {
+    var validator = new LocalValidatorFactoryBean();
+    validator.afterPropertiesSet();
+    mockMvc =
+        MockMvcBuilders.standaloneSetup(cardTransactionController)
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+            .setValidator(validator)
+            .build();
+  }
+
+  private User setupUser() {
+    var user = new User();
+    user.setId(1L);
+    user.setLogin("user");
+    user.setRole(Role.USER);
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    return user;
+  }
+
+  @Test
+  void getCardTransactions_success() throws Exception {
+    var user = setupUser();
+    var transaction =
+        new CardTransactionDto(
+            5L,
+            UUID.randomUUID(),
+            20L,
+            CardTransactionType.DEBIT,
+            BigDecimal.TEN,
+            LocalDateTime.of(2025, 1, 1, 12, 0));
+    when(cardTransactionService.getCardTransactions(user, 10L, "abc", 1, false))
+        .thenReturn(new CursorPageDto<>(List.of(transaction), "next", null));
+
+    mockMvc
+        .perform(get("/cards/10/transactions").param("cursor", "abc").param("size", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.elements[0].id").value(5))
+        .andExpect(jsonPath("$.nextCursor").value("next"));
+  }
+
+  @Test
+  void getCardTransactions_invalidCursor() throws Exception {
+    var user = setupUser();
+    when(cardTransactionService.getCardTransactions(user, 10L, "abc", 50, false))
+        .thenThrow(new InvalidCursorException("abc"));
+
+    mockMvc
+        .perform(get("/cards/10/transactions").param("cursor", "abc"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void streamCardTransactions_success() throws Exception {
+    var user = setupUser();
+    doAnswer(
+            invocation -> {
+              OutputStream out = invocation.getArgument(1);
+              out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+              return null;
+            })
+        .when(cardTransactionService)
+        .streamCardTransactions(eq(10L), any(OutputStream.class));
+
+    var result =
+        mockMvc
+            .perform(get("/cards/10/transactions/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().string("{\"id\":1}\n"));
+    verify(cardTransactionService).checkCardOwner(user, 10L);
+  }
+
+  @Test
+  void streamCardTransactions_cardNotOwned() throws Exception {
+    var user = setupUser();
+    doThrow(new CardOwnerException("10")).when(cardTransactionService).checkCardOwner(user, 10L);
+
+    mockMvc.perform(get("/cards/10/transactions/stream")).andExpect(status().isForbidden());
+    verify(cardTransactionService, never()).streamCardTransactions(any(), any());
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.bankcards.security.jwt.JwtKeyRing;
+import com.example.bankcards.security.jwt.TestJwtKeyRings;
+import com.jayway.jsonpath.JsonPath;
+import java.math.BigInteger;
+import java.util.Base64;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class JwksControllerTest {
+
+  private MockMvc mockMvc;
+
+  private JwtKeyRing jwtKeyRing;
+
+  @BeforeEach
+  void setUp() {
+    jwtKeyRing = TestJwtKeyRings.inMemory();
+    mockMvc = MockMvcBuilders.standaloneSetup(new JwksController(jwtKeyRing)).build();
+  }
+
+  @Test
+  void getJwks_publishesActiveKeys() throws Exception {
+    var key = jwtKeyRing.signingKey();
+
+    var body =
+        mockMvc
+            .perform(get("/.well-known/jwks.json"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", "max-age=300"))
+            .andExpect(jsonPath("$.keys.length()").value(1))
+            .andExpect(jsonPath("$.keys[0].kid").value(key.kid()))
+            .andExpect(jsonPath("$.keys[0].kty").value("EC"))
+            .andExpect(jsonPath("$.keys[0].crv").value("P-256"))
+            .andExpect(jsonPath("$.keys[0].alg").value("ES256"))
+            .andExpect(jsonPath("$.keys[0].use").value("sig"))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    var point = key.publicKey().getW();
+    assertEquals(point.getAffineX(), coordinate(JsonPath.read(body, "$.keys[0].x")));
+    assertEquals(point.getAffineY(), coordinate(JsonPath.read(body, "$.keys[0].y")));
+  }
+
+  private static BigInteger coordinate(String value) {
+    var bytes = Base64.getUrlDecoder().decode(value);
+    assertEquals(32, bytes.length);
+    return new BigInteger(1, bytes);
+  }
+}
@@ -1,12 +1,21 @@
 package com.example.bankcards.controller;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.example.bankcards.dto.ExportFormat;
+import com.example.bankcards.dto.PaginationDto;
 import com.example.bankcards.dto.UserCreationDto;
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.UserFilter;
 import com.example.bankcards.dto.UserPasswordDto;
 import com.example.bankcards.dto.UserRegistrationDto;
 import com.example.bankcards.entity.Role;
@@ -18,14 +27,17 @@ import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -116,12 +128,50 @@ class UserControllerTest {
   @Test
   void getAllUsers_success() throws Exception {
     setupAdmin();
-    when(userService.getAllUsers()).thenReturn(Collections.singletonList(new User()));
+    var paginationDto = new PaginationDto<UserDto>();
+    paginationDto.setElements(List.of(new UserDto()));
+    var filter = new UserFilter(UserStatus.BLOCKED, Role.USER, "john", null, null);
+    when(userService.getAllUsers(filter, 1, 20)).thenReturn(paginationDto);
 
     mockMvc
-        .perform(get("/users/list"))
+        .perform(
+            get("/users/list")
+                .param("status", "BLOCKED")
+                .param("role", "USER")
+                .param("loginPrefix", "john")
+                .param("page", "1")
+                .param("size", "20"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.elements.size()").value(1));
+  }
+
+  @Test
+  void exportUsers_csv() throws Exception {
+    setupAdmin();
+    var filter = new UserFilter(null, null, null, LocalDateTime.of(2025, 1, 1, 0, 0), null);
+    doAnswer(
+            invocation -> {
+              invocation.<OutputStream>getArgument(2).write("id\r\n1\r\n".getBytes());
+              return null;
+            })
+        .when(userService)
+        .streamUsers(eq(filter), eq(ExportFormat.CSV), any());
+
+    var result =
+        mockMvc
+            .perform(
+                get("/users/export")
+                    .param("createdFrom", "2025-01-01T00:00:00")
+                    .param("format", "CSV"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
         .andExpect(status().isOk())
-        .andExpect(jsonPath("$.size()").value(1));
+        .andExpect(content().contentType("text/csv;charset=UTF-8"))
+        .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.csv\""))
+        .andExpect(content().string("id\r\n1\r\n"));
   }
 
   @Test
@@ -0,0 +1,45 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.security.jwt.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+class ActuatorSecurityTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Test
+    void health_isPublic() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void metrics_requireAdmin() throws Exception {
+        var user = createUser("actuator-user@example.com");
+        var admin = createUser("actuator-admin@example.com");
+        admin.setRole(Role.ADMIN);
+        userRepository.save(admin);
+
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, bearer(user.getLogin())))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, bearer(admin.getLogin())))
+                .andExpect(status().isOk());
+    }
+
+    private String bearer(String login) {
+        return "Bearer " + jwtService.generateAuthToken(login).token();
+    }
+}
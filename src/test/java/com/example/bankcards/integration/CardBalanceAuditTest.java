@@ -0,0 +1,85 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.job.CardBalanceAuditJob;
+import com.example.bankcards.service.BalanceReplayService;
+import com.example.bankcards.service.BalanceVerificationService;
+import com.example.bankcards.service.CardBalanceService;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.EncryptionCard;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = "ledger.snapshot.lag=0s")
+class CardBalanceAuditTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CardBalanceService cardBalanceService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private BalanceReplayService balanceReplayService;
+
+    @Autowired
+    private BalanceVerificationService balanceVerificationService;
+
+    @Autowired
+    private CardBalanceAuditJob cardBalanceAuditJob;
+
+    @Autowired
+    private EncryptionCard encryptionCard;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void replayAndVerify_matchBalances() {
+        var user = createUser("audit@example.com");
+        cardService.createCardForUser(user.getId());
+        cardService.createCardForUser(user.getId());
+        var cardIds = jdbcTemplate.queryForList(
+                "SELECT id FROM cards WHERE owner_id = ? ORDER BY id", Long.class, user.getId());
+        var numbers = jdbcTemplate
+                .queryForList("SELECT number FROM cards WHERE owner_id = ? ORDER BY id", String.class, user.getId())
+                .stream()
+                .map(encryptionCard::decrypt)
+                .toList();
+        jdbcTemplate.update("UPDATE card_balance SET balance = 100 WHERE card_id = ?", cardIds.get(0));
+
+        cardBalanceService.transferMoney(user, numbers.get(0), numbers.get(1), new BigDecimal("30"));
+        balanceReplayService.createSnapshots();
+        cardBalanceService.transferMoney(user, numbers.get(1), numbers.get(0), new BigDecimal("5"));
+
+        assertEquals(0, new BigDecimal("75").compareTo(balanceReplayService.replayBalance(cardIds.get(0))));
+        assertEquals(0, new BigDecimal("25").compareTo(balanceReplayService.replayBalance(cardIds.get(1))));
+        assertTrue(balanceVerificationService.verifyBalances().getDrifts().stream()
+                .noneMatch(drift -> cardIds.contains(drift.getCardId())));
+
+        jdbcTemplate.update("UPDATE card_balance SET balance = balance + 1 WHERE card_id = ?", cardIds.get(1));
+
+        var drifts = balanceVerificationService.verifyBalances().getDrifts();
+        assertTrue(drifts.stream().anyMatch(drift -> drift.getCardId().equals(cardIds.get(1))));
+    }
+
+    @Test
+    void audit_runsOncePerDay() {
+        var user = createUser("audit-once@example.com");
+        cardService.createCardForUser(user.getId());
+        jdbcTemplate.update("DELETE FROM card_balance_audit");
+
+        cardBalanceAuditJob.audit();
+        var snapshots = jdbcTemplate.queryForObject("SELECT count(*) FROM card_balance_snapshot", Long.class);
+        cardBalanceAuditJob.audit();
+
+        assertEquals(snapshots, jdbcTemplate.queryForObject("SELECT count(*) FROM card_balance_snapshot", Long.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM card_balance_audit WHERE audit_date = CURRENT_DATE", Long.class));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.dto.MoneyTransferDto;
+import com.example.bankcards.dto.TransferResultDto;
+import com.example.bankcards.dto.TransferResultStatus;
+import com.example.bankcards.service.CardBalanceService;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.EncryptionCard;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardBalanceBatchTransferTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CardBalanceService cardBalanceService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private EncryptionCard encryptionCard;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void transferMoneyBatch_allOrNothing() {
+        var user = createUser("batch-atomic@example.com");
+        var numbers = createCards(user.getId());
+
+        var results = cardBalanceService.transferMoneyBatch(user, List.of(
+                new MoneyTransferDto(numbers.get(0), numbers.get(1), new BigDecimal("60")),
+                new MoneyTransferDto(numbers.get(0), numbers.get(2), new BigDecimal("60"))), true);
+
+        assertEquals(List.of(TransferResultStatus.ROLLED_BACK, TransferResultStatus.INSUFFICIENT_BALANCE),
+                results.stream().map(TransferResultDto::getStatus).toList());
+        assertEquals(List.of(new BigDecimal("100.00"), new BigDecimal("100.00"), new BigDecimal("100.00")),
+                balances(user.getId()));
+    }
+
+    @Test
+    void transferMoneyBatch_partialSuccess() {
+        var user = createUser("batch-partial@example.com");
+        var numbers = createCards(user.getId());
+
+        var results = cardBalanceService.transferMoneyBatch(user, List.of(
+                new MoneyTransferDto(numbers.get(0), numbers.get(1), new BigDecimal("60")),
+                new MoneyTransferDto(numbers.get(0), numbers.get(2), new BigDecimal("60")),
+                new MoneyTransferDto(numbers.get(1), numbers.get(2), new BigDecimal("150")),
+                new MoneyTransferDto(numbers.get(0), "0000000000000000", BigDecimal.ONE)), false);
+
+        assertEquals(List.of(TransferResultStatus.COMPLETED, TransferResultStatus.INSUFFICIENT_BALANCE,
+                        TransferResultStatus.COMPLETED, TransferResultStatus.CARD_NOT_FOUND),
+                results.stream().map(TransferResultDto::getStatus).toList());
+        assertEquals(List.of(new BigDecimal("40.00"), new BigDecimal("10.00"), new BigDecimal("250.00")),
+                balances(user.getId()));
+    }
+
+    private List<String> createCards(Long userId) {
+        for (int i = 0; i < 3; i++) {
+            cardService.createCardForUser(userId);
+        }
+        jdbcTemplate.update(
+                "UPDATE card_balance SET balance = 100 WHERE card_id IN (SELECT id FROM cards WHERE owner_id = ?)",
+                userId);
+        return jdbcTemplate
+                .queryForList("SELECT number FROM cards WHERE owner_id = ? ORDER BY id", String.class, userId)
+                .stream()
+                .map(encryptionCard::decrypt)
+                .toList();
+    }
+
+    private List<BigDecimal> balances(Long userId) {
+        return jdbcTemplate.queryForList(
+                "SELECT b.balance FROM card_balance b JOIN cards c ON c.id = b.card_id WHERE c.owner_id = ? ORDER BY c.id",
+                BigDecimal.class, userId);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.exception.CardBalanceException;
+import com.example.bankcards.service.CardBalanceService;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.EncryptionCard;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardBalanceConcurrencyTest extends PostgresIntegrationTest {
+    private static final int CARDS = 8;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS = 4000;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private CardBalanceService cardBalanceService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private EncryptionCard encryptionCard;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void parallelTransfers_conserveMoney() throws Exception {
+        var user = createUser("stress@example.com");
+        for (int i = 0; i < CARDS; i++) {
+            cardService.createCardForUser(user.getId());
+        }
+        jdbcTemplate.update(
+                "UPDATE card_balance SET balance = ? WHERE card_id IN (SELECT id FROM cards WHERE owner_id = ?)",
+                INITIAL_BALANCE, user.getId());
+        List<String> numbers = jdbcTemplate
+                .queryForList("SELECT number FROM cards WHERE owner_id = ?", String.class, user.getId())
+                .stream()
+                .map(encryptionCard::decrypt)
+                .toList();
+
+        var executor = Executors.newFixedThreadPool(THREADS);
+        var start = new CountDownLatch(1);
+        var rejected = new AtomicInteger();
+        var futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                var random = ThreadLocalRandom.current();
+                var cardFrom = numbers.get(random.nextInt(CARDS));
+                var cardTo = numbers.get(random.nextInt(CARDS));
+                try {
+                    cardBalanceService.transferMoney(user, cardFrom, cardTo, BigDecimal.valueOf(random.nextInt(1, 300)));
+                } catch (CardBalanceException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (var future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        var total = jdbcTemplate.queryForObject(
+                "SELECT SUM(b.balance) FROM card_balance b JOIN cards c ON c.id = b.card_id WHERE c.owner_id = ?",
+                BigDecimal.class, user.getId());
+        var minimum = jdbcTemplate.queryForObject(
+                "SELECT MIN(b.balance) FROM card_balance b JOIN cards c ON c.id = b.card_id WHERE c.owner_id = ?",
+                BigDecimal.class, user.getId());
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS)).compareTo(total));
+        assertTrue(minimum.signum() >= 0);
+        assertTrue(rejected.get() < TRANSFERS);
+    }
+}
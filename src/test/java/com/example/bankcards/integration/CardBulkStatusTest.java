@@ -0,0 +1,86 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.dto.CardFilter;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.CardExpiredException;
+import com.example.bankcards.service.CardService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardBulkStatusTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void changeCardStatuses_doesNotActivateExpiredCards() {
+        var user = createUser("bulk-status-expired@example.com");
+        for (int i = 0; i < 3; i++) {
+            cardService.createCardForUser(user.getId());
+        }
+        var ids = jdbcTemplate.queryForList(
+                "SELECT id FROM cards WHERE owner_id = ? ORDER BY id", Long.class, user.getId());
+        jdbcTemplate.update("UPDATE cards SET status = 'EXPIRED', expire_date = now() - interval '1 day'"
+                + " WHERE id = ?", ids.get(0));
+        jdbcTemplate.update("UPDATE cards SET status = 'BLOCKED', expire_date = now() - interval '1 day'"
+                + " WHERE id = ?", ids.get(1));
+        jdbcTemplate.update("UPDATE cards SET status = 'BLOCKED' WHERE id = ?", ids.get(2));
+
+        var byFilter = cardService.changeCardStatuses(
+                null, new CardFilter(null, user.getId(), null, null), CardStatus.ACTIVE);
+        var byIds = cardService.changeCardStatuses(ids, null, CardStatus.ACTIVE);
+        var blocked = cardService.changeCardStatuses(ids, null, CardStatus.BLOCKED);
+
+        assertEquals(1, byFilter);
+        assertEquals(0, byIds);
+        assertEquals(1, blocked);
+        assertEquals(List.of("EXPIRED", "BLOCKED", "BLOCKED"), jdbcTemplate.queryForList(
+                "SELECT status FROM cards WHERE owner_id = ? ORDER BY id", String.class, user.getId()));
+    }
+
+    @Test
+    void blockUserCards_leavesExpiredCards() {
+        var user = createUser("block-user-cards-expired@example.com");
+        cardService.createCardForUser(user.getId());
+        cardService.createCardForUser(user.getId());
+        var ids = jdbcTemplate.queryForList(
+                "SELECT id FROM cards WHERE owner_id = ? ORDER BY id", Long.class, user.getId());
+        jdbcTemplate.update("UPDATE cards SET status = 'EXPIRED', expire_date = now() - interval '1 day'"
+                + " WHERE id = ?", ids.get(0));
+
+        assertEquals(1, cardService.blockUserCards(user.getId()));
+        assertEquals(List.of("EXPIRED", "BLOCKED"), jdbcTemplate.queryForList(
+                "SELECT status FROM cards WHERE owner_id = ? ORDER BY id", String.class, user.getId()));
+    }
+
+    @Test
+    void changeCardStatus_doesNotActivateExpiredCards() {
+        var user = createUser("single-status-expired@example.com");
+        for (int i = 0; i < 3; i++) {
+            cardService.createCardForUser(user.getId());
+        }
+        var ids = jdbcTemplate.queryForList(
+                "SELECT id FROM cards WHERE owner_id = ? ORDER BY id", Long.class, user.getId());
+        jdbcTemplate.update("UPDATE cards SET status = 'EXPIRED', expire_date = now() - interval '1 day'"
+                + " WHERE id = ?", ids.get(0));
+        jdbcTemplate.update("UPDATE cards SET status = 'BLOCKED', expire_date = now() - interval '1 day'"
+                + " WHERE id = ?", ids.get(1));
+
+        assertThrows(CardExpiredException.class, () -> cardService.changeCardStatus(ids.get(0), CardStatus.ACTIVE));
+        assertThrows(CardExpiredException.class, () -> cardService.changeCardStatus(ids.get(0), CardStatus.BLOCKED));
+        assertThrows(CardExpiredException.class, () -> cardService.changeCardStatus(ids.get(1), CardStatus.ACTIVE));
+        cardService.changeCardStatus(ids.get(2), CardStatus.BLOCKED);
+        cardService.changeCardStatus(ids.get(2), CardStatus.BLOCKED);
+
+        assertEquals(List.of("EXPIRED", "BLOCKED", "BLOCKED"), jdbcTemplate.queryForList(
+                "SELECT status FROM cards WHERE owner_id = ? ORDER BY id", String.class, user.getId()));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.service.CardExpiryService;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.AdvisoryLock;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardExpirySweepTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CardExpiryService cardExpiryService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private AdvisoryLock advisoryLock;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void expireCards_marksOnlyPastExpiryDates() {
+        var user = createUser("expiry-sweep@example.com");
+        for (int i = 0; i < 5; i++) {
+            cardService.createCardForUser(user.getId());
+        }
+        jdbcTemplate.update("UPDATE cards SET expire_date = now() - interval '1 day'"
+                + " WHERE id IN (SELECT id FROM cards WHERE owner_id = ? ORDER BY id LIMIT 3)", user.getId());
+
+        cardExpiryService.expireCards();
+
+        assertEquals(3, countByStatus(user.getId(), "EXPIRED"));
+        assertEquals(2, countByStatus(user.getId(), "ACTIVE"));
+        assertEquals(0, cardExpiryService.expireCards());
+    }
+
+    @Test
+    void expireCards_skippedWhileAnotherSessionHoldsTheLock() throws Exception {
+        var user = createUser("expiry-lock@example.com");
+        cardService.createCardForUser(user.getId());
+        jdbcTemplate.update("UPDATE cards SET expire_date = now() - interval '1 day' WHERE owner_id = ?", user.getId());
+        var locked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var holder = CompletableFuture.runAsync(() -> advisoryLock.runExclusively("card-expiry-sweep", () -> {
+            locked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+        assertEquals(0, cardExpiryService.expireCards());
+        assertEquals(0, countByStatus(user.getId(), "EXPIRED"));
+
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        cardExpiryService.expireCards();
+        assertEquals(1, countByStatus(user.getId(), "EXPIRED"));
+    }
+
+    private long countByStatus(Long ownerId, String status) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM cards WHERE owner_id = ? AND status = CAST(? AS card_status)",
+                Long.class, ownerId, status);
+    }
+}
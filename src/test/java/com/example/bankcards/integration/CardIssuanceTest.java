@@ -0,0 +1,122 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.dto.CardIssuanceJobDto;
+import com.example.bankcards.dto.CardIssuanceJobStatus;
+import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.service.CardIssuanceService;
+import com.example.bankcards.service.CardNumberPoolService;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.EncryptionCard;
+import com.example.bankcards.util.Luhn;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardIssuanceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CardIssuanceService cardIssuanceService;
+
+    @Autowired
+    private CardNumberPoolService cardNumberPoolService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private EncryptionCard encryptionCard;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void issueCards_drawsUniqueLuhnValidNumbersFromPool() throws Exception {
+        var first = createUser("issuance-first@example.com");
+        var second = createUser("issuance-second@example.com");
+        cardNumberPoolService.refill();
+        var poolSize = poolSize();
+
+        var job = cardIssuanceService.submit(List.of(first.getId(), second.getId()), 3);
+        var completed = runUntilDone(job.getId());
+        cardService.createCardForUser(first.getId());
+
+        assertEquals(CardIssuanceJobStatus.COMPLETED, completed.getStatus());
+        assertEquals(6, completed.getIssued());
+        assertEquals(poolSize - 7, poolSize());
+        var numbers = jdbcTemplate.queryForList(
+                "SELECT c.number FROM cards c JOIN card_balance b ON b.card_id = c.id"
+                        + " WHERE c.owner_id IN (?, ?) AND c.status = 'ACTIVE' AND b.balance = 0",
+                String.class, first.getId(), second.getId());
+        assertEquals(7, numbers.size());
+        numbers.stream().map(encryptionCard::decrypt).forEach(number -> assertTrue(Luhn.isValid(number), number));
+        assertEquals(7, numbers.stream().map(encryptionCard::decrypt).distinct().count());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM card_number_pool p JOIN cards c ON c.number_hash = p.number_hash", Long.class));
+    }
+
+    @Test
+    void take_dropsPooledNumberAlreadyIssued() {
+        var user = createUser("issuance-used-number@example.com");
+        cardService.createCardForUser(user.getId());
+        // a number generated again while the card holding it was not committed yet
+        jdbcTemplate.update("INSERT INTO card_number_pool (id, number, number_hash, created_at)"
+                + " SELECT -1, number, number_hash, now() FROM cards WHERE owner_id = ?", user.getId());
+
+        cardService.createCardForUser(user.getId());
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM card_number_pool WHERE id = -1", Long.class));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT count(DISTINCT number_hash) FROM cards WHERE owner_id = ?", Long.class, user.getId()));
+    }
+
+    @Test
+    void issueCards_unknownUser() {
+        var user = createUser("issuance-unknown@example.com");
+
+        assertThrows(UserNotFoundException.class,
+                () -> cardIssuanceService.submit(List.of(user.getId(), -1L), 1));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM cards WHERE owner_id = ?", Long.class, user.getId()));
+    }
+
+    @Test
+    void resume_continuesFailedJob() throws Exception {
+        var user = createUser("issuance-resume@example.com");
+        var job = cardIssuanceService.submit(List.of(user.getId()), 5);
+        jdbcTemplate.update("UPDATE card_issuance_job SET status = 'FAILED', error = 'failed' WHERE id = ?",
+                job.getId());
+
+        assertEquals(CardIssuanceJobStatus.PENDING, cardIssuanceService.resume(job.getId()).getStatus());
+        var completed = runUntilDone(job.getId());
+
+        assertEquals(CardIssuanceJobStatus.COMPLETED, completed.getStatus());
+        assertNull(completed.getError());
+        assertEquals(5, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM cards WHERE owner_id = ?", Long.class, user.getId()));
+    }
+
+    /** Runs the queued jobs, waiting for the scheduled job if it got to them first. */
+    private CardIssuanceJobDto runUntilDone(long jobId) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (true) {
+            cardIssuanceService.runPendingJobs();
+            var job = cardIssuanceService.getJob(jobId);
+            if (job.getStatus() == CardIssuanceJobStatus.COMPLETED
+                    || job.getStatus() == CardIssuanceJobStatus.FAILED) {
+                return job;
+            }
+            assertTrue(System.nanoTime() < deadline, "job did not finish: " + job);
+            Thread.sleep(100);
+        }
+    }
+
+    private long poolSize() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM card_number_pool", Long.class);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.dto.CardFilter;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.service.CardService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardListingTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void getAllCards_filtersAndPages() throws Exception {
+        var owner = createUser("listing-owner@example.com");
+        var other = createUser("listing-other@example.com");
+        for (int i = 0; i < 3; i++) {
+            cardService.createCardForUser(owner.getId());
+        }
+        cardService.createCardForUser(other.getId());
+        var blocked = jdbcTemplate.queryForObject(
+                "SELECT min(id) FROM cards WHERE owner_id = ?", Long.class, owner.getId());
+        cardService.changeCardStatus(blocked, CardStatus.BLOCKED);
+
+        var ownerCards = cardService.getAllCards(new CardFilter(null, owner.getId(), null, null), 0, 2);
+        assertEquals(3L, ownerCards.getTotalElements());
+        assertEquals(2, ownerCards.getTotalPages());
+        assertEquals(2, ownerCards.getElements().size());
+        assertTrue(ownerCards.getElements().get(0).getNumber().startsWith("**** **** **** "));
+        assertNotNull(ownerCards.getElements().get(0).getBalance());
+
+        var blockedCards = cardService.getAllCards(
+                new CardFilter(CardStatus.BLOCKED, owner.getId(), null, null), 0, 10);
+        assertEquals(1, blockedCards.getElements().size());
+        assertEquals(blocked, blockedCards.getElements().get(0).getId());
+
+        var out = new ByteArrayOutputStream();
+        cardService.streamAllCards(new CardFilter(CardStatus.ACTIVE, owner.getId(), null, null), out);
+        assertEquals(2, out.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void getUserCardsByCursor_visitsEveryCardOnce() {
+        var user = createUser("listing-keyset@example.com");
+        for (int i = 0; i < 5; i++) {
+            cardService.createCardForUser(user.getId());
+        }
+
+        var seen = new HashSet<String>();
+        String cursor = null;
+        do {
+            var page = cardService.getUserCardsByCursor(user, cursor, 2, true);
+            assertEquals(5L, page.getTotalElements());
+            page.getElements().forEach(card -> assertTrue(seen.add(card.getNumber())));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(5, seen.size());
+    }
+}
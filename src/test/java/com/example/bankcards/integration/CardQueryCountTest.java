@@ -0,0 +1,124 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.dto.CardFilter;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.service.CardService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that every card read issues a fixed number of statements, independent of the number of
+ * cards, i.e. that balances are joined instead of loaded card by card.
+ */
+@Import(SqlStatementCounter.class)
+class CardQueryCountTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Long cardId;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("query-count-" + System.nanoTime() + "@example.com");
+        for (int i = 0; i < 3; i++) {
+            cardService.createCardForUser(user.getId());
+        }
+        cardId = jdbcTemplate.queryForObject("SELECT min(id) FROM cards WHERE owner_id = ?", Long.class, user.getId());
+        SqlStatementCounter.reset();
+    }
+
+    @Test
+    void getUserCards_selectsPageAndCount() {
+        var page = cardService.getUserCards(user, null, 0, 2);
+
+        assertEquals(2, page.getElements().size());
+        assertNotNull(page.getElements().get(0).getBalance());
+        assertEquals(2, SqlStatementCounter.count());
+    }
+
+    @Test
+    void getUserCardsByCursor_selectsPageOnly() {
+        var page = cardService.getUserCardsByCursor(user, null, 3, false);
+
+        assertEquals(3, page.getElements().size());
+        assertNotNull(page.getElements().get(0).getBalance());
+        assertEquals(1, SqlStatementCounter.count());
+    }
+
+    @Test
+    void getUserCardsByCursor_withTotal() {
+        cardService.getUserCardsByCursor(user, null, 3, true);
+
+        assertEquals(2, SqlStatementCounter.count());
+    }
+
+    @Test
+    void getAllCards_selectsPageAndCount() {
+        var page = cardService.getAllCards(new CardFilter(null, user.getId(), null, null), 0, 10);
+
+        assertEquals(3, page.getElements().size());
+        assertNotNull(page.getElements().get(0).getBalance());
+        assertEquals(2, SqlStatementCounter.count());
+    }
+
+    @Test
+    void streamAllCards_selectsOnce() throws Exception {
+        cardService.streamAllCards(new CardFilter(null, user.getId(), null, null), new ByteArrayOutputStream());
+
+        assertEquals(1, SqlStatementCounter.count());
+    }
+
+    @Test
+    void createCardBlockRequest_selectsProjectionAndInserts() {
+        cardService.createCardBlockRequest(user, cardId);
+
+        // plus a nextval once every 50 ids
+        assertTrue(SqlStatementCounter.count() <= 3);
+        assertTrue(SqlStatementCounter.count() >= 2);
+    }
+
+    @Test
+    void blockUserCards_updatesOnce() {
+        var blocked = cardService.blockUserCards(user.getId());
+
+        assertEquals(3, blocked);
+        assertEquals(1, SqlStatementCounter.count());
+        assertEquals(0, cardService.blockUserCards(user.getId()));
+    }
+
+    @Test
+    void changeCardStatuses_byFilterInChunks() {
+        cardService.changeCardStatus(cardId, CardStatus.BLOCKED);
+        SqlStatementCounter.reset();
+
+        var activated = cardService.changeCardStatuses(
+                null, new CardFilter(CardStatus.BLOCKED, user.getId(), null, null), CardStatus.ACTIVE);
+        var blocked = cardService.changeCardStatuses(
+                null, new CardFilter(null, user.getId(), null, null), CardStatus.BLOCKED);
+
+        assertEquals(1, activated);
+        assertEquals(3, blocked);
+        assertEquals(2, SqlStatementCounter.count());
+    }
+
+    @Test
+    void changeCardStatus_updatesOnce() {
+        cardService.changeCardStatus(cardId, CardStatus.BLOCKED);
+
+        assertEquals(1, SqlStatementCounter.count());
+        assertEquals("BLOCKED", jdbcTemplate.queryForObject("SELECT status FROM cards WHERE id = ?", String.class, cardId));
+    }
+}
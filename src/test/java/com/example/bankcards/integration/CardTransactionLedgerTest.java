@@ -0,0 +1,86 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.entity.CardTransactionType;
+import com.example.bankcards.service.CardBalanceService;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.CardTransactionService;
+import com.example.bankcards.util.EncryptionCard;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardTransactionLedgerTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CardBalanceService cardBalanceService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardTransactionService cardTransactionService;
+
+    @Autowired
+    private EncryptionCard encryptionCard;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void transfers_areRecordedAndPaged() throws Exception {
+        var user = createUser("ledger@example.com");
+        cardService.createCardForUser(user.getId());
+        cardService.createCardForUser(user.getId());
+        jdbcTemplate.update(
+                "UPDATE card_balance SET balance = 100 WHERE card_id IN (SELECT id FROM cards WHERE owner_id = ?)",
+                user.getId());
+        var cardIds = jdbcTemplate.queryForList(
+                "SELECT id FROM cards WHERE owner_id = ? ORDER BY id", Long.class, user.getId());
+        var numbers = jdbcTemplate
+                .queryForList("SELECT number FROM cards WHERE owner_id = ? ORDER BY id", String.class, user.getId())
+                .stream()
+                .map(encryptionCard::decrypt)
+                .toList();
+
+        for (int i = 0; i < 5; i++) {
+            cardBalanceService.transferMoney(user, numbers.get(0), numbers.get(1), BigDecimal.ONE);
+        }
+
+        var seen = new HashSet<Long>();
+        String cursor = null;
+        do {
+            var page = cardTransactionService.getCardTransactions(user, cardIds.get(0), cursor, 2, true);
+            assertEquals(5L, page.getTotalElements());
+            page.getElements().forEach(entry -> {
+                assertEquals(CardTransactionType.DEBIT, entry.getType());
+                assertTrue(seen.add(entry.getId()));
+            });
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(5, seen.size());
+
+        var out = new ByteArrayOutputStream();
+        cardTransactionService.streamCardTransactions(cardIds.get(1), out);
+        assertEquals(5, out.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void ledger_isAppendOnly() {
+        jdbcTemplate.update(
+                "INSERT INTO card_transaction (id, transfer_id, card_id, counterparty_card_id, type, amount, created_at)"
+                        + " VALUES (nextval('card_transaction_id_seq'), gen_random_uuid(), -1, -2, 'DEBIT', 1, now())");
+
+        assertThrows(DataAccessException.class,
+                () -> jdbcTemplate.update("UPDATE card_transaction SET amount = 0"));
+        assertThrows(DataAccessException.class,
+                () -> jdbcTemplate.update("DELETE FROM card_transaction"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that entities with sequence ids are inserted in JDBC batches: ids come from a pooled-lo
+ * sequence, one call per 50 entities, and the inserts are sent 50 at a time.
+ */
+@Import(SqlStatementCounter.class)
+class EntityInsertBatchingTest extends PostgresIntegrationTest {
+
+    private static final int USERS = 120;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void saveAll_batchesInserts() {
+        var users = new ArrayList<User>();
+        for (int i = 0; i < USERS; i++) {
+            var user = new User();
+            user.setName("name");
+            user.setLastName("lastName");
+            user.setSurname("surname");
+            user.setLogin("batch-" + i + "-" + System.nanoTime() + "@example.com");
+            user.setPassword("password");
+            user.setStatus(UserStatus.ACTIVE);
+            user.setRole(Role.USER);
+            user.setCreatedAt(LocalDateTime.now());
+            users.add(user);
+        }
+        SqlStatementCounter.reset();
+
+        var saved = transactionTemplate.execute(status -> userRepository.saveAll(users));
+
+        assertEquals(USERS, new HashSet<>(saved.stream().map(User::getId).toList()).size());
+        // at most 4 nextval calls and 3 insert batches instead of 120 inserts
+        assertTrue(SqlStatementCounter.count() <= 7, "statements: " + SqlStatementCounter.count());
+    }
+}
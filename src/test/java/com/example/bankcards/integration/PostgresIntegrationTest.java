@@ -0,0 +1,44 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserStatus;
+import com.example.bankcards.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+
+/**
+ * Base class for tests that need the real schema: starts PostgreSQL in a container, applies the
+ * Liquibase changelog and boots the whole application against it. Skipped when Docker is not
+ * available.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13.22-alpine3.22");
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    protected User createUser(String login) {
+        var user = new User();
+        user.setName("name");
+        user.setLastName("lastName");
+        user.setSurname("surname");
+        user.setLogin(login);
+        user.setPassword("password");
+        user.setStatus(UserStatus.ACTIVE);
+        user.setRole(Role.USER);
+        user.setCreatedAt(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.bankcards.integration;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records the prepared statements the application executes on the current thread, with their
+ * parameters, so that they can be replayed, e.g. under {@code EXPLAIN}. Import it into an
+ * integration test to wrap the {@link DataSource} and call {@link #record(Runnable)}.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class QueryPlanRecorder {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "addBatch");
+    private static final ThreadLocal<List<RecordedStatement>> RECORDED = new ThreadLocal<>();
+
+    /**
+     * Runs the action and returns the prepared statements it executed. Batched statements are
+     * recorded once per batch entry.
+     */
+    public static List<RecordedStatement> record(Runnable action) {
+        var recorded = new ArrayList<RecordedStatement>();
+        RECORDED.set(recorded);
+        try {
+            action.run();
+        } finally {
+            RECORDED.remove();
+        }
+        return recorded;
+    }
+
+    @Bean
+    static BeanPostProcessor queryPlanRecordingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? recordingDataSource(dataSource) : bean;
+            }
+        };
+    }
+
+    private static DataSource recordingDataSource(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (proxy, method, args) -> {
+            var result = invoke(dataSource, method, args);
+            return result instanceof Connection connection ? recordingConnection(connection) : result;
+        });
+    }
+
+    private static Connection recordingConnection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            var result = invoke(connection, method, args);
+            if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement) {
+                return recordingStatement((String) args[0], statement);
+            }
+            return result;
+        });
+    }
+
+    private static PreparedStatement recordingStatement(String sql, PreparedStatement statement) {
+        var parameters = new ArrayList<Parameter>();
+        return proxy(PreparedStatement.class, statement, (proxy, method, args) -> {
+            var name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.add(new Parameter(method, args));
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (EXECUTE_METHODS.contains(name) && (args == null || args.length == 0)) {
+                var recorded = RECORDED.get();
+                if (recorded != null) {
+                    recorded.add(new RecordedStatement(sql, List.copyOf(parameters)));
+                }
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(target.getClass().getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    /** A parameter setter call, e.g. {@code setLong(1, 42)}. */
+    record Parameter(Method setter, Object[] args) {}
+
+    /** An executed statement with the parameters it was executed with. */
+    public record RecordedStatement(String sql, List<Parameter> parameters) {
+
+        /** Binds the recorded parameters to another statement with the same placeholders. */
+        public void bind(PreparedStatement statement) throws SQLException {
+            for (var parameter : parameters) {
+                try {
+                    parameter.setter().invoke(statement, parameter.args());
+                } catch (InvocationTargetException e) {
+                    throw e.getCause() instanceof SQLException sqlException
+                            ? sqlException : new SQLException(e.getCause());
+                } catch (IllegalAccessException e) {
+                    throw new SQLException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.dto.CardFilter;
+import com.example.bankcards.dto.UserFilter;
+import com.example.bankcards.entity.CardBlockRequestStatus;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.CardBlockRequestRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replays the statements of the hot repository queries under {@code EXPLAIN (ANALYZE, BUFFERS)}
+ * and fails if any of them scans a table sequentially. The plans are taken with
+ * {@code enable_seqscan} off, so a sequential scan in a plan means that no index can serve the
+ * query, whatever the size of the seeded tables.
+ */
+@Import(QueryPlanRecorder.class)
+class QueryPlanTest extends PostgresIntegrationTest {
+
+    private static final int USERS = 2000;
+    private static final int CARDS_PER_USER = 10;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardBlockRequestRepository cardBlockRequestRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void seed() {
+        if (jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE login LIKE 'plan-user-%'", Long.class) > 0) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO users (name, last_name, surname, login, password, status, role, created_at)"
+                + " SELECT 'name', 'lastName', 'surname', 'plan-user-' || i || '@example.com', 'password',"
+                + " CAST('ACTIVE' AS user_status), CAST('USER' AS role_type), now() - i * interval '1 hour'"
+                + " FROM generate_series(1, ?) i", USERS);
+        jdbcTemplate.update("INSERT INTO cards (number, number_hash, expire_date, created_at, status, owner_id)"
+                + " SELECT md5('plan-' || u.id || '-' || i), md5('plan-hash-' || u.id || '-' || i),"
+                + " now() + (i - 2) * interval '1 year', now() - i * interval '1 day',"
+                + " CAST(CASE WHEN i % 5 = 0 THEN 'BLOCKED' ELSE 'ACTIVE' END AS card_status), u.id"
+                + " FROM users u CROSS JOIN generate_series(1, ?) i WHERE u.login LIKE 'plan-user-%'",
+                CARDS_PER_USER);
+        jdbcTemplate.update("INSERT INTO card_balance (card_id, balance, version)"
+                + " SELECT c.id, 100, 0 FROM cards c"
+                + " WHERE NOT EXISTS (SELECT 1 FROM card_balance b WHERE b.card_id = c.id)");
+        jdbcTemplate.update("INSERT INTO card_block_request"
+                + " (user_id, user_name, card_id, card_number, created_at, status)"
+                + " SELECT c.owner_id, 'name', c.id, '**** **** **** 0000', c.created_at,"
+                + " CAST('CREATED' AS card_block_request_status)"
+                + " FROM cards c WHERE c.status = 'BLOCKED' ON CONFLICT DO NOTHING");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void hotQueries_useIndexes() throws Exception {
+        var ownerId = jdbcTemplate.queryForObject(
+                "SELECT id FROM users WHERE login = 'plan-user-1000@example.com'", Long.class);
+        var card = jdbcTemplate.queryForMap(
+                "SELECT id, number_hash FROM cards WHERE owner_id = ? ORDER BY id LIMIT 1", ownerId);
+        var cardId = (Long) card.get("id");
+        var numberHash = (String) card.get("number_hash");
+        var now = LocalDateTime.now();
+
+        var statements = QueryPlanRecorder.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            cardRepository.findUserCardsByOwnerId(ownerId, PageRequest.of(0, 5));
+            cardRepository.findFirstPageByOwnerId(ownerId, Limit.of(5));
+            cardRepository.findPageAfterByOwnerId(ownerId, now, Long.MAX_VALUE, Limit.of(5));
+            cardRepository.countByOwnerId(ownerId);
+            cardRepository.findNumberAndOwnerById(cardId);
+            cardRepository.findCardByNumberHash(numberHash);
+            var byStatus = new CardFilter(CardStatus.BLOCKED, null, null, null);
+            var byOwner = new CardFilter(null, ownerId, null, null);
+            cardRepository.findAdminCards(byStatus, 0, 20);
+            cardRepository.countAdminCards(byStatus);
+            cardRepository.findAdminCards(byOwner, 0, 20);
+            cardRepository.countAdminCards(byOwner);
+            userRepository.findByLogin("plan-user-1000@example.com");
+            var byLogin = new UserFilter(null, null, "plan-user-100", null, null);
+            var byCreatedAt = new UserFilter(null, null, null, now.minusHours(10), null);
+            userRepository.findUserDtos(byLogin, 0, 20);
+            userRepository.countUsers(byLogin);
+            userRepository.findUserDtos(byCreatedAt, 0, 20);
+            userRepository.countUsers(byCreatedAt);
+            cardBlockRequestRepository.findAllByUserId(ownerId);
+            cardBlockRequestRepository.findAllByStatusOrderByCreatedAtAscIdAsc(
+                    CardBlockRequestStatus.CREATED, PageRequest.of(0, 20));
+            cardRepository.updateStatusByOwnerId(ownerId, CardStatus.BLOCKED);
+            cardRepository.updateStatusChunk(byStatus, CardStatus.ACTIVE, 100);
+            cardRepository.expireChunk(now, 100);
+            status.setRollbackOnly();
+        }));
+
+        assertFalse(statements.isEmpty());
+        var failures = new ArrayList<String>();
+        for (var statement : statements) {
+            var plan = explain(statement);
+            var seqScans = new ArrayList<String>();
+            collectSeqScans(plan.get("Plan"), seqScans);
+            if (!seqScans.isEmpty()) {
+                failures.add("Sequential scan on " + seqScans + " in: " + statement.sql()
+                        + "\n" + plan.toPrettyString());
+            }
+        }
+        assertTrue(failures.isEmpty(), String.join("\n\n", failures));
+    }
+
+    private JsonNode explain(QueryPlanRecorder.RecordedStatement statement) throws SQLException, IOException {
+        try (var connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (var settings = connection.createStatement()) {
+                settings.execute("SET LOCAL enable_seqscan = off");
+            }
+            var sql = "EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + statement.sql();
+            try (var explain = connection.prepareStatement(sql)) {
+                statement.bind(explain);
+                try (var rs = explain.executeQuery()) {
+                    rs.next();
+                    return objectMapper.readTree(rs.getString(1)).get(0);
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void collectSeqScans(JsonNode node, List<String> seqScans) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            seqScans.add(node.path("Relation Name").asText());
+        }
+        for (var child : node.path("Plans")) {
+            collectSeqScans(child, seqScans);
+        }
+    }
+}
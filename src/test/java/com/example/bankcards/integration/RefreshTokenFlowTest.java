@@ -0,0 +1,38 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.dto.auth.RefreshTokenDto;
+import com.example.bankcards.exception.InvalidRefreshTokenException;
+import com.example.bankcards.security.jwt.JwtService;
+import com.example.bankcards.service.AuthenticationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshTokenFlowTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void refresh_rotatesAndRevokesToken() {
+        var user = createUser("refresh@example.com");
+        var tokens = jwtService.generateAuthToken(user.getLogin());
+
+        var refreshed = authenticationService.refresh(new RefreshTokenDto(tokens.refreshToken()));
+
+        assertNotEquals(tokens.refreshToken(), refreshed.refreshToken());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM refresh_token_revocation WHERE user_id = ?", Integer.class, user.getId()));
+        assertThrows(InvalidRefreshTokenException.class,
+                () -> authenticationService.refresh(new RefreshTokenDto(tokens.refreshToken())));
+        assertNotNull(authenticationService.refresh(new RefreshTokenDto(refreshed.refreshToken())));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.bankcards.integration;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Set;
+
+/**
+ * Counts the JDBC statements the application prepares on the current thread. Import it into an
+ * integration test to wrap the {@link DataSource}; statements issued by background jobs are not
+ * counted.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class SqlStatementCounter {
+
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall", "createStatement");
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+
+    @Bean
+    static BeanPostProcessor sqlStatementCountingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? countingDataSource(dataSource) : bean;
+            }
+        };
+    }
+
+    private static DataSource countingDataSource(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (proxy, method, args) -> {
+            var result = invoke(dataSource, method, args);
+            return result instanceof Connection connection ? countingConnection(connection) : result;
+        });
+    }
+
+    private static Connection countingConnection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            if (STATEMENT_METHODS.contains(method.getName())) {
+                COUNT.get()[0]++;
+            }
+            return invoke(connection, method, args);
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(target.getClass().getClassLoader(), new Class<?>[] {type}, handler);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.bankcards.integration;
+
+import com.example.bankcards.dto.ExportFormat;
+import com.example.bankcards.dto.UserFilter;
+import com.example.bankcards.entity.UserStatus;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(SqlStatementCounter.class)
+class UserListingTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Test
+    void getAllUsers_filtersWithoutLoadingCards() throws Exception {
+        var first = createUser("listing_a1@example.com");
+        createUser("listing_a2@example.com");
+        createUser("listingXa3@example.com");
+        cardService.createCardForUser(first.getId());
+        userService.changeUserStatus(first.getId(), UserStatus.BLOCKED);
+        SqlStatementCounter.reset();
+
+        var page = userService.getAllUsers(new UserFilter(null, null, "listing_a", null, null), 0, 10);
+
+        assertEquals(2, SqlStatementCounter.count());
+        assertEquals(2L, page.getTotalElements());
+        assertEquals("listing_a1@example.com", page.getElements().get(0).getLogin());
+
+        var blocked = userService.getAllUsers(new UserFilter(UserStatus.BLOCKED, null, "listing", null, null), 0, 10);
+        assertEquals(1, blocked.getElements().size());
+
+        var out = new ByteArrayOutputStream();
+        userService.streamUsers(new UserFilter(null, null, "listing_a", null, null), ExportFormat.CSV, out);
+        var lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).contains("listing_a1@example.com"));
+    }
+}
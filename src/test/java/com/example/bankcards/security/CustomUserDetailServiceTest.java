@@ -0,0 +1,80 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.UserChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomUserDetailServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CustomUserDetailService customUserDetailService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        customUserDetailService = new CustomUserDetailService(userRepository, meterRegistry, Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void loadPrincipal_cachesUser() {
+        var user = user(1L, "user");
+        when(userRepository.findByLogin("user")).thenReturn(Optional.of(user));
+
+        assertSame(user, customUserDetailService.loadPrincipal("user"));
+        assertSame(user, customUserDetailService.loadPrincipal("user"));
+
+        verify(userRepository, times(1)).findByLogin("user");
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "principals").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "principals").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void loadPrincipal_reloadsChangedUser() {
+        when(userRepository.findByLogin("user")).thenReturn(Optional.of(user(1L, "user")));
+        when(userRepository.findByLogin("other")).thenReturn(Optional.of(user(2L, "other")));
+        customUserDetailService.loadPrincipal("user");
+        customUserDetailService.loadPrincipal("other");
+
+        customUserDetailService.onUserChanged(new UserChangedEvent(1L));
+        customUserDetailService.loadPrincipal("user");
+        customUserDetailService.loadPrincipal("other");
+
+        verify(userRepository, times(2)).findByLogin("user");
+        verify(userRepository, times(1)).findByLogin("other");
+    }
+
+    @Test
+    void loadPrincipal_userNotFound() {
+        when(userRepository.findByLogin("user")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> customUserDetailService.loadPrincipal("user"));
+    }
+
+    private static User user(Long id, String login) {
+        var user = new User();
+        user.setId(id);
+        user.setLogin(login);
+        user.setRole(Role.USER);
+        return user;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.LoginThrottledException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoginThrottle loginThrottle;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loginThrottle = new LoginThrottle(meterRegistry, Duration.ofMinutes(1), 3, 2, 3, 1024);
+    }
+
+    @Test
+    void checkAttempt_throttlesAddress() {
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.checkAttempt("user" + i, "10.0.0.1");
+        }
+
+        var exception = assertThrows(LoginThrottledException.class,
+                () -> loginThrottle.checkAttempt("user", "10.0.0.1"));
+        assertEquals(Duration.ofMinutes(1), exception.getRetryAfter());
+        assertDoesNotThrow(() -> loginThrottle.checkAttempt("user", "10.0.0.2"));
+        assertEquals(1, throttled("address"));
+        assertEquals(5, meterRegistry.get("auth.login.attempts").counter().count());
+    }
+
+    @Test
+    void checkAttempt_throttlesLoginAndAddressAfterFailures() {
+        loginThrottle.recordFailure("user", "10.0.0.1");
+        loginThrottle.recordFailure("user", "10.0.0.1");
+
+        assertThrows(LoginThrottledException.class, () -> loginThrottle.checkAttempt("user", "10.0.0.1"));
+        assertDoesNotThrow(() -> loginThrottle.checkAttempt("user", "10.0.0.2"));
+        assertDoesNotThrow(() -> loginThrottle.checkAttempt("other", "10.0.0.1"));
+        assertEquals(1, throttled("login_address"));
+        assertEquals(2, meterRegistry.get("auth.login.failures").counter().count());
+    }
+
+    @Test
+    void checkAttempt_throttlesLoginAfterFailuresFromManyAddresses() {
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.checkAttempt("user", "10.0.0." + i);
+            loginThrottle.recordFailure("user", "10.0.0." + i);
+        }
+
+        assertThrows(LoginThrottledException.class, () -> loginThrottle.checkAttempt("user", "10.0.0.9"));
+        assertDoesNotThrow(() -> loginThrottle.checkAttempt("other", "10.0.0.9"));
+        assertEquals(1, throttled("login"));
+    }
+
+    @Test
+    void recordSuccess_clearsFailuresOfLogin() {
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.recordFailure("user", "10.0.0.1");
+        }
+
+        loginThrottle.recordSuccess("user", "10.0.0.1");
+
+        assertDoesNotThrow(() -> loginThrottle.checkAttempt("user", "10.0.0.1"));
+    }
+
+    private double throttled(String scope) {
+        return meterRegistry.get("auth.login.throttled").tag("scope", scope).counter().count();
+    }
+}
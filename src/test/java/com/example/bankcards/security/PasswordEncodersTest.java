@@ -0,0 +1,69 @@
+package com.example.bankcards.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordEncodersTest {
+
+    @Test
+    void delegating_matchesLegacyBcryptHashAndRequestsUpgrade() {
+        var encoder = encoder(PasswordEncoders.BCRYPT, 5);
+        var legacyHash = new BCryptPasswordEncoder(4).encode("password");
+
+        assertTrue(encoder.matches("password", legacyHash));
+        assertTrue(encoder.upgradeEncoding(legacyHash));
+    }
+
+    @Test
+    void delegating_requestsUpgradeOfWeakerBcryptHash() {
+        var weakHash = encoder(PasswordEncoders.BCRYPT, 4).encode("password");
+        var encoder = encoder(PasswordEncoders.BCRYPT, 5);
+
+        assertTrue(weakHash.startsWith("{bcrypt}"));
+        assertTrue(encoder.matches("password", weakHash));
+        assertTrue(encoder.upgradeEncoding(weakHash));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+    }
+
+    @Test
+    void delegating_switchesAlgorithm() {
+        var bcryptHash = encoder(PasswordEncoders.BCRYPT, 4).encode("password");
+        var encoder = encoder(PasswordEncoders.PBKDF2, 4);
+
+        var pbkdf2Hash = encoder.encode("password");
+
+        assertTrue(pbkdf2Hash.startsWith("{pbkdf2}"));
+        assertTrue(encoder.matches("password", pbkdf2Hash));
+        assertTrue(encoder.matches("password", bcryptHash));
+        assertTrue(encoder.upgradeEncoding(bcryptHash));
+        assertFalse(encoder.upgradeEncoding(pbkdf2Hash));
+    }
+
+    @Test
+    void delegating_argon2() {
+        var encoder = encoder(PasswordEncoders.ARGON2, 4);
+
+        var hash = encoder.encode("password");
+
+        assertTrue(hash.startsWith("{argon2}"));
+        assertTrue(encoder.matches("password", hash));
+        assertFalse(encoder.matches("other", hash));
+    }
+
+    @Test
+    void delegating_unknownEncoder() {
+        assertThrows(IllegalArgumentException.class, () -> encoder("md5", 4));
+    }
+
+    private static PasswordEncoder encoder(String idForEncode, int bcryptStrength) {
+        return PasswordEncoders.delegating(idForEncode, Map.of(
+                PasswordEncoders.BCRYPT, PasswordEncoders.bcrypt(bcryptStrength),
+                PasswordEncoders.ARGON2, PasswordEncoders.argon2(16, 32, 1, 1024, 1),
+                PasswordEncoders.PBKDF2, PasswordEncoders.pbkdf2(16, 1000)));
+    }
+}
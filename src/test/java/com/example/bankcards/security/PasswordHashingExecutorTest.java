@@ -0,0 +1,54 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    @Test
+    void submit_runsTask() throws Exception {
+        var executor = new PasswordHashingExecutor(new SimpleMeterRegistry(), 1, 1);
+
+        assertEquals("hash", executor.submit(() -> "hash").get());
+        executor.shutdown();
+    }
+
+    @Test
+    void submit_rejectsWhenSaturated() throws Exception {
+        var meterRegistry = new SimpleMeterRegistry();
+        var executor = new PasswordHashingExecutor(meterRegistry, 1, 1);
+        var release = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+        var running = executor.submit(() -> {
+            started.countDown();
+            await(release);
+            return "running";
+        });
+        started.await();
+        var queued = executor.submit(() -> "queued");
+
+        var rejected = executor.submit(() -> "rejected");
+
+        var exception = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(PasswordHashingBusyException.class, exception.getCause());
+        assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+        release.countDown();
+        assertEquals("running", running.get());
+        assertEquals("queued", queued.get());
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
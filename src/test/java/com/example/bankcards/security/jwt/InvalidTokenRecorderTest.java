@@ -0,0 +1,25 @@
+package com.example.bankcards.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvalidTokenRecorderTest {
+
+    @Test
+    void record_countsByReason() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var recorder = new InvalidTokenRecorder(meterRegistry, Duration.ZERO);
+
+        recorder.record(JwtFailureReason.EXPIRED);
+        recorder.record(JwtFailureReason.EXPIRED);
+        recorder.record(JwtFailureReason.MALFORMED);
+
+        assertEquals(2, meterRegistry.get("jwt.rejected").tag("reason", "expired").counter().count());
+        assertEquals(1, meterRegistry.get("jwt.rejected").tag("reason", "malformed").counter().count());
+        assertEquals(0, meterRegistry.get("jwt.rejected").tag("reason", "unsupported").counter().count());
+    }
+}
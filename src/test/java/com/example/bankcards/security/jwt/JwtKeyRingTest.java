@@ -0,0 +1,137 @@
+package com.example.bankcards.security.jwt;
+
+import com.example.bankcards.entity.JwtSigningKey;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.example.bankcards.security.jwt.TestJwtKeyRings.storedKey;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyRingTest {
+
+    private static final Duration ROTATION_INTERVAL = Duration.ofDays(7);
+
+    @Test
+    void signingKey_createsKeyOnFirstUse() throws Exception {
+        var storage = new CopyOnWriteArrayList<JwtSigningKey>();
+        var keyRing = TestJwtKeyRings.inMemory(storage, ROTATION_INTERVAL);
+
+        var key = keyRing.signingKey();
+
+        assertEquals(1, storage.size());
+        assertEquals(storage.get(0).getKid(), key.kid());
+        assertSame(key, keyRing.signingKey());
+        assertEquals(Base64.getEncoder().encodeToString(key.privateKey().getEncoded()),
+                TestJwtKeyRings.CIPHER.decrypt(storage.get(0).getPrivateKey()));
+        assertThrows(RuntimeException.class,
+                () -> TestJwtKeyRings.LEGACY_ENCRYPTION_CARD.decrypt(storage.get(0).getPrivateKey()));
+    }
+
+    @Test
+    void signingKey_keepsDueKeyUntilSuccessorActivates() {
+        var now = LocalDateTime.now();
+        var due = storedKey(now.minusDays(8), now.minusDays(8));
+        var storage = new CopyOnWriteArrayList<>(List.of(due));
+        var keyRing = TestJwtKeyRings.inMemory(storage, ROTATION_INTERVAL);
+
+        assertEquals(due.getKid(), keyRing.signingKey().kid());
+        assertEquals(1, storage.size());
+    }
+
+    @Test
+    void signingKey_instancesAgreeOnOldestNonDueKey() {
+        var now = LocalDateTime.now();
+        var due = storedKey(now.minusDays(8), now.minusDays(8));
+        var successor = storedKey(now.minusHours(2), now.minusHours(1));
+        var duplicate = storedKey(now.minusHours(1), now.minusMinutes(30));
+        var pending = storedKey(now.minusMinutes(1), now.plusDays(1));
+        var storage = new CopyOnWriteArrayList<>(List.of(due, successor, duplicate, pending));
+
+        var keyRing = TestJwtKeyRings.inMemory(storage, ROTATION_INTERVAL);
+        var otherInstance = TestJwtKeyRings.inMemory(storage, ROTATION_INTERVAL);
+
+        assertEquals(successor.getKid(), keyRing.signingKey().kid());
+        assertEquals(successor.getKid(), otherInstance.signingKey().kid());
+    }
+
+    @Test
+    void prepareNextKey_publishesSuccessorBeforeItSigns() {
+        var now = LocalDateTime.now();
+        var current = storedKey(now.minusDays(7), now.minus(ROTATION_INTERVAL).plusMinutes(20));
+        var storage = new CopyOnWriteArrayList<>(List.of(current));
+        var keyRing = TestJwtKeyRings.inMemory(storage, ROTATION_INTERVAL);
+
+        assertTrue(keyRing.prepareNextKey());
+        assertFalse(keyRing.prepareNextKey());
+
+        assertEquals(2, storage.size());
+        var next = storage.get(1);
+        assertEquals(current.getActivatesAt().plus(ROTATION_INTERVAL), next.getActivatesAt());
+        assertTrue(kids(keyRing.activeKeys()).contains(next.getKid()));
+        assertEquals(current.getKid(), keyRing.signingKey().kid());
+    }
+
+    @Test
+    void prepareNextKey_lateSuccessorSignsOnlyOncePublished() {
+        var now = LocalDateTime.now();
+        var due = storedKey(now.minusDays(8), now.minusDays(8));
+        var storage = new CopyOnWriteArrayList<>(List.of(due));
+        var keyRing = TestJwtKeyRings.inMemory(storage, ROTATION_INTERVAL);
+
+        assertTrue(keyRing.prepareNextKey());
+
+        var next = storage.get(1);
+        assertFalse(next.getActivatesAt().isBefore(
+                now.plus(TestJwtKeyRings.CHECK_INTERVAL).plus(TestJwtKeyRings.JWKS_MAX_AGE)));
+        assertEquals(due.getKid(), keyRing.signingKey().kid());
+    }
+
+    @Test
+    void prepareNextKey_waitsWhileSigningKeyIsNotDueSoon() {
+        var now = LocalDateTime.now();
+        var storage = new CopyOnWriteArrayList<>(List.of(storedKey(now.minusDays(1), now.minusDays(1))));
+        var keyRing = TestJwtKeyRings.inMemory(storage, ROTATION_INTERVAL);
+
+        assertFalse(keyRing.prepareNextKey());
+        assertEquals(1, storage.size());
+    }
+
+    @Test
+    void signingKey_readsKeyEncryptedWithLegacyKey() throws Exception {
+        var now = LocalDateTime.now();
+        var legacy = storedKey(now.minusDays(1), now.minusDays(1));
+        var privateKey = TestJwtKeyRings.CIPHER.decrypt(legacy.getPrivateKey());
+        legacy.setPrivateKey(TestJwtKeyRings.LEGACY_ENCRYPTION_CARD.encrypt(privateKey));
+        var keyRing = TestJwtKeyRings.inMemory(new CopyOnWriteArrayList<>(List.of(legacy)), ROTATION_INTERVAL);
+
+        var key = keyRing.signingKey();
+
+        assertEquals(legacy.getKid(), key.kid());
+        assertEquals(privateKey, Base64.getEncoder().encodeToString(key.privateKey().getEncoded()));
+    }
+
+    @Test
+    void find_reloadsUnknownKid() {
+        var storage = new CopyOnWriteArrayList<JwtSigningKey>();
+        var keyRing = TestJwtKeyRings.inMemory(storage, ROTATION_INTERVAL);
+        var otherInstance = TestJwtKeyRings.inMemory(storage, ROTATION_INTERVAL);
+        keyRing.activeKeys();
+
+        var key = otherInstance.signingKey();
+
+        assertEquals(key.publicKey(), keyRing.find(key.kid()).orElseThrow().publicKey());
+        assertTrue(keyRing.find("unknown").isEmpty());
+    }
+
+    private static List<String> kids(List<JwtKeyRing.RingKey> keys) {
+        var kids = new ArrayList<String>();
+        keys.forEach(key -> kids.add(key.kid()));
+        return kids;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.bankcards.security.jwt;
+
+import com.example.bankcards.entity.JwtSigningKey;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String LEGACY_SECRET = "c2VjcmV0LXNlY3JldC1zZWNyZXQtc2VjcmV0LXNlY3JldC1zZWNyZXQtc2VjcmV0";
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtKeyRing jwtKeyRing;
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtKeyRing = TestJwtKeyRings.inMemory();
+        jwtService = jwtService(jwtKeyRing, LEGACY_SECRET);
+    }
+
+    @Test
+    void parseToken_validToken() {
+        var token = jwtService.generateAuthToken("user").token();
+
+        var claims = jwtService.parseToken(token);
+
+        assertTrue(claims.isPresent());
+        assertEquals("user", claims.get().getSubject());
+    }
+
+    @Test
+    void parseToken_cachedTokenReturnsSameClaims() {
+        var token = jwtService.generateAuthToken("user").token();
+
+        var first = jwtService.parseToken(token).orElseThrow();
+        var second = jwtService.parseToken(token).orElseThrow();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void generateAuthToken_signsWithRingKey() {
+        var token = jwtService.generateAuthToken("user").token();
+
+        var header = Jwts.parserBuilder()
+                .setSigningKey(jwtKeyRing.signingKey().publicKey())
+                .build()
+                .parseClaimsJws(token)
+                .getHeader();
+
+        assertEquals("ES256", header.getAlgorithm());
+        assertEquals(jwtKeyRing.signingKey().kid(), header.getKeyId());
+    }
+
+    @Test
+    void parseToken_expiredToken() {
+        var signingKey = jwtKeyRing.signingKey();
+        var token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                .setSubject("user")
+                .setExpiration(Date.from(Instant.now().minus(1, ChronoUnit.MINUTES)))
+                .signWith(signingKey.privateKey(), SignatureAlgorithm.ES256)
+                .compact();
+
+        assertTrue(jwtService.parseToken(token).isEmpty());
+        assertTrue(jwtService.parseToken(token).isEmpty());
+        assertEquals(2, rejected("expired"));
+    }
+
+    @Test
+    void parseToken_invalidSignature() {
+        var token = jwtService(TestJwtKeyRings.inMemory(), "").generateAuthToken("user").token();
+
+        assertTrue(jwtService.parseToken(token).isEmpty());
+        assertEquals(1, rejected("invalid_signature"));
+    }
+
+    @Test
+    void parseToken_unknownKidAcceptedOnceRingLearnsKey() {
+        var storage = new CopyOnWriteArrayList<JwtSigningKey>();
+        var service = jwtService(TestJwtKeyRings.inMemory(storage, Duration.ofDays(7)), "");
+        var otherStorage = new CopyOnWriteArrayList<JwtSigningKey>();
+        var token = jwtService(TestJwtKeyRings.inMemory(otherStorage, Duration.ofDays(7)), "")
+                .generateAuthToken("user").token();
+
+        assertTrue(service.parseToken(token).isEmpty());
+        storage.addAll(otherStorage);
+
+        assertEquals("user", service.parseToken(token).orElseThrow().getSubject());
+        assertEquals(1, rejected("invalid_signature"));
+    }
+
+    @Test
+    void parseToken_legacyHmacToken() {
+        var token = legacyToken();
+
+        assertEquals("user", jwtService.parseToken(token).orElseThrow().getSubject());
+    }
+
+    @Test
+    void parseToken_legacyHmacTokenWithoutSecret() {
+        var token = legacyToken();
+
+        assertTrue(jwtService(jwtKeyRing, "").parseToken(token).isEmpty());
+        assertEquals(1, rejected("invalid_signature"));
+    }
+
+    @Test
+    void parseToken_malformedToken() {
+        assertTrue(jwtService.parseToken("not-a-token").isEmpty());
+        assertTrue(jwtService.parseToken("not.a.token").isEmpty());
+        assertEquals(2, rejected("malformed"));
+    }
+
+    @Test
+    void parseRefreshToken_validToken() {
+        var tokens = jwtService.generateAuthToken("user");
+
+        var claims = jwtService.parseRefreshToken(tokens.refreshToken());
+
+        assertTrue(claims.isPresent());
+        assertEquals("user", claims.get().getSubject());
+        assertNotNull(UUID.fromString(claims.get().getId()));
+    }
+
+    @Test
+    void parseRefreshToken_rotatesJti() {
+        var first = jwtService.parseRefreshToken(jwtService.generateAuthToken("user").refreshToken());
+        var second = jwtService.parseRefreshToken(jwtService.generateAuthToken("user").refreshToken());
+
+        assertNotEquals(first.orElseThrow().getId(), second.orElseThrow().getId());
+    }
+
+    @Test
+    void tokenTypesAreNotInterchangeable() {
+        var tokens = jwtService.generateAuthToken("user");
+
+        assertTrue(jwtService.parseRefreshToken(tokens.token()).isEmpty());
+        assertTrue(jwtService.parseToken(tokens.refreshToken()).isEmpty());
+    }
+
+    private JwtService jwtService(JwtKeyRing keyRing, String legacySecret) {
+        return new JwtService(keyRing, legacySecret, 100, 50, Duration.ofMinutes(5), Duration.ofMinutes(1),
+                meterRegistry);
+    }
+
+    private static String legacyToken() {
+        return Jwts.builder()
+                .setSubject("user")
+                .setExpiration(Date.from(Instant.now().plus(30, ChronoUnit.MINUTES)))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(LEGACY_SECRET)))
+                .compact();
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("jwt.rejected").tag("reason", reason).counter().count();
+    }
+}
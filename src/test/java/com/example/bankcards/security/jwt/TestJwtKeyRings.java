@@ -0,0 +1,85 @@
+package com.example.bankcards.security.jwt;
+
+import com.example.bankcards.entity.JwtSigningKey;
+import com.example.bankcards.repository.JwtSigningKeyRepository;
+import com.example.bankcards.util.AdvisoryLock;
+import com.example.bankcards.util.EncryptionCard;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** Builds {@link JwtKeyRing}s backed by an in-memory list instead of the database. */
+public final class TestJwtKeyRings {
+    static final Duration CHECK_INTERVAL = Duration.ofMinutes(10);
+    static final Duration JWKS_MAX_AGE = Duration.ofMinutes(5);
+    static final JwtKeyCipher CIPHER = new JwtKeyCipher("abcdefghijklmnopqrstuvwxyz012345");
+    static final EncryptionCard LEGACY_ENCRYPTION_CARD =
+            new EncryptionCard("12345678901234567890123456789012", "12345678901234567890123456789012");
+
+    private TestJwtKeyRings() {
+    }
+
+    public static JwtKeyRing inMemory() {
+        return inMemory(new CopyOnWriteArrayList<>(), Duration.ofDays(7));
+    }
+
+    public static JwtKeyRing inMemory(List<JwtSigningKey> storage, Duration rotationInterval) {
+        var repository = mock(JwtSigningKeyRepository.class);
+        when(repository.save(any())).thenAnswer(invocation -> {
+            JwtSigningKey key = invocation.getArgument(0);
+            storage.add(key);
+            return key;
+        });
+        when(repository.findActive(any())).thenAnswer(invocation -> {
+            LocalDateTime now = invocation.getArgument(0);
+            return storage.stream()
+                    .filter(key -> key.getExpiresAt().isAfter(now))
+                    .sorted(Comparator.comparing(JwtSigningKey::getCreatedAt).reversed())
+                    .toList();
+        });
+        var advisoryLock = mock(AdvisoryLock.class);
+        when(advisoryLock.runExclusively(anyString(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+        return new JwtKeyRing(repository, CIPHER, LEGACY_ENCRYPTION_CARD, advisoryLock, rotationInterval,
+                Duration.ofDays(30), Duration.ZERO, CHECK_INTERVAL, JWKS_MAX_AGE);
+    }
+
+    /**
+     * Creates a stored key as another instance would have.
+     *
+     * @param createdAt The time the key was published.
+     * @param activatesAt The time the key starts signing.
+     */
+    static JwtSigningKey storedKey(LocalDateTime createdAt, LocalDateTime activatesAt) {
+        try {
+            var generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            var keyPair = generator.generateKeyPair();
+            return JwtSigningKey.builder()
+                    .kid(UUID.randomUUID().toString())
+                    .publicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()))
+                    .privateKey(CIPHER.encrypt(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded())))
+                    .createdAt(createdAt)
+                    .activatesAt(activatesAt)
+                    .expiresAt(activatesAt.plusDays(60))
+                    .build();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,22 +2,40 @@ package com.example.bankcards.service;
 
 import com.example.bankcards.dto.auth.AuthenticationRequest;
 import com.example.bankcards.dto.auth.JwtAuthenticationDto;
+import com.example.bankcards.dto.auth.RefreshTokenDto;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserStatus;
 import com.example.bankcards.exception.IncorrectPasswordException;
+import com.example.bankcards.exception.InvalidRefreshTokenException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.CustomUserDetailService;
+import com.example.bankcards.security.LoginThrottle;
 import com.example.bankcards.security.jwt.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class AuthenticationServiceTest {
@@ -34,6 +52,23 @@ class AuthenticationServiceTest {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private CustomUserDetailService customUserDetailService;
+
+    @Mock
+    private RefreshTokenRevocationService refreshTokenRevocationService;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private LoginThrottle loginThrottle;
+
+    private final UUID jti = UUID.randomUUID();
+
     @Test
     void authenticate_success() {
         var request = new AuthenticationRequest("testuser", "password");
@@ -42,12 +77,35 @@ class AuthenticationServiceTest {
 
         when(userRepository.findByLogin("testuser")).thenReturn(Optional.of(user));
         when(passwordEncoder.matches("password", "encodedPassword")).thenReturn(true);
-        when(jwtService.generateAuthToken("testuser")).thenReturn(new JwtAuthenticationDto("test-token"));
+        when(jwtService.generateAuthToken("testuser")).thenReturn(new JwtAuthenticationDto("test-token", "refresh-token"));
 
-        var result = authenticationService.authenticate(request);
+        var result = authenticationService.authenticate(request, "10.0.0.1");
 
         assertNotNull(result);
         assertEquals("test-token", result.token());
+        assertEquals("refresh-token", result.refreshToken());
+        verify(userRepository, never()).updatePassword(any(), anyLong());
+        verify(loginThrottle).recordSuccess("testuser", "10.0.0.1");
+        verify(loginThrottle, never()).recordFailure(any(), any());
+    }
+
+    @Test
+    void authenticate_rehashesOutdatedPassword() {
+        var request = new AuthenticationRequest("testuser", "password");
+        var user = new User();
+        user.setId(1L);
+        user.setPassword("$2a$04$outdated");
+
+        when(userRepository.findByLogin("testuser")).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("password", "$2a$04$outdated")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("$2a$04$outdated")).thenReturn(true);
+        when(passwordEncoder.encode("password")).thenReturn("{bcrypt}$2a$10$current");
+        when(jwtService.generateAuthToken("testuser")).thenReturn(new JwtAuthenticationDto("test-token", "refresh-token"));
+
+        authenticationService.authenticate(request, "10.0.0.1");
+
+        verify(userRepository).updatePassword("{bcrypt}$2a$10$current", 1L);
+        verify(eventPublisher).publishEvent(new UserChangedEvent(1L));
     }
 
     @Test
@@ -57,8 +115,9 @@ class AuthenticationServiceTest {
         when(userRepository.findByLogin("testuser")).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> {
-            authenticationService.authenticate(request);
+            authenticationService.authenticate(request, "10.0.0.1");
         });
+        verify(loginThrottle).recordFailure("testuser", "10.0.0.1");
     }
 
     @Test
@@ -71,7 +130,83 @@ class AuthenticationServiceTest {
         when(passwordEncoder.matches("password", "encodedPassword")).thenReturn(false);
 
         assertThrows(IncorrectPasswordException.class, () -> {
-            authenticationService.authenticate(request);
+            authenticationService.authenticate(request, "10.0.0.1");
         });
+        verify(loginThrottle).recordFailure("testuser", "10.0.0.1");
+    }
+
+    @Test
+    void refresh_success() {
+        var user = activeUser();
+        when(jwtService.parseRefreshToken("refresh")).thenReturn(Optional.of(refreshClaims()));
+        when(refreshTokenRevocationService.isRevoked(jti)).thenReturn(false);
+        when(customUserDetailService.loadPrincipal("testuser")).thenReturn(user);
+        when(refreshTokenRevocationService.revoke(eq(jti), eq(1L), any())).thenReturn(true);
+        when(jwtService.generateAuthToken("testuser")).thenReturn(new JwtAuthenticationDto("new-token", "new-refresh"));
+
+        var result = authenticationService.refresh(new RefreshTokenDto("refresh"));
+
+        assertEquals("new-token", result.token());
+        assertEquals("new-refresh", result.refreshToken());
+        verifyNoInteractions(passwordEncoder, userRepository);
+    }
+
+    @Test
+    void refresh_invalidToken() {
+        when(jwtService.parseRefreshToken("refresh")).thenReturn(Optional.empty());
+
+        assertThrows(InvalidRefreshTokenException.class,
+                () -> authenticationService.refresh(new RefreshTokenDto("refresh")));
+        verifyNoInteractions(refreshTokenRevocationService);
+    }
+
+    @Test
+    void refresh_revokedToken() {
+        when(jwtService.parseRefreshToken("refresh")).thenReturn(Optional.of(refreshClaims()));
+        when(refreshTokenRevocationService.isRevoked(jti)).thenReturn(true);
+
+        assertThrows(InvalidRefreshTokenException.class,
+                () -> authenticationService.refresh(new RefreshTokenDto("refresh")));
+        verify(jwtService, never()).generateAuthToken(any());
+    }
+
+    @Test
+    void refresh_concurrentlyUsedToken() {
+        when(jwtService.parseRefreshToken("refresh")).thenReturn(Optional.of(refreshClaims()));
+        when(refreshTokenRevocationService.isRevoked(jti)).thenReturn(false);
+        when(customUserDetailService.loadPrincipal("testuser")).thenReturn(activeUser());
+        when(refreshTokenRevocationService.revoke(eq(jti), eq(1L), any())).thenReturn(false);
+
+        assertThrows(InvalidRefreshTokenException.class,
+                () -> authenticationService.refresh(new RefreshTokenDto("refresh")));
+        verify(jwtService, never()).generateAuthToken(any());
+    }
+
+    @Test
+    void refresh_blockedUser() {
+        var user = activeUser();
+        user.setStatus(UserStatus.BLOCKED);
+        when(jwtService.parseRefreshToken("refresh")).thenReturn(Optional.of(refreshClaims()));
+        when(refreshTokenRevocationService.isRevoked(jti)).thenReturn(false);
+        when(customUserDetailService.loadPrincipal("testuser")).thenReturn(user);
+
+        assertThrows(InvalidRefreshTokenException.class,
+                () -> authenticationService.refresh(new RefreshTokenDto("refresh")));
+        verify(refreshTokenRevocationService, never()).revoke(any(), any(), any());
+    }
+
+    private Claims refreshClaims() {
+        return Jwts.claims()
+                .setSubject("testuser")
+                .setId(jti.toString())
+                .setExpiration(Date.from(Instant.now().plus(1, ChronoUnit.DAYS)));
+    }
+
+    private static User activeUser() {
+        var user = new User();
+        user.setId(1L);
+        user.setLogin("testuser");
+        user.setStatus(UserStatus.ACTIVE);
+        return user;
     }
 }
@@ -0,0 +1,66 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.repository.CardBalanceRepository;
+import com.example.bankcards.repository.CardBalanceSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceReplayServiceTest {
+
+    @Mock
+    private CardBalanceRepository cardBalanceRepository;
+
+    @Mock
+    private CardBalanceSnapshotRepository cardBalanceSnapshotRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BalanceReplayService balanceReplayService;
+
+    @BeforeEach
+    void setUp() {
+        balanceReplayService = new BalanceReplayService(cardBalanceRepository, cardBalanceSnapshotRepository, transactionManager);
+        balanceReplayService.chunkSize = 2;
+    }
+
+    @Test
+    void replayBalance_success() {
+        when(cardBalanceSnapshotRepository.replayBalance(10L)).thenReturn(BigDecimal.TEN);
+
+        assertEquals(BigDecimal.TEN, balanceReplayService.replayBalance(10L));
+    }
+
+    @Test
+    void replayBalance_cardNotFound() {
+        when(cardBalanceSnapshotRepository.replayBalance(10L)).thenReturn(null);
+
+        assertThrows(CardNotFoundException.class, () -> balanceReplayService.replayBalance(10L));
+    }
+
+    @Test
+    void createSnapshots_processesChunks() {
+        when(cardBalanceRepository.findChunkEnd(0, 2)).thenReturn(5L);
+        when(cardBalanceRepository.findChunkEnd(5, 2)).thenReturn(9L);
+        when(cardBalanceRepository.findChunkEnd(9, 2)).thenReturn(null);
+        when(cardBalanceSnapshotRepository.createSnapshots(eq(0L), eq(5L), any(), any())).thenReturn(2);
+        when(cardBalanceSnapshotRepository.createSnapshots(eq(5L), eq(9L), any(), any())).thenReturn(1);
+
+        assertEquals(3, balanceReplayService.createSnapshots());
+        verify(cardBalanceSnapshotRepository).deleteOlderThan(any(LocalDateTime.class));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BalanceDriftDto;
+import com.example.bankcards.repository.CardBalanceRepository;
+import com.example.bankcards.repository.CardBalanceSnapshotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceVerificationServiceTest {
+
+    @Mock
+    private CardBalanceRepository cardBalanceRepository;
+
+    @Mock
+    private CardBalanceSnapshotRepository cardBalanceSnapshotRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BalanceVerificationService balanceVerificationService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        balanceVerificationService = new BalanceVerificationService(
+                cardBalanceRepository, cardBalanceSnapshotRepository, transactionManager, meterRegistry);
+        balanceVerificationService.chunkSize = 2;
+        balanceVerificationService.parallelism = 2;
+    }
+
+    @Test
+    void verifyBalances_collectsDriftOfAllChunks() {
+        var drift = new BalanceDriftDto(7L, BigDecimal.TEN, BigDecimal.ONE);
+        when(cardBalanceRepository.findChunkEnd(0, 2)).thenReturn(5L);
+        when(cardBalanceRepository.findChunkEnd(5, 2)).thenReturn(9L);
+        when(cardBalanceRepository.findChunkEnd(9, 2)).thenReturn(null);
+        when(cardBalanceRepository.countByCardIdGreaterThanAndCardIdLessThanEqual(0L, 5L)).thenReturn(2L);
+        when(cardBalanceRepository.countByCardIdGreaterThanAndCardIdLessThanEqual(5L, 9L)).thenReturn(2L);
+        when(cardBalanceSnapshotRepository.findDrift(0, 5)).thenReturn(List.of());
+        when(cardBalanceSnapshotRepository.findDrift(5, 9)).thenReturn(List.of(drift));
+
+        var report = balanceVerificationService.verifyBalances();
+
+        assertEquals(4, report.getCardsChecked());
+        assertEquals(List.of(drift), report.getDrifts());
+        assertEquals(1, meterRegistry.get("ledger.verify.drift").gauge().value());
+        assertEquals(1, meterRegistry.get("ledger.verify.duration").timer().count());
+    }
+
+    @Test
+    void verifyBalances_noCards() {
+        when(cardBalanceRepository.findChunkEnd(0, 2)).thenReturn(null);
+
+        var report = balanceVerificationService.verifyBalances();
+
+        assertEquals(0, report.getCardsChecked());
+        assertTrue(report.getDrifts().isEmpty());
+        verifyNoInteractions(cardBalanceSnapshotRepository);
+    }
+}
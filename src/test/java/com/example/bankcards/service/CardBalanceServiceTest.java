@@ -1,23 +1,39 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.MoneyTransferDto;
+import com.example.bankcards.dto.TransferResultDto;
+import com.example.bankcards.dto.TransferResultStatus;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardBalance;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardBalanceException;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.CardOwnerException;
 import com.example.bankcards.repository.CardBalanceRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.CardOwnerView;
 import com.example.bankcards.util.EncryptionCard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,14 +51,107 @@ class CardBalanceServiceTest {
     @Mock
     private CardBalanceRepository cardBalanceRepository;
 
+    @Spy
+    private OptimisticRetryExecutor optimisticRetryExecutor =
+            new OptimisticRetryExecutor(new SimpleMeterRegistry(), 3, Duration.ZERO, Duration.ZERO);
+
+    @Mock
+    private TransferIdempotencyService transferIdempotencyService;
+
+    @Mock
+    private CardTransactionService cardTransactionService;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @Test
     void transferMoney_success() {
         var user = new User();
         user.setId(1L);
 
+        var cardFrom = new Card();
+        cardFrom.setId(10L);
+        cardFrom.setOwnerId(1L);
+
+        var cardTo = new Card();
+        cardTo.setId(20L);
+        cardTo.setOwnerId(1L);
+
+        when(encryptionCard.hash("1234")).thenReturn("hash1234");
+        when(encryptionCard.hash("5678")).thenReturn("hash5678");
+        when(cardRepository.findCardByNumberHash("hash1234")).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findCardByNumberHash("hash5678")).thenReturn(Optional.of(cardTo));
+        when(cardBalanceRepository.withdraw(10L, BigDecimal.ONE)).thenReturn(1);
+
+        cardBalanceService.transferMoney(user, "1234", "5678", BigDecimal.ONE);
+
+        var inOrder = inOrder(cardBalanceRepository, cardTransactionService);
+        inOrder.verify(cardBalanceRepository).withdraw(10L, BigDecimal.ONE);
+        inOrder.verify(cardBalanceRepository).deposit(20L, BigDecimal.ONE);
+        inOrder.verify(cardTransactionService).recordTransfer(10L, 20L, BigDecimal.ONE);
+    }
+
+    @Test
+    void transferMoney_locksLowerCardIdFirst() {
+        var user = new User();
+        user.setId(1L);
+
+        var cardFrom = new Card();
+        cardFrom.setId(20L);
+        cardFrom.setOwnerId(1L);
+
+        var cardTo = new Card();
+        cardTo.setId(10L);
+        cardTo.setOwnerId(1L);
+
+        when(encryptionCard.hash("1234")).thenReturn("hash1234");
+        when(encryptionCard.hash("5678")).thenReturn("hash5678");
+        when(cardRepository.findCardByNumberHash("hash1234")).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findCardByNumberHash("hash5678")).thenReturn(Optional.of(cardTo));
+        when(cardBalanceRepository.withdraw(20L, BigDecimal.ONE)).thenReturn(1);
+
+        cardBalanceService.transferMoney(user, "1234", "5678", BigDecimal.ONE);
+
+        var inOrder = inOrder(cardBalanceRepository);
+        inOrder.verify(cardBalanceRepository).deposit(10L, BigDecimal.ONE);
+        inOrder.verify(cardBalanceRepository).withdraw(20L, BigDecimal.ONE);
+    }
+
+    @Test
+    void transferMoney_insufficientBalance() {
+        var user = new User();
+        user.setId(1L);
+
+        var cardFrom = new Card();
+        cardFrom.setId(10L);
+        cardFrom.setOwnerId(1L);
+
+        var cardTo = new Card();
+        cardTo.setId(20L);
+        cardTo.setOwnerId(1L);
+
+        when(encryptionCard.hash("1234")).thenReturn("hash1234");
+        when(encryptionCard.hash("5678")).thenReturn("hash5678");
+        when(cardRepository.findCardByNumberHash("hash1234")).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findCardByNumberHash("hash5678")).thenReturn(Optional.of(cardTo));
+        when(cardBalanceRepository.withdraw(10L, BigDecimal.TEN)).thenReturn(0);
+
+        assertThrows(CardBalanceException.class, () -> {
+            cardBalanceService.transferMoney(user, "1234", "5678", BigDecimal.TEN);
+        });
+        verify(cardBalanceRepository, never()).deposit(any(), any());
+        verifyNoInteractions(cardTransactionService);
+    }
+
+    @Test
+    void transferMoney_optimistic() {
+        cardBalanceService.transferMode = TransferMode.OPTIMISTIC;
+        var user = new User();
+        user.setId(1L);
+
         var cardFrom = new Card();
         cardFrom.setOwnerId(1L);
-        CardBalance balanceFrom = new CardBalance();
+        var balanceFrom = new CardBalance();
         balanceFrom.setBalance(BigDecimal.TEN);
         cardFrom.setBalance(balanceFrom);
 
@@ -52,25 +161,183 @@ class CardBalanceServiceTest {
         balanceTo.setBalance(BigDecimal.ZERO);
         cardTo.setBalance(balanceTo);
 
-        when(encryptionCard.encrypt("1234")).thenReturn("encrypted1234");
-        when(encryptionCard.encrypt("5678")).thenReturn("encrypted5678");
-        when(cardRepository.findCardByNumber("encrypted1234")).thenReturn(Optional.of(cardFrom));
-        when(cardRepository.findCardByNumber("encrypted5678")).thenReturn(Optional.of(cardTo));
+        when(encryptionCard.hash("1234")).thenReturn("hash1234");
+        when(encryptionCard.hash("5678")).thenReturn("hash5678");
+        when(cardRepository.findCardByNumberHash("hash1234")).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findCardByNumberHash("hash5678")).thenReturn(Optional.of(cardTo));
 
         cardBalanceService.transferMoney(user, "1234", "5678", BigDecimal.ONE);
 
         verify(cardBalanceRepository, times(2)).save(any(CardBalance.class));
+        verify(cardBalanceRepository, never()).withdraw(any(), any());
         assertEquals(new BigDecimal("9"), balanceFrom.getBalance());
         assertEquals(new BigDecimal("1"), balanceTo.getBalance());
     }
 
+    @Test
+    void transferMoney_optimisticConflictIsRetried() {
+        cardBalanceService.transferMode = TransferMode.OPTIMISTIC;
+        var user = new User();
+        user.setId(1L);
+
+        var cardFrom = new Card();
+        cardFrom.setOwnerId(1L);
+        var balanceFrom = new CardBalance();
+        balanceFrom.setBalance(BigDecimal.TEN);
+        cardFrom.setBalance(balanceFrom);
+
+        var cardTo = new Card();
+        cardTo.setOwnerId(1L);
+        var balanceTo = new CardBalance();
+        balanceTo.setBalance(BigDecimal.ZERO);
+        cardTo.setBalance(balanceTo);
+
+        when(encryptionCard.hash("1234")).thenReturn("hash1234");
+        when(encryptionCard.hash("5678")).thenReturn("hash5678");
+        when(cardRepository.findCardByNumberHash("hash1234")).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findCardByNumberHash("hash5678")).thenReturn(Optional.of(cardTo));
+        when(cardBalanceRepository.save(balanceFrom))
+                .thenThrow(new ObjectOptimisticLockingFailureException(CardBalance.class, 1L))
+                .thenReturn(balanceFrom);
+
+        cardBalanceService.transferMoney(user, "1234", "5678", BigDecimal.ONE);
+
+        verify(cardRepository, times(2)).findCardByNumberHash("hash1234");
+        verify(cardBalanceRepository).save(balanceTo);
+    }
+
+    @Test
+    void transferMoney_idempotencyKeyClaimed() {
+        var user = new User();
+        user.setId(1L);
+
+        var cardFrom = new Card();
+        cardFrom.setId(10L);
+        cardFrom.setOwnerId(1L);
+
+        var cardTo = new Card();
+        cardTo.setId(20L);
+        cardTo.setOwnerId(1L);
+
+        when(encryptionCard.hash("1234|5678|1")).thenReturn("requestHash");
+        when(encryptionCard.hash("1234")).thenReturn("hash1234");
+        when(encryptionCard.hash("5678")).thenReturn("hash5678");
+        when(transferIdempotencyService.claim(1L, "key", "requestHash")).thenReturn(true);
+        when(cardRepository.findCardByNumberHash("hash1234")).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findCardByNumberHash("hash5678")).thenReturn(Optional.of(cardTo));
+        when(cardBalanceRepository.withdraw(10L, new BigDecimal("1.00"))).thenReturn(1);
+
+        cardBalanceService.transferMoney(user, "1234", "5678", new BigDecimal("1.00"), "key");
+
+        verify(cardBalanceRepository).deposit(20L, new BigDecimal("1.00"));
+        verify(transferIdempotencyService).remember(1L, "key", "requestHash");
+    }
+
+    @Test
+    void transferMoney_idempotencyKeyAlreadyCompleted() {
+        var user = new User();
+        user.setId(1L);
+
+        when(encryptionCard.hash("1234|5678|1")).thenReturn("requestHash");
+        when(transferIdempotencyService.claim(1L, "key", "requestHash")).thenReturn(false);
+
+        cardBalanceService.transferMoney(user, "1234", "5678", BigDecimal.ONE, "key");
+
+        verifyNoInteractions(cardRepository, cardBalanceRepository);
+    }
+
+    @Test
+    void transferMoney_idempotencyKeyCached() {
+        var user = new User();
+        user.setId(1L);
+
+        when(encryptionCard.hash("1234|5678|1")).thenReturn("requestHash");
+        when(transferIdempotencyService.isCompleted(1L, "key", "requestHash")).thenReturn(true);
+
+        cardBalanceService.transferMoney(user, "1234", "5678", BigDecimal.ONE, "key");
+
+        verify(transferIdempotencyService, never()).claim(any(), any(), any());
+        verifyNoInteractions(cardRepository, cardBalanceRepository, transactionTemplate);
+    }
+
+    @Test
+    void transferMoneyBatch_partialSuccess() {
+        var user = new User();
+        user.setId(1L);
+        mockBatchCards();
+        when(cardBalanceRepository.lockBalances(Set.of(10L, 20L)))
+                .thenReturn(new HashMap<>(Map.of(10L, BigDecimal.TEN, 20L, BigDecimal.ZERO)));
+
+        var results = cardBalanceService.transferMoneyBatch(user, List.of(
+                new MoneyTransferDto("1234", "5678", new BigDecimal("6")),
+                new MoneyTransferDto("1234", "5678", new BigDecimal("6")),
+                new MoneyTransferDto("5678", "1234", new BigDecimal("5")),
+                new MoneyTransferDto("1234", "9999", BigDecimal.ONE),
+                new MoneyTransferDto("1234", "4321", BigDecimal.ONE)), false);
+
+        assertEquals(List.of(TransferResultStatus.COMPLETED, TransferResultStatus.INSUFFICIENT_BALANCE,
+                        TransferResultStatus.COMPLETED, TransferResultStatus.CARD_NOT_FOUND,
+                        TransferResultStatus.CARD_NOT_OWNED),
+                results.stream().map(TransferResultDto::getStatus).toList());
+        verify(cardRepository, times(1)).findOwnersByNumberHashIn(any());
+        verify(cardBalanceRepository).addToBalances(Map.of(10L, new BigDecimal("-1"), 20L, new BigDecimal("1")));
+        verify(cardTransactionService).recordTransfer(10L, 20L, new BigDecimal("6"));
+        verify(cardTransactionService).recordTransfer(20L, 10L, new BigDecimal("5"));
+        verifyNoMoreInteractions(cardTransactionService);
+    }
+
+    @Test
+    void transferMoneyBatch_allOrNothing() {
+        var user = new User();
+        user.setId(1L);
+        mockBatchCards();
+        when(cardBalanceRepository.lockBalances(Set.of(10L, 20L)))
+                .thenReturn(new HashMap<>(Map.of(10L, BigDecimal.TEN, 20L, BigDecimal.ZERO)));
+
+        var results = cardBalanceService.transferMoneyBatch(user, List.of(
+                new MoneyTransferDto("1234", "5678", new BigDecimal("6")),
+                new MoneyTransferDto("1234", "5678", new BigDecimal("6"))), true);
+
+        assertEquals(List.of(TransferResultStatus.ROLLED_BACK, TransferResultStatus.INSUFFICIENT_BALANCE),
+                results.stream().map(TransferResultDto::getStatus).toList());
+        verify(cardBalanceRepository, never()).addToBalances(any());
+        verifyNoInteractions(cardTransactionService);
+    }
+
+    private void mockBatchCards() {
+        when(encryptionCard.hash(anyString())).thenAnswer(invocation -> "hash" + invocation.getArgument(0));
+        when(cardRepository.findOwnersByNumberHashIn(any())).thenReturn(List.of(
+                cardOwnerView(10L, "hash1234", 1L),
+                cardOwnerView(20L, "hash5678", 1L),
+                cardOwnerView(30L, "hash4321", 2L)));
+    }
+
+    private static CardOwnerView cardOwnerView(Long id, String numberHash, Long ownerId) {
+        return new CardOwnerView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getNumberHash() {
+                return numberHash;
+            }
+
+            @Override
+            public Long getOwnerId() {
+                return ownerId;
+            }
+        };
+    }
+
     @Test
     void transferMoney_cardFromNotFound() {
         var user = new User();
         user.setId(1L);
 
-        when(encryptionCard.encrypt("1234")).thenReturn("encrypted1234");
-        when(cardRepository.findCardByNumber("encrypted1234")).thenReturn(Optional.empty());
+        when(encryptionCard.hash("1234")).thenReturn("hash1234");
+        when(cardRepository.findCardByNumberHash("hash1234")).thenReturn(Optional.empty());
 
         assertThrows(CardNotFoundException.class, () -> {
             cardBalanceService.transferMoney(user, "1234", "5678", BigDecimal.ONE);
@@ -85,10 +352,10 @@ class CardBalanceServiceTest {
         var cardFrom = new Card();
         cardFrom.setOwnerId(1L);
 
-        when(encryptionCard.encrypt("1234")).thenReturn("encrypted1234");
-        when(encryptionCard.encrypt("5678")).thenReturn("encrypted5678");
-        when(cardRepository.findCardByNumber("encrypted1234")).thenReturn(Optional.of(cardFrom));
-        when(cardRepository.findCardByNumber("encrypted5678")).thenReturn(Optional.empty());
+        when(encryptionCard.hash("1234")).thenReturn("hash1234");
+        when(encryptionCard.hash("5678")).thenReturn("hash5678");
+        when(cardRepository.findCardByNumberHash("hash1234")).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findCardByNumberHash("hash5678")).thenReturn(Optional.empty());
 
         assertThrows(CardNotFoundException.class, () -> {
             cardBalanceService.transferMoney(user, "1234", "5678", BigDecimal.ONE);
@@ -103,8 +370,8 @@ class CardBalanceServiceTest {
         var cardFrom = new Card();
         cardFrom.setOwnerId(2L);
 
-        when(encryptionCard.encrypt("1234")).thenReturn("encrypted1234");
-        when(cardRepository.findCardByNumber("encrypted1234")).thenReturn(Optional.of(cardFrom));
+        when(encryptionCard.hash("1234")).thenReturn("hash1234");
+        when(cardRepository.findCardByNumberHash("hash1234")).thenReturn(Optional.of(cardFrom));
 
         assertThrows(CardOwnerException.class, () -> {
             cardBalanceService.transferMoney(user, "1234", "5678", BigDecimal.ONE);
@@ -122,10 +389,10 @@ class CardBalanceServiceTest {
         var cardTo = new Card();
         cardTo.setOwnerId(2L);
 
-        when(encryptionCard.encrypt("1234")).thenReturn("encrypted1234");
-        when(encryptionCard.encrypt("5678")).thenReturn("encrypted5678");
-        when(cardRepository.findCardByNumber("encrypted1234")).thenReturn(Optional.of(cardFrom));
-        when(cardRepository.findCardByNumber("encrypted5678")).thenReturn(Optional.of(cardTo));
+        when(encryptionCard.hash("1234")).thenReturn("hash1234");
+        when(encryptionCard.hash("5678")).thenReturn("hash5678");
+        when(cardRepository.findCardByNumberHash("hash1234")).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findCardByNumberHash("hash5678")).thenReturn(Optional.of(cardTo));
 
         assertThrows(CardOwnerException.class, () -> {
             cardBalanceService.transferMoney(user, "1234", "5678", BigDecimal.ONE);
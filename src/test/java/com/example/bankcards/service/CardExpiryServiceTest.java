@@ -0,0 +1,85 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.AdvisoryLock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardExpiryServiceTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private AdvisoryLock advisoryLock;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionTemplate transactionTemplate;
+    private CardExpiryService cardExpiryService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionTemplate = spy(new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        cardExpiryService = new CardExpiryService(cardRepository, advisoryLock, transactionTemplate, meterRegistry);
+        cardExpiryService.chunkSize = 2;
+    }
+
+    @Test
+    void expireCards_inChunksUntilShortChunk() {
+        when(advisoryLock.runExclusively(eq("card-expiry-sweep"), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+        when(cardRepository.expireChunk(any(LocalDateTime.class), eq(2))).thenReturn(2, 2, 1);
+
+        assertEquals(5, cardExpiryService.expireCards());
+
+        verify(transactionTemplate, times(3)).execute(any());
+        verify(cardRepository, times(3)).expireChunk(any(LocalDateTime.class), eq(2));
+        assertEquals(5, meterRegistry.get("cards.expiry.expired").counter().count());
+        assertEquals(3, meterRegistry.get("cards.expiry.chunks").counter().count());
+        assertEquals(5, meterRegistry.get("cards.expiry.sweep.last").gauge().value());
+        assertEquals(1, meterRegistry.get("cards.expiry.sweep.duration").timer().count());
+    }
+
+    @Test
+    void expireCards_sameCutoffForAllChunks() {
+        when(advisoryLock.runExclusively(eq("card-expiry-sweep"), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+        when(cardRepository.expireChunk(any(LocalDateTime.class), eq(2))).thenReturn(2, 0);
+
+        cardExpiryService.expireCards();
+
+        var cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(cardRepository, times(2)).expireChunk(cutoff.capture(), eq(2));
+        assertEquals(cutoff.getAllValues().get(0), cutoff.getAllValues().get(1));
+    }
+
+    @Test
+    void expireCards_skippedWhenLockHeld() {
+        when(advisoryLock.runExclusively(eq("card-expiry-sweep"), any())).thenReturn(false);
+
+        assertEquals(0, cardExpiryService.expireCards());
+
+        verifyNoInteractions(cardRepository);
+        assertEquals(1, meterRegistry.get("cards.expiry.skipped").counter().count());
+    }
+}
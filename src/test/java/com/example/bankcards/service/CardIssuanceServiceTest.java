@@ -0,0 +1,214 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardIssuanceJobDto;
+import com.example.bankcards.dto.CardIssuanceJobStatus;
+import com.example.bankcards.exception.CardIssuanceJobNotFoundException;
+import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.repository.CardIssuanceJobRepository;
+import com.example.bankcards.repository.CardIssuanceJobRepository.RunnableJob;
+import com.example.bankcards.repository.CardNumberPoolRepository.PooledNumber;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardRepositoryCustom.NewCard;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.AdvisoryLock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardIssuanceServiceTest {
+
+    private static final List<Long> OWNERS = List.of(1L, 2L, 3L);
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CardIssuanceJobRepository cardIssuanceJobRepository;
+
+    @Mock
+    private CardNumberPoolService cardNumberPoolService;
+
+    @Mock
+    private AdvisoryLock advisoryLock;
+
+    @Captor
+    private ArgumentCaptor<List<NewCard>> chunks;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionTemplate transactionTemplate;
+    private CardIssuanceService cardIssuanceService;
+    private int taken;
+    private long nextId = 100;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionTemplate = spy(new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        cardIssuanceService = new CardIssuanceService(cardRepository, userRepository, cardIssuanceJobRepository,
+                cardNumberPoolService, advisoryLock, transactionTemplate, meterRegistry);
+        cardIssuanceService.chunkSize = 4;
+    }
+
+    @Test
+    void submit_queuesJobForDistinctSortedUsers() {
+        when(userRepository.countByIdIn(OWNERS)).thenReturn(3L);
+        when(cardIssuanceJobRepository.create(OWNERS, 3)).thenReturn(5L);
+        var job = job(CardIssuanceJobStatus.PENDING);
+        when(cardIssuanceJobRepository.findById(5L)).thenReturn(Optional.of(job));
+
+        assertSame(job, cardIssuanceService.submit(List.of(3L, 1L, 2L, 1L), 3));
+        verifyNoInteractions(cardRepository, cardNumberPoolService);
+    }
+
+    @Test
+    void submit_unknownUser() {
+        when(userRepository.countByIdIn(List.of(1L, 2L))).thenReturn(1L);
+
+        assertThrows(UserNotFoundException.class, () -> cardIssuanceService.submit(List.of(1L, 2L), 1));
+        verify(cardIssuanceJobRepository, never()).create(anyList(), anyInt());
+    }
+
+    @Test
+    void getJob_notFound() {
+        when(cardIssuanceJobRepository.findById(5L)).thenReturn(Optional.empty());
+
+        assertThrows(CardIssuanceJobNotFoundException.class, () -> cardIssuanceService.getJob(5L));
+    }
+
+    @Test
+    void runPendingJobs_issuesInChunks() {
+        holdLock();
+        stubIssuance();
+        when(cardIssuanceJobRepository.findRunnable())
+                .thenReturn(Optional.of(new RunnableJob(5L, OWNERS, 3, 9, 0)))
+                .thenReturn(Optional.empty());
+
+        assertEquals(1, cardIssuanceService.runPendingJobs());
+
+        var cards = insertedCards(List.of(4, 4, 1));
+        assertEquals(List.of(1L, 1L, 1L, 2L, 2L, 2L, 3L, 3L, 3L), cards.stream().map(NewCard::ownerId).toList());
+        assertEquals(LongStream.range(100, 109).boxed().toList(), cards.stream().map(NewCard::id).toList());
+        assertEquals(9, cards.stream().map(NewCard::numberHash).distinct().count());
+        verify(transactionTemplate, times(3)).executeWithoutResult(any());
+        InOrder inOrder = inOrder(cardIssuanceJobRepository);
+        inOrder.verify(cardIssuanceJobRepository).setStatus(5L, CardIssuanceJobStatus.RUNNING, null);
+        inOrder.verify(cardIssuanceJobRepository, times(2)).addIssued(5L, 4);
+        inOrder.verify(cardIssuanceJobRepository).addIssued(5L, 1);
+        inOrder.verify(cardIssuanceJobRepository).setStatus(5L, CardIssuanceJobStatus.COMPLETED, null);
+        assertEquals(9, meterRegistry.get("cards.issued").counter().count());
+    }
+
+    @Test
+    void runPendingJobs_continuesFromIssuedCards() {
+        holdLock();
+        stubIssuance();
+        when(cardIssuanceJobRepository.findRunnable())
+                .thenReturn(Optional.of(new RunnableJob(5L, OWNERS, 3, 9, 4)))
+                .thenReturn(Optional.empty());
+
+        cardIssuanceService.runPendingJobs();
+
+        var cards = insertedCards(List.of(4, 1));
+        assertEquals(List.of(2L, 2L, 3L, 3L, 3L), cards.stream().map(NewCard::ownerId).toList());
+        verify(cardIssuanceJobRepository).setStatus(5L, CardIssuanceJobStatus.COMPLETED, null);
+    }
+
+    @Test
+    void runPendingJobs_marksJobFailedAndKeepsEarlierChunks() {
+        holdLock();
+        stubIssuance();
+        doNothing().doThrow(new DuplicateKeyException("uq_cards_number_hash"))
+                .when(cardRepository).insertCards(anyList());
+        when(cardIssuanceJobRepository.findRunnable())
+                .thenReturn(Optional.of(new RunnableJob(5L, OWNERS, 3, 9, 0)))
+                .thenReturn(Optional.empty());
+
+        assertEquals(1, cardIssuanceService.runPendingJobs());
+
+        verify(cardIssuanceJobRepository).addIssued(5L, 4);
+        verify(cardIssuanceJobRepository).setStatus(eq(5L), eq(CardIssuanceJobStatus.FAILED),
+                startsWith(DuplicateKeyException.class.getName()));
+        verify(cardIssuanceJobRepository, never()).setStatus(5L, CardIssuanceJobStatus.COMPLETED, null);
+        assertEquals(4, meterRegistry.get("cards.issued").counter().count());
+    }
+
+    @Test
+    void runPendingJobs_skippedWhileAnotherInstanceRunsThem() {
+        when(advisoryLock.runExclusively(eq("card-issuance"), any())).thenReturn(false);
+
+        assertEquals(0, cardIssuanceService.runPendingJobs());
+        verify(cardIssuanceJobRepository, never()).findRunnable();
+    }
+
+    @Test
+    void resume_returnsJob() {
+        when(cardIssuanceJobRepository.resume(5L)).thenReturn(true);
+        var job = job(CardIssuanceJobStatus.PENDING);
+        when(cardIssuanceJobRepository.findById(5L)).thenReturn(Optional.of(job));
+
+        assertSame(job, cardIssuanceService.resume(5L));
+    }
+
+    private void holdLock() {
+        when(advisoryLock.runExclusively(eq("card-issuance"), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+    }
+
+    private void stubIssuance() {
+        when(cardNumberPoolService.take(anyInt())).thenAnswer(invocation -> numbers(invocation.getArgument(0)));
+        when(cardRepository.nextIds(anyInt())).thenAnswer(invocation -> {
+            int count = invocation.getArgument(0);
+            var ids = LongStream.range(nextId, nextId + count).boxed().toList();
+            nextId += count;
+            return ids;
+        });
+    }
+
+    private List<NewCard> insertedCards(List<Integer> chunkSizes) {
+        verify(cardRepository, times(chunkSizes.size())).insertCards(chunks.capture());
+        assertEquals(chunkSizes, chunks.getAllValues().stream().map(List::size).toList());
+        return chunks.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    private List<PooledNumber> numbers(int count) {
+        var numbers = new ArrayList<PooledNumber>();
+        for (int i = 0; i < count; i++) {
+            numbers.add(new PooledNumber("number", "hash-" + taken++));
+        }
+        return numbers;
+    }
+
+    private static CardIssuanceJobDto job(CardIssuanceJobStatus status) {
+        var now = LocalDateTime.now();
+        return new CardIssuanceJobDto(5L, status, 9, 0, null, now, now);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardNumberPoolRepository;
+import com.example.bankcards.repository.CardNumberPoolRepository.PooledNumber;
+import com.example.bankcards.util.AdvisoryLock;
+import com.example.bankcards.util.EncryptionCard;
+import com.example.bankcards.util.Luhn;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardNumberPoolServiceTest {
+
+    @Mock
+    private CardNumberPoolRepository cardNumberPoolRepository;
+
+    @Mock
+    private EncryptionCard encryptionCard;
+
+    @Mock
+    private AdvisoryLock advisoryLock;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CardNumberPoolService cardNumberPoolService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cardNumberPoolService = new CardNumberPoolService(cardNumberPoolRepository, encryptionCard,
+                advisoryLock, meterRegistry, "400000", 25, 10, 10);
+    }
+
+    @Test
+    void take_fromPool() {
+        var numbers = List.of(new PooledNumber("n1", "h1"), new PooledNumber("n2", "h2"));
+        when(cardNumberPoolRepository.take(2)).thenReturn(numbers);
+
+        assertEquals(numbers, cardNumberPoolService.take(2));
+        verify(cardNumberPoolRepository, never()).add(anyList());
+        assertEquals(0, meterRegistry.get("cards.number.pool.shortfalls").counter().count());
+    }
+
+    @Test
+    void take_generatesMissingNumbers() {
+        when(encryptionCard.encrypt(anyString())).thenAnswer(invocation -> "enc:" + invocation.getArgument(0));
+        when(encryptionCard.hash(anyString())).thenAnswer(invocation -> "hash:" + invocation.getArgument(0));
+        when(cardNumberPoolRepository.take(3)).thenReturn(List.of(new PooledNumber("n1", "h1")));
+        when(cardNumberPoolRepository.take(2)).thenReturn(List.of(new PooledNumber("n2", "h2"),
+                new PooledNumber("n3", "h3")));
+
+        var numbers = cardNumberPoolService.take(3);
+
+        assertEquals(3, numbers.size());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PooledNumber>> added = ArgumentCaptor.forClass(List.class);
+        verify(cardNumberPoolRepository).add(added.capture());
+        assertEquals(2, added.getValue().size());
+        added.getValue().forEach(number -> {
+            var plain = number.number().substring("enc:".length());
+            assertTrue(plain.startsWith("400000"));
+            assertTrue(Luhn.isValid(plain), plain);
+            assertEquals("hash:" + plain, number.numberHash());
+        });
+        assertEquals(1, meterRegistry.get("cards.number.pool.shortfalls").counter().count());
+    }
+
+    @Test
+    void take_failsWhenNoNumbersCanBeAdded() {
+        when(encryptionCard.encrypt(anyString())).thenReturn("enc");
+        when(encryptionCard.hash(anyString())).thenReturn("hash");
+        when(cardNumberPoolRepository.take(1)).thenReturn(List.of());
+
+        assertThrows(IllegalStateException.class, () -> cardNumberPoolService.take(1));
+    }
+
+    @Test
+    void refill_aboveLowWatermark() {
+        holdLock();
+        when(cardNumberPoolRepository.count()).thenReturn(10L);
+
+        assertEquals(0, cardNumberPoolService.refill());
+        verify(cardNumberPoolRepository, never()).add(anyList());
+    }
+
+    @Test
+    void refill_topsUpToTargetInBatches() {
+        holdLock();
+        when(encryptionCard.encrypt(anyString())).thenReturn("enc");
+        when(encryptionCard.hash(anyString())).thenReturn("hash");
+        when(cardNumberPoolRepository.count()).thenReturn(4L);
+
+        assertEquals(21, cardNumberPoolService.refill());
+
+        verify(cardNumberPoolRepository, times(2)).add(argThat(numbers -> numbers.size() == 10));
+        verify(cardNumberPoolRepository).add(argThat(numbers -> numbers.size() == 1));
+        assertEquals(21, meterRegistry.get("cards.number.pool.generated").counter().count());
+    }
+
+    @Test
+    void refill_skippedWhileAnotherInstanceRefills() {
+        when(advisoryLock.runExclusively(eq("card-number-pool-refill"), any())).thenReturn(false);
+
+        assertEquals(0, cardNumberPoolService.refill());
+        verify(cardNumberPoolRepository, never()).count();
+        verify(cardNumberPoolRepository, never()).add(anyList());
+        assertEquals(1, meterRegistry.get("cards.number.pool.refill.skipped").counter().count());
+    }
+
+    private void holdLock() {
+        when(advisoryLock.runExclusively(eq("card-number-pool-refill"), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+    }
+}
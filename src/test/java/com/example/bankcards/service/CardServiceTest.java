@@ -6,32 +6,54 @@ import static org.mockito.Mockito.*;
 
 import com.example.bankcards.dto.AdminCardDto;
 import com.example.bankcards.dto.CardBlockRequestDto;
+import com.example.bankcards.dto.CardFilter;
 import com.example.bankcards.dto.PaginationDto;
 import com.example.bankcards.dto.UserCardDto;
 import com.example.bankcards.entity.*;
 import com.example.bankcards.exception.CardBlockRequestNotFoundException;
+import com.example.bankcards.exception.CardExpiredException;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.CardOwnerException;
+import com.example.bankcards.exception.InvalidCursorException;
 import com.example.bankcards.mapper.CardBlockRequestMapper;
 import com.example.bankcards.mapper.CardMapper;
 import com.example.bankcards.repository.CardBlockRequestRepository;
+import com.example.bankcards.repository.CardNumberPoolRepository.PooledNumber;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.CardNumberOwnerView;
+import com.example.bankcards.repository.projection.CardNumberView;
+import com.example.bankcards.repository.projection.UserCardView;
+import com.example.bankcards.util.CursorCodec;
 import com.example.bankcards.util.EncryptionCard;
+import com.example.bankcards.util.NdjsonWriter;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ExtendWith(MockitoExtension.class)
 class CardServiceTest {
 
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
     @InjectMocks
     private CardService cardService;
 
@@ -50,41 +72,102 @@ class CardServiceTest {
     @Mock
     private CardBlockRequestRepository cardBlockRequestRepository;
 
+    @Mock
+    private NdjsonWriter ndjsonWriter;
+
+    @Mock
+    private CardNumberPoolService cardNumberPoolService;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @Test
     void blockUserCards() {
-        var user = new User();
-        var card = new Card();
-        card.setStatus(CardStatus.ACTIVE);
-        user.setCards(Collections.singletonList(card));
+        when(cardRepository.updateStatusByOwnerId(1L, CardStatus.BLOCKED)).thenReturn(3);
 
-        cardService.blockUserCards(user);
+        assertEquals(3, cardService.blockUserCards(1L));
+    }
+
+    @Test
+    void changeCardStatuses_byIdsInSortedChunks() {
+        cardService.bulkChunkSize = 2;
+        when(cardRepository.updateStatusByIdIn(List.of(1L, 2L), CardStatus.BLOCKED)).thenReturn(2);
+        when(cardRepository.updateStatusByIdIn(List.of(3L), CardStatus.BLOCKED)).thenReturn(0);
 
-        assertEquals(CardStatus.BLOCKED, card.getStatus());
+        var updated = cardService.changeCardStatuses(List.of(3L, 1L, 2L, 1L), null, CardStatus.BLOCKED);
+
+        assertEquals(2, updated);
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void changeCardStatuses_byFilterUntilShortChunk() {
+        cardService.bulkChunkSize = 2;
+        var filter = new CardFilter(CardStatus.ACTIVE, 1L, null, null);
+        when(cardRepository.updateStatusChunk(filter, CardStatus.BLOCKED, 2)).thenReturn(2, 2, 1);
+
+        var updated = cardService.changeCardStatuses(null, filter, CardStatus.BLOCKED);
+
+        assertEquals(5, updated);
+        verify(cardRepository, times(3)).updateStatusChunk(filter, CardStatus.BLOCKED, 2);
     }
 
     @Test
     void createCardForUser() {
-        when(encryptionCard.encrypt(anyString())).thenReturn("encryptedCardNumber");
-        when(cardRepository.findCardByNumber(anyString())).thenReturn(Optional.empty());
+        when(cardNumberPoolService.take(1))
+                .thenReturn(List.of(new PooledNumber("encryptedCardNumber", "cardNumberHash")));
 
         cardService.createCardForUser(1L);
 
-        verify(cardRepository).save(any(Card.class));
+        verify(cardRepository).save(argThat(card -> "cardNumberHash".equals(card.getNumberHash())
+                && "encryptedCardNumber".equals(card.getNumber())
+                && card.getBalance() != null));
+    }
+
+    @Test
+    void backfillNumberHashes() {
+        var card = mock(CardNumberView.class);
+        when(card.getId()).thenReturn(1L);
+        when(card.getNumber()).thenReturn("encryptedNumber");
+        when(cardRepository.findWithoutNumberHash(any(PageRequest.class))).thenReturn(List.of(card));
+        when(encryptionCard.decrypt("encryptedNumber")).thenReturn("1234567812345678");
+        when(encryptionCard.hash("1234567812345678")).thenReturn("cardNumberHash");
+
+        var result = cardService.backfillNumberHashes(100);
+
+        assertEquals(1, result);
+        verify(cardRepository).updateNumberHash(1L, "cardNumberHash");
     }
 
     @Test
     void changeCardStatus_success() {
-        var card = new Card();
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
+        when(cardRepository.updateStatusByIdIn(List.of(1L), CardStatus.BLOCKED)).thenReturn(1);
 
         cardService.changeCardStatus(1L, CardStatus.BLOCKED);
 
-        verify(cardRepository).save(card);
-        assertEquals(CardStatus.BLOCKED, card.getStatus());
+        verify(cardRepository).updateStatusByIdIn(List.of(1L), CardStatus.BLOCKED);
+        verify(cardRepository, never()).findById(any());
+    }
+
+    @Test
+    void changeCardStatus_alreadyInStatus() {
+        when(cardRepository.updateStatusByIdIn(List.of(1L), CardStatus.BLOCKED)).thenReturn(0);
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(Card.builder().status(CardStatus.BLOCKED).build()));
+
+        assertDoesNotThrow(() -> cardService.changeCardStatus(1L, CardStatus.BLOCKED));
+    }
+
+    @Test
+    void changeCardStatus_expired() {
+        when(cardRepository.updateStatusByIdIn(List.of(1L), CardStatus.ACTIVE)).thenReturn(0);
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(Card.builder().status(CardStatus.EXPIRED).build()));
+
+        assertThrows(CardExpiredException.class, () -> cardService.changeCardStatus(1L, CardStatus.ACTIVE));
     }
 
     @Test
     void changeCardStatus_cardNotFound() {
+        when(cardRepository.updateStatusByIdIn(List.of(1L), CardStatus.BLOCKED)).thenReturn(0);
         when(cardRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(CardNotFoundException.class, () -> {
@@ -113,28 +196,50 @@ class CardServiceTest {
 
     @Test
     void getAllCards() {
-        var card = new Card();
+        var filter = new CardFilter(CardStatus.ACTIVE, 1L, null, null);
+        var card = new AdminCardDto();
         card.setNumber("encryptedNumber");
-        when(cardRepository.findAll()).thenReturn(Collections.singletonList(card));
-        when(encryptionCard.decrypt("encryptedNumber")).thenReturn("decryptedNumber");
-        when(cardMapper.toAdminCardDto(card)).thenReturn(new AdminCardDto());
+        when(cardRepository.findAdminCards(filter, 20, 10)).thenReturn(List.of(card));
+        when(cardRepository.countAdminCards(filter)).thenReturn(21L);
+        when(encryptionCard.decryptAll(List.of("encryptedNumber"))).thenReturn(List.of("1234567812345678"));
 
-        var result = cardService.getAllCards();
+        var result = cardService.getAllCards(filter, 2, 10);
 
-        assertEquals(1, result.size());
-        assertEquals("decryptedNumber", card.getNumber());
+        assertEquals(1, result.getElements().size());
+        assertEquals("**** **** **** 5678", result.getElements().get(0).getNumber());
+        assertEquals(21L, result.getTotalElements());
+        assertEquals(3, result.getTotalPages());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamAllCards() throws Exception {
+        var filter = new CardFilter(null, null, null, null);
+        var card = new AdminCardDto();
+        card.setNumber("encryptedNumber");
+        when(cardRepository.streamAdminCards(filter)).thenReturn(Stream.of(card));
+        when(encryptionCard.decrypt("encryptedNumber")).thenReturn("1234567812345678");
+        var written = new ArrayList<AdminCardDto>();
+        when(ndjsonWriter.write(any(), any())).thenAnswer(invocation -> {
+            ((Stream<AdminCardDto>) invocation.getArgument(0)).forEach(written::add);
+            return (long) written.size();
+        });
+
+        cardService.streamAllCards(filter, new ByteArrayOutputStream());
+
+        assertEquals(1, written.size());
+        assertEquals("**** **** **** 5678", written.get(0).getNumber());
     }
 
     @Test
     void getUserCards_noSearch() {
         var user = new User();
         user.setId(1L);
-        var card = new Card();
-        card.setNumber("encryptedNumber");
+        var card = PROJECTIONS.createProjection(UserCardView.class, Map.of("number", "encryptedNumber"));
         var page = new PageImpl<>(Collections.singletonList(card));
-        when(cardRepository.findByOwnerId(eq(1L), any(PageRequest.class))).thenReturn(page);
-        when(encryptionCard.decrypt("encryptedNumber")).thenReturn("decryptedNumber");
-        when(cardMapper.toUserCardDto(card)).thenReturn(new UserCardDto());
+        when(cardRepository.findUserCardsByOwnerId(eq(1L), any(PageRequest.class))).thenReturn(page);
+        when(encryptionCard.decryptAll(List.of("encryptedNumber"))).thenReturn(List.of("decryptedNumber"));
+        when(cardMapper.toUserCardDto(card, "decryptedNumber")).thenReturn(new UserCardDto());
 
         var result = cardService.getUserCards(user, null, 0, 10);
 
@@ -145,19 +250,63 @@ class CardServiceTest {
     void getUserCards_withSearch() {
         var user = new User();
         user.setId(1L);
-        var card = new Card();
-        card.setNumber("encryptedNumber");
+        var card = PROJECTIONS.createProjection(UserCardView.class, Map.of("number", "encryptedNumber"));
         var page = new PageImpl<>(Collections.singletonList(card));
         when(encryptionCard.encrypt("search")).thenReturn("encryptedSearch");
-        when(cardRepository.findByOwnerIdAndNumberContaining(eq(1L), eq("encryptedSearch"), any(PageRequest.class))).thenReturn(page);
-        when(encryptionCard.decrypt("encryptedNumber")).thenReturn("decryptedNumber");
-        when(cardMapper.toUserCardDto(card)).thenReturn(new UserCardDto());
+        when(cardRepository.findUserCardsByOwnerIdAndNumberContaining(eq(1L), eq("encryptedSearch"), any(PageRequest.class))).thenReturn(page);
+        when(encryptionCard.decryptAll(List.of("encryptedNumber"))).thenReturn(List.of("decryptedNumber"));
+        when(cardMapper.toUserCardDto(card, "decryptedNumber")).thenReturn(new UserCardDto());
 
         var result = cardService.getUserCards(user, "search", 0, 10);
 
         assertEquals(1, result.getElements().size());
     }
 
+    @Test
+    void getUserCardsByCursor_firstPage() {
+        var user = new User();
+        user.setId(1L);
+        var createdAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        var first = card(5L, createdAt);
+        var second = card(4L, createdAt);
+        when(cardRepository.findFirstPageByOwnerId(1L, Limit.of(2))).thenReturn(List.of(first, second));
+        when(encryptionCard.decryptAll(List.of("encrypted5", "encrypted4"))).thenReturn(List.of("5", "4"));
+        when(cardMapper.toUserCardDto(any(), any())).thenReturn(new UserCardDto());
+
+        var result = cardService.getUserCardsByCursor(user, null, 2, false);
+
+        assertEquals(2, result.getElements().size());
+        assertEquals(CursorCodec.encode(createdAt, 4L), result.getNextCursor());
+        assertNull(result.getTotalElements());
+        verify(cardRepository, never()).countByOwnerId(any());
+    }
+
+    @Test
+    void getUserCardsByCursor_lastPageWithTotal() {
+        var user = new User();
+        user.setId(1L);
+        var createdAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        var card = card(3L, createdAt);
+        when(cardRepository.findPageAfterByOwnerId(1L, createdAt, 4L, Limit.of(2))).thenReturn(List.of(card));
+        when(encryptionCard.decryptAll(List.of("encrypted3"))).thenReturn(List.of("3"));
+        when(cardMapper.toUserCardDto(card, "3")).thenReturn(new UserCardDto());
+        when(cardRepository.countByOwnerId(1L)).thenReturn(3L);
+
+        var result = cardService.getUserCardsByCursor(user, CursorCodec.encode(createdAt, 4L), 2, true);
+
+        assertEquals(1, result.getElements().size());
+        assertNull(result.getNextCursor());
+        assertEquals(3L, result.getTotalElements());
+    }
+
+    @Test
+    void getUserCardsByCursor_invalidCursor() {
+        var user = new User();
+        user.setId(1L);
+
+        assertThrows(InvalidCursorException.class, () -> cardService.getUserCardsByCursor(user, "%%%", 2, false));
+    }
+
     @Test
     void createCardBlockRequest_success() {
         var user = new User();
@@ -165,21 +314,21 @@ class CardServiceTest {
         user.setName("name");
         user.setLastName("lastName");
         user.setSurname("surname");
-        var card = new Card();
-        card.setOwnerId(1L);
-        card.setNumber("encryptedNumber");
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
+        var card = PROJECTIONS.createProjection(
+                CardNumberOwnerView.class, Map.of("number", "encryptedNumber", "ownerId", 1L));
+        when(cardRepository.findNumberAndOwnerById(1L)).thenReturn(Optional.of(card));
         when(encryptionCard.decrypt("encryptedNumber")).thenReturn("1234567812345678");
 
         cardService.createCardBlockRequest(user, 1L);
 
-        verify(cardBlockRequestRepository).save(any(CardBlockRequest.class));
+        verify(cardBlockRequestRepository).save(argThat(request -> "**** **** **** 5678".equals(request.getCardNumber())));
+        verify(cardRepository, never()).findById(any());
     }
 
     @Test
     void createCardBlockRequest_cardNotFound() {
         var user = new User();
-        when(cardRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cardRepository.findNumberAndOwnerById(1L)).thenReturn(Optional.empty());
 
         assertThrows(CardNotFoundException.class, () -> {
             cardService.createCardBlockRequest(user, 1L);
@@ -190,9 +339,9 @@ class CardServiceTest {
     void createCardBlockRequest_cardNotOwned() {
         var user = new User();
         user.setId(1L);
-        var card = new Card();
-        card.setOwnerId(2L);
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
+        var card = PROJECTIONS.createProjection(
+                CardNumberOwnerView.class, Map.of("number", "encryptedNumber", "ownerId", 2L));
+        when(cardRepository.findNumberAndOwnerById(1L)).thenReturn(Optional.of(card));
 
         assertThrows(CardOwnerException.class, () -> {
             cardService.createCardBlockRequest(user, 1L);
@@ -210,6 +359,20 @@ class CardServiceTest {
         assertEquals(1, result.size());
     }
 
+    @Test
+    void getBlockRequestsByStatus() {
+        var request = new CardBlockRequest();
+        when(cardBlockRequestRepository.findAllByStatusOrderByCreatedAtAscIdAsc(CardBlockRequestStatus.CREATED,
+                PageRequest.of(1, 10))).thenReturn(new PageImpl<>(List.of(request), PageRequest.of(1, 10), 11));
+        when(cardBlockRequestMapper.toDto(request)).thenReturn(new CardBlockRequestDto());
+
+        var result = cardService.getBlockRequestsByStatus(CardBlockRequestStatus.CREATED, 1, 10);
+
+        assertEquals(2, result.getTotalPages());
+        assertEquals(11, result.getTotalElements());
+        assertEquals(1, result.getElements().size());
+    }
+
     @Test
     void setBlockRequestStatus_success() {
         var request = new CardBlockRequest();
@@ -229,4 +392,9 @@ class CardServiceTest {
             cardService.setBlockRequestStatus(1L, CardBlockRequestStatus.DONE);
         });
     }
+
+    private static UserCardView card(Long id, LocalDateTime createdAt) {
+        return PROJECTIONS.createProjection(
+                UserCardView.class, Map.of("id", id, "number", "encrypted" + id, "createdAt", createdAt));
+    }
 }
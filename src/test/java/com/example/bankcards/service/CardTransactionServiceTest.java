@@ -0,0 +1,118 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.entity.CardTransactionType;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.CardOwnerException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.util.CursorCodec;
+import com.example.bankcards.util.NdjsonWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardTransactionServiceTest {
+
+    @InjectMocks
+    private CardTransactionService cardTransactionService;
+
+    @Mock
+    private CardTransactionRepository cardTransactionRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private NdjsonWriter ndjsonWriter;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordTransfer_writesDebitAndCredit() {
+        cardTransactionService.recordTransfer(10L, 20L, BigDecimal.TEN);
+
+        ArgumentCaptor<List<CardTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(cardTransactionRepository).saveAll(captor.capture());
+        var entries = captor.getValue();
+        assertEquals(2, entries.size());
+        assertEquals(CardTransactionType.DEBIT, entries.get(0).getType());
+        assertEquals(10L, entries.get(0).getCardId());
+        assertEquals(20L, entries.get(0).getCounterpartyCardId());
+        assertEquals(CardTransactionType.CREDIT, entries.get(1).getType());
+        assertEquals(20L, entries.get(1).getCardId());
+        assertEquals(entries.get(0).getTransferId(), entries.get(1).getTransferId());
+    }
+
+    @Test
+    void getCardTransactions_firstPage() {
+        var user = new User();
+        user.setId(1L);
+        var createdAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        when(cardRepository.findOwnerIdById(10L)).thenReturn(Optional.of(1L));
+        when(cardTransactionRepository.findFirstPage(10L, Limit.of(2)))
+                .thenReturn(List.of(transaction(5L, createdAt), transaction(4L, createdAt)));
+
+        var result = cardTransactionService.getCardTransactions(user, 10L, null, 2, false);
+
+        assertEquals(2, result.getElements().size());
+        assertEquals(CursorCodec.encode(createdAt, 4L), result.getNextCursor());
+        assertNull(result.getTotalElements());
+        verify(cardTransactionRepository, never()).countByCardId(any());
+    }
+
+    @Test
+    void getCardTransactions_lastPageWithTotal() {
+        var user = new User();
+        user.setId(1L);
+        var createdAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        when(cardRepository.findOwnerIdById(10L)).thenReturn(Optional.of(1L));
+        when(cardTransactionRepository.findPageAfter(10L, createdAt, 4L, Limit.of(2)))
+                .thenReturn(List.of(transaction(3L, createdAt)));
+        when(cardTransactionRepository.countByCardId(10L)).thenReturn(3L);
+
+        var result = cardTransactionService.getCardTransactions(
+                user, 10L, CursorCodec.encode(createdAt, 4L), 2, true);
+
+        assertEquals(1, result.getElements().size());
+        assertNull(result.getNextCursor());
+        assertEquals(3L, result.getTotalElements());
+    }
+
+    @Test
+    void checkCardOwner_cardNotFound() {
+        var user = new User();
+        user.setId(1L);
+        when(cardRepository.findOwnerIdById(10L)).thenReturn(Optional.empty());
+
+        assertThrows(CardNotFoundException.class, () -> cardTransactionService.checkCardOwner(user, 10L));
+    }
+
+    @Test
+    void checkCardOwner_cardNotOwned() {
+        var user = new User();
+        user.setId(1L);
+        when(cardRepository.findOwnerIdById(10L)).thenReturn(Optional.of(2L));
+
+        assertThrows(CardOwnerException.class, () -> cardTransactionService.checkCardOwner(user, 10L));
+    }
+
+    private static CardTransactionDto transaction(Long id, LocalDateTime createdAt) {
+        return new CardTransactionDto(id, UUID.randomUUID(), 20L, CardTransactionType.DEBIT, BigDecimal.ONE, createdAt);
+    }
+}
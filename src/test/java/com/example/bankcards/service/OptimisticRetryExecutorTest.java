@@ -0,0 +1,64 @@
+package com.example.bankcards.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticRetryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new OptimisticRetryExecutor(meterRegistry, 3, Duration.ofMillis(1), Duration.ofMillis(2));
+    }
+
+    @Test
+    void execute_retriesConflicts() {
+        var calls = new AtomicInteger();
+
+        var result = executor.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("conflict");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, meterRegistry.get("transfer.optimistic.retries").counter().count());
+    }
+
+    @Test
+    void execute_givesUpAfterMaxAttempts() {
+        var calls = new AtomicInteger();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> executor.execute(() -> {
+            calls.incrementAndGet();
+            throw new OptimisticLockingFailureException("conflict");
+        }));
+
+        assertEquals(3, calls.get());
+        assertEquals(1, meterRegistry.get("transfer.optimistic.exhausted").counter().count());
+    }
+
+    @Test
+    void execute_doesNotRetryOtherExceptions() {
+        var calls = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> executor.execute(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.RefreshTokenRevocationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenRevocationServiceTest {
+
+    @Mock
+    private RefreshTokenRevocationRepository refreshTokenRevocationRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RefreshTokenRevocationService refreshTokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        refreshTokenRevocationService = new RefreshTokenRevocationService(refreshTokenRevocationRepository,
+                meterRegistry, 1000, 0.01);
+    }
+
+    @Test
+    void isRevoked_unknownTokenSkipsDatabase() {
+        assertFalse(refreshTokenRevocationService.isRevoked(UUID.randomUUID()));
+
+        verifyNoInteractions(refreshTokenRevocationRepository);
+        assertEquals(1, checks("memory"));
+    }
+
+    @Test
+    void isRevoked_revokedTokenIsConfirmedByDatabase() {
+        var jti = UUID.randomUUID();
+        var expiresAt = LocalDateTime.now().plusDays(1);
+        when(refreshTokenRevocationRepository.revoke(eq(jti), eq(1L), any(), eq(expiresAt))).thenReturn(1);
+        when(refreshTokenRevocationRepository.existsById(jti)).thenReturn(true);
+
+        assertTrue(refreshTokenRevocationService.revoke(jti, 1L, expiresAt));
+        assertTrue(refreshTokenRevocationService.isRevoked(jti));
+        assertEquals(1, checks("database"));
+    }
+
+    @Test
+    void revoke_alreadyRevoked() {
+        var jti = UUID.randomUUID();
+        when(refreshTokenRevocationRepository.revoke(eq(jti), eq(1L), any(), any())).thenReturn(0);
+
+        assertFalse(refreshTokenRevocationService.revoke(jti, 1L, LocalDateTime.now().plusDays(1)));
+    }
+
+    @Test
+    void load_fillsFilterFromDatabase() {
+        var jti = UUID.randomUUID();
+        when(refreshTokenRevocationRepository.findActiveJtis(any())).thenReturn(List.of(jti));
+        when(refreshTokenRevocationRepository.existsById(jti)).thenReturn(true);
+
+        refreshTokenRevocationService.load();
+
+        assertTrue(refreshTokenRevocationService.isRevoked(jti));
+    }
+
+    @Test
+    void deleteExpired_rebuildsFilter() {
+        var jti = UUID.randomUUID();
+        when(refreshTokenRevocationRepository.revoke(eq(jti), eq(1L), any(), any())).thenReturn(1);
+        refreshTokenRevocationService.revoke(jti, 1L, LocalDateTime.now().plusDays(1));
+        when(refreshTokenRevocationRepository.deleteExpired(any())).thenReturn(1);
+        when(refreshTokenRevocationRepository.findActiveJtis(any())).thenReturn(List.of());
+
+        assertEquals(1, refreshTokenRevocationService.deleteExpired());
+        assertFalse(refreshTokenRevocationService.isRevoked(jti));
+        verify(refreshTokenRevocationRepository, never()).existsById(jti);
+    }
+
+    private double checks(String source) {
+        return meterRegistry.get("auth.refresh.revocation.checks").tag("source", source).counter().count();
+    }
+}
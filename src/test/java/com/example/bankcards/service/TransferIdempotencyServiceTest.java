@@ -0,0 +1,88 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.TransferIdempotencyKey;
+import com.example.bankcards.entity.TransferIdempotencyKeyId;
+import com.example.bankcards.exception.IdempotencyKeyReuseException;
+import com.example.bankcards.repository.TransferIdempotencyKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferIdempotencyServiceTest {
+
+    @Mock
+    private TransferIdempotencyKeyRepository transferIdempotencyKeyRepository;
+
+    private TransferIdempotencyService transferIdempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        transferIdempotencyService = new TransferIdempotencyService(transferIdempotencyKeyRepository, Duration.ofHours(1), 100);
+    }
+
+    @Test
+    void claim_newKey() {
+        when(transferIdempotencyKeyRepository.claim(eq(1L), eq("key"), eq("hash"),
+                eq(TransferIdempotencyKey.RESULT_COMPLETED), any(), any())).thenReturn(1);
+
+        assertTrue(transferIdempotencyService.claim(1L, "key", "hash"));
+        verify(transferIdempotencyKeyRepository, never()).findById(any());
+    }
+
+    @Test
+    void claim_completedKey() {
+        when(transferIdempotencyKeyRepository.claim(eq(1L), eq("key"), eq("hash"),
+                eq(TransferIdempotencyKey.RESULT_COMPLETED), any(), any())).thenReturn(0);
+        when(transferIdempotencyKeyRepository.findById(new TransferIdempotencyKeyId(1L, "key")))
+                .thenReturn(Optional.of(storedKey("hash")));
+
+        assertFalse(transferIdempotencyService.claim(1L, "key", "hash"));
+        assertTrue(transferIdempotencyService.isCompleted(1L, "key", "hash"));
+    }
+
+    @Test
+    void claim_keyUsedForAnotherRequest() {
+        when(transferIdempotencyKeyRepository.claim(eq(1L), eq("key"), eq("hash"),
+                eq(TransferIdempotencyKey.RESULT_COMPLETED), any(), any())).thenReturn(0);
+        when(transferIdempotencyKeyRepository.findById(new TransferIdempotencyKeyId(1L, "key")))
+                .thenReturn(Optional.of(storedKey("otherHash")));
+
+        assertThrows(IdempotencyKeyReuseException.class, () -> transferIdempotencyService.claim(1L, "key", "hash"));
+    }
+
+    @Test
+    void isCompleted_answeredFromCache() {
+        assertFalse(transferIdempotencyService.isCompleted(1L, "key", "hash"));
+
+        transferIdempotencyService.remember(1L, "key", "hash");
+
+        assertTrue(transferIdempotencyService.isCompleted(1L, "key", "hash"));
+        assertFalse(transferIdempotencyService.isCompleted(2L, "key", "hash"));
+        assertThrows(IdempotencyKeyReuseException.class,
+                () -> transferIdempotencyService.isCompleted(1L, "key", "otherHash"));
+        verifyNoInteractions(transferIdempotencyKeyRepository);
+    }
+
+    private static TransferIdempotencyKey storedKey(String requestHash) {
+        var now = LocalDateTime.now();
+        return TransferIdempotencyKey.builder()
+                .id(new TransferIdempotencyKeyId(1L, "key"))
+                .requestHash(requestHash)
+                .result(TransferIdempotencyKey.RESULT_COMPLETED)
+                .createdAt(now)
+                .expiresAt(now.plusHours(1))
+                .build();
+    }
+}
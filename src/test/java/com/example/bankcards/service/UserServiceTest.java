@@ -1,21 +1,33 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.ExportFormat;
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.UserFilter;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.UserStatus;
 import com.example.bankcards.exception.UserAlreadyExistException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CsvWriter;
+import com.example.bankcards.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -36,6 +48,15 @@ class UserServiceTest {
     @Mock
     private CardService cardService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private NdjsonWriter ndjsonWriter = new NdjsonWriter(new ObjectMapper().findAndRegisterModules());
+
+    @Spy
+    private CsvWriter csvWriter = new CsvWriter();
+
     @Test
     void userRegistration_newUser() {
         var user = new User();
@@ -87,8 +108,9 @@ class UserServiceTest {
 
         userService.deleteUser(1L);
 
-        verify(cardService).blockUserCards(user);
+        verify(cardService).blockUserCards(1L);
         verify(userRepository).save(user);
+        verify(eventPublisher).publishEvent(new UserChangedEvent(1L));
     }
 
     @Test
@@ -102,11 +124,43 @@ class UserServiceTest {
 
     @Test
     void getAllUsers() {
-        when(userRepository.findAll()).thenReturn(Collections.singletonList(new User()));
+        var filter = new UserFilter(UserStatus.ACTIVE, null, "adm", null, null);
+        when(userRepository.countUsers(filter)).thenReturn(11L);
+        when(userRepository.findUserDtos(filter, 10, 5)).thenReturn(List.of(userDto()));
+
+        var result = userService.getAllUsers(filter, 2, 5);
 
-        var result = userService.getAllUsers();
+        assertEquals(1, result.getElements().size());
+        assertEquals(11L, result.getTotalElements());
+        assertEquals(3, result.getTotalPages());
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void streamUsers_csv() throws Exception {
+        var filter = new UserFilter(null, null, null, null, null);
+        when(userRepository.streamUserDtos(filter)).thenReturn(Stream.of(userDto()));
+        var out = new ByteArrayOutputStream();
 
-        assertEquals(1, result.size());
+        userService.streamUsers(filter, ExportFormat.CSV, out);
+
+        assertEquals(
+                "id,login,name,lastName,surname,status,role,createdAt\r\n"
+                        + "1,admin@example.com,name,lastName,surname,ACTIVE,ADMIN,2025-01-01T12:00\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void streamUsers_ndjson() throws Exception {
+        var filter = new UserFilter(null, null, null, null, null);
+        when(userRepository.streamUserDtos(filter)).thenReturn(Stream.of(userDto(), userDto()));
+        var out = new ByteArrayOutputStream();
+
+        userService.streamUsers(filter, ExportFormat.NDJSON, out);
+
+        var lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"login\":\"admin@example.com\""));
     }
 
     @Test
@@ -117,6 +171,7 @@ class UserServiceTest {
         userService.updateUser(user);
 
         verify(userRepository).update(any(), any(), any(), any(), any(), eq(1L));
+        verify(eventPublisher).publishEvent(new UserChangedEvent(1L));
     }
 
     @Test
@@ -128,6 +183,7 @@ class UserServiceTest {
         userService.changeUserPassword(1L, "newPassword");
 
         verify(userRepository).updatePassword("encodedPassword", 1L);
+        verify(eventPublisher).publishEvent(new UserChangedEvent(1L));
     }
 
     @Test
@@ -141,17 +197,17 @@ class UserServiceTest {
 
     @Test
     void blockUserCards_success() {
-        var user = new User();
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.existsById(1L)).thenReturn(true);
 
         userService.blockUserCards(1L);
 
-        verify(cardService).blockUserCards(user);
+        verify(cardService).blockUserCards(1L);
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
     void blockUserCards_userNotFound() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(false);
 
         assertThrows(UserNotFoundException.class, () -> {
             userService.blockUserCards(1L);
@@ -191,6 +247,7 @@ class UserServiceTest {
         userService.changeUserStatus(1L, UserStatus.BLOCKED);
 
         verify(userRepository).updateUserStatus(1L, UserStatus.BLOCKED);
+        verify(eventPublisher).publishEvent(new UserChangedEvent(1L));
     }
 
     @Test
@@ -201,4 +258,9 @@ class UserServiceTest {
             userService.changeUserStatus(1L, UserStatus.BLOCKED);
         });
     }
+
+    private static UserDto userDto() {
+        return new UserDto(1L, "name", "lastName", "surname", "admin@example.com", UserStatus.ACTIVE, Role.ADMIN,
+                LocalDateTime.of(2025, 1, 1, 12, 0));
+    }
 }
@@ -0,0 +1,76 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.AEADBadTagException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardCipherEngineTest {
+
+    private CardCipherEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new CardCipherEngine(
+                "12345678901234567890123456789012".getBytes(StandardCharsets.UTF_8),
+                "abcdefghijabcdefghijabcdefghijab".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void encrypt_decrypt_bytes() throws Exception {
+        byte[] input = "1234567812345678".getBytes(StandardCharsets.UTF_8);
+
+        byte[] encrypted = engine.encrypt(input);
+        byte[] decrypted = engine.decrypt(encrypted, 0, encrypted.length);
+
+        assertEquals(CardCipherEngine.IV_LENGTH + input.length + CardCipherEngine.TAG_LENGTH, encrypted.length);
+        assertArrayEquals(input, decrypted);
+    }
+
+    @Test
+    void encrypt_usesFreshIv() throws Exception {
+        byte[] input = "1234567812345678".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(Arrays.equals(engine.encrypt(input), engine.encrypt(input)));
+    }
+
+    @Test
+    void encrypt_decrypt_buffers() throws Exception {
+        var input = ByteBuffer.wrap("1234567812345678".getBytes(StandardCharsets.UTF_8));
+        var encrypted = ByteBuffer.allocateDirect(64);
+        var decrypted = ByteBuffer.allocate(64);
+
+        engine.encrypt(input, encrypted);
+        encrypted.flip();
+        int length = engine.decrypt(encrypted, decrypted);
+
+        assertEquals("1234567812345678", new String(decrypted.array(), 0, length, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decrypt_tooShort() {
+        assertThrows(AEADBadTagException.class, () -> engine.decrypt(new byte[8], 0, 8));
+    }
+
+    @Test
+    void encrypt_decrypt_onVirtualThread() throws Exception {
+        var result = new AtomicReference<String>();
+        var thread = Thread.ofVirtual().start(() -> {
+            try {
+                byte[] encrypted = engine.encrypt("virtual".getBytes(StandardCharsets.UTF_8));
+                result.set(new String(engine.decrypt(encrypted, 0, encrypted.length), StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.join();
+
+        assertEquals("virtual", result.get());
+    }
+}
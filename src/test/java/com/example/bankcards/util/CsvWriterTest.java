@@ -0,0 +1,44 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvWriterTest {
+
+    private final CsvWriter csvWriter = new CsvWriter();
+
+    @Test
+    void write_headerAndRows() throws Exception {
+        var out = new ByteArrayOutputStream();
+
+        var count = csvWriter.write(Stream.of(1, 2), List.of("id", "double"), value -> List.of(value, value * 2), out);
+
+        assertEquals(2, count);
+        assertEquals("id,double\r\n1,2\r\n2,4\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void write_quotesSpecialCharacters() throws Exception {
+        var out = new ByteArrayOutputStream();
+
+        csvWriter.write(Stream.of("a,b", "say \"hi\"", "two\nlines"), List.of("value"), List::of, out);
+
+        assertEquals("value\r\n\"a,b\"\r\n\"say \"\"hi\"\"\"\r\n\"two\nlines\"\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void write_neutralizesFormulasAndNulls() throws Exception {
+        var out = new ByteArrayOutputStream();
+
+        csvWriter.write(Stream.of("x"), List.of("a", "b", "c"), value -> Arrays.asList("=1+1", null, "@x"), out);
+
+        assertEquals("a,b,c\r\n'=1+1,,'@x\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorCodecTest {
+
+    @Test
+    void encode_decode_success() {
+        var timestamp = LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_897_000);
+
+        var cursor = CursorCodec.decode(CursorCodec.encode(timestamp, 42L));
+
+        assertEquals(timestamp, cursor.timestamp());
+        assertEquals(42L, cursor.id());
+    }
+
+    @Test
+    void decode_invalidCursor() {
+        assertThrows(InvalidCursorException.class, () -> CursorCodec.decode("not a cursor"));
+        assertThrows(InvalidCursorException.class, () -> CursorCodec.decode("bm90IGEgY3Vyc29y"));
+    }
+}
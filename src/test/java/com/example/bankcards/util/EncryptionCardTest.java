@@ -3,6 +3,9 @@ package com.example.bankcards.util;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.stream.IntStream;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EncryptionCardTest {
@@ -11,8 +14,9 @@ class EncryptionCardTest {
 
     @BeforeEach
     void setUp() {
-        encryptionCard = new EncryptionCard();
-        encryptionCard.secretKey = "12345678901234567890123456789012"; // 32-byte key
+        encryptionCard = new EncryptionCard(
+                "12345678901234567890123456789012", // 32-byte key
+                "abcdefghijabcdefghijabcdefghijab");
     }
 
     @Test
@@ -27,4 +31,22 @@ class EncryptionCardTest {
     void decrypt_invalidInput() {
         assertThrows(RuntimeException.class, () -> encryptionCard.decrypt("invalid input"));
     }
+
+    @Test
+    void hash_isDeterministic() {
+        String first = encryptionCard.hash("1234567812345678");
+        String second = encryptionCard.hash("1234567812345678");
+        assertEquals(first, second);
+        assertEquals(64, first.length());
+        assertNotEquals(first, encryptionCard.hash("8765432187654321"));
+    }
+
+    @Test
+    void decryptAll_preservesOrder() {
+        encryptionCard.batchThreshold = 8;
+        List<String> numbers = IntStream.range(0, 100).mapToObj(i -> String.format("%016d", i)).toList();
+        List<String> encrypted = numbers.stream().map(encryptionCard::encrypt).toList();
+
+        assertEquals(numbers, encryptionCard.decryptAll(encrypted));
+    }
 }
@@ -0,0 +1,43 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LuhnTest {
+
+    @Test
+    void isValid_knownNumbers() {
+        assertTrue(Luhn.isValid("4111111111111111"));
+        assertTrue(Luhn.isValid("79927398713"));
+        assertFalse(Luhn.isValid("4111111111111112"));
+        assertFalse(Luhn.isValid("79927398710"));
+    }
+
+    @Test
+    void isValid_rejectsNonDigits() {
+        assertFalse(Luhn.isValid(null));
+        assertFalse(Luhn.isValid("0"));
+        assertFalse(Luhn.isValid("4111 1111 1111 1111"));
+    }
+
+    @Test
+    void generate_keepsPrefixAndLength() {
+        var random = new SplittableRandom(42);
+        for (int i = 0; i < 1000; i++) {
+            var number = Luhn.generate("400000", 16, random);
+
+            assertEquals(16, number.length());
+            assertTrue(number.startsWith("400000"));
+            assertTrue(Luhn.isValid(number), number);
+        }
+    }
+
+    @Test
+    void generate_prefixTooLong() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Luhn.generate("1234567890123456", 16, new SplittableRandom()));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.bankcards.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonWriterTest {
+
+    private final NdjsonWriter ndjsonWriter = new NdjsonWriter(new ObjectMapper());
+
+    @Test
+    void write_oneValuePerLine() throws Exception {
+        var out = new ByteArrayOutputStream();
+
+        var count = ndjsonWriter.write(Stream.of(Map.of("id", 1), Map.of("id", 2)), out);
+
+        assertEquals(2, count);
+        assertEquals("{\"id\":1}\n{\"id\":2}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void write_emptyStream() throws Exception {
+        var out = new ByteArrayOutputStream();
+
+        assertEquals(0, ndjsonWriter.write(Stream.empty(), out));
+        assertEquals(0, out.size());
+    }
+}
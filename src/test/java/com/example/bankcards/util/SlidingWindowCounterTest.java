@@ -0,0 +1,81 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowCounterTest {
+
+    private final AtomicLong clock = new AtomicLong(Duration.ofDays(1).toMillis());
+    private final SlidingWindowCounter counter = new SlidingWindowCounter(1024, Duration.ofSeconds(60), clock::get);
+
+    @Test
+    void increment_countsPerKey() {
+        assertEquals(1, counter.increment("a"));
+        assertEquals(2, counter.increment("a"));
+        assertEquals(1, counter.increment("b"));
+        assertEquals(2, counter.estimate("a"));
+        assertEquals(0, counter.estimate("c"));
+    }
+
+    @Test
+    void estimate_weightsPreviousWindow() {
+        for (int i = 0; i < 10; i++) {
+            counter.increment("a");
+        }
+
+        clock.addAndGet(Duration.ofSeconds(75).toMillis());
+
+        assertEquals(7.5, counter.estimate("a"), 0.001);
+        assertEquals(8.5, counter.increment("a"), 0.001);
+    }
+
+    @Test
+    void estimate_forgetsOldWindows() {
+        counter.increment("a");
+
+        clock.addAndGet(Duration.ofSeconds(120).toMillis());
+
+        assertEquals(0, counter.estimate("a"));
+        assertEquals(1, counter.increment("a"));
+    }
+
+    @Test
+    void reset_forgetsKey() {
+        counter.increment("a");
+        counter.increment("a");
+        counter.increment("b");
+
+        counter.reset("a");
+
+        assertEquals(0, counter.estimate("a"));
+        assertEquals(1, counter.estimate("b"));
+        assertEquals(1, counter.increment("a"));
+    }
+
+    @Test
+    void increment_isThreadSafe() throws Exception {
+        var threads = 8;
+        var perThread = 1000;
+        var start = new CountDownLatch(1);
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        counter.increment("a");
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        assertEquals(threads * perThread, counter.estimate("a"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidBloomFilterTest {
+
+    @Test
+    void mightContain_addedValues() {
+        var filter = new UuidBloomFilter(1000, 0.01);
+        var values = new ArrayList<UUID>();
+        for (int i = 0; i < 1000; i++) {
+            var value = UUID.randomUUID();
+            values.add(value);
+            filter.put(value);
+        }
+
+        values.forEach(value -> assertTrue(filter.mightContain(value)));
+    }
+
+    @Test
+    void mightContain_falsePositiveRateIsBounded() {
+        var filter = new UuidBloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put(UUID.randomUUID());
+        }
+
+        var falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void mightContain_emptyFilter() {
+        assertFalse(new UuidBloomFilter(1000, 0.01).mightContain(UUID.randomUUID()));
+    }
+}